@@ -20,9 +20,10 @@ package repicea.simulation.allometrycalculator;
 
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+
+import repicea.simulation.covariateproviders.treelevel.DbhCmProvider;
 
 /**
  * This calculator provides the basic allometric features, such as the basal area, the mean quadratic diameter, etc.
@@ -32,6 +33,46 @@ public class AllometryCalculator {
 	
 	public final static double NumberOfTreesHaForDominantFeatures = 100d;
 	
+	/**
+	 * The minimum size of the collection for the parallel reduction in the getStandSummary method.
+	 */
+	public final static int MinimumNumberOfTreesForParallelReduction = 10000;
+	
+	/**
+	 * This method computes the basic stand features in a single pass over a collection of trees. 
+	 * @param trees a Collection object that should contain instances of LightAllometryCalculableTree
+	 * @return a StandSummary instance
+	 * @see StandSummary
+	 */
+	public StandSummary getStandSummary(Collection<? extends LightAllometryCalculableTree> trees) {
+		return getStandSummary(trees, false);
+	}
+	
+	/**
+	 * This method computes the basic stand features in a single pass over a collection of trees. <br>
+	 * <br>
+	 * If the parallel reduction is enabled and the collection contains at least 
+	 * MinimumNumberOfTreesForParallelReduction trees, the collection is split into chunks that are 
+	 * summarized in parallel. The order of the summation then differs and the results may differ from 
+	 * the sequential ones in the last digits.
+	 * @param trees a Collection object that should contain instances of LightAllometryCalculableTree
+	 * @param parallelEnabled true to allow for a parallel reduction
+	 * @return a StandSummary instance
+	 * @see StandSummary
+	 */
+	public StandSummary getStandSummary(Collection<? extends LightAllometryCalculableTree> trees, boolean parallelEnabled) {
+		checkCollection(trees);
+		if (parallelEnabled && trees.size() >= MinimumNumberOfTreesForParallelReduction) {
+			return trees.parallelStream().collect(StandSummary::new, StandSummary::add, StandSummary::merge);
+		} else {
+			StandSummary summary = new StandSummary();
+			for (LightAllometryCalculableTree t : trees) {
+				summary.add(t);
+			}
+			return summary;
+		}
+	}
+	
 	
 	/**
 	 * This method returns the mean quadratic diameter for a collection of trees. 
@@ -121,6 +162,135 @@ public class AllometryCalculator {
 	}
 	
 	
+	/**
+	 * This method returns the basal area of the trees larger than each tree of the collection. 
+	 * @param trees a Collection object that should contain instances of LightAllometryCalculableTree
+	 * @param plotAreaHa the area over which the trees were measured in ha (double)
+	 * @return an array of basal areas in m2/ha in the iteration order of the collection
+	 * @see AllometryCalculator#computeBasalAreaLargerAndSmallerThanSubjectM2Ha(Collection, double, double[], double[])
+	 */
+	public double[] getBasalAreaLargerThanSubjectM2Ha(Collection<? extends LightAllometryCalculableTree> trees, double plotAreaHa) {
+		checkCollection(trees);
+		double[] balM2Ha = new double[trees.size()];
+		computeBasalAreaLargerAndSmallerThanSubjectM2Ha(trees, plotAreaHa, balM2Ha, null);
+		return balM2Ha;
+	}
+
+	/**
+	 * This method returns the basal area of the trees smaller than each tree of the collection. The other trees
+	 * with the same dbh are included. 
+	 * @param trees a Collection object that should contain instances of LightAllometryCalculableTree
+	 * @param plotAreaHa the area over which the trees were measured in ha (double)
+	 * @return an array of basal areas in m2/ha in the iteration order of the collection
+	 * @see AllometryCalculator#computeBasalAreaLargerAndSmallerThanSubjectM2Ha(Collection, double, double[], double[])
+	 */
+	public double[] getBasalAreaSmallerThanSubjectM2Ha(Collection<? extends LightAllometryCalculableTree> trees, double plotAreaHa) {
+		checkCollection(trees);
+		double[] basM2Ha = new double[trees.size()];
+		computeBasalAreaLargerAndSmallerThanSubjectM2Ha(trees, plotAreaHa, null, basM2Ha);
+		return basM2Ha;
+	}
+	
+	/**
+	 * This method computes the basal area of the trees larger and smaller than each tree of 
+	 * the collection in O(n log n). <br>
+	 * <br>
+	 * The trees are sorted once by dbh and the basal areas are accumulated over groups of trees with the 
+	 * same dbh. The basal area of the larger trees only includes the trees whose dbh is strictly greater than 
+	 * that of the subject. The other trees with the same dbh as the subject are included in the basal area of the 
+	 * smaller trees so that, as in the BasalAreaSmallerThanSubjectM2HaProvider interface, this basal area is the plot 
+	 * basal area minus the basal area of the larger trees minus the basal area of the subject. The basal area of each tree is multiplied by its expansion factor 
+	 * and, as in the getBasalAreaM2 method, trees with a null dbh or a null expansion factor are ignored.
+	 * The results are written in the iteration order of the collection.
+	 * @param trees a Collection object that should contain instances of LightAllometryCalculableTree
+	 * @param plotAreaHa the area over which the trees were measured in ha (double)
+	 * @param balM2Ha an array that receives the basal area of larger trees in m2/ha (can be null)
+	 * @param basM2Ha an array that receives the basal area of smaller trees in m2/ha (can be null)
+	 */
+	public void computeBasalAreaLargerAndSmallerThanSubjectM2Ha(Collection<? extends LightAllometryCalculableTree> trees, 
+			double plotAreaHa, 
+			double[] balM2Ha, 
+			double[] basM2Ha) {
+		checkCollection(trees);
+		if (plotAreaHa <= 0) {
+			throw new InvalidParameterException("The plotAreaHa argument must be strictly positive!");
+		}
+		int n = trees.size();
+		if ((balM2Ha != null && balM2Ha.length < n) || (basM2Ha != null && basM2Ha.length < n)) {
+			throw new InvalidParameterException("The output arrays must be at least as long as the collection!");
+		}
+		IndexedTree[] sortedTrees = new IndexedTree[n];
+		int index = 0;
+		for (LightAllometryCalculableTree t : trees) {
+			double dbhCm = t.getDbhCm();
+			double basalAreaM2 = dbhCm > 0 && t.getNumber() > 0 ? t.getStemBasalAreaM2() * t.getNumber() : 0d;
+			sortedTrees[index] = new IndexedTree(index, dbhCm, basalAreaM2);
+			index++;
+		}
+		Arrays.sort(sortedTrees, new DbhComparator(false));	// largest trees first
+		
+		double areaFactor = 1d / plotAreaHa;
+		if (balM2Ha != null) {
+			double cumulativeBasalAreaM2 = 0d;
+			int groupStart = 0;
+			while (groupStart < n) {
+				int groupEnd = getEndOfGroup(sortedTrees, groupStart, 1);
+				double groupBasalAreaM2 = 0d;
+				for (int i = groupStart; i < groupEnd; i++) {
+					balM2Ha[sortedTrees[i].index] = cumulativeBasalAreaM2 * areaFactor;
+					groupBasalAreaM2 += sortedTrees[i].basalAreaM2;
+				}
+				cumulativeBasalAreaM2 += groupBasalAreaM2;
+				groupStart = groupEnd;
+			}
+		}
+		if (basM2Ha != null) {
+			double cumulativeBasalAreaM2 = 0d;
+			int groupStart = n - 1;
+			while (groupStart >= 0) {
+				int groupEnd = getEndOfGroup(sortedTrees, groupStart, -1);
+				double groupBasalAreaM2 = 0d;
+				for (int i = groupStart; i > groupEnd; i--) {
+					groupBasalAreaM2 += sortedTrees[i].basalAreaM2;
+				}
+				for (int i = groupStart; i > groupEnd; i--) {	// the other trees of the group are included
+					basM2Ha[sortedTrees[i].index] = (cumulativeBasalAreaM2 + groupBasalAreaM2 - sortedTrees[i].basalAreaM2) * areaFactor;
+				}
+				cumulativeBasalAreaM2 += groupBasalAreaM2;
+				groupStart = groupEnd;
+			}
+		}
+	}
+
+	/*
+	 * Return the index that follows the last tree with the same dbh as the tree at position start. 
+	 */
+	private static int getEndOfGroup(IndexedTree[] sortedTrees, int start, int step) {
+		int end = start + step;
+		while (end >= 0 && end < sortedTrees.length && sortedTrees[end].dbhCm == sortedTrees[start].dbhCm) {
+			end += step;
+		}
+		return end;
+	}
+	
+	/**
+	 * A light copy of a tree that keeps track of its position in the original collection.
+	 */
+	private static final class IndexedTree implements DbhCmProvider {
+		private final int index;
+		private final double dbhCm;
+		private final double basalAreaM2;
+		
+		private IndexedTree(int index, double dbhCm, double basalAreaM2) {
+			this.index = index;
+			this.dbhCm = dbhCm;
+			this.basalAreaM2 = basalAreaM2;
+		}
+
+		@Override
+		public double getDbhCm() {return dbhCm;}
+	}
+	
 	/**
 	 * This method computes the commercial volume for a collection of commercial trees.
 	 * NOTE: The commercial volume is defined as the  volume for trees that are equal to or greater than 
@@ -169,14 +339,12 @@ public class AllometryCalculator {
 	 * @param plotAreaHa the area over which the trees were measured in ha (double)
 	 * @param weighted true to enable the plot weighting or false otherwise
 	 * @return the dominant height in m (double)
+	 * @see AllometryCalculator#getDominantFeatures(Collection, double, boolean)
 	 */
 	public double getDominantHeightM(Collection<? extends AllometryCalculableTree> trees,
 			double plotAreaHa,
 			boolean weighted) {
-		
-		checkCollection(trees);
-
-		return getDominantFeature(trees, plotAreaHa, true, weighted);
+		return getDominantFeatures(trees, plotAreaHa, weighted, true, false).getDominantHeightM();
 	}
 	
 	
@@ -186,132 +354,230 @@ public class AllometryCalculator {
 	 * @param plotAreaHa the area over which the trees were measured in ha (double)
 	 * @param weighted true to enable the plot weighting or false otherwise
 	 * @return the dominant diameter in cm (double)
+	 * @see AllometryCalculator#getDominantFeatures(Collection, double, boolean)
 	 */
 	public double getDominantDiameterCM(Collection<? extends AllometryCalculableTree> trees,
 			double plotAreaHa,
 			boolean weighted) {
-		
-		checkCollection(trees);
-
-		return getDominantFeature(trees, plotAreaHa, false, weighted);
+		return getDominantFeatures(trees, plotAreaHa, weighted, false, true).getDominantDiameterCm();
 	}
 
 	
-	
-	
 	/**
-	 * This method returns a dominant feature defined by the method parameter.
-	 * @param trees collection of AllometryCalculableTree instances
-	 * @param plotAreaHa the plot area in ha (double)
-	 * @param height true to get the dominant height or false to get the dominant diameter
-	 * @param weighted true to weight the dominant feature by the plot weight or false to use a default weight of 1.0
-	 * @return the dominant feature (double)
+	 * This method returns the dominant height and the dominant diameter for the trees contained in 
+	 * the trees collection. <br>
+	 * <br>
+	 * The largest trees are selected through a bounded heap, which only retains the trees that are 
+	 * needed to reach the number of trees for dominant features. There is no copy or sort of the 
+	 * whole collection. 
+	 * @param trees the Collection object that contains instances of AllometryCalculableTree
+	 * @param plotAreaHa the area over which the trees were measured in ha (double)
+	 * @param weighted true to weight the dominant features by the plot weight or false to use a default weight of 1.0
+	 * @return a DominantFeatures instance
 	 */
-	private double getDominantFeature(Collection<? extends AllometryCalculableTree> trees,
+	public DominantFeatures getDominantFeatures(Collection<? extends AllometryCalculableTree> trees,
 			double plotAreaHa,
-			boolean height,
 			boolean weighted) {		
-		
-		List<AllometryCalculableTree> copyList = new ArrayList<AllometryCalculableTree>();
-		copyList.addAll(trees);
-		Collections.sort(copyList, new DbhComparator());
+		return getDominantFeatures(trees, plotAreaHa, weighted, true, true);
+	}
 
-		double domFeature = 0;
-		double numberRepresentedByThisTree;
-		double numberAdd;
-		double numberTreesSoFar = 0;
+	/*
+	 * The features that are not required are not computed and they are set to Double.NaN.
+	 */
+	private DominantFeatures getDominantFeatures(Collection<? extends AllometryCalculableTree> trees,
+			double plotAreaHa,
+			boolean weighted,
+			boolean heightRequired,
+			boolean diameterRequired) {		
+		
+		checkCollection(trees);
+		
+		double numberOfTreesPerHectareForDominance = getNumberOfTreesPerHectareForDominance(plotAreaHa);
+		if (numberOfTreesPerHectareForDominance <= 0) {
+			return new DominantFeatures(0d, 0d);
+		}
+		
 		double areaFactor = 1d / plotAreaHa;
 		double weightingFactor;
-		double numberOfTreesPerHectareForDominance = NumberOfTreesHaForDominantFeatures;
-
-		if (plotAreaHa < 0.5) {
-			numberOfTreesPerHectareForDominance = (NumberOfTreesHaForDominantFeatures * plotAreaHa - 1) / plotAreaHa;
-		} 		
-		
-		while (!copyList.isEmpty() && numberTreesSoFar < numberOfTreesPerHectareForDominance) {
-			AllometryCalculableTree tree = copyList.remove(copyList.size() - 1);	// we remove the last element of the list, ie the largest tree
+		// a tiny margin prevents the eviction of a tree that is actually needed because of rounding errors
+		double evictionThreshold = numberOfTreesPerHectareForDominance * (1d + 1E-9);
+		DominantTreeHeap heap = new DominantTreeHeap();
+		int rank = 0;
+		for (AllometryCalculableTree tree : trees) {
 			if (tree.getNumber() > 0) {
 				if (weighted) {
 					weightingFactor = tree.getPlotWeight();
 				} else {
 					weightingFactor = 1d;
 				}
-				
-				numberRepresentedByThisTree = tree.getNumber() * areaFactor * weightingFactor;
-				
-				if (numberTreesSoFar + numberRepresentedByThisTree <= numberOfTreesPerHectareForDominance) {
-					numberAdd = numberRepresentedByThisTree;
-				} else {
-					numberAdd = numberOfTreesPerHectareForDominance - numberTreesSoFar; // add the remaining part
-				}
-				
-				if (height) {
-					domFeature += tree.getHeightM() * numberAdd;
-				} else {
-					domFeature += tree.getSquaredDbhCm() * numberAdd;
+				heap.offer(tree, tree.getDbhCm(), rank, tree.getNumber() * areaFactor * weightingFactor);
+				while (heap.size() > 1 && heap.getTotalNumber() - heap.peekNumber() >= evictionThreshold) {
+					heap.poll();		// the smallest tree is not needed
 				}
-				
-				numberTreesSoFar += numberAdd;
 			}
+			rank++;
 		}
 
-		if (numberTreesSoFar > 0) {
-			domFeature /= numberTreesSoFar;
-			if (height) {
-				return domFeature;
+		int k = heap.size();
+		AllometryCalculableTree[] selectedTrees = new AllometryCalculableTree[k];
+		double[] numbers = new double[k];
+		for (int i = k - 1; i >= 0; i--) {		// the heap is emptied from the smallest to the largest tree
+			selectedTrees[i] = heap.peekTree();
+			numbers[i] = heap.peekNumber();
+			heap.poll();
+		}
+		
+		return computeDominantFeatures(selectedTrees, numbers, k, numberOfTreesPerHectareForDominance, heightRequired, diameterRequired);
+	}
+
+	/**
+	 * Provide the number of trees per hectare on which the dominant features are computed. This number is 
+	 * corrected for plots smaller than 0.5 ha.
+	 * @param plotAreaHa the plot area in ha (double)
+	 * @return a double
+	 */
+	static double getNumberOfTreesPerHectareForDominance(double plotAreaHa) {
+		if (plotAreaHa < 0.5) {
+			return (NumberOfTreesHaForDominantFeatures * plotAreaHa - 1) / plotAreaHa;
+		} else {
+			return NumberOfTreesHaForDominantFeatures;
+		}
+	}
+	
+	/**
+	 * Compute the dominant features from the largest trees.
+	 * @param selectedTrees the largest trees sorted in descending order of dbh
+	 * @param numbers the number of trees per hectare represented by each selected tree
+	 * @param k the number of selected trees
+	 * @param numberOfTreesPerHectareForDominance the number of trees per hectare for dominant features
+	 * @param heightRequired true to compute the dominant height or false to set it to Double.NaN
+	 * @param diameterRequired true to compute the dominant diameter or false to set it to Double.NaN
+	 * @return a DominantFeatures instance
+	 */
+	static DominantFeatures computeDominantFeatures(AllometryCalculableTree[] selectedTrees, 
+			double[] numbers, 
+			int k, 
+			double numberOfTreesPerHectareForDominance,
+			boolean heightRequired,
+			boolean diameterRequired) {
+		double domHeight = 0;
+		double domSquaredDiameter = 0;
+		double numberAdd;
+		double numberTreesSoFar = 0;
+		int i = 0;
+		while (i < k && numberTreesSoFar < numberOfTreesPerHectareForDominance) {
+			AllometryCalculableTree tree = selectedTrees[i];
+			if (numberTreesSoFar + numbers[i] <= numberOfTreesPerHectareForDominance) {
+				numberAdd = numbers[i];
 			} else {
-				return Math.sqrt(domFeature);	// dominant mean diameter is actually the quadratic diameter
+				numberAdd = numberOfTreesPerHectareForDominance - numberTreesSoFar; // add the remaining part
+			}
+			if (heightRequired) {
+				domHeight += tree.getHeightM() * numberAdd;
+			}
+			if (diameterRequired) {
+				domSquaredDiameter += tree.getSquaredDbhCm() * numberAdd;
 			}
+			numberTreesSoFar += numberAdd;
+			i++;
+		}
+
+		if (numberTreesSoFar > 0) {
+			return new DominantFeatures(heightRequired ? domHeight / numberTreesSoFar : Double.NaN, 
+					diameterRequired ? Math.sqrt(domSquaredDiameter / numberTreesSoFar) : Double.NaN);	// dominant mean diameter is actually the quadratic diameter
 		} else {
-			return 0d;		// there is no tree at all
+			return new DominantFeatures(0d, 0d);		// there is no tree at all
 		}
-		
-//		double dom = 0;
-//		double numberAdd;
-//		double numberTreesSoFar = 0;
-//		double areaFactor = 10000d / plotArea;
-//		double[][] values = new double[2][trees.size()];
-//		double weightingFactor;
-//		int iter = 0;
-//		if (!trees.isEmpty()) {
-//			for (AllometryCalculableTree t : trees) {
-//				if (t.getNumber() > 0) {
-//					if (weighted) {
-//						weightingFactor = t.getPlotWeight();
-//					} else {
-//						weightingFactor = 1d;
-//					}
-//					if (height) {
-//						values[0][iter] = t.getHeightM();
-//					} else {
-//						values[0][iter] = t.getDbhCm();
-//					}
-//					values[1][iter] = t.getNumber() * areaFactor * weightingFactor;
-//					iter++;
-//				}
-//			}
-//			double denum = (double) 1 / numberOfTreesPerHectareForDominance;
-//			int pointer = -1;
-//			while (ObjectUtility.isThereAnyElementDifferentFrom(values[0],-1d) && numberTreesSoFar < numberOfTreesPerHectareForDominance) {
-//				pointer = ObjectUtility.findMaxInAnArrayOfDouble(values[0]);
-//
-//				if (numberTreesSoFar + values[1][pointer] <= numberOfTreesPerHectareForDominance) {
-//					numberAdd = values[1][pointer];
-//				} else {
-//					numberAdd = numberOfTreesPerHectareForDominance
-//							- numberTreesSoFar; // add the remaining part
-//				}
-//
-//				numberTreesSoFar += numberAdd;
-//
-//				dom += values[0][pointer] * numberAdd * denum;
-//
-//				values[0][pointer] = -1d;
-//			} 
-//		}
-//		return dom;
 	}
 
+	/**
+	 * A binary min-heap of trees ordered by dbh. Ties are ordered by rank in the 
+	 * original collection so that the selection is consistent with a stable sort.
+	 */
+	private static final class DominantTreeHeap {
+		
+		private AllometryCalculableTree[] trees = new AllometryCalculableTree[16];
+		private double[] dbhCm = new double[16];
+		private int[] ranks = new int[16];
+		private double[] numbers = new double[16];
+		private int size;
+		private double totalNumber;
+		
+		private int size() {return size;}
+		
+		private double getTotalNumber() {return totalNumber;}
+		
+		private AllometryCalculableTree peekTree() {return trees[0];}
+
+		private double peekNumber() {return numbers[0];}
+		
+		private void offer(AllometryCalculableTree tree, double dbh, int rank, double number) {
+			if (size == trees.length) {
+				int newLength = size * 2;
+				trees = Arrays.copyOf(trees, newLength);
+				dbhCm = Arrays.copyOf(dbhCm, newLength);
+				ranks = Arrays.copyOf(ranks, newLength);
+				numbers = Arrays.copyOf(numbers, newLength);
+			}
+			set(size, tree, dbh, rank, number);
+			totalNumber += number;
+			int child = size++;
+			while (child > 0) {
+				int parent = (child - 1) >>> 1;
+				if (isSmaller(child, parent)) {
+					swap(child, parent);
+					child = parent;
+				} else {
+					break;
+				}
+			}
+		}
+		
+		private void poll() {
+			totalNumber -= numbers[0];
+			size--;
+			set(0, trees[size], dbhCm[size], ranks[size], numbers[size]);
+			trees[size] = null;
+			int parent = 0;
+			while (true) {
+				int smallest = parent;
+				int left = 2 * parent + 1;
+				int right = left + 1;
+				if (left < size && isSmaller(left, smallest)) {
+					smallest = left;
+				}
+				if (right < size && isSmaller(right, smallest)) {
+					smallest = right;
+				}
+				if (smallest == parent) {
+					break;
+				}
+				swap(parent, smallest);
+				parent = smallest;
+			}
+		}
+		
+		private boolean isSmaller(int i, int j) {
+			return dbhCm[i] < dbhCm[j] || (dbhCm[i] == dbhCm[j] && ranks[i] < ranks[j]);
+		}
+		
+		private void set(int i, AllometryCalculableTree tree, double dbh, int rank, double number) {
+			trees[i] = tree;
+			dbhCm[i] = dbh;
+			ranks[i] = rank;
+			numbers[i] = number;
+		}
+		
+		private void swap(int i, int j) {
+			AllometryCalculableTree tree = trees[i];
+			double dbh = dbhCm[i];
+			int rank = ranks[i];
+			double number = numbers[i];
+			set(i, trees[j], dbhCm[j], ranks[j], numbers[j]);
+			set(j, tree, dbh, rank, number);
+		}
+	}
+	
 	private void checkCollection(Collection<? extends LightAllometryCalculableTree> trees) {
 		if (trees == null) {
 			throw new InvalidParameterException("Collection trees is null!");
@@ -0,0 +1,50 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.allometrycalculator;
+
+/**
+ * The DominantFeatures class holds the dominant height and the dominant diameter, which 
+ * are computed from the same selection of trees.
+ * @author Mathieu Fortin - October 2026
+ * @see AllometryCalculator#getDominantFeatures(java.util.Collection, double, boolean)
+ */
+public final class DominantFeatures {
+
+	private final double dominantHeightM;
+	private final double dominantDiameterCm;
+	
+	DominantFeatures(double dominantHeightM, double dominantDiameterCm) {
+		this.dominantHeightM = dominantHeightM;
+		this.dominantDiameterCm = dominantDiameterCm;
+	}
+	
+	/**
+	 * Provide the dominant height.
+	 * @return the dominant height in m (double)
+	 */
+	public double getDominantHeightM() {return dominantHeightM;}
+	
+	/**
+	 * Provide the dominant diameter, that is the quadratic mean diameter of the dominant trees.
+	 * @return the dominant diameter in cm (double)
+	 */
+	public double getDominantDiameterCm() {return dominantDiameterCm;}
+	
+}
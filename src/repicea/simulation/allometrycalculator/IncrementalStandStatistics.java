@@ -0,0 +1,273 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.allometrycalculator;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+import repicea.simulation.covariateproviders.treelevel.TreeStatusProvider.StatusClass;
+
+/**
+ * The IncrementalStandStatistics class maintains the number of trees, the basal area and the
+ * mean quadratic diameter of a stand as trees are added, removed or updated. <br>
+ * <br>
+ * Each change costs O(1) for the sums and O(log n) for the ordered set of trees that serves
+ * the dominant features. The values of each tree are recorded when the tree is added or updated.
+ * Consequently, the updateTree method must be called whenever the dbh or the expansion factor of a tree
+ * changes, and the statusChanged method whenever the status of a tree changes. The sums are
+ * consistent with those of the AllometryCalculator class. Since they are updated through
+ * additions and subtractions, the reset method can be called from time to time to get rid of
+ * the rounding errors.
+ * @author Mathieu Fortin - October 2026
+ */
+public class IncrementalStandStatistics {
+
+	private static class TrackedTree {
+		private final LightAllometryCalculableTree tree;
+		private final long serial;
+		private double dbhCm;
+		private double squaredDbhCm;
+		private double number;
+		private double basalAreaM2;
+
+		private TrackedTree(LightAllometryCalculableTree tree, long serial) {
+			this.tree = tree;
+			this.serial = serial;
+		}
+
+		private void record() {
+			dbhCm = tree.getDbhCm();
+			squaredDbhCm = tree.getSquaredDbhCm();
+			number = tree.getNumber();
+			basalAreaM2 = tree.getStemBasalAreaM2();
+		}
+	}
+
+	private static final Comparator<TrackedTree> DbhOrder = new Comparator<TrackedTree>() {
+		@Override
+		public int compare(TrackedTree o1, TrackedTree o2) {
+			int comparison = Double.compare(o1.dbhCm, o2.dbhCm);
+			if (comparison == 0) {
+				comparison = Long.compare(o1.serial, o2.serial);
+			}
+			return comparison;
+		}
+	};
+
+	private final Map<LightAllometryCalculableTree, TrackedTree> trackedTrees;
+	private final TreeSet<TrackedTree> orderedTrees;
+	private long nextSerial;
+
+	private double numberOfTrees;
+	private double numberForMeanQuadraticDiameter;
+	private double sumND2;
+	private double basalAreaM2;
+
+	/**
+	 * Constructor for an empty stand.
+	 */
+	public IncrementalStandStatistics() {
+		trackedTrees = new IdentityHashMap<LightAllometryCalculableTree, TrackedTree>();
+		orderedTrees = new TreeSet<TrackedTree>(DbhOrder);
+	}
+
+	/**
+	 * Constructor.
+	 * @param trees a Collection of LightAllometryCalculableTree instances
+	 */
+	public IncrementalStandStatistics(Collection<? extends LightAllometryCalculableTree> trees) {
+		this();
+		reset(trees);
+	}
+
+	/**
+	 * Clear the statistics and add all the trees of the collection.
+	 * @param trees a Collection of LightAllometryCalculableTree instances
+	 */
+	public void reset(Collection<? extends LightAllometryCalculableTree> trees) {
+		if (trees == null) {
+			throw new InvalidParameterException("Collection trees is null!");
+		}
+		trackedTrees.clear();
+		orderedTrees.clear();
+		numberOfTrees = 0;
+		numberForMeanQuadraticDiameter = 0;
+		sumND2 = 0;
+		basalAreaM2 = 0;
+		for (LightAllometryCalculableTree t : trees) {
+			addTree(t);
+		}
+	}
+
+	/**
+	 * Add a tree to the stand. Nothing happens if the tree is already in the stand.
+	 * @param tree a LightAllometryCalculableTree instance
+	 */
+	public void addTree(LightAllometryCalculableTree tree) {
+		if (!trackedTrees.containsKey(tree)) {
+			TrackedTree trackedTree = new TrackedTree(tree, nextSerial++);
+			trackedTree.record();
+			trackedTrees.put(tree, trackedTree);
+			orderedTrees.add(trackedTree);
+			addContribution(trackedTree, 1d);
+		}
+	}
+
+	/**
+	 * Remove a tree from the stand. Nothing happens if the tree is not in the stand.
+	 * @param tree a LightAllometryCalculableTree instance
+	 */
+	public void removeTree(LightAllometryCalculableTree tree) {
+		TrackedTree trackedTree = trackedTrees.remove(tree);
+		if (trackedTree != null) {
+			orderedTrees.remove(trackedTree);
+			addContribution(trackedTree, -1d);
+		}
+	}
+
+	/**
+	 * Update the statistics after the dbh or the expansion factor of a tree has changed.
+	 * @param tree a LightAllometryCalculableTree instance
+	 */
+	public void updateTree(LightAllometryCalculableTree tree) {
+		TrackedTree trackedTree = trackedTrees.get(tree);
+		if (trackedTree != null) {
+			orderedTrees.remove(trackedTree);
+			addContribution(trackedTree, -1d);
+			trackedTree.record();
+			orderedTrees.add(trackedTree);
+			addContribution(trackedTree, 1d);
+		}
+	}
+
+	/**
+	 * Update the statistics after a change of status. Only living trees are part of the stand.
+	 * This method is typically called with the former and the new status after the
+	 * TreeStatusProvider.setStatusClass method has been called.
+	 * @param tree a LightAllometryCalculableTree instance
+	 * @param formerStatus the former StatusClass enum
+	 * @param newStatus the new StatusClass enum
+	 */
+	public void statusChanged(LightAllometryCalculableTree tree, StatusClass formerStatus, StatusClass newStatus) {
+		if (formerStatus == StatusClass.alive && newStatus != StatusClass.alive) {
+			removeTree(tree);
+		} else if (formerStatus != StatusClass.alive && newStatus == StatusClass.alive) {
+			addTree(tree);
+		}
+	}
+
+	private void addContribution(TrackedTree trackedTree, double sign) {
+		if (trackedTree.dbhCm > 0) {
+			numberOfTrees += sign * trackedTree.number;
+			if (trackedTree.number > 0) {
+				numberForMeanQuadraticDiameter += sign * trackedTree.number;
+				sumND2 += sign * trackedTree.number * trackedTree.squaredDbhCm;
+				basalAreaM2 += sign * trackedTree.basalAreaM2 * trackedTree.number;
+			}
+		}
+	}
+
+	/**
+	 * Provide the number of trees in the stand.
+	 * @return the number of trees (double)
+	 * @see AllometryCalculator#getNumberOfTrees(Collection)
+	 */
+	public double getNumberOfTrees() {return numberOfTrees;}
+
+	/**
+	 * Provide the basal area of the stand.
+	 * @return the basal area in m2 (double)
+	 * @see AllometryCalculator#getBasalAreaM2(Collection)
+	 */
+	public double getBasalAreaM2() {return basalAreaM2;}
+
+	/**
+	 * Provide the mean quadratic diameter of the stand.
+	 * @return the mean quadratic diameter in cm (double)
+	 * @see AllometryCalculator#getMeanQuadraticDiameterCm(Collection)
+	 */
+	public double getMeanQuadraticDiameterCm() {
+		if (numberForMeanQuadraticDiameter > 0 && sumND2 > 0) {
+			return Math.sqrt(sumND2 / numberForMeanQuadraticDiameter);
+		} else {
+			return 0d;
+		}
+	}
+
+	/**
+	 * Provide the number of trees that are tracked.
+	 * @return an integer
+	 */
+	public int size() {return trackedTrees.size();}
+
+	/**
+	 * Provide the dominant height and the dominant diameter of the stand. <br>
+	 * <br>
+	 * The trees are read from the largest to the smallest until the number of trees for
+	 * dominant features is reached. All the trees must implement the AllometryCalculableTree interface.
+	 * @param plotAreaHa the area over which the trees were measured in ha (double)
+	 * @param weighted true to weight the dominant features by the plot weight or false to use a default weight of 1.0
+	 * @return a DominantFeatures instance
+	 * @see AllometryCalculator#getDominantFeatures(Collection, double, boolean)
+	 */
+	public DominantFeatures getDominantFeatures(double plotAreaHa, boolean weighted) {
+		double numberOfTreesPerHectareForDominance = AllometryCalculator.getNumberOfTreesPerHectareForDominance(plotAreaHa);
+		if (numberOfTreesPerHectareForDominance <= 0) {
+			return new DominantFeatures(0d, 0d);
+		}
+		double areaFactor = 1d / plotAreaHa;
+		ArrayList<AllometryCalculableTree> selectedTrees = new ArrayList<AllometryCalculableTree>();
+		ArrayList<Double> numbers = new ArrayList<Double>();
+		double numberTreesSoFar = 0;
+		Iterator<TrackedTree> iter = orderedTrees.descendingIterator();
+		while (iter.hasNext() && numberTreesSoFar < numberOfTreesPerHectareForDominance) {
+			TrackedTree trackedTree = iter.next();
+			if (trackedTree.number > 0) {
+				if (!(trackedTree.tree instanceof AllometryCalculableTree)) {
+					throw new InvalidParameterException("The dominant features require trees that implement the AllometryCalculableTree interface!");
+				}
+				AllometryCalculableTree tree = (AllometryCalculableTree) trackedTree.tree;
+				double weightingFactor = weighted ? tree.getPlotWeight() : 1d;
+				double number = trackedTree.number * areaFactor * weightingFactor;
+				selectedTrees.add(tree);
+				numbers.add(number);
+				numberTreesSoFar += number;
+			}
+		}
+		int k = selectedTrees.size();
+		double[] numberArray = new double[k];
+		for (int i = 0; i < k; i++) {
+			numberArray[i] = numbers.get(i);
+		}
+		return AllometryCalculator.computeDominantFeatures(selectedTrees.toArray(new AllometryCalculableTree[k]),
+				numberArray,
+				k,
+				numberOfTreesPerHectareForDominance,
+				true,
+				true);
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.allometrycalculator;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import repicea.simulation.covariateproviders.treelevel.CommercialVolumeM3Provider;
+import repicea.simulation.covariateproviders.treelevel.SpeciesTypeProvider;
+import repicea.simulation.covariateproviders.treelevel.SpeciesTypeProvider.SpeciesType;
+import repicea.simulation.covariateproviders.treelevel.TotalVolumeM3Provider;
+
+/**
+ * The StandSummary class accumulates the basic stand features in a single pass over
+ * a collection of trees. <br>
+ * <br>
+ * The features are those of the AllometryCalculator class, that is the number of trees,
+ * the basal area, the mean quadratic diameter and the commercial and total volumes. The volumes
+ * are only accumulated for trees that implement the CommercialVolumeM3Provider and the TotalVolumeM3Provider
+ * interfaces. The features are also broken down by species type for the trees that implement the
+ * SpeciesTypeProvider interface.
+ * @author Mathieu Fortin - October 2026
+ * @see AllometryCalculator#getStandSummary(java.util.Collection, boolean)
+ */
+public class StandSummary {
+
+	private double numberOfTrees;
+	private double numberForMeanQuadraticDiameter;
+	private double sumND2;
+	private double basalAreaM2;
+	private double commercialVolumeM3;
+	private double totalVolumeM3;
+
+	private final Map<SpeciesType, StandSummary> speciesTypeSummaries;
+
+	/**
+	 * Constructor for an empty summary.
+	 */
+	StandSummary() {
+		this(true);
+	}
+
+	private StandSummary(boolean bySpeciesType) {
+		speciesTypeSummaries = bySpeciesType ? new EnumMap<SpeciesType, StandSummary>(SpeciesType.class) : null;
+	}
+
+	/**
+	 * Add a tree to the summary.
+	 * @param t a LightAllometryCalculableTree instance
+	 */
+	void add(LightAllometryCalculableTree t) {
+		double dbhCm = t.getDbhCm();
+		double n = t.getNumber();
+		if (dbhCm > 0) {
+			numberOfTrees += n;
+			if (n > 0) {
+				numberForMeanQuadraticDiameter += n;
+				sumND2 += n * t.getSquaredDbhCm();
+				basalAreaM2 += t.getStemBasalAreaM2() * n;
+			}
+		}
+		if (n > 0) {
+			if (t instanceof CommercialVolumeM3Provider) {
+				commercialVolumeM3 += ((CommercialVolumeM3Provider) t).getCommercialVolumeM3() * n;
+			}
+			if (t instanceof TotalVolumeM3Provider) {
+				totalVolumeM3 += ((TotalVolumeM3Provider) t).getTotalVolumeM3() * n;
+			}
+		}
+		if (speciesTypeSummaries != null && t instanceof SpeciesTypeProvider) {
+			SpeciesType speciesType = ((SpeciesTypeProvider) t).getSpeciesType();
+			if (speciesType != null) {
+				StandSummary subSummary = speciesTypeSummaries.get(speciesType);
+				if (subSummary == null) {
+					subSummary = new StandSummary(false);
+					speciesTypeSummaries.put(speciesType, subSummary);
+				}
+				subSummary.add(t);
+			}
+		}
+	}
+
+	/**
+	 * Merge another summary into this one. Used for parallel reduction.
+	 * @param summary a StandSummary instance
+	 */
+	void merge(StandSummary summary) {
+		numberOfTrees += summary.numberOfTrees;
+		numberForMeanQuadraticDiameter += summary.numberForMeanQuadraticDiameter;
+		sumND2 += summary.sumND2;
+		basalAreaM2 += summary.basalAreaM2;
+		commercialVolumeM3 += summary.commercialVolumeM3;
+		totalVolumeM3 += summary.totalVolumeM3;
+		if (speciesTypeSummaries != null && summary.speciesTypeSummaries != null) {
+			for (SpeciesType speciesType : summary.speciesTypeSummaries.keySet()) {
+				StandSummary subSummary = speciesTypeSummaries.get(speciesType);
+				if (subSummary == null) {
+					subSummary = new StandSummary(false);
+					speciesTypeSummaries.put(speciesType, subSummary);
+				}
+				subSummary.merge(summary.speciesTypeSummaries.get(speciesType));
+			}
+		}
+	}
+
+	/**
+	 * Provide the number of trees.
+	 * @return the number of trees (double)
+	 * @see AllometryCalculator#getNumberOfTrees(java.util.Collection)
+	 */
+	public double getNumberOfTrees() {return numberOfTrees;}
+
+	/**
+	 * Provide the basal area.
+	 * @return the basal area in m2 (double)
+	 * @see AllometryCalculator#getBasalAreaM2(java.util.Collection)
+	 */
+	public double getBasalAreaM2() {return basalAreaM2;}
+
+	/**
+	 * Provide the mean quadratic diameter.
+	 * @return the mean quadratic diameter in cm (double)
+	 * @see AllometryCalculator#getMeanQuadraticDiameterCm(java.util.Collection)
+	 */
+	public double getMeanQuadraticDiameterCm() {
+		if (numberForMeanQuadraticDiameter > 0) {
+			return Math.sqrt(sumND2 / numberForMeanQuadraticDiameter);
+		} else {
+			return 0d;
+		}
+	}
+
+	/**
+	 * Provide the commercial volume.
+	 * @return the commercial volume in m3 (double)
+	 * @see AllometryCalculator#getCommercialVolumeM3(java.util.Collection)
+	 */
+	public double getCommercialVolumeM3() {return commercialVolumeM3;}
+
+	/**
+	 * Provide the total volume.
+	 * @return the total volume in m3 (double)
+	 * @see AllometryCalculator#getTotalVolumeM3(java.util.Collection)
+	 */
+	public double getTotalVolumeM3() {return totalVolumeM3;}
+
+	/**
+	 * Provide the summary of the trees of a particular species type.
+	 * @param speciesType a SpeciesType enum
+	 * @return a StandSummary instance, which is empty if there is no tree of this species type
+	 */
+	public StandSummary getSummary(SpeciesType speciesType) {
+		if (speciesTypeSummaries != null && speciesTypeSummaries.containsKey(speciesType)) {
+			return speciesTypeSummaries.get(speciesType);
+		} else {
+			return new StandSummary(false);
+		}
+	}
+
+}
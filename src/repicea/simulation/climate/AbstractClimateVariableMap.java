@@ -0,0 +1,218 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climate;
+
+import java.io.Serializable;
+import java.security.InvalidParameterException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import repicea.simulation.climate.REpiceaClimateVariableMap.ClimateVariable;
+
+/**
+ * The AbstractClimateVariableMap class is a map whose keys are ClimateVariable enums. <br>
+ * <br>
+ * The values are stored in a primitive array indexed by the ordinal of the enum and a bit mask
+ * tells which variables are defined. The map therefore does not carry any hash table or boxed value. The
+ * getValue and setValue methods avoid the boxing altogether.
+ * @author Mathieu Fortin - October 2026
+ */
+@SuppressWarnings("serial")
+public abstract class AbstractClimateVariableMap extends AbstractMap<ClimateVariable, Double> implements Serializable, Cloneable {
+
+	private static final ClimateVariable[] Variables = ClimateVariable.values();
+
+	private double[] values;
+	private int mask;
+	private boolean readOnly;
+	private transient Set<Map.Entry<ClimateVariable, Double>> entrySet;
+
+	protected AbstractClimateVariableMap() {
+		values = new double[Variables.length];
+	}
+
+	/**
+	 * Make this map read-only. Any later modification throws an UnsupportedOperationException.
+	 */
+	void setReadOnly() {
+		readOnly = true;
+	}
+
+	/**
+	 * Check if the map is read-only.
+	 * @return a boolean
+	 */
+	public boolean isReadOnly() {return readOnly;}
+
+	/**
+	 * Hook called before any modification of the map.
+	 */
+	protected void checkModification() {
+		if (readOnly) {
+			throw new UnsupportedOperationException("This " + getClass().getSimpleName() + " instance is read-only!");
+		}
+	}
+
+	/**
+	 * Check if a variable is defined in this map.
+	 * @param variable a ClimateVariable enum
+	 * @return a boolean
+	 */
+	public final boolean isDefined(ClimateVariable variable) {
+		return (mask & (1 << variable.ordinal())) != 0;
+	}
+
+	/**
+	 * Provide the value of a variable without boxing.
+	 * @param variable a ClimateVariable enum
+	 * @return a double (Double.NaN if the variable is not defined)
+	 */
+	public final double getValue(ClimateVariable variable) {
+		return isDefined(variable) ? values[variable.ordinal()] : Double.NaN;
+	}
+
+	/**
+	 * Set the value of a variable without boxing.
+	 * @param variable a ClimateVariable enum
+	 * @param value the value
+	 */
+	public final void setValue(ClimateVariable variable, double value) {
+		if (variable == null) {
+			throw new InvalidParameterException("The variable argument cannot be null!");
+		}
+		checkModification();
+		values[variable.ordinal()] = value;
+		mask |= 1 << variable.ordinal();
+	}
+
+	@Override
+	public int size() {return Integer.bitCount(mask);}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof ClimateVariable && isDefined((ClimateVariable) key);
+	}
+
+	@Override
+	public Double get(Object key) {
+		return containsKey(key) ? values[((ClimateVariable) key).ordinal()] : null;
+	}
+
+	@Override
+	public Double put(ClimateVariable key, Double value) {
+		if (value == null) {
+			throw new InvalidParameterException("The value argument cannot be null!");
+		}
+		Double formerValue = get(key);
+		setValue(key, value);
+		return formerValue;
+	}
+
+	@Override
+	public Double remove(Object key) {
+		if (!containsKey(key)) {
+			return null;
+		}
+		checkModification();
+		int ordinal = ((ClimateVariable) key).ordinal();
+		mask &= ~(1 << ordinal);
+		return values[ordinal];
+	}
+
+	@Override
+	public void clear() {
+		checkModification();
+		mask = 0;
+	}
+
+	@Override
+	public Set<Map.Entry<ClimateVariable, Double>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Map.Entry<ClimateVariable, Double>>() {
+				@Override
+				public Iterator<Map.Entry<ClimateVariable, Double>> iterator() {return new EntryIterator();}
+
+				@Override
+				public int size() {return AbstractClimateVariableMap.this.size();}
+			};
+		}
+		return entrySet;
+	}
+
+	@Override
+	public AbstractClimateVariableMap clone() {
+		try {
+			AbstractClimateVariableMap map = (AbstractClimateVariableMap) super.clone();
+			map.values = values.clone();
+			map.readOnly = false;
+			map.entrySet = null;
+			return map;
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e);
+		}
+	}
+
+	/*
+	 * The entries are visited in the order of the enum and they write through to the map.
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<ClimateVariable, Double>> {
+
+		private int nextOrdinal = findNext(0);
+		private int lastOrdinal = -1;
+
+		private int findNext(int from) {
+			int remaining = mask >>> from;
+			return remaining == 0 ? -1 : from + Integer.numberOfTrailingZeros(remaining);
+		}
+
+		@Override
+		public boolean hasNext() {return nextOrdinal != -1;}
+
+		@Override
+		public Map.Entry<ClimateVariable, Double> next() {
+			if (nextOrdinal == -1) {
+				throw new NoSuchElementException();
+			}
+			final ClimateVariable variable = Variables[nextOrdinal];
+			lastOrdinal = nextOrdinal;
+			nextOrdinal = findNext(nextOrdinal + 1);
+			return new SimpleEntry<ClimateVariable, Double>(variable, values[variable.ordinal()]) {
+				@Override
+				public Double setValue(Double value) {
+					put(variable, value);
+					return super.setValue(value);
+				}
+			};
+		}
+
+		@Override
+		public void remove() {
+			if (lastOrdinal == -1) {
+				throw new IllegalStateException();
+			}
+			AbstractClimateVariableMap.this.remove(Variables[lastOrdinal]);
+			lastOrdinal = -1;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climate;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import repicea.simulation.covariateproviders.plotlevel.GeographicalCoordinatesProvider;
+
+/**
+ * The AbstractGriddedClimateGenerator class is the basis of climate generators that interpolate
+ * the climate variables from gridded data. <br>
+ * <br>
+ * The grid is split into square tiles of a fixed size in degrees. A tile is loaded once through the
+ * loadTile method and it is kept in a bounded cache. The tiles are loaded outside of the lock of the cache so that 
+ * the threads that need other tiles are not blocked, while the threads that need the same tile wait for a single load. In the batch method, the plots are sorted by tile,
+ * row by row in a back-and-forth order, so that each tile is loaded at most once and consecutive tiles are neighbours.
+ * The maps are then returned in the original order of the plots.
+ * @author Mathieu Fortin - October 2026
+ *
+ * @param <P> a GeographicalCoordinatesProvider-derived class
+ * @param <T> the class of the tile
+ */
+public abstract class AbstractGriddedClimateGenerator<P extends GeographicalCoordinatesProvider, T> implements REpiceaClimateGenerator<P> {
+
+	private final double tileSizeDeg;
+	private final int maximumNumberOfTiles;
+	private final LinkedHashMap<Long, T> tiles;	// the loaded tiles in access order, guarded by itself
+	private final ConcurrentHashMap<Long, FutureTask<T>> tilesBeingLoaded;
+
+	/**
+	 * Constructor.
+	 * @param tileSizeDeg the size of the tiles (degrees, must be greater than 0)
+	 * @param maximumNumberOfTiles the maximum number of tiles kept in memory (must be greater than 0)
+	 */
+	protected AbstractGriddedClimateGenerator(double tileSizeDeg, int maximumNumberOfTiles) {
+		if (tileSizeDeg <= 0d) {
+			throw new InvalidParameterException("The tileSizeDeg argument must be greater than 0!");
+		}
+		if (maximumNumberOfTiles < 1) {
+			throw new InvalidParameterException("The maximumNumberOfTiles argument must be greater than 0!");
+		}
+		this.tileSizeDeg = tileSizeDeg;
+		this.maximumNumberOfTiles = maximumNumberOfTiles;
+		tiles = new LinkedHashMap<Long, T>(16, .75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+				return size() > AbstractGriddedClimateGenerator.this.maximumNumberOfTiles;
+			}
+		};
+		tilesBeingLoaded = new ConcurrentHashMap<Long, FutureTask<T>>();
+	}
+
+	/**
+	 * Load the gridded data of a tile. <p>
+	 * The tile covers the latitudes from latitudeIndex * tileSizeDeg to (latitudeIndex + 1) * tileSizeDeg and
+	 * the same for the longitudes. If the interpolation needs the grid points around the plot, the tile can
+	 * include a margin or the interpolate method can retrieve the neighbouring tiles through the getTile method.
+	 * @param latitudeIndex the index of the tile along the latitude
+	 * @param longitudeIndex the index of the tile along the longitude
+	 * @return a T instance
+	 */
+	protected abstract T loadTile(int latitudeIndex, int longitudeIndex);
+
+	/**
+	 * Interpolate the climate variables of a plot.
+	 * @param tile the tile that contains the plot
+	 * @param plot a P instance
+	 * @return a REpiceaClimateVariableMap instance
+	 */
+	protected abstract REpiceaClimateVariableMap interpolate(T tile, P plot);
+
+	/**
+	 * Provide the size of the tiles.
+	 * @return the size (degrees)
+	 */
+	public double getTileSizeDeg() {return tileSizeDeg;}
+
+	private int getTileIndex(double coordinateDeg) {
+		return (int) Math.floor(coordinateDeg / tileSizeDeg);
+	}
+
+	/**
+	 * Provide a tile, which is loaded if it is not in the cache.
+	 * @param latitudeIndex the index of the tile along the latitude
+	 * @param longitudeIndex the index of the tile along the longitude
+	 * @return a T instance
+	 */
+	protected final T getTile(int latitudeIndex, int longitudeIndex) {
+		Long key = ((long) latitudeIndex << 32) | (longitudeIndex & 0xFFFFFFFFL);
+		synchronized (tiles) {
+			if (tiles.containsKey(key)) {
+				return tiles.get(key);
+			}
+		}
+		FutureTask<T> newTask = new FutureTask<T>(() -> loadTile(latitudeIndex, longitudeIndex));
+		FutureTask<T> task = tilesBeingLoaded.putIfAbsent(key, newTask);
+		boolean isLoader = task == null;
+		if (isLoader) {
+			task = newTask;
+			task.run();
+		}
+		try {
+			T tile = task.get();
+			if (isLoader) {
+				synchronized (tiles) {
+					tiles.put(key, tile);	// the eviction happens here if the cache is full
+				}
+			}
+			return tile;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The thread was interrupted while waiting for the tile!", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else {
+				throw new IllegalStateException(cause);
+			}
+		} finally {
+			if (isLoader) {
+				tilesBeingLoaded.remove(key, task);	// after the put so that the tile is always found in one of the maps
+			}
+		}
+	}
+
+	@Override
+	public REpiceaClimateVariableMap getClimateVariables(P plot) {
+		return interpolate(getTile(getTileIndex(plot.getLatitudeDeg()), getTileIndex(plot.getLongitudeDeg())), plot);
+	}
+
+	@Override
+	public List<REpiceaClimateVariableMap> getClimateVariables(List<P> plots) {
+		int nbPlots = plots.size();
+		final int[] latitudeIndices = new int[nbPlots];
+		final int[] longitudeIndices = new int[nbPlots];
+		Integer[] order = new Integer[nbPlots];
+		for (int i = 0; i < nbPlots; i++) {
+			P plot = plots.get(i);
+			latitudeIndices[i] = getTileIndex(plot.getLatitudeDeg());
+			longitudeIndices[i] = getTileIndex(plot.getLongitudeDeg());
+			order[i] = i;
+		}
+		Arrays.sort(order, (i, j) -> {
+			int comparison = Integer.compare(latitudeIndices[i], latitudeIndices[j]);
+			if (comparison != 0) {
+				return comparison;
+			}
+			comparison = Integer.compare(longitudeIndices[i], longitudeIndices[j]);
+			return latitudeIndices[i] % 2 == 0 ? comparison : -comparison;	// back and forth from one row to the next
+		});
+		REpiceaClimateVariableMap[] maps = new REpiceaClimateVariableMap[nbPlots];
+		T tile = null;
+		int currentLatitudeIndex = 0;
+		int currentLongitudeIndex = 0;
+		for (int k = 0; k < nbPlots; k++) {
+			int i = order[k];
+			if (k == 0 || latitudeIndices[i] != currentLatitudeIndex || longitudeIndices[i] != currentLongitudeIndex) {
+				currentLatitudeIndex = latitudeIndices[i];
+				currentLongitudeIndex = longitudeIndices[i];
+				tile = getTile(currentLatitudeIndex, currentLongitudeIndex);
+			}
+			maps[i] = interpolate(tile, plots.get(i));
+		}
+		return new ArrayList<REpiceaClimateVariableMap>(Arrays.asList(maps));
+	}
+
+}
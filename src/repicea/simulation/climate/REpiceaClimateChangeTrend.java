@@ -26,6 +26,9 @@ import repicea.simulation.climate.REpiceaClimateVariableMap.ClimateVariable;
 @SuppressWarnings("serial")
 public class REpiceaClimateChangeTrend extends ArrayList<REpiceaClimateChangeTrendSegment> {
 
+	private transient volatile CompiledTrend compiledTrend;
+	
+
 	public void addSegment(int startDateYr, int endDateYr, REpiceaClimateVariableChangeMap changeMap) {
 		if (startDateYr >= endDateYr) {
 			throw new InvalidParameterException("The start date must be prior to the end date!");
@@ -37,6 +40,23 @@ public class REpiceaClimateChangeTrend extends ArrayList<REpiceaClimateChangeTre
 		}
 	}
 
+	/**
+	 * Replace a segment of the trend.<p>
+	 * This method is overridden because it does not modify the count of structural 
+	 * modifications on which the compiled trend relies.
+	 * @param index the index of the segment
+	 * @param segment the new segment
+	 * @return the former segment
+	 */
+	@Override
+	public REpiceaClimateChangeTrendSegment set(int index, REpiceaClimateChangeTrendSegment segment) {
+		synchronized (this) {
+			REpiceaClimateChangeTrendSegment formerSegment = super.set(index, segment);
+			compiledTrend = null;
+			return formerSegment;
+		}
+	}
+
 	/**
 	 * Returns the last end date of the trend.
 	 * @return an integer
@@ -62,26 +82,16 @@ public class REpiceaClimateChangeTrend extends ArrayList<REpiceaClimateChangeTre
 	}
 	
 	/**
-	 * Provide the change in the variable between the start and the end dates.
+	 * Provide the change in the variable between the start and the end dates.<p>
+	 * If the start date is later than the end date, the change is negative if both dates fall within
+	 * the same segment and it is 0 otherwise.
 	 * @param startDateYr the start date
 	 * @param endDateYr the end date
 	 * @param variable a ClimateVariable enum
 	 * @return the change
 	 */
 	public double getChangeFromTo(int startDateYr, int endDateYr, ClimateVariable variable) {
-		double increase = 0d;
-		for (REpiceaClimateChangeTrendSegment segment : this) {
-			int nbYears = 0;
-			if (startDateYr <= segment.startDateYr && endDateYr > segment.startDateYr) { // then this segment in part or in whole should be considered
-				nbYears = endDateYr > segment.endDateYr ? segment.endDateYr - segment.startDateYr : endDateYr - segment.startDateYr;
-			} else if (startDateYr <= segment.endDateYr && endDateYr > segment.startDateYr) {
-				nbYears = endDateYr > segment.endDateYr ? segment.endDateYr - startDateYr : endDateYr - startDateYr;
-			}
-			if (segment.changeMap.containsKey(variable)) {
-				increase += nbYears * segment.changeMap.get(variable);
-			}
-		}
-		return increase;
+		return getCompiledTrend().getChangeFromTo(startDateYr, endDateYr, variable.ordinal());
 	}
 	
 	/**
@@ -96,26 +106,124 @@ public class REpiceaClimateChangeTrend extends ArrayList<REpiceaClimateChangeTre
 		if (startDateYr >= endDateYr) {
 			throw new InvalidParameterException("The start date must be prior to the end date!");
 		}
-		double area = 0d;
-		for (REpiceaClimateChangeTrendSegment segment : this) {
-			int nbYears = 0;
-			double h1,h2;
-			if (startDateYr <= segment.startDateYr && endDateYr > segment.startDateYr) { // then this segment in part or in whole should be considered
-				int endYear = endDateYr > segment.endDateYr ? segment.endDateYr : endDateYr;
-				nbYears = endYear - segment.startDateYr;
-				h1 = getChangeFromTo(referenceDateYr, segment.startDateYr, variable);
-				h2 = h1 + getChangeFromTo(segment.startDateYr, endYear, variable);
-				area += (h1 + h2) * .5 * nbYears;
-			} else if (startDateYr <= segment.endDateYr && endDateYr > segment.startDateYr) {
-				int endYear = endDateYr > segment.endDateYr ? segment.endDateYr : endDateYr;
-				nbYears = endYear - startDateYr;
-				h1 = getChangeFromTo(referenceDateYr, startDateYr, variable);
-				h2 = h1 + getChangeFromTo(startDateYr, endYear, variable);
-				area += (h1 + h2) * .5 * nbYears;
-			} 
+		return getCompiledTrend().getAverageChangeOverThisPeriod(referenceDateYr, startDateYr, endDateYr, variable.ordinal());
+	}
+	
+	/*
+	 * The compiled trend is produced on the first query and it is produced again only if the 
+	 * list of segments has been modified in the meantime. The change maps of the segments are 
+	 * read-only snapshots and they cannot change afterwards.
+	 */
+	private CompiledTrend getCompiledTrend() {
+		CompiledTrend compiledTrend = this.compiledTrend;
+		if (compiledTrend == null || compiledTrend.modCount != modCount) {
+			synchronized (this) {
+				compiledTrend = this.compiledTrend;
+				if (compiledTrend == null || compiledTrend.modCount != modCount) {
+					compiledTrend = new CompiledTrend(this);
+					this.compiledTrend = compiledTrend;
+				}
+			}
 		}
-		return area / (endDateYr - startDateYr);
+		return compiledTrend;
 	}
 	
+	/**
+	 * The CompiledTrend class holds the cumulative change and the cumulative area under the change 
+	 * of each variable on a yearly basis. Since the change is linear within a segment, these arrays
+	 * make it possible to compute the change and the average change with a few array reads. An instance is immutable and it 
+	 * can be read by many threads, for instance when the same trend is shared by all the stands of a scenario. 
+	 */
+	private static final class CompiledTrend {
+
+		private final int modCount;
+		private final int startDateYr;
+		private final int endDateYr;
+		private final int[] segmentEndDateYr;
+		private final double[][] rates;				// [segment][variable]
+		private final int[] segmentIndex;			// [yr - startDateYr] the segment such that start < yr <= end
+		private final double[][] cumulativeChange;	// [variable][yr - startDateYr]
+		private final double[][] cumulativeArea;	// [variable][yr - startDateYr]
+
+		private CompiledTrend(REpiceaClimateChangeTrend trend) {
+			modCount = trend.modCount;
+			int nbVariables = ClimateVariable.values().length;
+			int nbSegments = trend.size();
+			startDateYr = trend.getStartDateYr();
+			endDateYr = trend.getEndDateYr();
+			segmentEndDateYr = new int[nbSegments];
+			rates = new double[nbSegments][nbVariables];
+			int nbYears = nbSegments == 0 ? 0 : endDateYr - startDateYr;
+			segmentIndex = new int[nbYears + 1];
+			segmentIndex[0] = -1;
+			cumulativeChange = new double[nbVariables][nbYears + 1];
+			cumulativeArea = new double[nbVariables][nbYears + 1];
+			for (int s = 0; s < nbSegments; s++) {
+				REpiceaClimateChangeTrendSegment segment = trend.get(s);
+				segmentEndDateYr[s] = segment.endDateYr;
+				for (ClimateVariable v : ClimateVariable.values()) {
+					rates[s][v.ordinal()] = segment.changeMap.isDefined(v) ? segment.changeMap.getValue(v) : 0d;
+				}
+				int segmentStartIndex = segment.startDateYr - startDateYr;
+				for (int i = segmentStartIndex + 1; i <= segment.endDateYr - startDateYr; i++) {
+					segmentIndex[i] = s;
+					for (int v = 0; v < nbVariables; v++) {
+						cumulativeChange[v][i] = cumulativeChange[v][segmentStartIndex] + rates[s][v] * (i - segmentStartIndex);
+						cumulativeArea[v][i] = cumulativeArea[v][i - 1] + (cumulativeChange[v][i - 1] + cumulativeChange[v][i]) * .5;
+					}
+				}
+			}
+		}
+
+		private int getIndex(int dateYr) {
+			if (dateYr <= startDateYr) {
+				return 0;
+			} else if (dateYr >= endDateYr) {
+				return endDateYr - startDateYr;
+			} else {
+				return dateYr - startDateYr;
+			}
+		}
+		
+		private double getChangeFromTo(int fromYr, int toYr, int v) {
+			if (segmentEndDateYr.length == 0) {
+				return 0d;
+			}
+			if (fromYr > toYr) {	// the change is only accounted for if both dates are within the same segment
+				if (toYr <= startDateYr || toYr >= endDateYr || fromYr > segmentEndDateYr[segmentIndex[toYr - startDateYr]]) {
+					return 0d;
+				}
+			}
+			return cumulativeChange[v][getIndex(toYr)] - cumulativeChange[v][getIndex(fromYr)];
+		}
+		
+		private double getAverageChangeOverThisPeriod(int referenceDateYr, int fromYr, int toYr, int v) {
+			if (segmentEndDateYr.length == 0) {
+				return 0d;
+			}
+			int fromIndex = getIndex(fromYr);
+			int toIndex = getIndex(toYr);
+			if (fromIndex >= toIndex) {		// no overlap with the trend
+				return 0d;
+			}
+			double area;
+			if (referenceDateYr <= fromIndex + startDateYr) {
+				area = cumulativeArea[v][toIndex] - cumulativeArea[v][fromIndex] - 
+						cumulativeChange[v][getIndex(referenceDateYr)] * (toIndex - fromIndex);
+			} else {	// the reference date is later than the start date and the change to this date must be computed for each segment
+				area = 0d;
+				int firstSegment = segmentIndex[fromIndex + 1];
+				int lastSegment = segmentIndex[toIndex];
+				for (int s = firstSegment; s <= lastSegment; s++) {
+					int segmentFromYr = s == firstSegment ? fromIndex + startDateYr : segmentEndDateYr[s - 1];
+					int segmentToYr = s == lastSegment ? toIndex + startDateYr : segmentEndDateYr[s];
+					double h1 = getChangeFromTo(referenceDateYr, segmentFromYr, v);
+					double h2 = h1 + getChangeFromTo(segmentFromYr, segmentToYr, v);
+					area += (h1 + h2) * .5 * (segmentToYr - segmentFromYr);
+				}
+			}
+			return area / (toYr - fromYr);
+		}
+	}
 	
 }
@@ -32,6 +32,7 @@ class REpiceaClimateChangeTrendSegment implements Serializable {
 		this.endDateYr = endDateYr;
 		this.changeMap = new REpiceaClimateVariableChangeMap();
 		this.changeMap.putAll(changeMap); // the change map is cloned to avoid future concurrent modification
+		this.changeMap.setReadOnly();	// the compiled trend relies on this snapshot
 	}
 	
 }
@@ -19,6 +19,8 @@
 package repicea.simulation.climate;
 
 import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
 
 import repicea.simulation.covariateproviders.plotlevel.GeographicalCoordinatesProvider;
 import repicea.util.REpiceaTranslator;
@@ -107,6 +109,22 @@ public interface REpiceaClimateGenerator<P extends GeographicalCoordinatesProvid
 	 * @return a REpiceaClimateVariableMap-derived instance
 	 */
 	public REpiceaClimateVariableMap getClimateVariables(P plot);
+
+	/**
+	 * Returns the maps of climate variables of many plots.<p>
+	 * The default implementation calls the getClimateVariables(P) method for each plot. Implementations
+	 * that interpolate from gridded data should override this method in order to load the grid once for 
+	 * all the plots (see AbstractGriddedClimateGenerator).
+	 * @param plots a List of GeographicalCoordinatesProvider instances
+	 * @return a List of REpiceaClimateVariableMap-derived instances in the same order as the plots
+	 */
+	public default List<REpiceaClimateVariableMap> getClimateVariables(List<P> plots) {
+		List<REpiceaClimateVariableMap> maps = new ArrayList<REpiceaClimateVariableMap>(plots.size());
+		for (P plot : plots) {
+			maps.add(getClimateVariables(plot));
+		}
+		return maps;
+	}
 	
 	public static class ClimateChangeScenarioHelper {
 		static public ClimateChangeScenario getClimateChangeScenarioFromString(String climateChangeScenarioStr) {
@@ -18,15 +18,17 @@
  */
 package repicea.simulation.climate;
 
-import java.util.HashMap;
-
-import repicea.simulation.climate.REpiceaClimateVariableMap.ClimateVariable;
-
 /**
- * This map contains the annual change for the difference climate variables.
+ * This map contains the annual change for the difference climate variables. The values 
+ * are stored in a compact primitive array (see AbstractClimateVariableMap).
  * @author Mathieu Fortin - July 2019
  */
 @SuppressWarnings("serial")
-public class REpiceaClimateVariableChangeMap extends HashMap<ClimateVariable, Double> {
+public class REpiceaClimateVariableChangeMap extends AbstractClimateVariableMap {
+
+	@Override
+	public REpiceaClimateVariableChangeMap clone() {
+		return (REpiceaClimateVariableChangeMap) super.clone();
+	}
 
 }
@@ -18,14 +18,20 @@
  */
 package repicea.simulation.climate;
 
-import java.util.HashMap;
-
 import repicea.simulation.climate.REpiceaClimateVariableMap.ClimateVariable;
 import repicea.util.REpiceaTranslator;
 import repicea.util.REpiceaTranslator.TextableEnum;
 
+/**
+ * The REpiceaClimateVariableMap class contains the climate variables of a plot. <br>
+ * <br>
+ * The values are stored in a compact primitive array (see AbstractClimateVariableMap). When the 
+ * variables do not change from one step to the next, the same read-only view can be 
+ * shared instead of creating a new map.
+ * @author Mathieu Fortin - June 2019
+ */
 @SuppressWarnings("serial")
-public class REpiceaClimateVariableMap extends HashMap<ClimateVariable, Double> {
+public class REpiceaClimateVariableMap extends AbstractClimateVariableMap {
 	
 	public static enum ClimateVariable implements TextableEnum {
 		/**
@@ -70,7 +76,9 @@ public class REpiceaClimateVariableMap extends HashMap<ClimateVariable, Double>
 	public static interface UpdatableClimateVariableMap {
 		
 		/**
-		 * Performs the change on the climate variable following a linear extrapolation pattern.
+		 * Performs the change on the climate variable following a linear extrapolation pattern.<p>
+		 * If the climate variables do not change, the implementation can return the instance 
+		 * provided by the getReadOnlyView method instead of a new map.
 		 * @param climateChangeTrend a REpiceaClimateChangeTrend instance
 		 * @param dateYr the current date (years)
 		 * @return an REpiceaClimateVariableMap instance
@@ -79,4 +87,40 @@ public class REpiceaClimateVariableMap extends HashMap<ClimateVariable, Double>
 		
 	}
 	
+	private transient volatile REpiceaClimateVariableMap readOnlyView;
+
+	@Override
+	protected void checkModification() {
+		super.checkModification();
+		readOnlyView = null;
+	}
+	
+	/**
+	 * Provide a read-only map with the current values of this map. <br>
+	 * <br>
+	 * The same instance is returned until this map is modified so that it can be shared across 
+	 * the years for which the climate variables remain unchanged. 
+	 * @return a read-only REpiceaClimateVariableMap instance
+	 */
+	public REpiceaClimateVariableMap getReadOnlyView() {
+		if (isReadOnly()) {
+			return this;
+		}
+		REpiceaClimateVariableMap view = readOnlyView;
+		if (view == null) {
+			view = new REpiceaClimateVariableMap();
+			view.putAll(this);
+			view.setReadOnly();
+			readOnlyView = view;
+		}
+		return view;
+	}
+	
+	@Override
+	public REpiceaClimateVariableMap clone() {
+		REpiceaClimateVariableMap map = (REpiceaClimateVariableMap) super.clone();
+		map.readOnlyView = null;
+		return map;
+	}
+	
 }
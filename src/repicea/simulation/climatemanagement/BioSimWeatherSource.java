@@ -0,0 +1,101 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import biosimclient.BioSimClient;
+import biosimclient.BioSimClientException;
+import biosimclient.BioSimDataSet;
+import biosimclient.BioSimEnums.ClimateModel;
+import biosimclient.BioSimEnums.RCP;
+import biosimclient.BioSimParameterMap;
+import biosimclient.BioSimPlot;
+import biosimclient.BioSimServerException;
+import repicea.simulation.climatemanagement.REpiceaClimateVariableInformation.BioSimModel;
+
+/**
+ * The BioSimWeatherSource class retrieves the weather and the normals from BioSIM WebAPI. <br>
+ * <br>
+ * It is the default WeatherSource instance of the REpiceaClimateManager class.
+ * @author Mathieu Fortin - October 2026
+ */
+public final class BioSimWeatherSource implements WeatherSource {
+
+	@Override
+	public int getLastDailyDateYr() throws BioSimClientException, BioSimServerException {
+		return BioSimClient.getLastDailyDateYr();
+	}
+
+	private static List<BioSimParameterMap> getParameterMap(List<BioSimModel> models) {
+		List<BioSimParameterMap> outputList = new ArrayList<BioSimParameterMap>();
+		for (BioSimModel m : models) {
+			BioSimParameterMap parmMap = new BioSimParameterMap();
+			if (m.parameters != null && !m.parameters.isEmpty()) {
+				String[] parms = m.parameters.split("\\*");
+				for (String parm : parms) {
+					String[] keyValue = parm.split(":");
+					if (keyValue.length > 1) {
+						parmMap.addParameter(keyValue[0], keyValue[1]);
+					} else {
+						parmMap.addParameter(keyValue[0], ""); 
+					}
+				}
+			}
+			outputList.add(parmMap);
+		}
+		return outputList;
+	}
+
+	@Override
+	public LinkedHashMap<String, Object> generateWeather(int fromYr, 
+			int toYr, 
+			List<BioSimPlot> plots, 
+			RCP rcp, 
+			ClimateModel climModel, 
+			List<BioSimModel> models, 
+			int nbRealizations) throws Exception {
+		List<String> modelList = new ArrayList<String>();
+		for (BioSimModel m : models) {
+			modelList.add(m.modelName);
+		}
+		return BioSimClient.generateWeather(fromYr, 
+				toYr, 
+				plots, 
+				rcp, 
+				climModel, 
+				modelList, 
+				nbRealizations, 
+				getParameterMap(models));
+	}
+
+	@Override
+	public LinkedHashMap<BioSimPlot, BioSimDataSet> getNormals(BioSimModel normalsModel, 
+			boolean isMonthly, 
+			List<BioSimPlot> plots, 
+			RCP rcp, 
+			ClimateModel climModel) throws Exception {
+		return isMonthly ?
+				BioSimClient.getMonthlyNormals(REpiceaClimateManager.getNormalsPeriod(normalsModel), plots, rcp, climModel) :
+					BioSimClient.getAnnualNormals(REpiceaClimateManager.getNormalsPeriod(normalsModel), plots, rcp, climModel);
+	}
+}
@@ -0,0 +1,380 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import biosimclient.BioSimDataSet;
+import biosimclient.Observation;
+
+/**
+ * The ClimateColumnStore class holds the annual or monthly values of a BioSIM model
+ * in primitive arrays. <br>
+ * <br>
+ * Each numeric field of the model output is stored in a double array. The value of plot p, realization r, year y
+ * and month m is found at offset (((y - firstYear) * nbPlots + p) * nbRealizations + r) * nbRowsPerYear + m - 1. The
+ * years being the outermost dimension, additional years are appended at the end of the arrays and the offsets of
+ * the former values remain unchanged. Missing values are stored as Double.NaN. <br>
+ * <br>
+ * The annual values of a variable, that is the field compiled over the selected months if the model is
+ * monthly, are summed up into prefix sums so that the mean over any interval is obtained in O(1). The
+ * prefix sums are computed on demand and extended when new years are added. <br>
+ * <br>
+ * The values are added by a single thread through the add method and they become visible to the readers 
+ * once the publish method is called. The readers work on an immutable snapshot and they do not need any lock.
+ * After a call to the publish method, the next call to the add method copies the arrays before modifying them.
+ * @author Mathieu Fortin - October 2026
+ */
+final class ClimateColumnStore {
+
+	static final String YEAR_DATE_FIELDNAME = "Year";
+	static final String MONTH_DATE_FIELDNAME = "Month";
+
+	/**
+	 * The prefix sums of the annual values of a variable. Position y * nbSeries + s contains the sum
+	 * of the annual values of series s before year firstYear + y. The missing values are counted apart
+	 * so that they only affect the intervals that contain them. The arrays are never modified once 
+	 * the instance is created.
+	 */
+	private static final class PrefixSums {
+		private final double[] sums;
+		private final int[] nbMissingValues;
+		private final int nbYears;
+		
+		private PrefixSums(double[] sums, int[] nbMissingValues, int nbYears) {
+			this.sums = sums;
+			this.nbMissingValues = nbMissingValues;
+			this.nbYears = nbYears;
+		}
+	}
+	
+	/**
+	 * The values as they were when the publish method was last called.
+	 */
+	private static final class Snapshot {
+		private final int firstYear;
+		private final int nbYears;
+		private final Map<String, double[]> columns;
+		private final ConcurrentHashMap<String, PrefixSums> prefixSums;
+		
+		private Snapshot(int firstYear, int nbYears, Map<String, double[]> columns) {
+			this.firstYear = firstYear;
+			this.nbYears = nbYears;
+			this.columns = columns;
+			prefixSums = new ConcurrentHashMap<String, PrefixSums>();
+		}
+		
+		private boolean containsYear(int yr) {
+			return nbYears > 0 && yr >= firstYear && yr < firstYear + nbYears;
+		}
+		
+		private double[] getColumn(String fieldName) {
+			double[] column = columns.get(fieldName);
+			if (column == null) {
+				throw new UnsupportedOperationException("The field " + fieldName + " cannot be found in the BioSimDataSet instance!");
+			}
+			return column;
+		}
+	}
+
+	private final int nbPlots;
+	private final int nbRealizations;
+	private final int nbSeries;
+	private final boolean isMonthly;
+	private final int nbRowsPerYear;
+	
+	// the state of the writer
+	private final Map<String, double[]> columns;
+	private int firstYear;
+	private int nbYears;
+	private int firstModifiedYear;
+	private boolean columnsShared;
+	
+	private volatile Snapshot snapshot;
+	
+	/**
+	 * Constructor.
+	 * @param nbPlots the number of unique plots
+	 * @param nbRealizations the number of realizations
+	 * @param isMonthly true if the model provides monthly values
+	 */
+	ClimateColumnStore(int nbPlots, int nbRealizations, boolean isMonthly) {
+		this.nbPlots = nbPlots;
+		this.nbRealizations = nbRealizations;
+		this.nbSeries = nbPlots * nbRealizations;
+		this.isMonthly = isMonthly;
+		this.nbRowsPerYear = isMonthly ? 12 : 1;
+		columns = new HashMap<String, double[]>();
+		firstModifiedYear = Integer.MAX_VALUE;
+		snapshot = new Snapshot(0, 0, new HashMap<String, double[]>());
+	}
+
+	/**
+	 * Check if a BioSimDataSet instance contains monthly values.
+	 * @param dataSet a BioSimDataSet instance
+	 * @return a boolean
+	 */
+	static boolean isMonthlyDataSet(BioSimDataSet dataSet) {
+		return dataSet.getFieldNames().contains(MONTH_DATE_FIELDNAME);
+	}
+
+	/**
+	 * Copy the values of a BioSimDataSet instance into the store.<p>
+	 * The values are not visible to the readers until the publish method is called.
+	 * @param dataSet the BioSimDataSet instance
+	 * @param plotIndex the index of the plot
+	 * @param realization the realization id
+	 */
+	void add(BioSimDataSet dataSet, int plotIndex, int realization) {
+		List<String> fieldNames = dataSet.getFieldNames();
+		int yearFieldIndex = fieldNames.indexOf(YEAR_DATE_FIELDNAME);
+		int monthFieldIndex = isMonthly ? fieldNames.indexOf(MONTH_DATE_FIELDNAME) : -1;
+		List<Observation> observations = dataSet.getObservations();
+		if (observations.isEmpty()) {
+			return;
+		}
+		int minYear = Integer.MAX_VALUE;
+		int maxYear = Integer.MIN_VALUE;
+		for (Observation o : observations) {
+			int yr = ((Number) o.toArray()[yearFieldIndex]).intValue();
+			minYear = Math.min(minYear, yr);
+			maxYear = Math.max(maxYear, yr);
+		}
+		ensureYearRange(minYear, maxYear);
+		if (columnsShared) {	// the published arrays must not be modified
+			for (String fieldName : columns.keySet()) {
+				double[] column = columns.get(fieldName);
+				columns.put(fieldName, Arrays.copyOf(column, column.length));
+			}
+			columnsShared = false;
+		}
+		firstModifiedYear = Math.min(firstModifiedYear, minYear);
+
+		Object[] firstObservation = observations.get(0).toArray();
+		int[] numericFieldIndices = new int[fieldNames.size()];
+		double[][] targetColumns = new double[fieldNames.size()][];
+		int nbNumericFields = 0;
+		for (int f = 0; f < fieldNames.size(); f++) {
+			if (f != yearFieldIndex && f != monthFieldIndex && firstObservation[f] instanceof Number) {
+				numericFieldIndices[nbNumericFields] = f;
+				targetColumns[nbNumericFields] = getOrCreateColumn(fieldNames.get(f));
+				nbNumericFields++;
+			}
+		}
+
+		for (Observation o : observations) {
+			Object[] objectArray = o.toArray();
+			int yr = ((Number) objectArray[yearFieldIndex]).intValue();
+			int month = isMonthly ? ((Number) objectArray[monthFieldIndex]).intValue() : 1;
+			int offset = (((yr - firstYear) * nbPlots + plotIndex) * nbRealizations + realization) * nbRowsPerYear + month - 1;
+			for (int k = 0; k < nbNumericFields; k++) {
+				Object value = objectArray[numericFieldIndices[k]];
+				targetColumns[k][offset] = value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+			}
+		}
+	}
+
+	private double[] getOrCreateColumn(String fieldName) {
+		double[] column = columns.get(fieldName);
+		if (column == null) {
+			column = new double[nbYears * nbSeries * nbRowsPerYear];
+			Arrays.fill(column, Double.NaN);
+			columns.put(fieldName, column);
+		}
+		return column;
+	}
+
+	private void ensureYearRange(int minYear, int maxYear) {
+		if (nbYears == 0) {
+			firstYear = minYear;
+			nbYears = maxYear - minYear + 1;
+			return;
+		}
+		int newFirstYear = Math.min(firstYear, minYear);
+		int newNbYears = Math.max(firstYear + nbYears - 1, maxYear) - newFirstYear + 1;
+		if (newFirstYear == firstYear && newNbYears == nbYears) {
+			return;
+		}
+		int yearSize = nbSeries * nbRowsPerYear;
+		int shift = (firstYear - newFirstYear) * yearSize;
+		for (String fieldName : columns.keySet()) {
+			double[] oldColumn = columns.get(fieldName);
+			double[] newColumn = new double[newNbYears * yearSize];
+			Arrays.fill(newColumn, Double.NaN);
+			System.arraycopy(oldColumn, 0, newColumn, shift, oldColumn.length);
+			columns.put(fieldName, newColumn);
+		}
+		columnsShared = false;
+		firstYear = newFirstYear;
+		nbYears = newNbYears;
+	}
+
+	/**
+	 * Make the values added so far visible to the readers.<p>
+	 * The prefix sums of the former snapshot are kept up to the first year that was modified.
+	 */
+	void publish() {
+		Snapshot formerSnapshot = snapshot;
+		Snapshot newSnapshot = new Snapshot(firstYear, nbYears, new HashMap<String, double[]>(columns));
+		if (formerSnapshot.firstYear == firstYear) {
+			int nbValidYears = firstModifiedYear == Integer.MAX_VALUE ? nbYears : firstModifiedYear - firstYear;
+			for (String key : formerSnapshot.prefixSums.keySet()) {
+				PrefixSums ps = formerSnapshot.prefixSums.get(key);
+				int nbYearsKept = Math.min(ps.nbYears, nbValidYears);
+				if (nbYearsKept > 0) {
+					newSnapshot.prefixSums.put(key, new PrefixSums(ps.sums, ps.nbMissingValues, nbYearsKept));
+				}
+			}
+		}
+		columnsShared = true;
+		firstModifiedYear = Integer.MAX_VALUE;
+		snapshot = newSnapshot;
+	}
+	
+	/**
+	 * Check if the published values contain a particular year.
+	 * @param yr the year
+	 * @return a boolean
+	 */
+	boolean containsYear(int yr) {
+		return snapshot.containsYear(yr);
+	}
+
+	/**
+	 * Provide a single published value.
+	 * @param fieldName the name of the field
+	 * @param plotIndex the index of the plot
+	 * @param realization the realization id
+	 * @param yr the year
+	 * @param month the month (1 to 12) or 1 if the values are annual
+	 * @return the value or Double.NaN if it is missing
+	 */
+	double getValue(String fieldName, int plotIndex, int realization, int yr, int month) {
+		Snapshot s = snapshot;
+		double[] column = s.getColumn(fieldName);
+		if (!s.containsYear(yr)) {
+			return Double.NaN;
+		}
+		return column[(((yr - s.firstYear) * nbPlots + plotIndex) * nbRealizations + realization) * nbRowsPerYear + month - 1];
+	}
+
+	private static String getVariableKey(String fieldName, REpiceaMonthlyClimateCompilationInformation monthCompilation) {
+		if (monthCompilation == null) {
+			return fieldName;
+		} else {
+			return fieldName + "_" + monthCompilation.selectedMonths + "_" + monthCompilation.isAverage;
+		}
+	}
+
+	/*
+	 * Compile the annual value of a variable for one series in one year.
+	 */
+	private double getAnnualValue(double[] column, REpiceaMonthlyClimateCompilationInformation monthCompilation, int yearIndex, int series) {
+		int offset = (yearIndex * nbSeries + series) * nbRowsPerYear;
+		if (monthCompilation == null) {
+			return column[offset];
+		} else {
+			if (!isMonthly) {
+				throw new UnsupportedOperationException("Monthly compilation requires monthly values!");
+			}
+			double annualValue = 0d;
+			for (Integer month : monthCompilation.selectedMonths) {
+				annualValue += column[offset + month - 1];
+			}
+			if (monthCompilation.isAverage && monthCompilation.selectedMonths.size() > 1) { // average is required only there are more than one monthly value.
+				annualValue /= monthCompilation.selectedMonths.size();
+			}
+			return annualValue;
+		}
+	}
+
+	/*
+	 * Several threads may extend the prefix sums at the same time. They produce the same values and
+	 * the last one simply replaces the others in the map.
+	 */
+	private PrefixSums getPrefixSums(Snapshot s, String fieldName, REpiceaMonthlyClimateCompilationInformation monthCompilation) {
+		String key = getVariableKey(fieldName, monthCompilation);
+		PrefixSums ps = s.prefixSums.get(key);
+		if (ps == null || ps.nbYears < s.nbYears) {
+			double[] column = s.getColumn(fieldName);
+			int nbYearsDone = ps == null ? 0 : ps.nbYears;
+			int length = (s.nbYears + 1) * nbSeries;
+			double[] sums = ps == null ? new double[length] : Arrays.copyOf(ps.sums, length);
+			int[] nbMissingValues = ps == null ? new int[length] : Arrays.copyOf(ps.nbMissingValues, length);
+			for (int y = nbYearsDone; y < s.nbYears; y++) {
+				for (int series = 0; series < nbSeries; series++) {
+					double annualValue = getAnnualValue(column, monthCompilation, y, series);
+					int current = y * nbSeries + series;
+					int next = current + nbSeries;
+					if (Double.isNaN(annualValue)) {
+						sums[next] = sums[current];
+						nbMissingValues[next] = nbMissingValues[current] + 1;
+					} else {
+						sums[next] = sums[current] + annualValue;
+						nbMissingValues[next] = nbMissingValues[current];
+					}
+				}
+			}
+			ps = new PrefixSums(sums, nbMissingValues, s.nbYears);
+			s.prefixSums.put(key, ps);
+		}
+		return ps;
+	}
+
+	/**
+	 * Provide the mean of the published annual values of a variable over an interval.<p>
+	 * A missing value, either a missing year or a missing month, results in an UnsupportedOperationException.
+	 * @param fieldName the name of the field
+	 * @param monthCompilation a REpiceaMonthlyClimateCompilationInformation instance or null if the variable is annual
+	 * @param plotIndex the index of the plot
+	 * @param realization the realization id
+	 * @param fromYr the start date (yr, exclusive)
+	 * @param toYr the end date (yr, inclusive)
+	 * @return the mean
+	 */
+	double getIntervalMean(String fieldName,
+			REpiceaMonthlyClimateCompilationInformation monthCompilation,
+			int plotIndex,
+			int realization,
+			int fromYr,
+			int toYr) {
+		Snapshot s = snapshot;
+		if (!s.containsYear(fromYr + 1)) {
+			throw new UnsupportedOperationException("The date " + (fromYr + 1) + " is not in the BioSimDataSet instance!");
+		}
+		if (!s.containsYear(toYr)) {
+			throw new UnsupportedOperationException("The date " + toYr + " is not in the BioSimDataSet instance!");
+		}
+		PrefixSums ps = getPrefixSums(s, fieldName, monthCompilation);
+		int series = plotIndex * nbRealizations + realization;
+		int upper = (toYr - s.firstYear + 1) * nbSeries + series;
+		int lower = (fromYr + 1 - s.firstYear) * nbSeries + series;
+		if (ps.nbMissingValues[upper] != ps.nbMissingValues[lower]) {
+			throw new UnsupportedOperationException(monthCompilation == null ?
+					"Some dates between " + (fromYr + 1) + " and " + toYr + " are not in the BioSimDataSet instance!" :
+						"It seems that some monthly values are missing!");
+		}
+		return (ps.sums[upper] - ps.sums[lower]) / (toYr - fromYr);
+	}
+}
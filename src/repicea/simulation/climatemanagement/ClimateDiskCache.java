@@ -0,0 +1,633 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import biosimclient.BioSimDataSet;
+import biosimclient.BioSimEnums.ClimateModel;
+import biosimclient.BioSimEnums.RCP;
+import biosimclient.BioSimPlot;
+import biosimclient.Observation;
+import repicea.simulation.climatemanagement.REpiceaClimateVariableInformation.BioSimModel;
+
+/**
+ * The ClimateDiskCache class stores the BioSimDataSet instances retrieved from BioSIM in a directory
+ * so that they can be reused in later runs without any request to BioSIM.<br>
+ * <br>
+ * There is one file per key. The key is typically made of the model, the RCP, the climate model, the number of
+ * realizations and the rounded coordinates of the plot. A file starts with a magic number, a format version and the key.
+ * It is followed by blocks appended one after the other. Each block starts with the length and the CRC32 checksum
+ * of its payload. The payload contains the first and the last years of the data set and the data set itself, whose 
+ * values are written in binary with a type tag. <br>
+ * <br>
+ * The blocks are written under a file lock. A block that was not completely written, for instance because the
+ * process was killed, is ignored and it is overwritten by the next block. A new block that overlaps former blocks 
+ * replaces their years and the file is then rewritten, so that each year is stored once. The contiguous blocks are merged
+ * when the number of blocks gets large. A request can be served from several blocks and the years that are 
+ * not in the cache are reported so that only these years are requested from BioSIM.
+ * @author Mathieu Fortin - October 2026
+ */
+final class ClimateDiskCache {
+
+	private static final int MagicNumber = 0x52434443;	// RCDC
+	private static final short FormatVersion = 2;
+	private static final int BlockHeaderLength = 8;		// the length and the checksum of the payload
+	private static final int MaximumNumberOfBlocks = 16;	// beyond this number, the contiguous blocks are merged
+	private static final String RealizationFieldName = "Rep";
+
+	private static final int HeaderValid = 0;
+	private static final int HeaderInvalid = 1;
+	private static final int HeaderKeyMismatch = 2;
+	private static final String FileExtension = ".bin";
+
+	private static final byte NullTag = 0;
+	private static final byte IntegerTag = 1;
+	private static final byte LongTag = 2;
+	private static final byte FloatTag = 3;
+	private static final byte DoubleTag = 4;
+	private static final byte StringTag = 5;
+
+	private final File directory;
+
+	/**
+	 * Constructor.
+	 * @param directory the directory of the cache. It is created if it does not exist.
+	 * @throws IOException if the directory cannot be created
+	 */
+	ClimateDiskCache(File directory) throws IOException {
+		if (directory == null) {
+			throw new InvalidParameterException("The directory argument cannot be null!");
+		}
+		if (!directory.exists() && !directory.mkdirs()) {
+			throw new IOException("Unable to create the directory " + directory.getAbsolutePath() + "!");
+		}
+		if (!directory.isDirectory()) {
+			throw new InvalidParameterException("The file " + directory.getAbsolutePath() + " is not a directory!");
+		}
+		this.directory = directory;
+	}
+
+	File getDirectory() {return directory;}
+
+	private static String getPlotId(BioSimPlot p) {
+		return p.getLatitudeDeg() + "_" + p.getLongitudeDeg() + "_" + p.getElevationM();
+	}
+
+	/**
+	 * Provide the key of the weather of a plot.
+	 * @param model a BioSimModel enum
+	 * @param rcp a RCP enum
+	 * @param climModel a ClimateModel enum
+	 * @param nbRealizations the number of realizations in the request
+	 * @param p a BioSimPlot instance
+	 * @return a String
+	 */
+	static String getWeatherKey(BioSimModel model, RCP rcp, ClimateModel climModel, int nbRealizations, BioSimPlot p) {
+		return model.modelName + "|" + model.parameters + "|" + rcp + "|" + climModel.name() + "|" + nbRealizations + "|" + getPlotId(p);
+	}
+
+	/**
+	 * Provide the key of the normals of a plot.
+	 * @param normalsModel a BioSimModel enum that stands for a period of normals
+	 * @param isMonthly true for monthly normals or false for annual normals
+	 * @param rcp a RCP enum
+	 * @param climModel a ClimateModel enum
+	 * @param p a BioSimPlot instance
+	 * @return a String
+	 */
+	static String getNormalsKey(BioSimModel normalsModel, boolean isMonthly, RCP rcp, ClimateModel climModel, BioSimPlot p) {
+		return normalsModel.modelName + "|" + (isMonthly ? "Monthly" : "Annual") + "|" + rcp + "|" + climModel.name() + "|" + getPlotId(p);
+	}
+
+	/*
+	 * The file name is made of a 64-bit FNV-1a hash of the key. The key is also written in the
+	 * header of the file so that a collision is detected.
+	 */
+	private File getFile(String key) {
+		long hash = 0xCBF29CE484222325L;
+		for (int i = 0; i < key.length(); i++) {
+			hash ^= key.charAt(i);
+			hash *= 0x100000001B3L;
+		}
+		return new File(directory, Long.toHexString(hash) + FileExtension);
+	}
+
+	/**
+	 * The CachedRange class holds the observations found in the cache for a range of years and the
+	 * smallest range of years that contains all the missing years.
+	 */
+	static final class CachedRange {
+
+		private final BioSimDataSet dataSet;
+		private final int missingFirstYr;
+		private final int missingLastYr;
+
+		private CachedRange(BioSimDataSet dataSet, int missingFirstYr, int missingLastYr) {
+			this.dataSet = dataSet;
+			this.missingFirstYr = missingFirstYr;
+			this.missingLastYr = missingLastYr;
+		}
+
+		/**
+		 * Check if all the requested years were found in the cache.
+		 * @return a boolean
+		 */
+		boolean isComplete() {return missingFirstYr > missingLastYr;}
+
+		/**
+		 * Provide the first missing year.
+		 * @return an integer
+		 */
+		int getMissingFirstYr() {return missingFirstYr;}
+
+		/**
+		 * Provide the last missing year.
+		 * @return an integer
+		 */
+		int getMissingLastYr() {return missingLastYr;}
+
+		/**
+		 * Provide the cached observations.
+		 * @return a BioSimDataSet instance or null if no year was found in the cache
+		 */
+		BioSimDataSet getDataSet() {return dataSet;}
+
+		/**
+		 * Provide the cached observations whose year is outside a particular range.
+		 * @param firstYr the first year of the range (inclusive)
+		 * @param lastYr the last year of the range (inclusive)
+		 * @return a BioSimDataSet instance or null if no year was found in the cache
+		 */
+		BioSimDataSet getDataSetOutside(int firstYr, int lastYr) {
+			if (dataSet == null || firstYr > lastYr) {
+				return dataSet;
+			}
+			return merge(filterYears(dataSet, Integer.MIN_VALUE, firstYr - 1),
+					filterYears(dataSet, lastYr + 1, Integer.MAX_VALUE));
+		}
+	}
+
+	/*
+	 * The header of a block and its position in the file. The payload is decoded only if needed.
+	 */
+	private static final class Block {
+		private final long position;		// the position of the payload
+		private final int length;
+		private final long checksum;
+		private final int firstYr;
+		private final int lastYr;
+		private BioSimDataSet dataSet;
+
+		private Block(long position, int length, long checksum, int firstYr, int lastYr) {
+			this.position = position;
+			this.length = length;
+			this.checksum = checksum;
+			this.firstYr = firstYr;
+			this.lastYr = lastYr;
+		}
+
+		private Block(int firstYr, int lastYr, BioSimDataSet dataSet) {
+			this(-1, 0, 0, firstYr, lastYr);
+			this.dataSet = dataSet;
+		}
+
+		private boolean overlaps(int fromYr, int toYr) {
+			return firstYr <= toYr && lastYr >= fromYr;
+		}
+	}
+
+	/*
+	 * Read the headers of the blocks. The file pointer must be located right after the header
+	 * of the file. The reading stops at the first truncated block.
+	 */
+	private static List<Block> readBlockHeaders(RandomAccessFile raf) throws IOException {
+		List<Block> blocks = new ArrayList<Block>();
+		long fileLength = raf.length();
+		long position = raf.getFilePointer();
+		while (fileLength - position >= BlockHeaderLength) {
+			int length = raf.readInt();
+			int checksum = raf.readInt();
+			if (length < 8 || length > fileLength - position - BlockHeaderLength) {	// truncated block
+				break;
+			}
+			int blockFirstYr = raf.readInt();
+			int blockLastYr = raf.readInt();
+			blocks.add(new Block(position + BlockHeaderLength, length, checksum & 0xFFFFFFFFL, blockFirstYr, blockLastYr));
+			position += BlockHeaderLength + length;
+			raf.seek(position);
+		}
+		return blocks;
+	}
+
+	/*
+	 * Read and decode the payload of a block. Return false if the checksum does not match.
+	 */
+	private static boolean readPayload(RandomAccessFile raf, Block block) throws IOException {
+		byte[] payload = new byte[block.length];
+		raf.seek(block.position);
+		raf.readFully(payload);
+		if (getChecksum(payload) != block.checksum) {
+			return false;
+		}
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(payload));
+		dis.readInt();	// the years are already known
+		dis.readInt();
+		block.dataSet = readDataSet(dis);
+		return true;
+	}
+
+	/**
+	 * Retrieve a data set.<p>
+	 * The data set is returned only if all the requested years are found in the cache.
+	 * @param key the key
+	 * @param firstYr the first year (inclusive)
+	 * @param lastYr the last year (inclusive)
+	 * @return a BioSimDataSet instance or null if the cache does not contain all these years
+	 * @throws IOException if an I/O error has occurred
+	 * @see ClimateDiskCache#getCachedRange(String, int, int)
+	 */
+	BioSimDataSet get(String key, int firstYr, int lastYr) throws IOException {
+		CachedRange cachedRange = getCachedRange(key, firstYr, lastYr);
+		return cachedRange.isComplete() ? cachedRange.getDataSet() : null;
+	}
+
+	/**
+	 * Retrieve the years of a range that are found in the cache.<p>
+	 * Each year is taken from the last valid block that covers it. The blocks that do not overlap the range are skipped
+	 * through their length without being read. The observations are sorted by realization, year and month.
+	 * @param key the key
+	 * @param firstYr the first year (inclusive)
+	 * @param lastYr the last year (inclusive)
+	 * @return a CachedRange instance
+	 * @throws IOException if an I/O error has occurred
+	 */
+	synchronized CachedRange getCachedRange(String key, int firstYr, int lastYr) throws IOException {
+		if (firstYr > lastYr) {
+			throw new InvalidParameterException("The firstYr argument must be smaller than or equal to the lastYr argument!");
+		}
+		File file = getFile(key);
+		if (!file.exists()) {
+			return new CachedRange(null, firstYr, lastYr);
+		}
+		Block[] sources = new Block[lastYr - firstYr + 1];	// the block that provides each year
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			if (!isHeaderValid(raf, key)) {
+				return new CachedRange(null, firstYr, lastYr);
+			}
+			List<Block> blocks = readBlockHeaders(raf);
+			for (int i = blocks.size() - 1; i >= 0; i--) {
+				Block block = blocks.get(i);
+				if (block.overlaps(firstYr, lastYr)) {
+					int fromYr = Math.max(firstYr, block.firstYr);
+					int toYr = Math.min(lastYr, block.lastYr);
+					boolean isNeeded = false;
+					for (int yr = fromYr; yr <= toYr && !isNeeded; yr++) {
+						isNeeded = sources[yr - firstYr] == null;
+					}
+					if (isNeeded && readPayload(raf, block)) {
+						for (int yr = fromYr; yr <= toYr; yr++) {
+							if (sources[yr - firstYr] == null) {
+								sources[yr - firstYr] = block;
+							}
+						}
+					}
+				}
+			}
+		} finally {
+			raf.close();
+		}
+		int missingFirstYr = Integer.MAX_VALUE;
+		int missingLastYr = Integer.MIN_VALUE;
+		BioSimDataSet dataSet = null;
+		Block currentBlock = null;
+		int currentFirstYr = firstYr;
+		for (int yr = firstYr; yr <= lastYr + 1; yr++) {		// the observations are taken by runs of years from the same block
+			Block block = yr <= lastYr ? sources[yr - firstYr] : null;
+			if (block != currentBlock) {
+				if (currentBlock != null) {
+					dataSet = merge(dataSet, filterYears(currentBlock.dataSet, currentFirstYr, yr - 1));
+				}
+				currentBlock = block;
+				currentFirstYr = yr;
+			}
+			if (yr <= lastYr && block == null) {
+				missingFirstYr = Math.min(missingFirstYr, yr);
+				missingLastYr = Math.max(missingLastYr, yr);
+			}
+		}
+		return new CachedRange(dataSet, missingFirstYr, missingLastYr);
+	}
+
+	/**
+	 * Store a data set in the cache.<p>
+	 * Under the file lock, the blocks are checked and the file is truncated after the last valid block. A torn
+	 * block left by a former run is then overwritten. If the years of the data set do not overlap any block, the data set
+	 * is simply appended as a new block. Otherwise, the years covered by the new data set are removed from the former blocks and
+	 * the file is rewritten. The file is also rewritten with the contiguous blocks merged once it holds MaximumNumberOfBlocks
+	 * blocks. A key therefore holds each year at most once.
+	 * @param key the key
+	 * @param firstYr the first year of the data set (inclusive)
+	 * @param lastYr the last year of the data set (inclusive)
+	 * @param dataSet a BioSimDataSet instance
+	 * @throws IOException if an I/O error has occurred
+	 */
+	synchronized void put(String key, int firstYr, int lastYr, BioSimDataSet dataSet) throws IOException {
+		if (firstYr > lastYr) {
+			throw new InvalidParameterException("The firstYr argument must be smaller than or equal to the lastYr argument!");
+		}
+		RandomAccessFile raf = new RandomAccessFile(getFile(key), "rw");
+		try {
+			FileLock lock = raf.getChannel().lock();
+			try {
+				long validLength = 0;
+				List<Block> blocks = new ArrayList<Block>();
+				if (raf.length() > 0) {
+					int headerStatus = checkHeader(raf, key);
+					if (headerStatus == HeaderKeyMismatch) {		// hash collision: this key is not cached
+						return;
+					}
+					if (headerStatus == HeaderValid) {		// a torn header or a former format is overwritten
+						validLength = raf.getFilePointer();
+						for (Block block : readBlockHeaders(raf)) {
+							if (!readPayload(raf, block)) {
+								break;
+							}
+							blocks.add(block);
+							validLength = block.position + block.length;
+						}
+					}
+				}
+				boolean isOverlapping = false;
+				for (Block block : blocks) {
+					isOverlapping |= block.overlaps(firstYr, lastYr);
+				}
+				if (!isOverlapping && blocks.size() < MaximumNumberOfBlocks) {	// the new block is simply appended
+					raf.setLength(validLength);
+					raf.seek(validLength);
+					if (validLength == 0) {
+						writeHeader(raf, key);
+					}
+					writeBlock(raf, new Block(firstYr, lastYr, dataSet));
+				} else {
+					List<Block> newBlocks = new ArrayList<Block>();
+					for (Block block : blocks) {
+						if (!block.overlaps(firstYr, lastYr)) {
+							newBlocks.add(block);
+						} else if (block.dataSet.getFieldNames().contains(ClimateColumnStore.YEAR_DATE_FIELDNAME)) {	// only the years that are not covered by the new data set are kept
+							if (block.firstYr < firstYr) {
+								newBlocks.add(new Block(block.firstYr, firstYr - 1, filterYears(block.dataSet, block.firstYr, firstYr - 1)));
+							}
+							if (block.lastYr > lastYr) {
+								newBlocks.add(new Block(lastYr + 1, block.lastYr, filterYears(block.dataSet, lastYr + 1, block.lastYr)));
+							}
+						}
+					}
+					newBlocks.add(new Block(firstYr, lastYr, dataSet));
+					raf.setLength(0);
+					raf.seek(0);
+					writeHeader(raf, key);
+					for (Block block : mergeContiguousBlocks(newBlocks)) {
+						writeBlock(raf, block);
+					}
+				}
+			} finally {
+				lock.release();
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	/*
+	 * Sort the blocks by year and merge the blocks whose years are contiguous and whose fields are the same.
+	 */
+	private static List<Block> mergeContiguousBlocks(List<Block> blocks) {
+		List<Block> sortedBlocks = new ArrayList<Block>(blocks);
+		Collections.sort(sortedBlocks, (b1, b2) -> Integer.compare(b1.firstYr, b2.firstYr));
+		List<Block> mergedBlocks = new ArrayList<Block>();
+		for (Block block : sortedBlocks) {
+			Block previousBlock = mergedBlocks.isEmpty() ? null : mergedBlocks.get(mergedBlocks.size() - 1);
+			if (previousBlock != null &&
+					previousBlock.lastYr + 1 == block.firstYr &&
+					previousBlock.dataSet.getFieldNames().equals(block.dataSet.getFieldNames())) {
+				mergedBlocks.set(mergedBlocks.size() - 1, new Block(previousBlock.firstYr, block.lastYr, merge(previousBlock.dataSet, block.dataSet)));
+			} else {
+				mergedBlocks.add(block);
+			}
+		}
+		return mergedBlocks;
+	}
+
+	private static void writeHeader(RandomAccessFile raf, String key) throws IOException {
+		ByteArrayOutputStream headerStream = new ByteArrayOutputStream();
+		DataOutputStream headerDataStream = new DataOutputStream(headerStream);
+		headerDataStream.writeInt(MagicNumber);
+		headerDataStream.writeShort(FormatVersion);
+		headerDataStream.writeUTF(key);
+		headerDataStream.flush();
+		raf.write(headerStream.toByteArray());
+	}
+
+	private static void writeBlock(RandomAccessFile raf, Block block) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(bos);
+		dos.writeInt(block.firstYr);
+		dos.writeInt(block.lastYr);
+		writeDataSet(dos, block.dataSet);
+		dos.flush();
+		byte[] payload = bos.toByteArray();
+
+		ByteArrayOutputStream blockStream = new ByteArrayOutputStream(payload.length + BlockHeaderLength);
+		DataOutputStream blockDataStream = new DataOutputStream(blockStream);
+		blockDataStream.writeInt(payload.length);
+		blockDataStream.writeInt((int) getChecksum(payload));
+		blockDataStream.write(payload);
+		blockDataStream.flush();
+		raf.write(blockStream.toByteArray());
+	}
+
+	/**
+	 * Merge the observations of two data sets with the same fields. The observations are sorted by
+	 * realization, year and month as in the data sets returned by BioSIM.
+	 * @param dataSet1 a BioSimDataSet instance (can be null)
+	 * @param dataSet2 a BioSimDataSet instance (can be null)
+	 * @return a BioSimDataSet instance or null if both data sets are null
+	 */
+	static BioSimDataSet merge(BioSimDataSet dataSet1, BioSimDataSet dataSet2) {
+		if (dataSet1 == null || dataSet1.getObservations().isEmpty() && dataSet2 != null) {
+			return dataSet2;
+		} else if (dataSet2 == null || dataSet2.getObservations().isEmpty()) {
+			return dataSet1;
+		}
+		List<String> fieldNames = dataSet1.getFieldNames();
+		if (!fieldNames.equals(dataSet2.getFieldNames())) {
+			throw new InvalidParameterException("The data sets do not have the same fields!");
+		}
+		List<Object[]> observations = new ArrayList<Object[]>();
+		for (Observation o : dataSet1.getObservations()) {
+			observations.add(o.toArray());
+		}
+		for (Observation o : dataSet2.getObservations()) {
+			observations.add(o.toArray());
+		}
+		final int[] sortingFieldIndices = new int[] {fieldNames.indexOf(RealizationFieldName),
+				fieldNames.indexOf(ClimateColumnStore.YEAR_DATE_FIELDNAME),
+				fieldNames.indexOf(ClimateColumnStore.MONTH_DATE_FIELDNAME)};
+		Collections.sort(observations, (o1, o2) -> {
+			for (int index : sortingFieldIndices) {
+				if (index != -1) {
+					int comparison = Integer.compare(((Number) o1[index]).intValue(), ((Number) o2[index]).intValue());
+					if (comparison != 0) {
+						return comparison;
+					}
+				}
+			}
+			return 0;
+		});
+		BioSimDataSet mergedDataSet = new BioSimDataSet(fieldNames);
+		for (Object[] values : observations) {
+			mergedDataSet.addObservation(values);
+		}
+		return mergedDataSet;
+	}
+
+	private static long getChecksum(byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+		return crc.getValue();
+	}
+
+	private static boolean isHeaderValid(RandomAccessFile raf, String key) throws IOException {
+		return checkHeader(raf, key) == HeaderValid;
+	}
+
+	private static int checkHeader(RandomAccessFile raf, String key) throws IOException {
+		try {
+			if (raf.readInt() != MagicNumber || raf.readShort() != FormatVersion) {
+				return HeaderInvalid;
+			}
+			return raf.readUTF().equals(key) ? HeaderValid : HeaderKeyMismatch;
+		} catch (EOFException e) {
+			return HeaderInvalid;
+		}
+	}
+
+	private static void writeDataSet(DataOutputStream dos, BioSimDataSet dataSet) throws IOException {
+		List<String> fieldNames = dataSet.getFieldNames();
+		dos.writeInt(fieldNames.size());
+		for (String fieldName : fieldNames) {
+			dos.writeUTF(fieldName);
+		}
+		List<Observation> observations = dataSet.getObservations();
+		dos.writeInt(observations.size());
+		for (Observation o : observations) {
+			for (Object value : o.toArray()) {
+				if (value == null) {
+					dos.writeByte(NullTag);
+				} else if (value instanceof Integer) {
+					dos.writeByte(IntegerTag);
+					dos.writeInt((Integer) value);
+				} else if (value instanceof Long) {
+					dos.writeByte(LongTag);
+					dos.writeLong((Long) value);
+				} else if (value instanceof Float) {
+					dos.writeByte(FloatTag);
+					dos.writeFloat((Float) value);
+				} else if (value instanceof Number) {
+					dos.writeByte(DoubleTag);
+					dos.writeDouble(((Number) value).doubleValue());
+				} else {
+					dos.writeByte(StringTag);
+					dos.writeUTF(value.toString());
+				}
+			}
+		}
+	}
+
+	private static BioSimDataSet readDataSet(DataInputStream dis) throws IOException {
+		int nbFields = dis.readInt();
+		List<String> fieldNames = new ArrayList<String>(nbFields);
+		for (int f = 0; f < nbFields; f++) {
+			fieldNames.add(dis.readUTF());
+		}
+		BioSimDataSet dataSet = new BioSimDataSet(fieldNames);
+		int nbObservations = dis.readInt();
+		for (int i = 0; i < nbObservations; i++) {
+			Object[] values = new Object[nbFields];
+			for (int f = 0; f < nbFields; f++) {
+				byte tag = dis.readByte();
+				switch (tag) {
+				case NullTag:
+					break;
+				case IntegerTag:
+					values[f] = dis.readInt();
+					break;
+				case LongTag:
+					values[f] = dis.readLong();
+					break;
+				case FloatTag:
+					values[f] = dis.readFloat();
+					break;
+				case DoubleTag:
+					values[f] = dis.readDouble();
+					break;
+				case StringTag:
+					values[f] = dis.readUTF();
+					break;
+				default:
+					throw new IOException("Unknown type tag " + tag + " in the climate cache!");
+				}
+			}
+			dataSet.addObservation(values);
+		}
+		return dataSet;
+	}
+
+	private static BioSimDataSet filterYears(BioSimDataSet dataSet, int firstYr, int lastYr) {
+		int yearFieldIndex = dataSet.getFieldNames().indexOf(ClimateColumnStore.YEAR_DATE_FIELDNAME);
+		if (yearFieldIndex == -1) {
+			return dataSet;
+		}
+		BioSimDataSet subDataSet = new BioSimDataSet(dataSet.getFieldNames());
+		for (Observation o : dataSet.getObservations()) {
+			Object[] values = o.toArray();
+			int yr = ((Number) values[yearFieldIndex]).intValue();
+			if (yr >= firstYr && yr <= lastYr) {
+				subDataSet.addObservation(values);
+			}
+		}
+		return subDataSet;
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import biosimclient.BioSimDataSet;
+import biosimclient.BioSimPlot;
+import biosimclient.Observation;
+
+/**
+ * The ClimateNormalsTable class stores the normals of a period for all the plots in a primitive array. <br>
+ * <br>
+ * The values are stored in a single array of doubles indexed by plot, field and row. There are 12 rows, one per
+ * month, for monthly normals and a single row for annual normals. The mean temperature T is derived from the
+ * minimum and maximum temperatures if it is not provided. The compilation of the months, i.e. the sum or the mean 
+ * over the selected months, is computed once for all the plots the first time a variable is requested, so that 
+ * the following requests only read an array.
+ * @author Mathieu Fortin - October 2026
+ */
+final class ClimateNormalsTable {
+
+	private static final String MEAN_TEMPERATURE_FIELDNAME = "T";
+
+	private final boolean isMonthly;
+	private final int nbPlots;
+	private final int nbRows;
+	private final List<String> fieldNames;
+	private final double[] values;
+	private final boolean[] isFieldNumeric;
+	private final boolean[] isRowCountValid;
+	private final Map<Integer, double[]> compiledValues;
+
+	/**
+	 * Constructor.
+	 * @param dataSets a Map with the plots as keys and the BioSimDataSet instances of the normals as values
+	 * @param plotIndices a Map with the indices of the plots
+	 * @param nbPlots the number of plots
+	 * @param isMonthly true for monthly normals or false for annual normals
+	 */
+	ClimateNormalsTable(Map<BioSimPlot, BioSimDataSet> dataSets, Map<BioSimPlot, Integer> plotIndices, int nbPlots, boolean isMonthly) {
+		this.isMonthly = isMonthly;
+		this.nbPlots = nbPlots;
+		nbRows = isMonthly ? 12 : 1;
+		fieldNames = new ArrayList<String>();
+		for (BioSimDataSet dataSet : dataSets.values()) {
+			for (String fieldName : dataSet.getFieldNames()) {
+				if (!fieldNames.contains(fieldName)) {
+					fieldNames.add(fieldName);
+				}
+			}
+		}
+		String maxTemp = isMonthly ? "TMAX_MN" : "TX";
+		String minTemp = isMonthly ? "TMIN_MN" : "TN";
+		boolean isMeanTemperatureDerived = !fieldNames.contains(MEAN_TEMPERATURE_FIELDNAME) && fieldNames.contains(minTemp) && fieldNames.contains(maxTemp);
+		if (isMeanTemperatureDerived) {
+			fieldNames.add(MEAN_TEMPERATURE_FIELDNAME);
+		}
+		int nbFields = fieldNames.size();
+		values = new double[nbPlots * nbFields * nbRows];
+		Arrays.fill(values, Double.NaN);
+		isFieldNumeric = new boolean[nbFields];
+		Arrays.fill(isFieldNumeric, true);
+		isRowCountValid = new boolean[nbFields];
+		Arrays.fill(isRowCountValid, true);
+		for (Map.Entry<BioSimPlot, BioSimDataSet> entry : dataSets.entrySet()) {
+			Integer plotIndex = plotIndices.get(entry.getKey());
+			if (plotIndex == null) {
+				continue;
+			}
+			BioSimDataSet dataSet = entry.getValue();
+			List<Observation> observations = dataSet.getObservations();
+			List<String> dataSetFieldNames = dataSet.getFieldNames();
+			for (int f = 0; f < dataSetFieldNames.size(); f++) {
+				int field = fieldNames.indexOf(dataSetFieldNames.get(f));
+				if (observations.size() != nbRows) {
+					isRowCountValid[field] = false;
+					continue;
+				}
+				for (int row = 0; row < nbRows; row++) {
+					Object o = observations.get(row).toArray()[f];
+					if (o instanceof Number) {
+						values[getOffset(plotIndex, field, row)] = ((Number) o).doubleValue();
+					} else {
+						isFieldNumeric[field] = false;
+					}
+				}
+			}
+			if (isMeanTemperatureDerived) {
+				int field = fieldNames.indexOf(MEAN_TEMPERATURE_FIELDNAME);
+				int maxField = fieldNames.indexOf(maxTemp);
+				int minField = fieldNames.indexOf(minTemp);
+				isRowCountValid[field] = isRowCountValid[maxField] && isRowCountValid[minField];
+				for (int row = 0; row < nbRows; row++) {
+					values[getOffset(plotIndex, field, row)] = (values[getOffset(plotIndex, maxField, row)] + values[getOffset(plotIndex, minField, row)]) * .5;
+				}
+			}
+		}
+		compiledValues = new ConcurrentHashMap<Integer, double[]>();
+	}
+
+	private int getOffset(int plotIndex, int field, int row) {
+		return (plotIndex * fieldNames.size() + field) * nbRows + row;
+	}
+
+	/**
+	 * Provide the value of a climate variable for a plot.<p>
+	 * The first call for a particular variable compiles the values of all the plots.
+	 * @param variableId the id of the climate variable
+	 * @param info an REpiceaClimateVariableInformation instance
+	 * @param plotIndex the index of the plot
+	 * @return a double
+	 */
+	double getValue(int variableId, REpiceaClimateVariableInformation info, int plotIndex) {
+		double[] compiled = compiledValues.get(variableId);
+		if (compiled == null) {
+			compiled = compile(info);
+			compiledValues.put(variableId, compiled);
+		}
+		return compiled[plotIndex];
+	}
+
+	private double[] compile(REpiceaClimateVariableInformation info) {
+		int field = fieldNames.indexOf(info.fieldName);
+		if (field == -1) {
+			throw new UnsupportedOperationException("The field " + info.fieldName + " cannot be found in the BioSimDataSet instance!");
+		}
+		if (!isRowCountValid[field]) {
+			throw new UnsupportedOperationException(isMonthly ?
+					"There should be 12 values (one per month) in this field " + info.fieldName + "!" :
+						"There should be only one value in this field " + info.fieldName + "!");
+		}
+		if (!isFieldNumeric[field]) {
+			throw new UnsupportedOperationException("The vector of values seems to contain non numeric types!");
+		}
+		double[] compiled = new double[nbPlots];
+		for (int p = 0; p < nbPlots; p++) {
+			if (isMonthly) {
+				double value = 0d;
+				for (Integer month : info.monthCompilation.selectedMonths) {
+					value += values[getOffset(p, field, month - 1)];
+				}
+				if (info.monthCompilation.isAverage) {
+					value /= info.monthCompilation.selectedMonths.size();
+				}
+				compiled[p] = value;
+			} else {
+				compiled[p] = values[getOffset(p, field, 0)];
+			}
+		}
+		return compiled;
+	}
+
+	/**
+	 * Provide the number of fields in the table, including the derived mean temperature if any.
+	 * @return an integer
+	 */
+	int getNumberOfFields() {return fieldNames.size();}
+}
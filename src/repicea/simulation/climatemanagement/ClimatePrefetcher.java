@@ -0,0 +1,205 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.security.InvalidParameterException;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The ClimatePrefetcher class produces the climate variables of the next growth steps in a background thread. <br>
+ * <br>
+ * The growth steps are assumed to follow a fixed time step up to a final date. Each time a step is reached,
+ * the following horizons are scheduled, up to a bounded number of horizons ahead. The horizons are produced
+ * one after the other by a single daemon thread. If the production of a horizon fails, the exception is thrown
+ * to the first consumer that waits for it and the horizons that were not yet produced are discarded.
+ * @author Mathieu Fortin - October 2026
+ */
+final class ClimatePrefetcher {
+
+	/**
+	 * The maximum number of horizons that can be produced ahead of the current step.
+	 */
+	static final int MaximumNumberOfHorizons = 5;
+
+	/**
+	 * The interface of the instance that actually produces the climate variables.
+	 */
+	interface ClimateProducer {
+
+		/**
+		 * Produce the climate variables up to a particular year.
+		 * @param toYr the year date up to which the climate variables must be produced
+		 * @throws Exception if the climate variables cannot be produced
+		 */
+		void produceClimateVariables(int toYr) throws Exception;
+	}
+
+	private final ClimateProducer producer;
+	private final int timeStepYr;
+	private final int finalDateYr;
+	private final int nbHorizons;
+	private final ExecutorService executor;
+	private final TreeMap<Integer, Future<?>> tasks;
+	private volatile int lastScheduledYr = Integer.MIN_VALUE;
+	private volatile Exception failure;
+
+	/**
+	 * Constructor.
+	 * @param producer a ClimateProducer instance
+	 * @param timeStepYr the duration of the growth step (yr, must be greater than 0)
+	 * @param finalDateYr the date of the final step (yr)
+	 * @param nbHorizons the number of horizons produced ahead of the current step (from 1 to MaximumNumberOfHorizons)
+	 */
+	ClimatePrefetcher(ClimateProducer producer, int timeStepYr, int finalDateYr, int nbHorizons) {
+		if (producer == null) {
+			throw new InvalidParameterException("The producer argument cannot be null!");
+		}
+		if (timeStepYr < 1) {
+			throw new InvalidParameterException("The timeStepYr argument must be greater than 0!");
+		}
+		if (nbHorizons < 1 || nbHorizons > MaximumNumberOfHorizons) {
+			throw new InvalidParameterException("The nbHorizons argument must range from 1 to " + MaximumNumberOfHorizons + "!");
+		}
+		this.producer = producer;
+		this.timeStepYr = timeStepYr;
+		this.finalDateYr = finalDateYr;
+		this.nbHorizons = nbHorizons;
+		tasks = new TreeMap<Integer, Future<?>>();
+		executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "REpiceaClimateManager-Prefetcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Schedule the production of the horizons that follow a particular step.<p>
+	 * The method returns immediately if these horizons are already scheduled.
+	 * @param currentYr the date of the current step (yr)
+	 */
+	void scheduleHorizonsAfter(int currentYr) {
+		int limitYr = Math.min(finalDateYr, currentYr + timeStepYr * nbHorizons);
+		if (lastScheduledYr + timeStepYr > limitYr) {	// nothing new to schedule
+			return;
+		}
+		synchronized (tasks) {
+			if (executor.isShutdown()) {
+				return;
+			}
+			int yr = Math.max(lastScheduledYr, currentYr);
+			while (yr + timeStepYr <= limitYr) {
+				yr += timeStepYr;
+				final int horizonYr = yr;
+				tasks.put(horizonYr, executor.submit(() -> {
+					produceHorizon(horizonYr);
+					return null;
+				}));
+				lastScheduledYr = horizonYr;
+			}
+		}
+	}
+
+	private void produceHorizon(int horizonYr) throws Exception {
+		Exception formerFailure = failure;
+		if (formerFailure != null) {	// the following horizons are not produced after a failure
+			throw formerFailure;
+		}
+		try {
+			producer.produceClimateVariables(horizonYr);
+		} catch (Exception e) {
+			failure = e;
+			throw e;
+		}
+	}
+
+	/**
+	 * Wait until the scheduled horizons up to a particular year have been produced.<p>
+	 * If the year is beyond the scheduled horizons, the method waits for all of them. If no
+	 * horizon is scheduled, it returns immediately.
+	 * @param toYr the year date
+	 * @throws Exception the exception thrown while producing the horizons if any
+	 */
+	void awaitHorizonsUpTo(int toYr) throws Exception {
+		Integer key;
+		Future<?> task;
+		synchronized (tasks) {
+			if (tasks.isEmpty()) {
+				return;
+			}
+			key = tasks.ceilingKey(toYr);
+			if (key == null) {
+				key = tasks.lastKey();
+			}
+			task = tasks.get(key);
+		}
+		try {
+			task.get();
+		} catch (ExecutionException e) {
+			discardHorizons();
+			Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw (Exception) cause;
+			}
+		}
+		synchronized (tasks) {
+			tasks.headMap(key, true).clear();	// the horizons are produced in order
+		}
+	}
+
+	/*
+	 * Cancel the pending horizons so that the next consumer produces the climate variables itself
+	 * and the scheduling starts over.
+	 */
+	private void discardHorizons() {
+		synchronized (tasks) {
+			for (Future<?> task : tasks.values()) {
+				task.cancel(false);
+			}
+			tasks.clear();
+			lastScheduledYr = Integer.MIN_VALUE;
+			failure = null;
+		}
+	}
+
+	/**
+	 * Cancel the pending horizons and stop the thread once the current horizon, if any, has been produced.
+	 */
+	void shutdown() {
+		synchronized (tasks) {
+			for (Future<?> task : tasks.values()) {
+				task.cancel(false);
+			}
+			tasks.clear();
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Provide the date of the last horizon scheduled so far.
+	 * @return an integer (Integer.MIN_VALUE if no horizon has been scheduled)
+	 */
+	int getLastScheduledYr() {return lastScheduledYr;}
+}
@@ -0,0 +1,315 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The ClimateValueCache class stores the climate values already computed by the REpiceaClimateManager class. <br>
+ * <br>
+ * The key is made of the id of the climate variable, the index of the plot, the interval and the realization. It is
+ * packed into two longs. The keys and the values are stored in primitive arrays with open addressing and linear
+ * probing, so that a lookup does not create any object. The arrays grow with the number of entries so that the load
+ * factor does not exceed .5. <br>
+ * <br>
+ * The number of entries is bounded. Once the bound is reached, an entry is evicted following the CLOCK
+ * algorithm: the entries that were read since the last pass of the clock hand get a second chance. <br>
+ * <br>
+ * This class is thread safe. The entries are split into segments. The lookups are optimistic reads that do not
+ * acquire any lock unless a write occurs in the same segment at the same time.
+ * @author Mathieu Fortin - October 2026
+ */
+final class ClimateValueCache {
+
+	private static final int YearBits = 21;
+	private static final long YearMask = (1L << YearBits) - 1;
+	private static final int MaxRealization = (1 << (64 - 2 * YearBits)) - 1;
+
+	private static final int InitialCapacity = 16;
+	private static final int MaxNumberOfSegments = 16;
+
+	/**
+	 * The arrays of a segment. They are replaced as a whole when the segment grows so that an
+	 * optimistic reader always sees arrays of the same length.
+	 */
+	private static final class Table {
+		private final int mask;
+		private final long[] keys1;
+		private final long[] keys2;
+		private final double[] values;
+		private final boolean[] occupied;
+		private final boolean[] referenced;
+
+		private Table(int capacity) {
+			mask = capacity - 1;
+			keys1 = new long[capacity];
+			keys2 = new long[capacity];
+			values = new double[capacity];
+			occupied = new boolean[capacity];
+			referenced = new boolean[capacity];
+		}
+
+		/*
+		 * The number of probes is bounded so that an optimistic reader cannot loop forever on
+		 * a table that is being modified.
+		 */
+		private int findSlot(long key1, long key2, long hash) {
+			int slot = (int) hash & mask;
+			for (int i = 0; i <= mask && occupied[slot]; i++) {
+				if (keys1[slot] == key1 && keys2[slot] == key2) {
+					return slot;
+				}
+				slot = (slot + 1) & mask;
+			}
+			return -1 - slot;	// the free slot where the key would be inserted
+		}
+	}
+
+	private static final class Segment {
+		private final StampedLock lock = new StampedLock();
+		private final int maximumSize;
+		private Table table;
+		private int size;
+		private int clockHand;
+
+		private Segment(int maximumSize) {
+			this.maximumSize = maximumSize;
+			table = new Table(InitialCapacity);
+		}
+
+		private void put(long key1, long key2, long hash, double value, LongAdder nbEvictions) {
+			int slot = table.findSlot(key1, key2, hash);
+			if (slot >= 0) {
+				table.values[slot] = value;
+				return;
+			}
+			if (size == maximumSize) {
+				evict();
+				nbEvictions.increment();
+				slot = table.findSlot(key1, key2, hash);	// the eviction may have moved the free slot
+			} else if ((size + 1) * 2 > table.keys1.length) {
+				grow();
+				slot = table.findSlot(key1, key2, hash);
+			}
+			slot = -1 - slot;
+			table.keys1[slot] = key1;
+			table.keys2[slot] = key2;
+			table.values[slot] = value;
+			table.referenced[slot] = false;
+			table.occupied[slot] = true;
+			size++;
+		}
+
+		/*
+		 * Double the capacity so that the load factor does not exceed .5.
+		 */
+		private void grow() {
+			Table formerTable = table;
+			Table newTable = new Table(formerTable.keys1.length * 2);
+			for (int i = 0; i < formerTable.keys1.length; i++) {
+				if (formerTable.occupied[i]) {
+					int slot = -1 - newTable.findSlot(formerTable.keys1[i], formerTable.keys2[i], getHash(formerTable.keys1[i], formerTable.keys2[i]));
+					newTable.keys1[slot] = formerTable.keys1[i];
+					newTable.keys2[slot] = formerTable.keys2[i];
+					newTable.values[slot] = formerTable.values[i];
+					newTable.referenced[slot] = formerTable.referenced[i];
+					newTable.occupied[slot] = true;
+				}
+			}
+			table = newTable;
+			clockHand = 0;
+		}
+
+		private void evict() {
+			Table t = table;
+			while (true) {
+				if (t.occupied[clockHand]) {
+					if (t.referenced[clockHand]) {
+						t.referenced[clockHand] = false;
+					} else {
+						remove(clockHand);
+						return;
+					}
+				}
+				clockHand = (clockHand + 1) & t.mask;
+			}
+		}
+
+		/*
+		 * Backward-shift deletion: the entries that follow in the same cluster are moved back so that
+		 * the linear probing never meets a hole before the key it looks for.
+		 */
+		private void remove(int slot) {
+			Table t = table;
+			int hole = slot;
+			int next = (hole + 1) & t.mask;
+			while (t.occupied[next]) {
+				int home = (int) getHash(t.keys1[next], t.keys2[next]) & t.mask;
+				if (((next - home) & t.mask) >= ((next - hole) & t.mask)) {		// the entry can fill the hole
+					t.keys1[hole] = t.keys1[next];
+					t.keys2[hole] = t.keys2[next];
+					t.values[hole] = t.values[next];
+					t.referenced[hole] = t.referenced[next];
+					hole = next;
+				}
+				next = (next + 1) & t.mask;
+			}
+			t.occupied[hole] = false;
+			t.referenced[hole] = false;
+			size--;
+		}
+	}
+
+	private final int maximumSize;
+	private final Segment[] segments;
+	private final int segmentShift;
+	private final LongAdder nbHits;
+	private final LongAdder nbMisses;
+	private final LongAdder nbEvictions;
+
+	/**
+	 * Constructor.
+	 * @param maximumSize the maximum number of entries (must be greater than 0)
+	 */
+	ClimateValueCache(int maximumSize) {
+		if (maximumSize < 1 || maximumSize > 1 << 28) {
+			throw new InvalidParameterException("The maximumSize argument must range from 1 to 2^28!");
+		}
+		this.maximumSize = maximumSize;
+		int nbSegments = Math.min(MaxNumberOfSegments, Integer.highestOneBit(maximumSize));
+		segmentShift = 64 - Integer.numberOfTrailingZeros(nbSegments);
+		segments = new Segment[nbSegments];
+		for (int i = 0; i < nbSegments; i++) {
+			segments[i] = new Segment(maximumSize / nbSegments);
+		}
+		nbHits = new LongAdder();
+		nbMisses = new LongAdder();
+		nbEvictions = new LongAdder();
+	}
+
+	private static long getKey1(int variableId, int plotIndex) {
+		return ((long) variableId << 32) | (plotIndex & 0xFFFFFFFFL);
+	}
+
+	private static long getKey2(int fromYr, int toYr, int realization) {
+		if (realization < 0 || realization > MaxRealization) {
+			throw new InvalidParameterException("The realization argument is out of range!");
+		}
+		return ((fromYr & YearMask) << (64 - YearBits)) | ((toYr & YearMask) << (64 - 2 * YearBits)) | realization;
+	}
+
+	private static long getHash(long key1, long key2) {
+		long h = key1 * 0x9E3779B97F4A7C15L + key2;
+		h ^= h >>> 31;
+		h *= 0xBF58476D1CE4E5B9L;
+		h ^= h >>> 29;
+		return h;
+	}
+
+	private Segment getSegment(long hash) {
+		return segmentShift == 64 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+	}
+
+	/**
+	 * Retrieve a value.
+	 * @param variableId the id of the climate variable
+	 * @param plotIndex the index of the plot
+	 * @param fromYr the start date (yr, exclusive)
+	 * @param toYr the end date (yr, inclusive)
+	 * @param realization the realization id
+	 * @return the value or Double.NaN if the value is not in the cache
+	 */
+	double get(int variableId, int plotIndex, int fromYr, int toYr, int realization) {
+		long key1 = getKey1(variableId, plotIndex);
+		long key2 = getKey2(fromYr, toYr, realization);
+		long hash = getHash(key1, key2);
+		Segment segment = getSegment(hash);
+		long stamp = segment.lock.tryOptimisticRead();
+		Table t = segment.table;
+		int slot = t.findSlot(key1, key2, hash);
+		double value = slot >= 0 ? t.values[slot] : Double.NaN;
+		if (!segment.lock.validate(stamp)) {	// a write occurred in the meantime
+			stamp = segment.lock.readLock();
+			try {
+				t = segment.table;
+				slot = t.findSlot(key1, key2, hash);
+				value = slot >= 0 ? t.values[slot] : Double.NaN;
+			} finally {
+				segment.lock.unlockRead(stamp);
+			}
+		}
+		if (slot >= 0) {
+			t.referenced[slot] = true;	// a lost update only affects the choice of the next evicted entry
+			nbHits.increment();
+		} else {
+			nbMisses.increment();
+		}
+		return value;
+	}
+
+	/**
+	 * Store a value. If the cache is full, another entry is evicted.
+	 * @param variableId the id of the climate variable
+	 * @param plotIndex the index of the plot
+	 * @param fromYr the start date (yr, exclusive)
+	 * @param toYr the end date (yr, inclusive)
+	 * @param realization the realization id
+	 * @param value the value
+	 */
+	void put(int variableId, int plotIndex, int fromYr, int toYr, int realization, double value) {
+		long key1 = getKey1(variableId, plotIndex);
+		long key2 = getKey2(fromYr, toYr, realization);
+		long hash = getHash(key1, key2);
+		Segment segment = getSegment(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			segment.put(key1, key2, hash, value, nbEvictions);
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Provide the number of entries.
+	 * @return an integer
+	 */
+	int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			long stamp = segment.lock.readLock();
+			try {
+				size += segment.size;
+			} finally {
+				segment.lock.unlockRead(stamp);
+			}
+		}
+		return size;
+	}
+
+	int getMaximumSize() {return maximumSize;}
+
+	long getNumberOfHits() {return nbHits.sum();}
+
+	long getNumberOfMisses() {return nbMisses.sum();}
+
+	long getNumberOfEvictions() {return nbEvictions.sum();}
+}
@@ -19,6 +19,8 @@
  */
 package repicea.simulation.climatemanagement;
 
+import java.io.File;
+import java.io.IOException;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -27,18 +29,24 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
-import biosimclient.BioSimClient;
 import biosimclient.BioSimClientException;
 import biosimclient.BioSimDataSet;
 import biosimclient.BioSimEnums.ClimateModel;
 import biosimclient.BioSimEnums.Period;
 import biosimclient.BioSimEnums.RCP;
-import biosimclient.BioSimParameterMap;
 import biosimclient.BioSimPlot;
 import biosimclient.BioSimServerException;
 import biosimclient.Observation;
 import repicea.simulation.climate.REpiceaClimateGenerator.RepresentativeConcentrationPathway;
+import repicea.simulation.climatemanagement.ClimateDiskCache.CachedRange;
 import repicea.simulation.climatemanagement.REpiceaClimateVariableInformation.BioSimClimateVariable;
 import repicea.simulation.climatemanagement.REpiceaClimateVariableInformation.BioSimModel;
 import repicea.simulation.climatemanagement.REpiceaClimateVariableInformation.Resolution;
@@ -46,15 +54,14 @@ import repicea.simulation.covariateproviders.plotlevel.PlotIdProvider;
 
 /**
  * A class handling the production of climate variables.<p>
- * This class is thread safe. The unique public method is synchronized.
+ * This class is thread safe. The climate variables are retrieved from BioSIM under a lock, so that a single
+ * request is sent even if several threads need the same years at the same time. Once the climate variables
+ * have been produced up to the requested year, the getValue method does not acquire any lock.
  * 
  * @author Mathieu Fortin - February 2026
  */
 public final class REpiceaClimateManager {
 
-	
-	private static final String YEAR_DATE_FIELDNAME = "Year";
-	private static final String MONTH_DATE_FIELDNAME = "Month";
 
 	@SuppressWarnings("serial")
 	static class UniqueBioSimPlot implements BioSimPlot {
@@ -105,6 +112,25 @@ public final class REpiceaClimateManager {
 		PeriodLookupMap.put(BioSimModel.Normals1991_2020, Period.FromNormals1991_2020);
 	}
 	
+	/**
+	 * A request sent to BioSIM for a chunk of plots.
+	 */
+	private interface ChunkRequest<R> {
+		R send(List<BioSimPlot> chunk) throws Exception;
+	}
+	
+	/**
+	 * The default maximum number of plots in a single request to BioSIM.
+	 */
+	public static final int DefaultPlotChunkSize = 500;
+	
+	/**
+	 * The default maximum number of requests sent to BioSIM at the same time.
+	 */
+	public static final int DefaultMaximumNumberOfConcurrentRequests = 1;
+	
+	private static final long RequestThreadKeepAliveSec = 60;
+	
 	static class NormalWrapper {
 		final BioSimModel model;
 		final boolean isMonthly;
@@ -139,21 +165,32 @@ public final class REpiceaClimateManager {
 	private final int nbRealizations; // the number of realizations in the growth simulation
 	private final RepresentativeConcentrationPathway rcp;
 	protected int lastDateYrInDataset; // the last date yr in the annualValueMap
-	protected final Map<BioSimModel, Map<BioSimPlot, Map<Integer, BioSimDataSet>>> annualOrMonthlyValueMap; 
-	protected final Map<NormalWrapper, Map<BioSimPlot, BioSimDataSet>> fixedNormals;
-	private boolean staticNormalsProduced = false; // a boolean to make sure the fixed normals are retrieved only once
+	private volatile int producedUpToYr = Integer.MIN_VALUE; // the year up to which the climate variables can be read without lock
+	private final Object fetchLock = new Object(); 
+	private volatile int plotChunkSize = DefaultPlotChunkSize;
+	private volatile int maxNbConcurrentRequests = DefaultMaximumNumberOfConcurrentRequests;
+	private ThreadPoolExecutor requestExecutor; // lazily created when chunks are sent concurrently, guarded by this
+	private volatile ClimateDiskCache diskCache; // the BioSimDataSet instances stored on disk from one run to another
+	private volatile ClimatePrefetcher prefetcher; // produces the next horizons in the background if a prefetch policy is set
+	protected final Map<NormalWrapper, ClimateNormalsTable> fixedNormals;
+	private final Map<BioSimPlot, Integer> plotIndices; // the index of the unique plots in the column stores
+	private final Map<String, Integer> plotIdIndices; // the index of the unique plot of each original plot id
+	final Map<BioSimModel, ClimateColumnStore> columnStores; // the values of the data sets in primitive arrays
+	private volatile boolean staticNormalsProduced = false; // a boolean to make sure the fixed normals are retrieved only once
 	private final ClimateModel climModel = ClimateModel.RCM4; // the climate model
+	private final WeatherSource weatherSource; // the source of the weather and the normals
 	private final Map<BioSimModel, Map<Boolean, NormalWrapper>> normalWrapperRegistry;
 	private final double latitudeResolution;
 	private final double longitudeResolution;
 	private final double elevationResolution;
 	
-	private final ConcurrentHashMap<REpiceaClimateVariableInformation, 
-						ConcurrentHashMap<String, 
-						ConcurrentHashMap<Integer, 
-						ConcurrentHashMap<Integer, 
-						ConcurrentHashMap<Integer, Double>>>>> cache; // id - fromYr - toYr- realization - value
+	private final Map<REpiceaClimateVariableInformation, Integer> variableIds; // the ids of the climate variables in the cache
+	private volatile ClimateValueCache cache; 
 
+	/**
+	 * The default maximum number of values in the cache.
+	 */
+	public static final int DefaultMaximumCacheSize = 1 << 20;
 	
 	static UniqueBioSimPlot roundCoordinates(BioSimPlot p, double latitudeResolution, double longitudeResolution, double elevationResolution) {
 		double[] roundedCoordinates = new double[3];
@@ -180,6 +217,7 @@ public final class REpiceaClimateManager {
 	 * If the resolutions are set to 0, then the true coordinates are used. Otherwise,
 	 * the coordinates are rounded at the resolution level and used afterwards. Original 
 	 * plot ids are mapped to the rounded coordinates. 
+	 * @param weatherSource a WeatherSource instance that provides the weather and the normals
 	 * @param rcp a RepresentativeConcentrationPathway enum
 	 * @param climateInfo a List of REpiceaClimateVariableInformation instances
 	 * @param plots a List of BioSimPlot instances
@@ -190,7 +228,8 @@ public final class REpiceaClimateManager {
 	 * @throws BioSimClientException if an error occurs while using BioSIM WebAPI 
 	 * @throws BioSimServerException if an error occurs while using BioSIM WebAPI
 	 */
-	public REpiceaClimateManager(RepresentativeConcentrationPathway rcp,
+	public REpiceaClimateManager(WeatherSource weatherSource,
+			RepresentativeConcentrationPathway rcp,
 			List<REpiceaClimateVariableInformation> climateInfo, 
 			List<BioSimPlot> plots,
 			double latitudeResolution,
@@ -220,15 +259,15 @@ public final class REpiceaClimateManager {
 			throw new InvalidParameterException("The climateInfo list cannot be null or empty!");
 		}
 		this.rcp = rcp;
-		this.normalWrapperRegistry = new HashMap<BioSimModel, Map<Boolean, NormalWrapper>>();
-		annualOrMonthlyValueMap = new HashMap<BioSimModel, Map<BioSimPlot, Map<Integer, BioSimDataSet>>>();
-		fixedNormals = new HashMap<NormalWrapper, Map<BioSimPlot, BioSimDataSet>>();
-		cache = new ConcurrentHashMap<REpiceaClimateVariableInformation, 
-				ConcurrentHashMap<String, 
-				ConcurrentHashMap<Integer, 
-				ConcurrentHashMap<Integer, 
-				ConcurrentHashMap<Integer, Double>>>>>();
-		lastBioSIMCompleteObservedDailyDateYr = BioSimClient.getLastDailyDateYr() - 1;
+		this.normalWrapperRegistry = new ConcurrentHashMap<BioSimModel, Map<Boolean, NormalWrapper>>();
+		fixedNormals = new ConcurrentHashMap<NormalWrapper, ClimateNormalsTable>();
+		variableIds = new ConcurrentHashMap<REpiceaClimateVariableInformation, Integer>();
+		cache = new ClimateValueCache(DefaultMaximumCacheSize);
+		if (weatherSource == null) {
+			throw new InvalidParameterException("The weatherSource argument cannot be null!");
+		}
+		this.weatherSource = weatherSource;
+		lastBioSIMCompleteObservedDailyDateYr = weatherSource.getLastDailyDateYr() - 1;
 		plotMap = new HashMap<String, BioSimPlot>();
 		Map<String, BioSimPlot> uniquePlotMap = new HashMap<String, BioSimPlot>();
 		for (BioSimPlot p : plots) {
@@ -249,6 +288,15 @@ public final class REpiceaClimateManager {
 		}
 		uniquePlotList = new ArrayList<BioSimPlot>();
 		uniquePlotList.addAll(uniquePlotMap.values());
+		plotIndices = new HashMap<BioSimPlot, Integer>();
+		for (int i = 0; i < uniquePlotList.size(); i++) {
+			plotIndices.put(uniquePlotList.get(i), i);
+		}
+		plotIdIndices = new HashMap<String, Integer>();
+		for (String id : plotMap.keySet()) {
+			plotIdIndices.put(id, plotIndices.get(plotMap.get(id)));
+		}
+		columnStores = new ConcurrentHashMap<BioSimModel, ClimateColumnStore>();
 		
 		annualOrMonthlyModels = new LinkedHashMap<String, BioSimModel>();
 		fixedNormalModels = new LinkedHashMap<String, NormalWrapper>();
@@ -275,14 +323,15 @@ public final class REpiceaClimateManager {
 
 	
 	private NormalWrapper getWrapper(REpiceaClimateVariableInformation info) {
-		if (!normalWrapperRegistry.containsKey(info.model)) {
-			normalWrapperRegistry.put(info.model, new HashMap<Boolean, NormalWrapper>());
-		}
 		Map<Boolean, NormalWrapper> innerMap = normalWrapperRegistry.get(info.model);
-		if (!innerMap.containsKey(info.isMonthly())) {
-			innerMap.put(info.isMonthly(), new NormalWrapper(info.model, info.isMonthly()));
+		if (innerMap == null) {
+			innerMap = normalWrapperRegistry.computeIfAbsent(info.model, m -> new ConcurrentHashMap<Boolean, NormalWrapper>());
 		}
-		return innerMap.get(info.isMonthly());
+		NormalWrapper wrapper = innerMap.get(info.isMonthly());
+		if (wrapper == null) {
+			wrapper = innerMap.computeIfAbsent(info.isMonthly(), isMonthly -> new NormalWrapper(info.model, isMonthly));
+		}
+		return wrapper;
 	}
 	
 	
@@ -303,45 +352,63 @@ public final class REpiceaClimateManager {
 		this(rcp, climateInfo, plots, 0, 0, 0, nbRealizations);
 	}
 	
+	/**
+	 * Constructor.<p>
+	 * The weather and the normals are retrieved from BioSIM WebAPI. If the resolutions are set to 0, then the true 
+	 * coordinates are used. Otherwise, the coordinates are rounded at the resolution level and used afterwards. 
+	 * Original plot ids are mapped to the rounded coordinates. 
+	 * @param rcp a RepresentativeConcentrationPathway enum
+	 * @param climateInfo a List of REpiceaClimateVariableInformation instances
+	 * @param plots a List of BioSimPlot instances
+	 * @param latitudeResolution the latitude resolution (within range [0,1])
+	 * @param longitudeResolution the longitude resolution (within range [0,1])
+	 * @param elevationResolution the elevation resolution (within range [0,100])
+	 * @param nbRealizations the number of realizations (must be greater than 0)
+	 * @throws BioSimClientException if an error occurs while using BioSIM WebAPI 
+	 * @throws BioSimServerException if an error occurs while using BioSIM WebAPI
+	 */
+	public REpiceaClimateManager(RepresentativeConcentrationPathway rcp,
+			List<REpiceaClimateVariableInformation> climateInfo, 
+			List<BioSimPlot> plots,
+			double latitudeResolution,
+			double longitudeResolution,
+			double elevationResolution,
+			int nbRealizations) throws BioSimClientException, BioSimServerException {
+		this(new BioSimWeatherSource(), rcp, climateInfo, plots, latitudeResolution, longitudeResolution, elevationResolution, nbRealizations);
+	}
+	
 	
 	private boolean isFixedNormalsModel(BioSimModel model) {
 		return PeriodLookupMap.containsKey(model);
 	}
 	
-	private List<BioSimParameterMap> getParameterMap() {
-		List<BioSimParameterMap> outputList = new ArrayList<BioSimParameterMap>();
-		for (BioSimModel m : annualOrMonthlyModels.values()) {
-			BioSimParameterMap parmMap = new BioSimParameterMap();
-			if (m.parameters != null && !m.parameters.isEmpty()) {
-				String[] parms = m.parameters.split("\\*");
-				for (String parm : parms) {
-					String[] keyValue = parm.split(":");
-					if (keyValue.length > 1) {
-						parmMap.addParameter(keyValue[0], keyValue[1]);
-					} else {
-						parmMap.addParameter(keyValue[0], ""); 
-					}
-				}
-			}
-			outputList.add(parmMap);
-		}
-		return outputList;
+	/**
+	 * Provide the BioSIM period of a normals model.
+	 * @param normalsModel a BioSimModel enum
+	 * @return a Period enum or null if the model does not stand for a period of normals
+	 */
+	static Period getNormalsPeriod(BioSimModel normalsModel) {
+		return PeriodLookupMap.get(normalsModel);
 	}
 	
 	
-	private static BioSimDataSet getSubDataSet(BioSimDataSet dataSet, int realization) {
-		BioSimDataSet subDataSet = new BioSimDataSet(dataSet.getFieldNames());
+	/*
+	 * Split the data set by realization in a single pass over the observations.
+	 */
+	private static BioSimDataSet[] getSubDataSets(BioSimDataSet dataSet, int nbRealizations) {
+		BioSimDataSet[] subDataSets = new BioSimDataSet[nbRealizations];
+		for (int i = 0; i < nbRealizations; i++) {
+			subDataSets[i] = new BioSimDataSet(dataSet.getFieldNames());
+		}
 		int fieldIndex = dataSet.getFieldNames().indexOf("Rep");
 		for (Observation o : dataSet.getObservations()) {
 			Object[] objectArray = o.toArray();
 			int realizationId = ((Number) objectArray[fieldIndex]).intValue();
-			if (realizationId == realization) {
-				subDataSet.addObservation(objectArray);
-			} else if (realizationId > realization) {
-				break;
+			if (realizationId >= 0 && realizationId < nbRealizations) {
+				subDataSets[realizationId].addObservation(objectArray);
 			}
 		}
-		return subDataSet;
+		return subDataSets;
 	}
 
 
@@ -353,6 +420,130 @@ public final class REpiceaClimateManager {
 	}
 	
 	
+	/**
+	 * Make sure the climate variables have been produced up to a particular year.<p>
+	 * If the climate variables are already available, the method returns without acquiring any lock. Otherwise,
+	 * the first thread retrieves the climate variables from BioSIM while the others wait for it and then
+	 * find the climate variables available.
+	 * @param toYr the year date up to which the climate variables must be available
+	 * @throws Exception if an error occurs on the client or server side while using BioSIM WebAPI 
+	 */
+	public void ensureClimateVariablesUpTo(int toYr) throws Exception {
+		ClimatePrefetcher currentPrefetcher = prefetcher;
+		if (toYr > producedUpToYr) {
+			if (currentPrefetcher != null) {
+				currentPrefetcher.awaitHorizonsUpTo(toYr);
+			}
+			if (toYr > producedUpToYr) {
+				produceClimateVariables(toYr);
+			}
+		}
+		if (currentPrefetcher != null) {
+			currentPrefetcher.scheduleHorizonsAfter(toYr);
+		}
+	}
+	
+	/**
+	 * Set how the plots are split into requests to BioSIM.<p>
+	 * The plots are sent by chunks so that the memory and the duration of a single request depend on 
+	 * the chunk size rather than on the number of plots. By default, the chunks contain at most 
+	 * DefaultPlotChunkSize plots and a single request is sent at a time. 
+	 * @param plotChunkSize the maximum number of plots in a request (must be greater than 0)
+	 * @param maxNbConcurrentRequests the maximum number of requests sent at the same time (must be greater than 0)
+	 */
+	public void setBioSimRequestPolicy(int plotChunkSize, int maxNbConcurrentRequests) {
+		if (plotChunkSize < 1) {
+			throw new InvalidParameterException("The plotChunkSize argument must be greater than 0!");
+		}
+		if (maxNbConcurrentRequests < 1) {
+			throw new InvalidParameterException("The maxNbConcurrentRequests argument must be greater than 0!");
+		}
+		this.plotChunkSize = plotChunkSize;
+		synchronized (this) {
+			this.maxNbConcurrentRequests = maxNbConcurrentRequests;
+			if (requestExecutor != null) {
+				if (maxNbConcurrentRequests > requestExecutor.getMaximumPoolSize()) {
+					requestExecutor.setMaximumPoolSize(maxNbConcurrentRequests);
+					requestExecutor.setCorePoolSize(maxNbConcurrentRequests);
+				} else {
+					requestExecutor.setCorePoolSize(maxNbConcurrentRequests);
+					requestExecutor.setMaximumPoolSize(maxNbConcurrentRequests);
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Provide the executor of the concurrent requests. The threads are daemon threads that terminate
+	 * after being idle for a while so that the executor needs no shutdown.
+	 */
+	private synchronized ExecutorService getRequestExecutor() {
+		if (requestExecutor == null) {
+			requestExecutor = new ThreadPoolExecutor(maxNbConcurrentRequests, 
+					maxNbConcurrentRequests, 
+					RequestThreadKeepAliveSec, 
+					TimeUnit.SECONDS, 
+					new LinkedBlockingQueue<Runnable>(), 
+					r -> {
+						Thread thread = new Thread(r, "REpiceaClimateManager-Request");
+						thread.setDaemon(true);
+						return thread;
+					});
+			requestExecutor.allowCoreThreadTimeOut(true);
+		}
+		return requestExecutor;
+	}
+	
+	/**
+	 * Enable a persistent cache on disk.<p>
+	 * The weather and the normals retrieved from BioSIM are stored in this directory. The key is made of the
+	 * model, the RCP, the climate model, the number of realizations and the rounded coordinates of the plot. In later runs,
+	 * the plots found in the directory are served from the disk and only the other plots are requested from BioSIM. If 
+	 * all the plots are found, the climate variables are produced without any connection to BioSIM. The cache should
+	 * be enabled before the climate variables are produced.
+	 * @param directory the directory of the cache or null to disable the cache
+	 * @throws IOException if the directory cannot be created
+	 */
+	public void setDiskCacheDirectory(String directory) throws IOException {
+		diskCache = directory == null ? null : new ClimateDiskCache(new File(directory));
+	}
+	
+	/**
+	 * Set a prefetch policy.<p>
+	 * The climate variables of the next growth steps are then retrieved from BioSIM in a background
+	 * thread while the current step is being computed. Each time the climate variables are requested 
+	 * up to a particular year, the next horizons are scheduled. If the retrieval of a horizon fails, the 
+	 * exception is thrown by the getValue method when the climate variables of this horizon are needed.
+	 * @param timeStepYr the duration of the growth step (yr, must be greater than 0)
+	 * @param finalDateYr the date of the final step (yr)
+	 * @param nbHorizons the number of horizons retrieved ahead of the current step (from 0 to 
+	 * ClimatePrefetcher.MaximumNumberOfHorizons). A value of 0 disables the prefetch.
+	 */
+	public synchronized void setPrefetchPolicy(int timeStepYr, int finalDateYr, int nbHorizons) {
+		ClimatePrefetcher newPrefetcher = nbHorizons == 0 || annualOrMonthlyModels.isEmpty() ? 
+				null : 
+					new ClimatePrefetcher(this::produceClimateVariables, timeStepYr, finalDateYr, nbHorizons);
+		ClimatePrefetcher formerPrefetcher = prefetcher;
+		prefetcher = newPrefetcher;
+		if (formerPrefetcher != null) {
+			formerPrefetcher.shutdown();
+		}
+	}
+	
+	/**
+	 * Produce and store the climate variables under the fetch lock. 
+	 * @param toYr the year date at which the climate variables must be produced
+	 * @throws Exception if an error occurs on the client or server side while using BioSIM WebAPI 
+	 */
+	void produceClimateVariables(int toYr) throws Exception {
+		synchronized (fetchLock) {
+			fetchClimateVariables(toYr);
+			if (toYr > producedUpToYr) {
+				producedUpToYr = toYr;	// the volatile write publishes all the former writes to the lock-free readers
+			}
+		}
+	}
+	
 	/**
 	 * Produce and store the climate variables. <p>
 	 * The start date is set in function of the resolution.
@@ -361,7 +552,7 @@ public final class REpiceaClimateManager {
 	 * @throws BioSimServerException if an error occurs while using BioSIM WebAPI
 	 */
 	@SuppressWarnings({ "unchecked", "rawtypes" })
-	void produceClimateVariables(final int toYr) throws Exception {
+	private void fetchClimateVariables(final int toYr) throws Exception {
 		if (!annualOrMonthlyModels.isEmpty()) {
 			if (toYr <= lastDateYrInDataset) {	// we are up to date
 				return;
@@ -375,129 +566,286 @@ public final class REpiceaClimateManager {
 			}
 			if (fromYr < lastBioSIMCompleteObservedDailyDateYr && toYr > lastBioSIMCompleteObservedDailyDateYr) {
 				lastDateYrInDataset = fromYr;
-				produceClimateVariables(lastBioSIMCompleteObservedDailyDateYr);
-				produceClimateVariables(toYr);
+				fetchClimateVariables(lastBioSIMCompleteObservedDailyDateYr);
+				fetchClimateVariables(toYr);
 			} else {
 				boolean isBeyondLastDailyDateYr = fromYr >= lastBioSIMCompleteObservedDailyDateYr; 
-				List<String> modelList = new ArrayList<String>(annualOrMonthlyModels.keySet());
-				List<BioSimParameterMap> parmsMap = getParameterMap();
-				int nbAttempts = 0;
-				LinkedHashMap<String, Object> result = null;
-				boolean isResultValid;
-				do {
-					result = BioSimClient.generateWeather(
-							fromYr + 1,
-							toYr, 
-							uniquePlotList, 
-							RCPLookupMap.get(rcp), 
-							climModel, 
-							modelList, 
-							isBeyondLastDailyDateYr ? nbRealizations : 1, 
-									parmsMap);
-					nbAttempts++;
-					isResultValid = true;
-					for (Object o : result.values()) {
-						if (!(o instanceof LinkedHashMap)) {
-							isResultValid = false;
-							break;
-						}
-					}
-					if (!isResultValid && nbAttempts < 3) {
-						System.out.println("Something went wrong with climate generation!" + System.lineSeparator() + 
-								"This might be due to the internet connection. Will try once more...");
-					}
-				} while (!isResultValid && nbAttempts < 3);
-//				System.out.println("BioSIM request took " + BioSimClient.getLastServerRequestDuration() + " sec.");
+				int nbRepsInRequest = isBeyondLastDailyDateYr ? nbRealizations : 1;
+				ClimateDiskCache currentDiskCache = diskCache;
+				LinkedHashMap<String, Object> result = currentDiskCache == null ?
+						generateWeather(fromYr, toYr, uniquePlotList, nbRepsInRequest) :
+							generateWeatherThroughDiskCache(currentDiskCache, fromYr, toYr, nbRepsInRequest);
 				for (String modelName : result.keySet()) {
 					BioSimModel model = annualOrMonthlyModels.get(modelName);
-					if (!annualOrMonthlyValueMap.containsKey(model)) {
-						annualOrMonthlyValueMap.put(model, new HashMap<BioSimPlot, Map<Integer, BioSimDataSet>>());
-					}
-					Map<BioSimPlot, Map<Integer, BioSimDataSet>> innerMap = annualOrMonthlyValueMap.get(model);
 					Object resultForThisModel = result.get(modelName);
 					if (resultForThisModel instanceof Exception) {
 						throw (Exception) resultForThisModel;
 					}
 					LinkedHashMap<BioSimPlot, BioSimDataSet> innerResultMap = (LinkedHashMap) resultForThisModel;
 					for (BioSimPlot p : innerResultMap.keySet()) {
-						if (!innerMap.containsKey(p)) {
-							innerMap.put(p, new HashMap<Integer, BioSimDataSet>());
-						} 
-						Map<Integer, BioSimDataSet> innerInnerMap = innerMap.get(p);
 						BioSimDataSet dataSet = innerResultMap.get(p);
+						if (!columnStores.containsKey(model)) {
+							columnStores.put(model, new ClimateColumnStore(uniquePlotList.size(), nbRealizations, ClimateColumnStore.isMonthlyDataSet(dataSet)));
+						}
+						ClimateColumnStore store = columnStores.get(model);
+						int plotIndex = plotIndices.get(p);
+						BioSimDataSet[] subDataSets = isBeyondLastDailyDateYr ? getSubDataSets(dataSet, nbRealizations) : null;
 						for (int i = 0; i < nbRealizations; i++) {
-							BioSimDataSet dataSetForThisRealization = isBeyondLastDailyDateYr ? 
-									getSubDataSet(dataSet, i) :
-										dataSet.clone();
-							if (!innerInnerMap.containsKey(i)) {
-								innerInnerMap.put(i, dataSetForThisRealization);
-							} else {
-								innerInnerMap.get(i).addAllObservations(dataSetForThisRealization); 
-							}
-							
+							store.add(isBeyondLastDailyDateYr ? subDataSets[i] : dataSet, plotIndex, i);	// the column store only reads the data set
 						}
 					}
+					columnStores.get(model).publish();
 				}
 				lastDateYrInDataset = toYr;
 			}
 		}
 		if (!staticNormalsProduced) {
+			ClimateDiskCache currentDiskCache = diskCache;
 			for (NormalWrapper wrapper : fixedNormalModels.values()) {
-				LinkedHashMap<BioSimPlot, BioSimDataSet> normalResult = wrapper.isMonthly ?
-						BioSimClient.getMonthlyNormals(PeriodLookupMap.get(wrapper.model), uniquePlotList, RCPLookupMap.get(rcp), climModel) :
-							BioSimClient.getAnnualNormals(PeriodLookupMap.get(wrapper.model), uniquePlotList, RCPLookupMap.get(rcp), climModel);
-				for (BioSimDataSet ds : normalResult.values()) {
-					computeMeanTairInNormals(ds, wrapper.isMonthly);
-				}
-				fixedNormals.put(wrapper, normalResult); 
+				LinkedHashMap<BioSimPlot, BioSimDataSet> normalResult = currentDiskCache == null ?
+						getNormals(wrapper, uniquePlotList) :
+							getNormalsThroughDiskCache(currentDiskCache, wrapper);
+				fixedNormals.put(wrapper, new ClimateNormalsTable(normalResult, plotIndices, uniquePlotList.size(), wrapper.isMonthly)); 
 			}
 			staticNormalsProduced = true;
 		}
 	}
 	
-	private void computeMeanTairInNormals(BioSimDataSet dataset, boolean isMonthly) {
-		String meanTemp = "T";
-		String maxTemp = isMonthly ? "TMAX_MN" : "TX";
-		String minTemp = isMonthly ? "TMIN_MN" : "TN";
-		if (!dataset.getFieldNames().contains(meanTemp) && dataset.getFieldNames().contains(minTemp) && dataset.getFieldNames().contains(maxTemp)) {
-			int indexTn = dataset.getFieldNames().indexOf(minTemp);
-			int indexTx = dataset.getFieldNames().indexOf(maxTemp);
-			List<Object> TN = dataset.getFieldValues(indexTn);
-			List<Object> TX = dataset.getFieldValues(indexTx);
-			Object[] T = new Object[TX.size()];
-			for (int i = 0; i < T.length; i++) {
-				T[i] = ((Double) TX.get(i) + (Double) TN.get(i)) * .5;
-			}
-			dataset.addField("T", T);
-		}
-	}
-	
-	
-	private Double getCachedValue(REpiceaClimateVariableInformation info, String plotId, int fromYr, int toYr, int realization) {
-		if (cache.containsKey(info)) {
-			ConcurrentHashMap<String, 
-			ConcurrentHashMap<Integer, 
-			ConcurrentHashMap<Integer, 
-			ConcurrentHashMap<Integer, Double>>>> innerMap1 = cache.get(info);
-			if (innerMap1.containsKey(plotId)) {
-				ConcurrentHashMap<Integer, 
-				ConcurrentHashMap<Integer, 
-				ConcurrentHashMap<Integer, Double>>> innerMap2 = innerMap1.get(plotId);
-				if (innerMap2.containsKey(fromYr)) {
-					ConcurrentHashMap<Integer, 
-					ConcurrentHashMap<Integer, Double>> innerMap3 = innerMap2.get(fromYr);
-					if (innerMap3.containsKey(toYr)) {
-						ConcurrentHashMap<Integer, Double> innerMap4 = innerMap3.get(toYr);
-						if (innerMap4.containsKey(realization)) {
-							return innerMap4.get(realization);
+	/*
+	 * Send one request per chunk of plots to BioSIM, with at most maxNbConcurrentRequests requests at a time. 
+	 * The results are returned in the order of the chunks.
+	 */
+	private <R> List<R> sendRequestByChunks(List<BioSimPlot> plots, ChunkRequest<R> request) throws Exception {
+		int currentChunkSize = plotChunkSize;
+		List<List<BioSimPlot>> chunks = new ArrayList<List<BioSimPlot>>();
+		for (int i = 0; i < plots.size(); i += currentChunkSize) {
+			chunks.add(plots.subList(i, Math.min(plots.size(), i + currentChunkSize)));
+		}
+		List<R> results = new ArrayList<R>();
+		int nbThreads = Math.min(maxNbConcurrentRequests, chunks.size());
+		if (nbThreads <= 1) {
+			for (List<BioSimPlot> chunk : chunks) {
+				results.add(request.send(chunk));
+			}
+		} else {
+			ExecutorService executor = getRequestExecutor();
+			List<Future<R>> futures = new ArrayList<Future<R>>();
+			try {
+				for (List<BioSimPlot> chunk : chunks) {
+					futures.add(executor.submit(() -> request.send(chunk)));
+				}
+				for (Future<R> future : futures) {
+					try {
+						results.add(future.get());
+					} catch (ExecutionException e) {
+						Throwable cause = e.getCause();
+						if (cause instanceof Error) {
+							throw (Error) cause;
+						} else {
+							throw (Exception) cause;
 						}
 					}
 				}
+			} finally {
+				for (Future<R> future : futures) {
+					future.cancel(true);	// does nothing if the request is done
+				}
 			}
 		}
-		return null;
+		return results;
+	}
+	
+	/*
+	 * Send the requests to BioSIM by chunks of plots and merge the results. If the request of a chunk 
+	 * fails for a model, the exception is returned for this model.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	LinkedHashMap<String, Object> generateWeather(int fromYr, int toYr, List<BioSimPlot> plots, int nbRepsInRequest) throws Exception {
+		List<LinkedHashMap<String, Object>> chunkResults = sendRequestByChunks(plots, 
+				chunk -> generateWeatherForThisChunk(fromYr, toYr, chunk, nbRepsInRequest));
+		if (chunkResults.size() == 1) {
+			return chunkResults.get(0);
+		}
+		LinkedHashMap<String, Object> result = new LinkedHashMap<String, Object>();
+		for (LinkedHashMap<String, Object> chunkResult : chunkResults) {
+			for (String modelName : chunkResult.keySet()) {
+				Object resultForThisModel = chunkResult.get(modelName);
+				if (resultForThisModel instanceof LinkedHashMap) {
+					if (!result.containsKey(modelName)) {
+						result.put(modelName, new LinkedHashMap<BioSimPlot, BioSimDataSet>());
+					}
+					Object mergedResult = result.get(modelName);
+					if (mergedResult instanceof LinkedHashMap) {
+						((LinkedHashMap) mergedResult).putAll((LinkedHashMap) resultForThisModel);
+					}
+				} else {
+					result.put(modelName, resultForThisModel);	// the failure prevails
+				}
+			}
+		}
+		return result;
+	}
+	
+	/*
+	 * Send the request to BioSIM. The request is sent up to three times if the result is not valid, which might 
+	 * be due to the internet connection.
+	 */
+	private LinkedHashMap<String, Object> generateWeatherForThisChunk(int fromYr, int toYr, List<BioSimPlot> plots, int nbRepsInRequest) throws Exception {
+		List<BioSimModel> models = new ArrayList<BioSimModel>(annualOrMonthlyModels.values());
+		int nbAttempts = 0;
+		LinkedHashMap<String, Object> result = null;
+		boolean isResultValid;
+		do {
+			result = weatherSource.generateWeather(
+					fromYr + 1,
+					toYr, 
+					plots, 
+					RCPLookupMap.get(rcp), 
+					climModel, 
+					models, 
+					nbRepsInRequest);
+			nbAttempts++;
+			isResultValid = true;
+			for (Object o : result.values()) {
+				if (!(o instanceof LinkedHashMap)) {
+					isResultValid = false;
+					break;
+				}
+			}
+		} while (!isResultValid && nbAttempts < 3);
+//		System.out.println("BioSIM request took " + BioSimClient.getLastServerRequestDuration() + " sec.");
+		return result;
+	}
+	
+	private String getDiskCacheKey(BioSimModel model, BioSimPlot p, int nbRepsInRequest) {
+		return ClimateDiskCache.getWeatherKey(model, RCPLookupMap.get(rcp), climModel, nbRepsInRequest, p);
+	}
+	
+	private String getDiskCacheKey(NormalWrapper wrapper, BioSimPlot p) {
+		return ClimateDiskCache.getNormalsKey(wrapper.model, wrapper.isMonthly, RCPLookupMap.get(rcp), climModel, p);
+	}
+	
+	/*
+	 * The years found in the disk cache are served from the disk. For each plot, the smallest range of years that
+	 * contains the missing years of all the models is requested from BioSIM and stored in the disk cache. The plots
+	 * with the same missing range are requested together. The result has the same structure as the one of the 
+	 * generateWeather method.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private LinkedHashMap<String, Object> generateWeatherThroughDiskCache(ClimateDiskCache currentDiskCache, int fromYr, int toYr, int nbRepsInRequest) throws Exception {
+		Map<String, Map<BioSimPlot, CachedRange>> cachedRanges = new HashMap<String, Map<BioSimPlot, CachedRange>>();
+		Map<BioSimPlot, int[]> missingRanges = new HashMap<BioSimPlot, int[]>();
+		Map<List<Integer>, List<BioSimPlot>> plotsByMissingRange = new LinkedHashMap<List<Integer>, List<BioSimPlot>>();
+		for (BioSimPlot p : uniquePlotList) {
+			int missingFirstYr = Integer.MAX_VALUE;
+			int missingLastYr = Integer.MIN_VALUE;
+			for (BioSimModel model : annualOrMonthlyModels.values()) {
+				CachedRange cachedRange = currentDiskCache.getCachedRange(getDiskCacheKey(model, p, nbRepsInRequest), fromYr + 1, toYr);
+				if (!cachedRange.isComplete()) {
+					missingFirstYr = Math.min(missingFirstYr, cachedRange.getMissingFirstYr());
+					missingLastYr = Math.max(missingLastYr, cachedRange.getMissingLastYr());
+				}
+				if (!cachedRanges.containsKey(model.modelName)) {
+					cachedRanges.put(model.modelName, new HashMap<BioSimPlot, CachedRange>());
+				}
+				cachedRanges.get(model.modelName).put(p, cachedRange);
+			}
+			if (missingFirstYr <= missingLastYr) {
+				missingRanges.put(p, new int[] {missingFirstYr, missingLastYr});
+				List<Integer> missingRange = Arrays.asList(missingFirstYr, missingLastYr);
+				if (!plotsByMissingRange.containsKey(missingRange)) {
+					plotsByMissingRange.put(missingRange, new ArrayList<BioSimPlot>());
+				}
+				plotsByMissingRange.get(missingRange).add(p);
+			}
+		}
+		Map<String, Object> failures = new HashMap<String, Object>();
+		Map<String, Map<BioSimPlot, BioSimDataSet>> fetchedDataSets = new HashMap<String, Map<BioSimPlot, BioSimDataSet>>();
+		for (List<Integer> missingRange : plotsByMissingRange.keySet()) {
+			int missingFirstYr = missingRange.get(0);
+			int missingLastYr = missingRange.get(1);
+			LinkedHashMap<String, Object> fetchedResult = generateWeather(missingFirstYr - 1, missingLastYr, plotsByMissingRange.get(missingRange), nbRepsInRequest);
+			for (BioSimModel model : annualOrMonthlyModels.values()) {
+				Object fetchedResultForThisModel = fetchedResult.get(model.modelName);
+				if (fetchedResultForThisModel instanceof LinkedHashMap) {
+					LinkedHashMap<BioSimPlot, BioSimDataSet> fetchedDataSetsForThisModel = (LinkedHashMap) fetchedResultForThisModel;
+					if (!fetchedDataSets.containsKey(model.modelName)) {
+						fetchedDataSets.put(model.modelName, new HashMap<BioSimPlot, BioSimDataSet>());
+					}
+					for (BioSimPlot p : fetchedDataSetsForThisModel.keySet()) {
+						currentDiskCache.put(getDiskCacheKey(model, p, nbRepsInRequest), missingFirstYr, missingLastYr, fetchedDataSetsForThisModel.get(p));
+						fetchedDataSets.get(model.modelName).put(p, fetchedDataSetsForThisModel.get(p));
+					}
+				} else if (fetchedResultForThisModel != null && !failures.containsKey(model.modelName)) {
+					failures.put(model.modelName, fetchedResultForThisModel);
+				}
+			}
+		}
+		LinkedHashMap<String, Object> result = new LinkedHashMap<String, Object>();
+		for (BioSimModel model : annualOrMonthlyModels.values()) {
+			if (failures.containsKey(model.modelName)) {
+				result.put(model.modelName, failures.get(model.modelName));		// the failure prevails
+				continue;
+			}
+			Map<BioSimPlot, BioSimDataSet> fetchedDataSetsForThisModel = fetchedDataSets.get(model.modelName);
+			LinkedHashMap<BioSimPlot, BioSimDataSet> resultForThisModel = new LinkedHashMap<BioSimPlot, BioSimDataSet>();
+			for (BioSimPlot p : uniquePlotList) {
+				CachedRange cachedRange = cachedRanges.get(model.modelName).get(p);
+				int[] missingRange = missingRanges.get(p);
+				BioSimDataSet dataSet = missingRange == null ?
+						cachedRange.getDataSet() :
+							ClimateDiskCache.merge(cachedRange.getDataSetOutside(missingRange[0], missingRange[1]), 
+									fetchedDataSetsForThisModel != null ? fetchedDataSetsForThisModel.get(p) : null);
+				if (dataSet != null) {
+					resultForThisModel.put(p, dataSet);
+				}
+			}
+			result.put(model.modelName, resultForThisModel);
+		}
+		return result;
+	}
+	
+	private LinkedHashMap<BioSimPlot, BioSimDataSet> getNormals(NormalWrapper wrapper, List<BioSimPlot> plots) throws Exception {
+		List<LinkedHashMap<BioSimPlot, BioSimDataSet>> chunkResults = sendRequestByChunks(plots, 
+				chunk -> weatherSource.getNormals(wrapper.model, wrapper.isMonthly, chunk, RCPLookupMap.get(rcp), climModel));
+		if (chunkResults.size() == 1) {
+			return chunkResults.get(0);
+		}
+		LinkedHashMap<BioSimPlot, BioSimDataSet> result = new LinkedHashMap<BioSimPlot, BioSimDataSet>();
+		for (LinkedHashMap<BioSimPlot, BioSimDataSet> chunkResult : chunkResults) {
+			result.putAll(chunkResult);
+		}
+		return result;
 	}
 
+	private LinkedHashMap<BioSimPlot, BioSimDataSet> getNormalsThroughDiskCache(ClimateDiskCache currentDiskCache, NormalWrapper wrapper) throws Exception {
+		Map<BioSimPlot, BioSimDataSet> dataSetsFromDisk = new HashMap<BioSimPlot, BioSimDataSet>();
+		List<BioSimPlot> missingPlots = new ArrayList<BioSimPlot>();
+		for (BioSimPlot p : uniquePlotList) {
+			BioSimDataSet dataSet = currentDiskCache.get(getDiskCacheKey(wrapper, p), 0, 0);
+			if (dataSet == null) {
+				missingPlots.add(p);
+			} else {
+				dataSetsFromDisk.put(p, dataSet);
+			}
+		}
+		if (!missingPlots.isEmpty()) {
+			LinkedHashMap<BioSimPlot, BioSimDataSet> fetchedDataSets = getNormals(wrapper, missingPlots);
+			for (BioSimPlot p : fetchedDataSets.keySet()) {
+				currentDiskCache.put(getDiskCacheKey(wrapper, p), 0, 0, fetchedDataSets.get(p));
+				dataSetsFromDisk.put(p, fetchedDataSets.get(p));
+			}
+		}
+		LinkedHashMap<BioSimPlot, BioSimDataSet> result = new LinkedHashMap<BioSimPlot, BioSimDataSet>();
+		for (BioSimPlot p : uniquePlotList) {
+			if (dataSetsFromDisk.containsKey(p)) {
+				result.put(p, dataSetsFromDisk.get(p));
+			}
+		}
+		return result;
+	}
+	
+
 	/**
 	 * Return a value for a particular climate variable.<p>
 	 * 
@@ -515,93 +863,66 @@ public final class REpiceaClimateManager {
 	 * @return the value of the climate variable (double)
 	 * @throws Exception if an error occurs on the client or server side while using BioSIM WebAPI 
 	 */
-	public synchronized double getValue(int fromYr, 
+	public double getValue(int fromYr, 
 			int toYr, 
 			int realization, 
 			String plotId,
 			REpiceaClimateVariableInformation info) throws Exception {
-		produceClimateVariables(toYr);
-		BioSimPlot p = plotMap.get(plotId);
+		return getValue(fromYr, toYr, realization, getPlotIndex(plotId), info);
+	}
+	
+	/**
+	 * Provide the index of a plot.<p>
+	 * The plots that share the same rounded coordinates have the same index. The index can 
+	 * be used in the getValue and getValues methods.
+	 * @param plotId the plot id
+	 * @return an integer ranging from 0 to getNumberOfPlotIndices() - 1
+	 */
+	public int getPlotIndex(String plotId) {
+		Integer plotIndex = plotIdIndices.get(plotId);
+		if (plotIndex == null) {
+			throw new InvalidParameterException("This plot " + plotId + " is not being considered in the climate manager!");
+		}
+		return plotIndex;
+	}
+	
+	/**
+	 * Provide the number of plot indices, that is the number of plots with unique rounded coordinates.
+	 * @return an integer
+	 */
+	public int getNumberOfPlotIndices() {return uniquePlotList.size();}
+	
+	/**
+	 * Return a value for a particular climate variable.<p>
+	 * This method is similar to the getValue method with the plot id, except that the plot 
+	 * is identified through its index (see the getPlotIndex method).
+	 * @param fromYr the start date (yr, exclusive) 
+	 * @param toYr the end date (yr, inclusive)
+	 * @param realization the realization id
+	 * @param plotIndex the plot index
+	 * @param info an REpiceaClimateVariableInformation instance 
+	 * @return the value of the climate variable (double)
+	 * @throws Exception if an error occurs on the client or server side while using BioSIM WebAPI 
+	 */
+	public double getValue(int fromYr, 
+			int toYr, 
+			int realization, 
+			int plotIndex,
+			REpiceaClimateVariableInformation info) throws Exception {
+		ensureClimateVariablesUpTo(toYr);
 		if (isFixedNormalsModel(info.model)) {
-			NormalWrapper wrapper = getWrapper(info);
-			BioSimDataSet ds = fixedNormals.get(wrapper).get(p);
-			int fieldIndex = ds.getFieldNames().indexOf(info.fieldName);
-			if (fieldIndex == -1) {
-				throw new UnsupportedOperationException("The field " + info.fieldName + " cannot be found in the BioSimDataSet instance!");
-			}
-			List<Object> values = ds.getFieldValues(fieldIndex);
-			if (wrapper.isMonthly) {
-				if (values.size() != 12) {
-					throw new UnsupportedOperationException("There should be 12 values (one per month) in this field " + info.fieldName + "!");
-				}
-				double value = 0d;
-				for (Integer i : info.monthCompilation.selectedMonths) {
-					Object o = values.get(i - 1);
-					if (!(o instanceof Number)) {
-						throw new UnsupportedOperationException("The vector of values seems to contain non numeric types!");
-					}
-					value += ((Number) o).doubleValue(); 
-				}
-				if (info.monthCompilation.isAverage) {
-					value /= info.monthCompilation.selectedMonths.size();
-				}
-				return value;
-			} else {
-				if (values.size() != 1) {
-					throw new UnsupportedOperationException("There should be only one value in this field " + info.fieldName + "!");
-				}
-				return (Double) values.get(0);
-			}
+			return fixedNormals.get(getWrapper(info)).getValue(getVariableId(info), info, plotIndex);
 		} else {
 			fromYr = reajustFromYrDependingOnResolution(info.resolution, fromYr, toYr);
-			Double cachedValue = getCachedValue(info, plotId, fromYr, toYr, realization);
-			if (cachedValue == null) {
-//				BioSimPlot p = plotMap.get(plotId);
-				BioSimDataSet dataSet = annualOrMonthlyValueMap.get(info.model).get(p).get(realization);
-				int indexField = dataSet.getFieldNames().indexOf(info.fieldName);
-				int yearFieldIndex = dataSet.getFieldNames().indexOf(YEAR_DATE_FIELDNAME);
-				List<Object> yearIndex = dataSet.getFieldValues(yearFieldIndex);
-				double total = 0d;
-				if (!info.isMonthly()) {
-					for (int yr = fromYr + 1; yr <= toYr; yr++) {
-						int indexObs = yearIndex.indexOf(yr);
-						if (indexObs == -1) {
-							throw new UnsupportedOperationException("The date " + yr + " is not in the BioSimDataSet instance!");
-						}
-						Object[] objectArray = dataSet.getObservations().get(indexObs).toArray();
-//						int currentDateYr = ((Number) objectArray[indexYear]).intValue();
-						total += ((Number) objectArray[indexField]).doubleValue();
-					}
-				} else {
-					int monthFieldIndex = dataSet.getFieldNames().indexOf(MONTH_DATE_FIELDNAME);
-					List<Object> monthIndex = dataSet.getFieldValues(monthFieldIndex);
-					List<Integer> selectedMonths = info.monthCompilation.selectedMonths;
-					for (int yr = fromYr + 1; yr <= toYr; yr++) {
-						int startIndex = yearIndex.indexOf(yr);
-						int stopIndex = yearIndex.lastIndexOf(yr);
-						if (startIndex == -1) {
-							throw new UnsupportedOperationException("The date " + yr + " is not in the BioSimDataSet instance!");
-						}
-						double annualValue = 0;
-						int nbValues = 0;
-						for (int pointer = startIndex; pointer <= stopIndex; pointer++) {
-							if (selectedMonths.contains(monthIndex.get(pointer))) {
-								Object[] objectArray = dataSet.getObservations().get(pointer).toArray();
-								annualValue += ((Number) objectArray[indexField]).doubleValue();
-								nbValues++;
-							}
-						}
-						if (nbValues != selectedMonths.size()) {
-							throw new UnsupportedOperationException("It seems that some monthly values are missing!");
-						}
-						if (info.monthCompilation.isAverage && selectedMonths.size() > 1) { // average is required only there are more than one monthly value.
-							annualValue /= nbValues; 
-						}
-						total += annualValue;
-					}					
+			int variableId = getVariableId(info);
+			double cachedValue = cache.get(variableId, plotIndex, fromYr, toYr, realization);
+			if (Double.isNaN(cachedValue)) {
+				ClimateColumnStore store = columnStores.get(info.model);
+				if (store == null) {
+					throw new UnsupportedOperationException("The model " + info.model.name() + " has not been produced!");
 				}
-				double mean = total / (toYr - fromYr);
-				storeValueInCache(info, plotId, fromYr, toYr, realization, mean);
+				double mean = store.getIntervalMean(info.fieldName, info.monthCompilation, plotIndex, realization, fromYr, toYr);
+				cache.put(variableId, plotIndex, fromYr, toYr, realization, mean);
 				return mean;
 			} else {
 				return cachedValue;
@@ -609,6 +930,46 @@ public final class REpiceaClimateManager {
 		}
 	}
 	
+	/**
+	 * Return the values of a climate variable for all the plots and all the realizations.<p>
+	 * The values are computed in parallel from the climate variables in memory without going through 
+	 * the cache. The first index of the array is the plot index (see the getPlotIndex method) and the
+	 * second index is the realization id. For the normals, the value is the same for all the realizations.<p>
+	 * 
+	 * IMPORTANT: The fromYr argument is not inclusive. If fromYr = 2010 and toYr = 2020, the annual variable
+	 * will be calculated over the period 2011 to 2020.
+	 * 
+	 * @param fromYr the start date (yr, exclusive) 
+	 * @param toYr the end date (yr, inclusive)
+	 * @param info an REpiceaClimateVariableInformation instance 
+	 * @return a two-dimensional array of doubles (plots x realizations)
+	 * @throws Exception if an error occurs on the client or server side while using BioSIM WebAPI 
+	 */
+	public double[][] getValues(int fromYr, int toYr, REpiceaClimateVariableInformation info) throws Exception {
+		ensureClimateVariablesUpTo(toYr);
+		int nbPlots = uniquePlotList.size();
+		double[][] output = new double[nbPlots][nbRealizations];
+		if (isFixedNormalsModel(info.model)) {
+			ClimateNormalsTable table = fixedNormals.get(getWrapper(info));
+			int variableId = getVariableId(info);
+			for (int p = 0; p < nbPlots; p++) {
+				Arrays.fill(output[p], table.getValue(variableId, info, p));
+			}
+		} else {
+			ClimateColumnStore store = columnStores.get(info.model);
+			if (store == null) {
+				throw new UnsupportedOperationException("The model " + info.model.name() + " has not been produced!");
+			}
+			int actualFromYr = reajustFromYrDependingOnResolution(info.resolution, fromYr, toYr);
+			IntStream.range(0, nbPlots).parallel().forEach(p -> {
+				for (int r = 0; r < nbRealizations; r++) {
+					output[p][r] = store.getIntervalMean(info.fieldName, info.monthCompilation, p, r, actualFromYr, toYr);
+				}
+			});
+		}
+		return output;
+	}
+	
 	/**
 	 * Provide lists of dates and annual values over a time period.<p>
 	 * This method is typically called after the simulation to retrieve some climate variables.
@@ -624,70 +985,75 @@ public final class REpiceaClimateManager {
 		if (variable.isMonthlyVariable()) {
 			throw new UnsupportedOperationException("Monthly variables are not supported!");
 		}
-		if (!annualOrMonthlyValueMap.containsKey(variable.model)) {
+		if (!columnStores.containsKey(variable.model)) {
 			throw new InvalidParameterException("This climate variable have not been produced yet!");
 		}
-		Map<BioSimPlot, Map<Integer, BioSimDataSet>> innerMap = annualOrMonthlyValueMap.get(variable.model);
+		ClimateColumnStore store = columnStores.get(variable.model);
 		BioSimPlot p = plotMap.get(plotId);
 		if (p == null) {
 			throw new InvalidParameterException("This plot " + plotId + " is not being considered in the climate manager!");
 		}
-		Map<Integer, BioSimDataSet> innerInnerMap = innerMap.get(p);
-		if (!innerInnerMap.containsKey(realization)) {
+		if (realization < 0 || realization >= nbRealizations) {
 			throw new InvalidParameterException("This realization " + realization + " is not being considered in the climate manager!");
 		}
-		BioSimDataSet ds = innerInnerMap.get(realization);
-		List<Object> dates = ds.getFieldValues(ds.getFieldNames().indexOf(YEAR_DATE_FIELDNAME));
-		List<Object> values = ds.getFieldValues(ds.getFieldNames().indexOf(variable.fieldName));
-		int startIndex = dates.indexOf(startDate);
-		int endIndex = dates.lastIndexOf(endDate);
-		if (startIndex == -1) {
+		if (!store.containsYear(startDate)) {
 			throw new InvalidParameterException("The start date is not found in the BioSimDataSet instance");
 		}
-		if (endIndex == -1) {
+		if (!store.containsYear(endDate)) {
 			throw new InvalidParameterException("The end date is not found in the BioSimDataSet instance");
 		}
+		int plotIndex = plotIndices.get(p);
 		List<Double>[] output = new List[2];
 		output[0] = new ArrayList<Double>();
 		output[1] = new ArrayList<Double>();
-		for (int index = startIndex; index <= endIndex; index++) {
-			output[0].add(((Number) dates.get(index)).doubleValue());
-			output[1].add(((Number) values.get(index)).doubleValue());
+		for (int yr = startDate; yr <= endDate; yr++) {
+			output[0].add((double) yr);
+			output[1].add(store.getValue(variable.fieldName, plotIndex, realization, yr, 1));
 		}
 		return output;
  	}
-	
-	
-
-	private void storeValueInCache(REpiceaClimateVariableInformation info, 
-			String plotId, 
-			int fromYr, 
-			int toYr,
-			int realization, 
-			double mean) {
-		if (!cache.containsKey(info)) {
-			cache.put(info, new ConcurrentHashMap<String, 
-								ConcurrentHashMap<Integer, 
-								ConcurrentHashMap<Integer, 
-								ConcurrentHashMap<Integer, Double>>>>());
-		}
-		ConcurrentHashMap<String, ConcurrentHashMap<Integer, ConcurrentHashMap<Integer, ConcurrentHashMap<Integer, Double>>>> innerMap1 = cache.get(info);
 
-		if (!innerMap1.containsKey(plotId)) {
-			innerMap1.put(plotId, new ConcurrentHashMap<Integer, ConcurrentHashMap<Integer, ConcurrentHashMap<Integer, Double>>>());
-		}
-		ConcurrentHashMap<Integer, ConcurrentHashMap<Integer, ConcurrentHashMap<Integer, Double>>> innerMap2 = innerMap1.get(plotId);
-
-		if (!innerMap2.containsKey(fromYr)) {
-			innerMap2.put(fromYr, new ConcurrentHashMap<Integer, ConcurrentHashMap<Integer, Double>>());
+	private int getVariableId(REpiceaClimateVariableInformation info) {
+		Integer id = variableIds.get(info);
+		if (id == null) {
+			synchronized (variableIds) {
+				id = variableIds.get(info);
+				if (id == null) {
+					id = variableIds.size();
+					variableIds.put(info, id);
+				}
+			}
 		}
-		ConcurrentHashMap<Integer, ConcurrentHashMap<Integer, Double>> innerMap3 = innerMap2.get(fromYr);
+		return id;
+	}
 
-		if (!innerMap3.containsKey(toYr)) {
-			innerMap3.put(toYr, new ConcurrentHashMap<Integer, Double>());
-		}
-		ConcurrentHashMap<Integer, Double> innerMap4 = innerMap3.get(toYr);
-		innerMap4.put(realization, mean);
+	/**
+	 * Set the maximum number of values in the cache.<p>
+	 * The values already in the cache are discarded. By default, the cache can hold 
+	 * DefaultMaximumCacheSize values. Once it is full, the values that were not read recently
+	 * are evicted.
+	 * @param maximumSize the maximum number of values (must be greater than 0)
+	 */
+	public void setMaximumCacheSize(int maximumSize) {
+		cache = new ClimateValueCache(maximumSize);
 	}
+	
+	/**
+	 * Provide the number of times a value was found in the cache.
+	 * @return a long
+	 */
+	public long getCacheHitCount() {return cache.getNumberOfHits();}
+
+	/**
+	 * Provide the number of times a value was not found in the cache.
+	 * @return a long
+	 */
+	public long getCacheMissCount() {return cache.getNumberOfMisses();}
+
+	/**
+	 * Provide the number of values evicted from the cache because it was full.
+	 * @return a long
+	 */
+	public long getCacheEvictionCount() {return cache.getNumberOfEvictions();}
 
 }
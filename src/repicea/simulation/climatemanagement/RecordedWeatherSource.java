@@ -0,0 +1,108 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.InvalidParameterException;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import biosimclient.BioSimDataSet;
+import biosimclient.BioSimEnums.ClimateModel;
+import biosimclient.BioSimEnums.RCP;
+import biosimclient.BioSimPlot;
+import repicea.simulation.climatemanagement.REpiceaClimateVariableInformation.BioSimModel;
+
+/**
+ * The RecordedWeatherSource class replays the data sets recorded in a disk cache. <br>
+ * <br>
+ * The data sets are recorded by a REpiceaClimateManager instance whose disk cache is enabled (see the 
+ * setDiskCacheDirectory method). The directory can then be copied to a computer without network access. 
+ * If the requested years of a plot were not recorded, the weather generation fails for the model. 
+ * @author Mathieu Fortin - October 2026
+ */
+public final class RecordedWeatherSource implements WeatherSource {
+
+	private final ClimateDiskCache diskCache;
+	private final int lastDailyDateYr;
+
+	/**
+	 * Constructor.
+	 * @param directory the directory of the recorded data sets
+	 * @param lastDailyDateYr the last year with daily observations at the time the data sets were recorded 
+	 * @throws IOException if the directory cannot be read
+	 */
+	public RecordedWeatherSource(String directory, int lastDailyDateYr) throws IOException {
+		if (directory == null || !new File(directory).isDirectory()) {
+			throw new InvalidParameterException("The directory argument must be an existing directory!");
+		}
+		diskCache = new ClimateDiskCache(new File(directory));
+		this.lastDailyDateYr = lastDailyDateYr;
+	}
+
+	@Override
+	public int getLastDailyDateYr() {return lastDailyDateYr;}
+
+	@Override
+	public LinkedHashMap<String, Object> generateWeather(int fromYr, 
+			int toYr, 
+			List<BioSimPlot> plots, 
+			RCP rcp, 
+			ClimateModel climModel, 
+			List<BioSimModel> models, 
+			int nbRealizations) throws Exception {
+		LinkedHashMap<String, Object> result = new LinkedHashMap<String, Object>();
+		for (BioSimModel model : models) {
+			LinkedHashMap<BioSimPlot, BioSimDataSet> resultForThisModel = new LinkedHashMap<BioSimPlot, BioSimDataSet>();
+			for (BioSimPlot p : plots) {
+				BioSimDataSet dataSet = diskCache.get(ClimateDiskCache.getWeatherKey(model, rcp, climModel, nbRealizations, p), fromYr, toYr);
+				if (dataSet == null) {
+					result.put(model.modelName, new UnsupportedOperationException("The years " + fromYr + " to " + toYr + 
+							" of model " + model.modelName + " were not recorded for plot at coordinates " + p.getLatitudeDeg() + ", " + p.getLongitudeDeg() + "!"));
+					break;
+				}
+				resultForThisModel.put(p, dataSet);
+			}
+			if (!result.containsKey(model.modelName)) {
+				result.put(model.modelName, resultForThisModel);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public LinkedHashMap<BioSimPlot, BioSimDataSet> getNormals(BioSimModel normalsModel, 
+			boolean isMonthly, 
+			List<BioSimPlot> plots, 
+			RCP rcp, 
+			ClimateModel climModel) throws Exception {
+		LinkedHashMap<BioSimPlot, BioSimDataSet> result = new LinkedHashMap<BioSimPlot, BioSimDataSet>();
+		for (BioSimPlot p : plots) {
+			BioSimDataSet dataSet = diskCache.get(ClimateDiskCache.getNormalsKey(normalsModel, isMonthly, rcp, climModel, p), 0, 0);
+			if (dataSet == null) {
+				throw new UnsupportedOperationException("The normals " + normalsModel.modelName + " were not recorded for plot at coordinates " + 
+						p.getLatitudeDeg() + ", " + p.getLongitudeDeg() + "!");
+			}
+			result.put(p, dataSet);
+		}
+		return result;
+	}
+}
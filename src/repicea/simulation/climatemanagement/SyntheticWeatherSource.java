@@ -0,0 +1,177 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import biosimclient.BioSimDataSet;
+import biosimclient.BioSimEnums.ClimateModel;
+import biosimclient.BioSimEnums.RCP;
+import biosimclient.BioSimPlot;
+import repicea.simulation.climatemanagement.REpiceaClimateVariableInformation.BioSimModel;
+
+/**
+ * The SyntheticWeatherSource class generates artificial weather and normals. <br>
+ * <br>
+ * The data sets contain the fields of the climate variables provided in the constructor. The values depend 
+ * on the latitude, the year, the month, the realization and the field. They are reproducible: the same request 
+ * always yields the same values for a given seed. This class is meant for testing and profiling the climate pipeline
+ * without network access. The values have no biological meaning.
+ * @author Mathieu Fortin - October 2026
+ */
+public final class SyntheticWeatherSource implements WeatherSource {
+
+	private static final String YEAR_FIELDNAME = "Year";
+	private static final String MONTH_FIELDNAME = "Month";
+	private static final String REP_FIELDNAME = "Rep";
+
+	private final Map<BioSimModel, List<String>> fieldNames;
+	private final int lastDailyDateYr;
+	private final long seed;
+
+	/**
+	 * Constructor.
+	 * @param climateInfo a List of REpiceaClimateVariableInformation instances whose fields are generated
+	 * @param lastDailyDateYr the last year with daily observations
+	 * @param seed the seed of the random values
+	 */
+	public SyntheticWeatherSource(List<REpiceaClimateVariableInformation> climateInfo, int lastDailyDateYr, long seed) {
+		if (climateInfo == null || climateInfo.isEmpty()) {
+			throw new InvalidParameterException("The climateInfo list cannot be null or empty!");
+		}
+		fieldNames = new HashMap<BioSimModel, List<String>>();
+		for (REpiceaClimateVariableInformation info : climateInfo) {
+			if (!fieldNames.containsKey(info.model)) {
+				fieldNames.put(info.model, new ArrayList<String>());
+			}
+			if (!fieldNames.get(info.model).contains(info.fieldName)) {
+				fieldNames.get(info.model).add(info.fieldName);
+			}
+		}
+		this.lastDailyDateYr = lastDailyDateYr;
+		this.seed = seed;
+	}
+
+	@Override
+	public int getLastDailyDateYr() {return lastDailyDateYr;}
+
+	private static boolean isMonthlyModel(BioSimModel model) {
+		return model.modelName.endsWith("_Monthly");
+	}
+
+	private List<String> getFieldNames(BioSimModel model) {
+		List<String> fields = fieldNames.get(model);
+		if (fields == null) {
+			throw new InvalidParameterException("The model " + model.name() + " was not among the climate variables of this source!");
+		}
+		return fields;
+	}
+
+	/*
+	 * The value is a latitude gradient, a slight trend over time and a seasonal cycle, plus a noise 
+	 * drawn from a generator seeded with the whole key so that it does not depend on the request.
+	 */
+	private double getValue(BioSimPlot p, int yr, int month, int realization, String fieldName) {
+		long key = seed;
+		key = key * 31 + Double.doubleToLongBits(p.getLatitudeDeg());
+		key = key * 31 + Double.doubleToLongBits(p.getLongitudeDeg());
+		key = key * 31 + yr;
+		key = key * 31 + month;
+		key = key * 31 + realization;
+		key = key * 31 + fieldName.hashCode();
+		double noise = new Random(key).nextGaussian();
+		double seasonalEffect = month > 0 ? -10 * Math.cos(2 * Math.PI * (month - 1) / 12) : 0d;
+		return 30 - .5 * p.getLatitudeDeg() + .02 * (yr - 2000) + seasonalEffect + noise;
+	}
+
+	@Override
+	public LinkedHashMap<String, Object> generateWeather(int fromYr, 
+			int toYr, 
+			List<BioSimPlot> plots, 
+			RCP rcp, 
+			ClimateModel climModel, 
+			List<BioSimModel> models, 
+			int nbRealizations) throws Exception {
+		LinkedHashMap<String, Object> result = new LinkedHashMap<String, Object>();
+		for (BioSimModel model : models) {
+			List<String> fields = getFieldNames(model);
+			boolean isMonthly = isMonthlyModel(model);
+			List<String> dataSetFieldNames = new ArrayList<String>();
+			dataSetFieldNames.add(YEAR_FIELDNAME);
+			if (isMonthly) {
+				dataSetFieldNames.add(MONTH_FIELDNAME);
+			}
+			dataSetFieldNames.add(REP_FIELDNAME);
+			dataSetFieldNames.addAll(fields);
+			LinkedHashMap<BioSimPlot, BioSimDataSet> resultForThisModel = new LinkedHashMap<BioSimPlot, BioSimDataSet>();
+			for (BioSimPlot p : plots) {
+				BioSimDataSet dataSet = new BioSimDataSet(new ArrayList<String>(dataSetFieldNames));
+				for (int rep = 0; rep < nbRealizations; rep++) {
+					for (int yr = fromYr; yr <= toYr; yr++) {
+						for (int month = isMonthly ? 1 : 0; month <= (isMonthly ? 12 : 0); month++) {
+							Object[] values = new Object[dataSetFieldNames.size()];
+							int j = 0;
+							values[j++] = yr;
+							if (isMonthly) {
+								values[j++] = month;
+							}
+							values[j++] = rep;
+							for (String fieldName : fields) {
+								values[j++] = getValue(p, yr, month, rep, fieldName);
+							}
+							dataSet.addObservation(values);
+						}
+					}
+				}
+				resultForThisModel.put(p, dataSet);
+			}
+			result.put(model.modelName, resultForThisModel);
+		}
+		return result;
+	}
+
+	@Override
+	public LinkedHashMap<BioSimPlot, BioSimDataSet> getNormals(BioSimModel normalsModel, 
+			boolean isMonthly, 
+			List<BioSimPlot> plots, 
+			RCP rcp, 
+			ClimateModel climModel) throws Exception {
+		List<String> fields = getFieldNames(normalsModel);
+		LinkedHashMap<BioSimPlot, BioSimDataSet> result = new LinkedHashMap<BioSimPlot, BioSimDataSet>();
+		for (BioSimPlot p : plots) {
+			BioSimDataSet dataSet = new BioSimDataSet(new ArrayList<String>(fields));
+			for (int month = isMonthly ? 1 : 0; month <= (isMonthly ? 12 : 0); month++) {
+				Object[] values = new Object[fields.size()];
+				for (int j = 0; j < fields.size(); j++) {
+					values[j] = getValue(p, 2000, month, -1, fields.get(j));
+				}
+				dataSet.addObservation(values);
+			}
+			result.put(p, dataSet);
+		}
+		return result;
+	}
+}
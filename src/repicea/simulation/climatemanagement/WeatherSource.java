@@ -0,0 +1,90 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import biosimclient.BioSimClientException;
+import biosimclient.BioSimDataSet;
+import biosimclient.BioSimEnums.ClimateModel;
+import biosimclient.BioSimEnums.RCP;
+import biosimclient.BioSimPlot;
+import biosimclient.BioSimServerException;
+import repicea.simulation.climatemanagement.REpiceaClimateVariableInformation.BioSimModel;
+
+/**
+ * The WeatherSource interface provides the weather and the normals to the REpiceaClimateManager class. <br>
+ * <br>
+ * By default, the manager relies on the BioSimWeatherSource class, which sends requests to BioSIM WebAPI. The
+ * RecordedWeatherSource and SyntheticWeatherSource classes make it possible to run the climate pipeline without
+ * any network access.
+ * @author Mathieu Fortin - October 2026
+ */
+public interface WeatherSource {
+
+	/**
+	 * Provide the last year for which daily observations are available.
+	 * @return an integer
+	 * @throws BioSimClientException if an error occurs on the client side
+	 * @throws BioSimServerException if an error occurs on the server side
+	 */
+	public int getLastDailyDateYr() throws BioSimClientException, BioSimServerException;
+
+	/**
+	 * Generate the weather for some plots.<p>
+	 * The output map has the model names as keys. The values are either LinkedHashMap instances with the plots
+	 * as keys and the BioSimDataSet instances as values, or the exception that occurred for this model. The data sets
+	 * contain the Year and Rep fields, and the Month field for monthly models. The observations are sorted by 
+	 * realization, year and month.
+	 * @param fromYr the first year (inclusive)
+	 * @param toYr the last year (inclusive)
+	 * @param plots a List of BioSimPlot instances
+	 * @param rcp a RCP enum
+	 * @param climModel a ClimateModel enum
+	 * @param models a List of BioSimModel enums
+	 * @param nbRealizations the number of realizations
+	 * @return a LinkedHashMap instance
+	 * @throws Exception if the weather cannot be generated
+	 */
+	public LinkedHashMap<String, Object> generateWeather(int fromYr, 
+			int toYr, 
+			List<BioSimPlot> plots, 
+			RCP rcp, 
+			ClimateModel climModel, 
+			List<BioSimModel> models, 
+			int nbRealizations) throws Exception;
+
+	/**
+	 * Provide the normals for some plots.
+	 * @param normalsModel a BioSimModel enum that stands for a period of normals
+	 * @param isMonthly true to get 12 monthly observations or false to get a single annual observation
+	 * @param plots a List of BioSimPlot instances
+	 * @param rcp a RCP enum
+	 * @param climModel a ClimateModel enum
+	 * @return a LinkedHashMap with the plots as keys and the BioSimDataSet instances as values
+	 * @throws Exception if the normals cannot be retrieved
+	 */
+	public LinkedHashMap<BioSimPlot, BioSimDataSet> getNormals(BioSimModel normalsModel, 
+			boolean isMonthly, 
+			List<BioSimPlot> plots, 
+			RCP rcp, 
+			ClimateModel climModel) throws Exception;
+}
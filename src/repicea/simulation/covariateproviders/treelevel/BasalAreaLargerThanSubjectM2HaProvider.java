@@ -28,6 +28,7 @@ public interface BasalAreaLargerThanSubjectM2HaProvider {
 	/**
 	 * This method returns the basal area of all the trees with dbh larger than this tree instance.
 	 * @return basal area in m2/ha
+	 * @see repicea.simulation.allometrycalculator.AllometryCalculator#computeBasalAreaLargerAndSmallerThanSubjectM2Ha(java.util.Collection, double, double[], double[])
 	 */
 	public double getBasalAreaLargerThanSubjectM2Ha();
 
@@ -29,8 +29,9 @@ public interface BasalAreaSmallerThanSubjectM2HaProvider {
 	/**
 	 * This method returns the basal area of all the trees with dbh smaller than this tree instance.<p>
 	 * A typical implementation is plot basal area (m2/ha) minus basal area of larger trees (m2/ha) 
-	 * minus tree basal area (m2/ha).
+	 * minus tree basal area (m2/ha). The other trees with the same dbh as this tree instance are then included.
 	 * @return basal area in m2/ha
+	 * @see repicea.simulation.allometrycalculator.AllometryCalculator#computeBasalAreaLargerAndSmallerThanSubjectM2Ha(java.util.Collection, double, double[], double[])
 	 */
 	public double getBasalAreaSmallerThanSubjectM2Ha();
 
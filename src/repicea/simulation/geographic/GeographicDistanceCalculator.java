@@ -19,6 +19,8 @@
 package repicea.simulation.geographic;
 
 import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 import repicea.math.Matrix;
 import repicea.math.SymmetricMatrix;
@@ -31,6 +33,28 @@ public class GeographicDistanceCalculator {
 
 	public static final double EarthCircumferenceKmEquator = 40075.0167;
 	public static final double EarthCircumferenceKmPole = 40007.863;
+	public static final double EarthMeanRadiusKm = 6371.0088;
+	
+	/**
+	 * The method used to compute the distances in the matrix builders.
+	 */
+	public static enum DistanceMethod {
+		/**
+		 * Euclidean distance around the mean latitude of the two coordinates. Fast but accurate only for 
+		 * small differences in latitude and longitude.
+		 */
+		FlatEarth,
+		/**
+		 * Great-circle distance on a sphere whose radius is the mean Earth radius. Appropriate
+		 * at the continental scale.
+		 */
+		GreatCircle;
+	}
+	
+	/**
+	 * The number of coordinates in the blocks of the dense distance computation.
+	 */
+	static final int BlockSize = 256;
 
 	/**
 	 * Calculate an approximate Earth circumference at a given latitude.
@@ -43,13 +67,13 @@ public class GeographicDistanceCalculator {
 		return(Math.cos(latitudeRad) * EarthCircumferenceKmEquator);
 	} 
 
-	private static void checkLatitudeDeg(double latitudeDeg) {
+	static void checkLatitudeDeg(double latitudeDeg) {
 		if (latitudeDeg > 90 || latitudeDeg < -90) {
 			throw new InvalidParameterException("The latitudeDeg argument must range between -90 and +90!");
 		}
 	}
 	
-	private static void checkLongitudeDeg(double longitudeDeg) {
+	static void checkLongitudeDeg(double longitudeDeg) {
 		if (longitudeDeg > 180 || longitudeDeg < -180) {
 			throw new InvalidParameterException("The longitudeDeg argument must range between -180 and +180!");
 		}
@@ -111,6 +135,29 @@ public class GeographicDistanceCalculator {
 	}
 
 	
+	/**
+	 * Return the great-circle distance between two geographical coordinates. <br>
+	 * <br>
+	 * The Earth is assumed to be a sphere whose radius is the mean Earth radius. The computation relies
+	 * on the chord between the two coordinates, which is equivalent to the haversine formula.
+	 * 
+	 * @param latitudeDeg1 the latitude (degrees) of the first coordinate
+	 * @param longitudeDeg1 the longitude (degrees) of the first coordinate
+	 * @param latitudeDeg2 the latitude (degrees) of the second coordinate
+	 * @param longitudeDeg2 the longitude (degrees) of the second coordinate
+	 * @return the distance (km)
+	 */
+	public static double getGreatCircleDistance(double latitudeDeg1, double longitudeDeg1, double latitudeDeg2, double longitudeDeg2) {
+		checkLatitudeDeg(latitudeDeg1);
+		checkLatitudeDeg(latitudeDeg2);
+		checkLongitudeDeg(longitudeDeg1);
+		checkLongitudeDeg(longitudeDeg2);
+		CoordinateTable table = new CoordinateTable(new double[] {latitudeDeg1, latitudeDeg2}, 
+				new double[] {longitudeDeg1, longitudeDeg2}, 
+				DistanceMethod.GreatCircle);
+		return table.getDistanceKm(0, 1);
+	}
+	
 	/**
 	 * Return the approximate distance between two geographical coordinates. <p>
 	 * 
@@ -164,26 +211,121 @@ public class GeographicDistanceCalculator {
 	 * @param latitudeDeg the latitudes of the coordinates (a Matrix instance that is a column vector) 
 	 * @param longitudeDeg the longitudes of the coordinates (a Matrix instance that is a column vector)
 	 * @return a SymmetricMatrix instance
+	 * @see GeographicDistanceCalculator#getPackedDistanceMatrix(double[], double[], boolean)
 	 */
 	public static SymmetricMatrix getDistanceBetweenTheseCoordinates(Matrix latitudeDeg, Matrix longitudeDeg) {
+		return getDistanceBetweenTheseCoordinates(latitudeDeg, longitudeDeg, DistanceMethod.FlatEarth);
+	}
+
+	/**
+	 * Calculate the distances between a set of coordinates.
+	 * @param latitudeDeg the latitudes of the coordinates (a Matrix instance that is a column vector) 
+	 * @param longitudeDeg the longitudes of the coordinates (a Matrix instance that is a column vector)
+	 * @param method a DistanceMethod enum
+	 * @return a SymmetricMatrix instance
+	 * @see GeographicDistanceCalculator#getPackedDistanceMatrix(double[], double[], boolean, DistanceMethod)
+	 */
+	public static SymmetricMatrix getDistanceBetweenTheseCoordinates(Matrix latitudeDeg, Matrix longitudeDeg, DistanceMethod method) {
 		if (!latitudeDeg.isColumnVector() || !latitudeDeg.isTheSameDimension(longitudeDeg)) {
 			throw new InvalidParameterException("The latitudeDeg and longitudeDeg Matrix instances must be column vectors of the same size!");
 		}
-		SymmetricMatrix outputMatrix = new SymmetricMatrix(latitudeDeg.m_iRows);
-		for (int i = 0; i < latitudeDeg.m_iRows; i++) {
-			for (int j = i; j < latitudeDeg.m_iRows; j++) {
-				if (i == j) {
-					outputMatrix.setValueAt(i, j, 0d);
-				} else {
-					double distanceKm = getGeographicalDistance(latitudeDeg.getValueAt(i, 0),
-																longitudeDeg.getValueAt(i, 0),
-																latitudeDeg.getValueAt(j, 0),
-																longitudeDeg.getValueAt(j, 0));
-					outputMatrix.setValueAt(i, j, distanceKm);
-				}
+		double[] latitudes = toArray(latitudeDeg);
+		double[] longitudes = toArray(longitudeDeg);
+		checkCoordinates(latitudes, longitudes);
+		final SymmetricMatrix outputMatrix = new SymmetricMatrix(latitudes.length);
+		computeDistancesByBlocks(new CoordinateTable(latitudes, longitudes, method), 
+				(i, j, packedIndex, distanceKm) -> outputMatrix.setValueAt(i, j, distanceKm));	// the diagonal is already 0
+		return outputMatrix;
+	}
+	
+	/**
+	 * Calculate the approximate distances between a set of coordinates and store them in 
+	 * a packed upper triangle. <br>
+	 * <br>
+	 * The coordinates are checked once and the trigonometric terms are computed once per coordinate. The 
+	 * cosine of the mean latitude of each pair is then obtained through the angle addition formula, so 
+	 * that the distances may differ from those of the getGeographicalDistance method in the last digits. The 
+	 * pairs are processed in blocks of coordinates, which are distributed over the available processors.
+	 * @param latitudeDeg the latitudes of the coordinates 
+	 * @param longitudeDeg the longitudes of the coordinates
+	 * @param floatPrecision true to store the distances in float precision
+	 * @return a PackedDistanceMatrix instance
+	 */
+	public static PackedDistanceMatrix getPackedDistanceMatrix(double[] latitudeDeg, double[] longitudeDeg, boolean floatPrecision) {
+		return getPackedDistanceMatrix(latitudeDeg, longitudeDeg, floatPrecision, DistanceMethod.FlatEarth);
+	}
+
+	/**
+	 * Calculate the distances between a set of coordinates and store them in a packed upper triangle. <br>
+	 * <br>
+	 * The trigonometric terms are computed once per coordinate so that the distance between two 
+	 * coordinates only requires a few products.
+	 * @param latitudeDeg the latitudes of the coordinates 
+	 * @param longitudeDeg the longitudes of the coordinates
+	 * @param floatPrecision true to store the distances in float precision
+	 * @param method a DistanceMethod enum
+	 * @return a PackedDistanceMatrix instance
+	 * @see GeographicDistanceCalculator#getPackedDistanceMatrix(double[], double[], boolean)
+	 */
+	public static PackedDistanceMatrix getPackedDistanceMatrix(double[] latitudeDeg, 
+			double[] longitudeDeg, 
+			boolean floatPrecision,
+			DistanceMethod method) {
+		checkCoordinates(latitudeDeg, longitudeDeg);
+		final PackedDistanceMatrix outputMatrix = new PackedDistanceMatrix(latitudeDeg.length, floatPrecision);
+		computeDistancesByBlocks(new CoordinateTable(latitudeDeg, longitudeDeg, method), 
+				(i, j, packedIndex, distanceKm) -> outputMatrix.setValue((int) packedIndex, distanceKm));
+		return outputMatrix;
+	}
+	
+	/**
+	 * Receive the distances computed in the computeDistancesByBlocks method. 
+	 */
+	@FunctionalInterface
+	private static interface DistanceConsumer {
+		/**
+		 * Store the distance between coordinates i and j, with i &lt; j.
+		 * @param i the index of the first coordinate
+		 * @param j the index of the second coordinate
+		 * @param packedIndex the index of the pair in a packed upper triangle
+		 * @param distanceKm the distance (km)
+		 */
+		void accept(int i, int j, long packedIndex, double distanceKm);
+	}
+	
+	/**
+	 * Compute the distances of all the pairs i &lt; j. The pairs are processed in blocks of 
+	 * coordinates, which are distributed over the available processors. Each pair is passed 
+	 * once to the consumer, which must therefore tolerate concurrent calls on distinct pairs.
+	 * @param table a CoordinateTable instance
+	 * @param consumer a DistanceConsumer instance
+	 */
+	private static void computeDistancesByBlocks(CoordinateTable table, DistanceConsumer consumer) {
+		final int n = table.latitudeDeg.length;
+		final int nbBlocks = (n + BlockSize - 1) / BlockSize;
+		final int[] firstBlocks = new int[nbBlocks * (nbBlocks + 1) / 2];
+		final int[] secondBlocks = new int[firstBlocks.length];
+		int task = 0;
+		for (int bi = 0; bi < nbBlocks; bi++) {
+			for (int bj = bi; bj < nbBlocks; bj++) {
+				firstBlocks[task] = bi;
+				secondBlocks[task] = bj;
+				task++;
 			}
 		}
-		return outputMatrix;
+		IntStream.range(0, firstBlocks.length).parallel().forEach(t -> {
+			int iStart = firstBlocks[t] * BlockSize;
+			int iEnd = Math.min(iStart + BlockSize, n);
+			int jStart = secondBlocks[t] * BlockSize;
+			int jEnd = Math.min(jStart + BlockSize, n);
+			for (int i = iStart; i < iEnd; i++) {
+				int j0 = Math.max(jStart, i + 1);
+				long packedIndex = (long) i * (2L * n - i - 1) / 2 + (j0 - i - 1);	// not bounded by the size of a packed array
+				for (int j = j0; j < jEnd; j++) {
+					consumer.accept(i, j, packedIndex++, table.getDistanceKm(i, j));
+				}
+			}
+		});
 	}
 	
 	/**
@@ -217,4 +359,283 @@ public class GeographicDistanceCalculator {
 		return outputMatrix;
 	}
 
+	/**
+	 * Calculate the approximate distances between the pairs of coordinates that are within a 
+	 * given radius. <br>
+	 * <br>
+	 * Contrary to the getDistanceBetweenTheseCoordinates(Matrix, Matrix, double) method, this method 
+	 * does not evaluate all the pairs. The coordinates are indexed in latitude bands sorted by longitude
+	 * so that only the candidate pairs are evaluated. The distances are the same as those of the 
+	 * getGeographicalDistance method, but they are stored in a sparse structure. 
+	 * @param latitudeDeg the latitudes of the coordinates (a Matrix instance that is a column vector) 
+	 * @param longitudeDeg the longitudes of the coordinates (a Matrix instance that is a column vector)
+	 * @param radiusKm a maximum radius (km) 
+	 * @return a GeographicNeighbours instance
+	 */
+	public static GeographicNeighbours getNeighboursWithinRadiusKm(Matrix latitudeDeg, Matrix longitudeDeg, double radiusKm) {
+		if (!latitudeDeg.isColumnVector() || !latitudeDeg.isTheSameDimension(longitudeDeg)) {
+			throw new InvalidParameterException("The latitudeDeg and longitudeDeg Matrix instances must be column vectors of the same size!");
+		}
+		return getNeighboursWithinRadiusKm(toArray(latitudeDeg), toArray(longitudeDeg), radiusKm);
+	}
+	
+	/**
+	 * Calculate the approximate distances between the pairs of coordinates that are within a 
+	 * given radius. 
+	 * @param latitudeDeg the latitudes of the coordinates 
+	 * @param longitudeDeg the longitudes of the coordinates
+	 * @param radiusKm a maximum radius (km) 
+	 * @return a GeographicNeighbours instance
+	 * @see GeographicDistanceCalculator#getNeighboursWithinRadiusKm(Matrix, Matrix, double)
+	 */
+	public static GeographicNeighbours getNeighboursWithinRadiusKm(double[] latitudeDeg, double[] longitudeDeg, double radiusKm) {
+		return getNeighboursWithinRadiusKm(latitudeDeg, longitudeDeg, radiusKm, DistanceMethod.FlatEarth);
+	}
+	
+	/**
+	 * Calculate the distances between the pairs of coordinates that are within a given radius. 
+	 * @param latitudeDeg the latitudes of the coordinates 
+	 * @param longitudeDeg the longitudes of the coordinates
+	 * @param radiusKm a maximum radius (km) 
+	 * @param method a DistanceMethod enum
+	 * @return a GeographicNeighbours instance
+	 * @see GeographicDistanceCalculator#getNeighboursWithinRadiusKm(Matrix, Matrix, double)
+	 */
+	public static GeographicNeighbours getNeighboursWithinRadiusKm(double[] latitudeDeg, 
+			double[] longitudeDeg, 
+			double radiusKm, 
+			DistanceMethod method) {
+		checkCoordinates(latitudeDeg, longitudeDeg);
+		if (radiusKm <= 0) {
+			throw new InvalidParameterException("The radiusKm argument must be positive!");
+		}
+		int n = latitudeDeg.length;
+		LatitudeBandGrid grid = new LatitudeBandGrid(latitudeDeg, longitudeDeg, radiusKm);
+		CoordinateTable table = new CoordinateTable(latitudeDeg, longitudeDeg, method);
+		int[] rowPointers = new int[n + 1];
+		int[] columnIndices = new int[Math.max(16, n)];
+		double[] distancesKm = new double[columnIndices.length];
+		CandidateList candidates = new CandidateList();
+		int nbStored = 0;
+		for (int i = 0; i < n; i++) {
+			double lat1 = latitudeDeg[i];
+			double lon1 = longitudeDeg[i];
+			long bandId = grid.getBandId(lat1);
+			candidates.size = 0;
+			for (long b = bandId - 1; b <= bandId + 1; b++) {
+				LatitudeBandGrid.Band band = grid.getBand(b);
+				if (band != null) {
+					double longitudeToleranceDeg = table.getLongitudeToleranceDeg(Math.max(Math.abs(lat1), band.maxAbsLatitudeDeg), radiusKm);
+					double minLongitudeDeg = lon1 - longitudeToleranceDeg;
+					double maxLongitudeDeg = lon1 + longitudeToleranceDeg;
+					if (table.method == DistanceMethod.GreatCircle && longitudeToleranceDeg < 180) {	// the window may cross the antimeridian
+						if (minLongitudeDeg < -180) {
+							candidates.addWithinRadius(band, minLongitudeDeg + 360, 180, table, i, radiusKm);
+						} else if (maxLongitudeDeg > 180) {
+							candidates.addWithinRadius(band, -180, maxLongitudeDeg - 360, table, i, radiusKm);
+						}
+					}
+					candidates.addWithinRadius(band, minLongitudeDeg, maxLongitudeDeg, table, i, radiusKm);
+				}
+			}
+			Arrays.sort(candidates.indices, 0, candidates.size);
+			if (nbStored + candidates.size > columnIndices.length) {
+				int newLength = Math.max(columnIndices.length * 2, nbStored + candidates.size);
+				columnIndices = Arrays.copyOf(columnIndices, newLength);
+				distancesKm = Arrays.copyOf(distancesKm, newLength);
+			}
+			for (int k = 0; k < candidates.size; k++) {
+				int j = candidates.indices[k];
+				columnIndices[nbStored] = j;
+				distancesKm[nbStored] = table.getNeighbourDistanceKm(i, j);
+				nbStored++;
+			}
+			rowPointers[i + 1] = nbStored;
+		}
+		return new GeographicNeighbours(radiusKm, 
+				rowPointers, 
+				Arrays.copyOf(columnIndices, nbStored), 
+				Arrays.copyOf(distancesKm, nbStored));
+	}
+
+	/**
+	 * A growable list of the neighbours of a particular coordinate.
+	 */
+	private static final class CandidateList {
+		
+		private int[] indices = new int[16];
+		private int size;
+		
+		/*
+		 * Add the coordinates of the band whose longitude lies within the bounds and 
+		 * which are within the radius of coordinate i.
+		 */
+		private void addWithinRadius(LatitudeBandGrid.Band band, 
+				double minLongitudeDeg, 
+				double maxLongitudeDeg, 
+				CoordinateTable table, 
+				int i, 
+				double radiusKm) {
+			for (int k = band.getFirstPosition(minLongitudeDeg); k < band.indices.length && band.longitudesDeg[k] <= maxLongitudeDeg; k++) {
+				int j = band.indices[k];
+				if (j != i && table.isWithinRadius(i, j, radiusKm)) {
+					if (size == indices.length) {
+						indices = Arrays.copyOf(indices, size * 2);
+					}
+					indices[size++] = j;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * The CoordinateTable class holds the terms that can be computed once per coordinate.
+	 */
+	private static final class CoordinateTable {
+		
+		private final DistanceMethod method;
+		private final double[] latitudeDeg;
+		private final double[] longitudeDeg;
+		private final double[] yKm;
+		private final double[] xKmAtEquator;
+		private final double[] cosHalfLat;
+		private final double[] sinHalfLat;
+		private final double[] unitX;
+		private final double[] unitY;
+		private final double[] unitZ;
+		
+		private CoordinateTable(double[] latitudeDeg, double[] longitudeDeg, DistanceMethod method) {
+			this.method = method;
+			this.latitudeDeg = latitudeDeg;
+			this.longitudeDeg = longitudeDeg;
+			int n = latitudeDeg.length;
+			if (method == DistanceMethod.GreatCircle) {
+				unitX = new double[n];
+				unitY = new double[n];
+				unitZ = new double[n];
+				for (int i = 0; i < n; i++) {
+					double latitudeRad = Math.toRadians(latitudeDeg[i]);
+					double longitudeRad = Math.toRadians(longitudeDeg[i]);
+					double cosLat = Math.cos(latitudeRad);
+					unitX[i] = cosLat * Math.cos(longitudeRad);
+					unitY[i] = cosLat * Math.sin(longitudeRad);
+					unitZ[i] = Math.sin(latitudeRad);
+				}
+				yKm = null;
+				xKmAtEquator = null;
+				cosHalfLat = null;
+				sinHalfLat = null;
+			} else {
+				yKm = new double[n];
+				xKmAtEquator = new double[n];
+				cosHalfLat = new double[n];
+				sinHalfLat = new double[n];
+				for (int i = 0; i < n; i++) {
+					yKm[i] = latitudeDeg[i] * EarthCircumferenceKmPole / 360;
+					xKmAtEquator[i] = longitudeDeg[i] * EarthCircumferenceKmEquator / 360;
+					double halfLatitudeRad = latitudeDeg[i] / 360 * Math.PI;
+					cosHalfLat[i] = Math.cos(halfLatitudeRad);
+					sinHalfLat[i] = Math.sin(halfLatitudeRad);
+				}
+				unitX = null;
+				unitY = null;
+				unitZ = null;
+			}
+		}
+		
+		/*
+		 * The cosine of the mean latitude is obtained through the angle addition formula. The distance may 
+		 * therefore differ from that of the getGeographicalDistance method in the last digits.
+		 */
+		private double getDistanceKm(int i, int j) {
+			if (method == DistanceMethod.GreatCircle) {
+				double dx = unitX[i] - unitX[j];
+				double dy = unitY[i] - unitY[j];
+				double dz = unitZ[i] - unitZ[j];
+				return getGreatCircleDistanceKmFromChord(Math.sqrt(dx * dx + dy * dy + dz * dz));
+			} else {
+				double diffY = yKm[i] - yKm[j];
+				double cosMeanLat = cosHalfLat[i] * cosHalfLat[j] - sinHalfLat[i] * sinHalfLat[j];
+				double diffX = (xKmAtEquator[j] - xKmAtEquator[i]) * cosMeanLat;
+				return Math.sqrt(diffY * diffY + diffX * diffX);
+			}
+		}
+		
+		/*
+		 * For the flat-earth method, the distance is computed exactly as in the getGeographicalDistance method 
+		 * so that the selected pairs and their distances are the same.
+		 */
+		private double getNeighbourDistanceKm(int i, int j) {
+			if (method == DistanceMethod.GreatCircle) {
+				return getDistanceKm(i, j);
+			} else {
+				return Math.sqrt(getSquaredDistanceKm(latitudeDeg[i], longitudeDeg[i], latitudeDeg[j], longitudeDeg[j]));
+			}
+		}
+		
+		private boolean isWithinRadius(int i, int j, double radiusKm) {
+			if (method == DistanceMethod.GreatCircle) {
+				return getDistanceKm(i, j) <= radiusKm;
+			} else {
+				return getSquaredDistanceKm(latitudeDeg[i], longitudeDeg[i], latitudeDeg[j], longitudeDeg[j]) <= radiusKm * radiusKm;
+			}
+		}
+		
+		/*
+		 * Provide the largest difference in longitude between two coordinates within the radius 
+		 * given the largest absolute latitude of the two coordinates.
+		 */
+		private double getLongitudeToleranceDeg(double maxAbsLatitudeDeg, double radiusKm) {
+			double cosMaxLat = Math.cos(Math.toRadians(maxAbsLatitudeDeg));
+			if (cosMaxLat <= 1E-12) {
+				return Double.POSITIVE_INFINITY;
+			}
+			if (method == DistanceMethod.GreatCircle) {
+				// from the haversine formula: hav(d/R) >= cos(lat1) cos(lat2) hav(dLon) 
+				double sinHalfDLon = Math.sin(Math.min(Math.PI * .5, radiusKm / EarthMeanRadiusKm * .5)) / cosMaxLat;
+				return sinHalfDLon >= 1d ? 
+						Double.POSITIVE_INFINITY : 
+							Math.toDegrees(2 * Math.asin(sinHalfDLon)) * (1d + 1E-9);
+			} else {
+				return radiusKm * 360d / (cosMaxLat * EarthCircumferenceKmEquator) * (1d + 1E-9);
+			}
+		}
+	}
+
+	/*
+	 * Convert the length of the chord between two unit vectors into a great-circle distance.
+	 */
+	static double getGreatCircleDistanceKmFromChord(double chord) {
+		return 2 * EarthMeanRadiusKm * Math.asin(Math.min(1d, chord * .5));
+	}
+
+	/*
+	 * Same computation as in the getGeographicalDistance method but without the checks on the arguments.
+	 */
+	private static double getSquaredDistanceKm(double latitudeDeg1, double longitudeDeg1, double latitudeDeg2, double longitudeDeg2) {
+		double diffY = Math.abs((latitudeDeg1 - latitudeDeg2) * EarthCircumferenceKmPole / 360);
+		double meanLat = (latitudeDeg2 + latitudeDeg1) * .5;
+		double longitudeRatio = 360d / (Math.cos(meanLat / 360 * 2 * Math.PI) * EarthCircumferenceKmEquator);
+		double diffX = (longitudeDeg2 - longitudeDeg1) / longitudeRatio;
+		return diffY * diffY + diffX * diffX;
+	}
+
+	private static void checkCoordinates(double[] latitudeDeg, double[] longitudeDeg) {
+		if (latitudeDeg == null || longitudeDeg == null || latitudeDeg.length != longitudeDeg.length) {
+			throw new InvalidParameterException("The latitudeDeg and longitudeDeg arrays must be non null and of the same size!");
+		}
+		for (int i = 0; i < latitudeDeg.length; i++) {
+			checkLatitudeDeg(latitudeDeg[i]);
+			checkLongitudeDeg(longitudeDeg[i]);
+		}
+	}
+	
+	private static double[] toArray(Matrix columnVector) {
+		double[] array = new double[columnVector.m_iRows];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = columnVector.getValueAt(i, 0);
+		}
+		return array;
+	}
+
 }
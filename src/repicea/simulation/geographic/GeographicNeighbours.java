@@ -0,0 +1,137 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.geographic;
+
+import java.util.Arrays;
+
+/**
+ * The GeographicNeighbours class is a sparse representation of the distances between
+ * a set of coordinates. <br>
+ * <br>
+ * Only the pairs of coordinates within a given radius are stored. The storage follows the
+ * compressed sparse row (CSR) layout: the neighbours of point i are found at positions
+ * getRowPointers()[i] to getRowPointers()[i+1] - 1 of the arrays returned by the getColumnIndices
+ * and getDistancesKm methods. The neighbours of each point are sorted by index and a point is not its
+ * own neighbour. Each pair is stored twice, once for each point.
+ * @author Mathieu Fortin - October 2026
+ * @see GeographicDistanceCalculator#getNeighboursWithinRadiusKm(double[], double[], double)
+ */
+public final class GeographicNeighbours {
+
+	private final double radiusKm;
+	private final int[] rowPointers;
+	private final int[] columnIndices;
+	private final double[] distancesKm;
+
+	GeographicNeighbours(double radiusKm, int[] rowPointers, int[] columnIndices, double[] distancesKm) {
+		this.radiusKm = radiusKm;
+		this.rowPointers = rowPointers;
+		this.columnIndices = columnIndices;
+		this.distancesKm = distancesKm;
+	}
+
+	/**
+	 * Provide the radius that was used to select the neighbours.
+	 * @return the radius (km)
+	 */
+	public double getRadiusKm() {return radiusKm;}
+
+	/**
+	 * Provide the number of points.
+	 * @return an integer
+	 */
+	public int getNumberOfPoints() {return rowPointers.length - 1;}
+
+	/**
+	 * Provide the number of stored pairs. Since each pair is stored for both points,
+	 * this number is twice the number of distinct pairs.
+	 * @return an integer
+	 */
+	public int getNumberOfStoredPairs() {return columnIndices.length;}
+
+	/**
+	 * Provide the number of neighbours of a particular point.
+	 * @param i the index of the point
+	 * @return an integer
+	 */
+	public int getNumberOfNeighbours(int i) {
+		return rowPointers[i + 1] - rowPointers[i];
+	}
+
+	/**
+	 * Provide the indices of the neighbours of a particular point.
+	 * @param i the index of the point
+	 * @return an array of integers
+	 */
+	public int[] getNeighbourIndices(int i) {
+		return Arrays.copyOfRange(columnIndices, rowPointers[i], rowPointers[i + 1]);
+	}
+
+	/**
+	 * Provide the distances between a particular point and its neighbours.
+	 * @param i the index of the point
+	 * @return an array of distances (km) in the same order as the getNeighbourIndices method
+	 */
+	public double[] getNeighbourDistancesKm(int i) {
+		return Arrays.copyOfRange(distancesKm, rowPointers[i], rowPointers[i + 1]);
+	}
+
+	/**
+	 * Provide the distance between two points. <br>
+	 * <br>
+	 * As in the GeographicDistanceCalculator.getDistanceBetweenTheseCoordinates(Matrix, Matrix, double) method, the
+	 * distance is 0 if i == j and Double.NaN if the points are not within the radius.
+	 * @param i the index of the first point
+	 * @param j the index of the second point
+	 * @return the distance (km)
+	 */
+	public double getDistanceKm(int i, int j) {
+		if (i == j) {
+			return 0d;
+		}
+		int position = Arrays.binarySearch(columnIndices, rowPointers[i], rowPointers[i + 1], j);
+		return position >= 0 ? distancesKm[position] : Double.NaN;
+	}
+
+	/**
+	 * Provide the row pointers of the CSR layout. <br>
+	 * <br>
+	 * The array is not copied and it should not be modified.
+	 * @return an array of integers of size getNumberOfPoints() + 1
+	 */
+	public int[] getRowPointers() {return rowPointers;}
+
+	/**
+	 * Provide the column indices of the CSR layout. <br>
+	 * <br>
+	 * The array is not copied and it should not be modified.
+	 * @return an array of integers of size getNumberOfStoredPairs()
+	 */
+	public int[] getColumnIndices() {return columnIndices;}
+
+	/**
+	 * Provide the distances of the CSR layout. <br>
+	 * <br>
+	 * The array is not copied and it should not be modified.
+	 * @return an array of distances (km) of size getNumberOfStoredPairs()
+	 */
+	public double[] getDistancesKm() {return distancesKm;}
+
+}
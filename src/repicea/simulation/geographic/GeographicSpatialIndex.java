@@ -0,0 +1,435 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.geographic;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import repicea.simulation.covariateproviders.plotlevel.GeographicalCoordinatesProvider;
+
+/**
+ * The GeographicSpatialIndex class finds the nearest neighbours of a location among a set of
+ * GeographicalCoordinatesProvider instances. <br>
+ * <br>
+ * The coordinates are converted into unit vectors and stored in a balanced k-d tree. The length of
+ * the chord between two unit vectors increases with the great-circle distance, so that the neighbours
+ * are ranked according to the great-circle distance of the GeographicDistanceCalculator class. Since
+ * the flat-earth approximation does not satisfy the triangle inequality, it cannot be used here. <br>
+ * <br>
+ * The index is bulk-loaded in the constructor and cannot be modified afterwards. It is therefore safe for
+ * concurrent queries. The coordinates are read once in the constructor.
+ * @author Mathieu Fortin - October 2026
+ * @param <P> a GeographicalCoordinatesProvider-derived class
+ * @see GeographicDistanceCalculator#getGreatCircleDistance(double, double, double, double)
+ */
+public final class GeographicSpatialIndex<P extends GeographicalCoordinatesProvider> {
+
+	/**
+	 * A neighbour found in the index with its distance to the query location.
+	 * @param <P> a GeographicalCoordinatesProvider-derived class
+	 */
+	public static final class Neighbour<P extends GeographicalCoordinatesProvider> {
+
+		private final P point;
+		private final double distanceKm;
+
+		private Neighbour(P point, double distanceKm) {
+			this.point = point;
+			this.distanceKm = distanceKm;
+		}
+
+		/**
+		 * Provide the neighbour.
+		 * @return a GeographicalCoordinatesProvider instance
+		 */
+		public P getPoint() {return point;}
+
+		/**
+		 * Provide the great-circle distance between the neighbour and the query location.
+		 * @return the distance (km)
+		 */
+		public double getDistanceKm() {return distanceKm;}
+	}
+
+	/**
+	 * A max-heap that retains the k smallest squared chords.
+	 */
+	private static final class BoundedMaxHeap {
+
+		private final double[] keys;
+		private final int[] positions;
+		private int size;
+
+		private BoundedMaxHeap(int k) {
+			keys = new double[k];
+			positions = new int[k];
+		}
+
+		private boolean isFull() {return size == keys.length;}
+
+		private double getWorstKey() {return keys[0];}
+
+		private void offer(double key, int position) {
+			if (size < keys.length) {
+				int i = size++;
+				while (i > 0) {
+					int parent = (i - 1) >>> 1;
+					if (keys[parent] >= key) {
+						break;
+					}
+					keys[i] = keys[parent];
+					positions[i] = positions[parent];
+					i = parent;
+				}
+				keys[i] = key;
+				positions[i] = position;
+			} else if (key < keys[0]) {
+				int i = 0;
+				while (true) {
+					int child = 2 * i + 1;
+					if (child >= size) {
+						break;
+					}
+					if (child + 1 < size && keys[child + 1] > keys[child]) {
+						child++;
+					}
+					if (keys[child] <= key) {
+						break;
+					}
+					keys[i] = keys[child];
+					positions[i] = positions[child];
+					i = child;
+				}
+				keys[i] = key;
+				positions[i] = position;
+			}
+		}
+	}
+
+	private static final int LeafSize = 8;
+
+	private static final Comparator<Neighbour<?>> DistanceOrder = new Comparator<Neighbour<?>>() {
+		@Override
+		public int compare(Neighbour<?> o1, Neighbour<?> o2) {
+			return Double.compare(o1.distanceKm, o2.distanceKm);
+		}
+	};
+
+	private final Object[] points;
+	private final double[] x;
+	private final double[] y;
+	private final double[] z;
+	private final byte[] splitDimensions;
+
+	/**
+	 * Constructor. <br>
+	 * <br>
+	 * The tree is built in O(n log n) time.
+	 * @param points a Collection of GeographicalCoordinatesProvider instances
+	 */
+	public GeographicSpatialIndex(Collection<? extends P> points) {
+		if (points == null) {
+			throw new InvalidParameterException("The points argument cannot be null!");
+		}
+		int n = points.size();
+		double[][] unitVectors = new double[3][n];
+		Object[] originalPoints = new Object[n];
+		int i = 0;
+		for (P p : points) {
+			if (p == null) {
+				throw new InvalidParameterException("The points argument cannot contain null instances!");
+			}
+			double[] unitVector = getUnitVector(p.getLatitudeDeg(), p.getLongitudeDeg());
+			for (int d = 0; d < 3; d++) {
+				unitVectors[d][i] = unitVector[d];
+			}
+			originalPoints[i] = p;
+			i++;
+		}
+		int[] order = new int[n];
+		for (i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		splitDimensions = new byte[n];
+		build(order, unitVectors, 0, n);
+		this.points = new Object[n];
+		x = new double[n];
+		y = new double[n];
+		z = new double[n];
+		for (i = 0; i < n; i++) {		// the points are stored in the order of the tree for a better locality
+			this.points[i] = originalPoints[order[i]];
+			x[i] = unitVectors[0][order[i]];
+			y[i] = unitVectors[1][order[i]];
+			z[i] = unitVectors[2][order[i]];
+		}
+	}
+
+	private static double[] getUnitVector(double latitudeDeg, double longitudeDeg) {
+		GeographicDistanceCalculator.checkLatitudeDeg(latitudeDeg);
+		GeographicDistanceCalculator.checkLongitudeDeg(longitudeDeg);
+		double latitudeRad = Math.toRadians(latitudeDeg);
+		double longitudeRad = Math.toRadians(longitudeDeg);
+		double cosLat = Math.cos(latitudeRad);
+		return new double[] {cosLat * Math.cos(longitudeRad), cosLat * Math.sin(longitudeRad), Math.sin(latitudeRad)};
+	}
+
+	/*
+	 * The node of range [lo, hi) is the median at position (lo + hi) / 2. The ranges of
+	 * LeafSize points or less are leaves and they are not split.
+	 */
+	private void build(int[] order, double[][] unitVectors, int lo, int hi) {
+		if (hi - lo <= LeafSize) {
+			return;
+		}
+		int splitDimension = 0;
+		double largestSpread = -1d;
+		for (int d = 0; d < 3; d++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int k = lo; k < hi; k++) {
+				double value = unitVectors[d][order[k]];
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+			if (max - min > largestSpread) {
+				largestSpread = max - min;
+				splitDimension = d;
+			}
+		}
+		int mid = (lo + hi) >>> 1;
+		select(order, unitVectors[splitDimension], lo, hi - 1, mid);
+		splitDimensions[mid] = (byte) splitDimension;
+		build(order, unitVectors, lo, mid);
+		build(order, unitVectors, mid + 1, hi);
+	}
+
+	/*
+	 * Quickselect: rearrange order[lo..hi] so that the k-th value is at position k with smaller
+	 * or equal values before and greater or equal values after.
+	 */
+	private static void select(int[] order, double[] values, int lo, int hi, int k) {
+		while (hi > lo) {
+			double pivot = values[order[(lo + hi) >>> 1]];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (values[order[i]] < pivot) {
+					i++;
+				}
+				while (values[order[j]] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int tmp = order[i];
+					order[i] = order[j];
+					order[j] = tmp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Provide the number of points in the index.
+	 * @return an integer
+	 */
+	public int size() {return points.length;}
+
+	/**
+	 * Provide the k nearest neighbours of a location.
+	 * @param latitudeDeg the latitude (degrees) of the location
+	 * @param longitudeDeg the longitude (degrees) of the location
+	 * @param k the number of neighbours
+	 * @return a List of Neighbour instances sorted by increasing distance. The list contains less than
+	 * k neighbours if the index contains less than k points.
+	 */
+	public List<Neighbour<P>> getNearestNeighbours(double latitudeDeg, double longitudeDeg, int k) {
+		if (k < 1) {
+			throw new InvalidParameterException("The k argument must be equal to or greater than 1!");
+		}
+		double[] q = getUnitVector(latitudeDeg, longitudeDeg);
+		BoundedMaxHeap heap = new BoundedMaxHeap(Math.min(k, points.length));
+		if (heap.keys.length > 0) {
+			searchNearest(q[0], q[1], q[2], 0, points.length, heap);
+		}
+		List<Neighbour<P>> neighbours = new ArrayList<Neighbour<P>>(heap.size);
+		for (int i = 0; i < heap.size; i++) {
+			neighbours.add(createNeighbour(heap.positions[i], heap.keys[i]));
+		}
+		Collections.sort(neighbours, DistanceOrder);
+		return neighbours;
+	}
+
+	/**
+	 * Provide the k nearest neighbours of a location.
+	 * @param location a GeographicalCoordinatesProvider instance
+	 * @param k the number of neighbours
+	 * @return a List of Neighbour instances sorted by increasing distance
+	 * @see GeographicSpatialIndex#getNearestNeighbours(double, double, int)
+	 */
+	public List<Neighbour<P>> getNearestNeighbours(GeographicalCoordinatesProvider location, int k) {
+		return getNearestNeighbours(location.getLatitudeDeg(), location.getLongitudeDeg(), k);
+	}
+
+	/**
+	 * Provide the k nearest neighbours of each location of a list. <br>
+	 * <br>
+	 * The queries are processed in parallel.
+	 * @param locations a List of GeographicalCoordinatesProvider instances
+	 * @param k the number of neighbours
+	 * @return a List of lists of Neighbour instances in the same order as the locations
+	 * @see GeographicSpatialIndex#getNearestNeighbours(double, double, int)
+	 */
+	public List<List<Neighbour<P>>> getNearestNeighbours(List<? extends GeographicalCoordinatesProvider> locations, int k) {
+		return locations.parallelStream()
+				.map(l -> getNearestNeighbours(l, k))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Provide the nearest neighbour of a location.
+	 * @param latitudeDeg the latitude (degrees) of the location
+	 * @param longitudeDeg the longitude (degrees) of the location
+	 * @return a Neighbour instance or null if the index is empty
+	 */
+	public Neighbour<P> getNearestNeighbour(double latitudeDeg, double longitudeDeg) {
+		List<Neighbour<P>> neighbours = getNearestNeighbours(latitudeDeg, longitudeDeg, 1);
+		return neighbours.isEmpty() ? null : neighbours.get(0);
+	}
+
+	/**
+	 * Provide the neighbours of a location within a given radius.
+	 * @param latitudeDeg the latitude (degrees) of the location
+	 * @param longitudeDeg the longitude (degrees) of the location
+	 * @param radiusKm the radius (km)
+	 * @return a List of Neighbour instances sorted by increasing distance
+	 */
+	public List<Neighbour<P>> getNeighboursWithinRadiusKm(double latitudeDeg, double longitudeDeg, double radiusKm) {
+		if (radiusKm < 0) {
+			throw new InvalidParameterException("The radiusKm argument must be equal to or greater than 0!");
+		}
+		double[] q = getUnitVector(latitudeDeg, longitudeDeg);
+		// the small margin makes sure no point is lost to rounding errors before the exact check on the great-circle distance
+		double chord = 2 * Math.sin(Math.min(Math.PI, radiusKm / GeographicDistanceCalculator.EarthMeanRadiusKm) * .5) * (1d + 1E-9);
+		List<Neighbour<P>> neighbours = new ArrayList<Neighbour<P>>();
+		searchWithinChord(q[0], q[1], q[2], 0, points.length, chord * chord, radiusKm, neighbours);
+		Collections.sort(neighbours, DistanceOrder);
+		return neighbours;
+	}
+
+	/**
+	 * Provide the neighbours of a location within a given radius.
+	 * @param location a GeographicalCoordinatesProvider instance
+	 * @param radiusKm the radius (km)
+	 * @return a List of Neighbour instances sorted by increasing distance
+	 * @see GeographicSpatialIndex#getNeighboursWithinRadiusKm(double, double, double)
+	 */
+	public List<Neighbour<P>> getNeighboursWithinRadiusKm(GeographicalCoordinatesProvider location, double radiusKm) {
+		return getNeighboursWithinRadiusKm(location.getLatitudeDeg(), location.getLongitudeDeg(), radiusKm);
+	}
+
+	private double getSquaredChord(double qx, double qy, double qz, int position) {
+		double dx = x[position] - qx;
+		double dy = y[position] - qy;
+		double dz = z[position] - qz;
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	private double getSplitDifference(double qx, double qy, double qz, int position) {
+		switch(splitDimensions[position]) {
+		case 0:
+			return qx - x[position];
+		case 1:
+			return qy - y[position];
+		default:
+			return qz - z[position];
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Neighbour<P> createNeighbour(int position, double squaredChord) {
+		return new Neighbour<P>((P) points[position],
+				GeographicDistanceCalculator.getGreatCircleDistanceKmFromChord(Math.sqrt(squaredChord)));
+	}
+
+	private void searchNearest(double qx, double qy, double qz, int lo, int hi, BoundedMaxHeap heap) {
+		if (hi - lo <= LeafSize) {
+			for (int i = lo; i < hi; i++) {
+				heap.offer(getSquaredChord(qx, qy, qz, i), i);
+			}
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		heap.offer(getSquaredChord(qx, qy, qz, mid), mid);
+		double difference = getSplitDifference(qx, qy, qz, mid);
+		if (difference < 0) {
+			searchNearest(qx, qy, qz, lo, mid, heap);
+			if (!heap.isFull() || difference * difference < heap.getWorstKey()) {
+				searchNearest(qx, qy, qz, mid + 1, hi, heap);
+			}
+		} else {
+			searchNearest(qx, qy, qz, mid + 1, hi, heap);
+			if (!heap.isFull() || difference * difference < heap.getWorstKey()) {
+				searchNearest(qx, qy, qz, lo, mid, heap);
+			}
+		}
+	}
+
+	private void searchWithinChord(double qx, double qy, double qz, int lo, int hi, double squaredChord, double radiusKm, List<Neighbour<P>> neighbours) {
+		if (hi - lo <= LeafSize) {
+			for (int i = lo; i < hi; i++) {
+				addIfWithinRadius(qx, qy, qz, i, squaredChord, radiusKm, neighbours);
+			}
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		addIfWithinRadius(qx, qy, qz, mid, squaredChord, radiusKm, neighbours);
+		double difference = getSplitDifference(qx, qy, qz, mid);
+		if (difference <= 0 || difference * difference <= squaredChord) {
+			searchWithinChord(qx, qy, qz, lo, mid, squaredChord, radiusKm, neighbours);
+		}
+		if (difference >= 0 || difference * difference <= squaredChord) {
+			searchWithinChord(qx, qy, qz, mid + 1, hi, squaredChord, radiusKm, neighbours);
+		}
+	}
+
+	private void addIfWithinRadius(double qx, double qy, double qz, int position, double squaredChord, double radiusKm, List<Neighbour<P>> neighbours) {
+		double squaredChordToPoint = getSquaredChord(qx, qy, qz, position);
+		if (squaredChordToPoint <= squaredChord) {
+			Neighbour<P> neighbour = createNeighbour(position, squaredChordToPoint);
+			if (neighbour.distanceKm <= radiusKm) {
+				neighbours.add(neighbour);
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.geographic;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The LatitudeBandGrid class splits a set of coordinates into latitude bands whose
+ * height is the search radius. Within each band, the coordinates are sorted by longitude. <br>
+ * <br>
+ * Two coordinates within the search radius are necessarily in the same band or in adjacent bands.
+ * Within a band, the candidates are then found through a binary search on the longitude.
+ * @author Mathieu Fortin - October 2026
+ */
+final class LatitudeBandGrid {
+
+	/**
+	 * A latitude band with its coordinates sorted by longitude.
+	 */
+	static final class Band {
+		final int[] indices;
+		final double[] longitudesDeg;
+		final double maxAbsLatitudeDeg;
+
+		private Band(int[] indices, double[] longitudesDeg, double maxAbsLatitudeDeg) {
+			this.indices = indices;
+			this.longitudesDeg = longitudesDeg;
+			this.maxAbsLatitudeDeg = maxAbsLatitudeDeg;
+		}
+
+		/**
+		 * Return the position of the first coordinate whose longitude is equal to or greater
+		 * than the argument.
+		 * @param longitudeDeg the longitude (degrees)
+		 * @return an integer
+		 */
+		int getFirstPosition(double longitudeDeg) {
+			int low = 0;
+			int high = longitudesDeg.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (longitudesDeg[mid] < longitudeDeg) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+
+	private final double bandHeightDeg;
+	private final Map<Long, Band> bands;
+
+	/**
+	 * Constructor.
+	 * @param latitudeDeg the latitudes (degrees) of the coordinates
+	 * @param longitudeDeg the longitudes (degrees) of the coordinates
+	 * @param radiusKm the search radius (km)
+	 */
+	LatitudeBandGrid(final double[] latitudeDeg, final double[] longitudeDeg, double radiusKm) {
+		// the small margin makes sure rounding errors cannot put two coordinates within the radius two bands apart
+		bandHeightDeg = radiusKm * GeographicDistanceCalculator.getRatioLatitudeDegKm() * (1d + 1E-9);
+		final long[] bandIds = new long[latitudeDeg.length];
+		Integer[] order = new Integer[latitudeDeg.length];
+		for (int i = 0; i < latitudeDeg.length; i++) {
+			bandIds[i] = getBandId(latitudeDeg[i]);
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				int comparison = Long.compare(bandIds[o1], bandIds[o2]);
+				return comparison != 0 ? comparison : Double.compare(longitudeDeg[o1], longitudeDeg[o2]);
+			}
+		});
+		bands = new HashMap<Long, Band>();
+		int start = 0;
+		while (start < order.length) {
+			long bandId = bandIds[order[start]];
+			int end = start + 1;
+			while (end < order.length && bandIds[order[end]] == bandId) {
+				end++;
+			}
+			int[] indices = new int[end - start];
+			double[] longitudes = new double[end - start];
+			double maxAbsLatitudeDeg = 0d;
+			for (int k = start; k < end; k++) {
+				int index = order[k];
+				indices[k - start] = index;
+				longitudes[k - start] = longitudeDeg[index];
+				maxAbsLatitudeDeg = Math.max(maxAbsLatitudeDeg, Math.abs(latitudeDeg[index]));
+			}
+			bands.put(bandId, new Band(indices, longitudes, maxAbsLatitudeDeg));
+			start = end;
+		}
+	}
+
+	/**
+	 * Provide the id of the band that contains a particular latitude.
+	 * @param latitudeDeg the latitude (degrees)
+	 * @return a long
+	 */
+	long getBandId(double latitudeDeg) {
+		return (long) Math.floor((latitudeDeg + 90d) / bandHeightDeg);
+	}
+
+	/**
+	 * Provide a band.
+	 * @param bandId the id of the band
+	 * @return a Band instance or null if there is no coordinate in this band
+	 */
+	Band getBand(long bandId) {
+		return bands.get(bandId);
+	}
+
+}
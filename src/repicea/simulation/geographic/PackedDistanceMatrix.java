@@ -0,0 +1,124 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.geographic;
+
+import java.security.InvalidParameterException;
+
+import repicea.math.SymmetricMatrix;
+
+/**
+ * The PackedDistanceMatrix class stores the distances between a set of coordinates
+ * in a packed upper triangle. <br>
+ * <br>
+ * The diagonal is not stored since it is made of zeros. The distances between n coordinates
+ * therefore require n(n-1)/2 values, that is about half of a square matrix. The values can be stored
+ * in double or in float precision, the latter halving the memory once again.
+ * @author Mathieu Fortin - October 2026
+ * @see GeographicDistanceCalculator#getPackedDistanceMatrix(double[], double[], boolean)
+ */
+public final class PackedDistanceMatrix {
+
+	private final int n;
+	private final double[] doubleValues;
+	private final float[] floatValues;
+
+	PackedDistanceMatrix(int n, boolean floatPrecision) {
+		long size = getPackedSize(n);
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new InvalidParameterException("There are too many coordinates for a packed distance matrix!");
+		}
+		this.n = n;
+		if (floatPrecision) {
+			floatValues = new float[(int) size];
+			doubleValues = null;
+		} else {
+			doubleValues = new double[(int) size];
+			floatValues = null;
+		}
+	}
+
+	static long getPackedSize(int n) {
+		return (long) n * (n - 1) / 2;
+	}
+
+	/**
+	 * Provide the position of the distance between points i and j in the packed upper
+	 * triangle. The index i must be strictly smaller than j.
+	 */
+	static int getPackedIndex(int i, int j, int n) {
+		return (int) ((long) i * (2L * n - i - 1) / 2 + (j - i - 1));
+	}
+
+	void setValue(int packedIndex, double distanceKm) {
+		if (floatValues != null) {
+			floatValues[packedIndex] = (float) distanceKm;
+		} else {
+			doubleValues[packedIndex] = distanceKm;
+		}
+	}
+
+	/**
+	 * Provide the number of coordinates.
+	 * @return an integer
+	 */
+	public int getNumberOfPoints() {return n;}
+
+	/**
+	 * Indicate whether the distances are stored in float precision.
+	 * @return a boolean
+	 */
+	public boolean isFloatPrecision() {return floatValues != null;}
+
+	/**
+	 * Provide the distance between two coordinates.
+	 * @param i the index of the first coordinate
+	 * @param j the index of the second coordinate
+	 * @return the distance (km)
+	 */
+	public double getDistanceKm(int i, int j) {
+		if (i == j) {
+			return 0d;
+		} else if (i > j) {
+			int tmp = i;
+			i = j;
+			j = tmp;
+		}
+		int packedIndex = getPackedIndex(i, j, n);
+		return floatValues != null ? floatValues[packedIndex] : doubleValues[packedIndex];
+	}
+
+	/**
+	 * Convert the packed matrix into a SymmetricMatrix instance.
+	 * @return a SymmetricMatrix instance
+	 */
+	public SymmetricMatrix toSymmetricMatrix() {
+		SymmetricMatrix outputMatrix = new SymmetricMatrix(n);
+		int packedIndex = 0;
+		for (int i = 0; i < n; i++) {
+			outputMatrix.setValueAt(i, i, 0d);
+			for (int j = i + 1; j < n; j++) {
+				outputMatrix.setValueAt(i, j, floatValues != null ? floatValues[packedIndex] : doubleValues[packedIndex]);
+				packedIndex++;
+			}
+		}
+		return outputMatrix;
+	}
+
+}
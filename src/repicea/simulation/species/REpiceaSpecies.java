@@ -647,6 +647,42 @@ public interface REpiceaSpecies extends TextableEnum, SpeciesTypeProvider, BarkP
 
 		static Map<SpeciesLocale, List<Species>> SPECIES_BY_LOCALE_MAP;
 
+		/*
+		 * The surrogates are found once for all the species. The array is indexed by the ordinal of the species.
+		 */
+		static final Species[] SURROGATES;
+		static {
+			Map<String, Species> speciesByName = new HashMap<String, Species>();
+			for (Species s : values()) {
+				speciesByName.put(s.name(), s);
+			}
+			SURROGATES = new Species[values().length];
+			for (Species s : values()) {
+				SURROGATES[s.ordinal()] = findSurrogate(s, speciesByName);
+			}
+		}
+
+		/*
+		 * The basic wood densities and the bark proportions are resolved once for all the species and locales,
+		 * including the fallback on the next levels and on the default locale. The arrays are indexed by 
+		 * the ordinals of the species and the locale. A missing value is set to Double.NaN.
+		 */
+		private static final double[][] BASIC_WOOD_DENSITIES;
+		private static final double[][] BARK_PROPORTIONS;
+		static {
+			SpeciesLocale[] locales = SpeciesLocale.values();
+			BASIC_WOOD_DENSITIES = new double[values().length][locales.length];
+			BARK_PROPORTIONS = new double[values().length][locales.length];
+			for (Species s : values()) {
+				for (SpeciesLocale l : locales) {
+					Double value = findLocaleEntryInMap(l, s.localeBasicWoodDensity, s.getDefaultLocale());
+					BASIC_WOOD_DENSITIES[s.ordinal()][l.ordinal()] = value == null ? Double.NaN : value;
+					value = findLocaleEntryInMap(l, s.localeBarkProportion, s.getDefaultLocale());
+					BARK_PROPORTIONS[s.ordinal()][l.ordinal()] = value == null ? Double.NaN : value;
+				}
+			}
+		}
+
 		final SpeciesType speciesType;
 //		final double basicWoodDensity;
 //		final double barkProportionOfWoodVolume;
@@ -687,6 +723,13 @@ public interface REpiceaSpecies extends TextableEnum, SpeciesTypeProvider, BarkP
 			return localeList.get(0);
 		}
 
+		/*
+		 * A null locale stands for the default locale of the species as in the former map lookup.
+		 */
+		private int getLocaleIndex(SpeciesLocale locale) {
+			return locale == null ? getDefaultLocale().ordinal() : locale.ordinal();
+		}
+
 		@Override
 		public void setText(String englishText, String frenchText) {
 			REpiceaTranslator.setString(this, englishText, frenchText);
@@ -708,11 +751,11 @@ public interface REpiceaSpecies extends TextableEnum, SpeciesTypeProvider, BarkP
 
 		@Override
 		public double getBasicWoodDensity(SpeciesLocale locale) {
-			return Species.findLocaleEntryInMap(locale, localeBasicWoodDensity, getDefaultLocale());
+			return BASIC_WOOD_DENSITIES[ordinal()][getLocaleIndex(locale)];
 		}
 
 		
-		private static double findLocaleEntryInMap(SpeciesLocale locale, Map<SpeciesLocale, Double> oMap, SpeciesLocale defaultLocale) {
+		private static Double findLocaleEntryInMap(SpeciesLocale locale, Map<SpeciesLocale, Double> oMap, SpeciesLocale defaultLocale) {
 			SpeciesLocale currentLocale = locale;
 			while (currentLocale != null) {
 				if (oMap.containsKey(currentLocale)) {
@@ -747,12 +790,33 @@ public interface REpiceaSpecies extends TextableEnum, SpeciesTypeProvider, BarkP
 		
 		@Override
 		public double getBarkProportionOfWoodVolume(SpeciesLocale locale) {
-			return Species.findLocaleEntryInMap(locale, localeBarkProportion, getDefaultLocale());
+			return BARK_PROPORTIONS[ordinal()][getLocaleIndex(locale)];
 		}		
 		
 		@Override
 		public SpeciesType getSpeciesType() {return speciesType;}
 		
+		private static Species findSurrogate(Species species, Map<String, Species> speciesByName) {
+			if (species == Other || species == Broadleaved_shrubs) {
+				return null;
+			}
+			if (species == Other_coniferous || species == Other_broadleaved) {
+				return Other;
+			}
+			
+			if (!species.name().endsWith("spp")) {
+				int indexSpace = species.name().indexOf("_");
+				if (indexSpace != -1) {
+					Species genusSpecies = speciesByName.get(species.name().substring(0, indexSpace) + "_spp");
+					if (genusSpecies != null) {
+						return genusSpecies;
+					}
+				} 
+			}
+			return species.speciesType == SpeciesType.BroadleavedSpecies ?
+					Other_broadleaved :
+						Other_coniferous;
+		}
 	}
 	
 	/**
@@ -763,34 +827,12 @@ public interface REpiceaSpecies extends TextableEnum, SpeciesTypeProvider, BarkP
 	
 	
 	/**
-	 * A static method for automatically finding surrogate species.
+	 * A static method for automatically finding surrogate species.<p>
+	 * The surrogates are found once when the Species enum is initialized.
 	 * @param species a Species enum
 	 * @return a Species enum or null if no surrogate can be found
 	 */
 	public static Species getSurrogate(Species species) {
-		if (species == Species.Other || species == Species.Broadleaved_shrubs) {
-			return null;
-		}
-		if (species == Species.Other_coniferous || species == Species.Other_broadleaved) {
-			return Species.Other;
-		}
-		
-		if (species.name().endsWith("spp")) {
-			return species.speciesType == SpeciesType.BroadleavedSpecies ?
-					Species.Other_broadleaved :
-						Species.Other_coniferous;
-		} else {
-			int indexSpace = species.name().indexOf("_");
-			if (indexSpace != -1) {
-				String genera = species.name().substring(0, indexSpace);
-				String completeString = genera + "_spp";
-				try {
-					return Species.valueOf(completeString);
-				} catch(IllegalArgumentException e) {}
-			} 
-			return species.speciesType == SpeciesType.BroadleavedSpecies ?
-						Species.Other_broadleaved :
-							Species.Other_coniferous;
-		}
+		return Species.SURROGATES[species.ordinal()];
 	}
 }
@@ -58,36 +58,53 @@ public interface REpiceaSpeciesCompliantObject {
 	public void setSurrogateMapToDefaultValue();
 	
 	
+	/**
+	 * Provide the eligibility of the species for this model.<p>
+	 * Implementations should override this method and return an instance they build whenever their list of 
+	 * eligible species is set. The conversion of a species then costs a few array reads. By default, the instance 
+	 * is retrieved through the REpiceaSpeciesEligibility.getInstance method, which checks the list on each call.
+	 * @return a REpiceaSpeciesEligibility instance
+	 */
+	public default REpiceaSpeciesEligibility getSpeciesEligibility() {
+		return REpiceaSpeciesEligibility.getInstance(getEligibleSpecies());
+	}
+	
 	/**
 	 * Convert the Species instance into an eligible species if possible.<p>
 	 * If the species is among the eligible species it is simply returned. If
 	 * the species isn't, then we use its surrogate and see if it is eligible or
 	 * in the surrogate map already. If it isn't, we then try with the surrogate of
-	 * the surrogate and so on.
+	 * the surrogate and so on. The surrogate map is only used as an override of the 
+	 * default surrogates, which are precomputed in the REpiceaSpeciesEligibility instance.
 	 * @param sp a Species enum 
 	 * @return a Species enum
 	 * @throws UnsupportedOperationException if the species is not eligible and there are no
 	 * valid surrogates.
 	 */
 	public default Species convertToEligibleSpecies(Species sp) {
-		if (getEligibleSpecies().contains(sp)) {
+		REpiceaSpeciesEligibility eligibility = getSpeciesEligibility();
+		if (eligibility.isEligible(sp)) {
 			return sp;
-		} else if (getSurrogateMap().containsKey(sp)) {
-			return getSurrogateMap().get(sp);
+		} 
+		ConcurrentHashMap<Species, Species> surrogateMap = getSurrogateMap();
+		Species outputSp;
+		if (surrogateMap.isEmpty()) {
+			outputSp = eligibility.getEligibleSurrogate(sp);
 		} else {
+			outputSp = surrogateMap.get(sp);
 			Species tmpSp = REpiceaSpecies.getSurrogate(sp);
-			while (tmpSp != null) {
-				if (getEligibleSpecies().contains(tmpSp)) {
-					getSurrogateMap().put(sp, tmpSp);
-					return tmpSp;
-				} else if (getSurrogateMap().containsKey(tmpSp)) {
-					Species outputSp = getSurrogateMap().get(tmpSp);
-					getSurrogateMap().put(sp, outputSp);
-					return outputSp;
+			while (outputSp == null && tmpSp != null) {
+				if (eligibility.isEligible(tmpSp)) {
+					outputSp = tmpSp;
+				} else {
+					outputSp = surrogateMap.get(tmpSp);
+					tmpSp = REpiceaSpecies.getSurrogate(tmpSp);
 				}
-				tmpSp = REpiceaSpecies.getSurrogate(tmpSp);
 			}
+		}
+		if (outputSp == null) {
 			throw new UnsupportedOperationException("Species " + sp.getLatinName() + " and its surrogates are not eligible for this class " + getClass().getSimpleName());
 		}
+		return outputSp;
 	}
 }
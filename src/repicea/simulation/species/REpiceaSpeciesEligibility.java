@@ -0,0 +1,144 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.species;
+
+import java.security.InvalidParameterException;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+import repicea.simulation.species.REpiceaSpecies.Species;
+
+/**
+ * The REpiceaSpeciesEligibility class holds the eligible species of a REpiceaSpeciesCompliantObject
+ * instance in a bit set and the first eligible surrogate of each species in an array indexed by the
+ * ordinal of the species. Checking the eligibility of a species and finding its surrogate are then
+ * simple array reads. <br>
+ * <br>
+ * An instance is immutable. A compliant object should build its instance when its list of eligible species
+ * is set and return it through the getSpeciesEligibility method. The getInstance method is a fallback for the
+ * objects that do not hold their own instance.
+ * @author Mathieu Fortin - October 2026
+ */
+public final class REpiceaSpeciesEligibility {
+
+	private static final int CacheSize = 256;	// must be a power of 2
+
+	/*
+	 * A direct-mapped cache indexed by the identity hash code of the list. A slot is simply overwritten 
+	 * in case of collision. The instances are immutable and they can be read without synchronization.
+	 */
+	private static final REpiceaSpeciesEligibility[] Cache = new REpiceaSpeciesEligibility[CacheSize];
+
+	private final List<Species> sourceList;
+	private final Species[] eligibleSpecies;
+	private final BitSet eligibility;
+	private final Species[] eligibleSurrogates;
+
+	/**
+	 * Constructor.
+	 * @param eligibleSpecies the list of eligible species
+	 */
+	public REpiceaSpeciesEligibility(List<Species> eligibleSpecies) {
+		if (eligibleSpecies == null) {
+			throw new InvalidParameterException("The eligibleSpecies argument cannot be null!");
+		}
+		sourceList = eligibleSpecies;
+		this.eligibleSpecies = eligibleSpecies.toArray(new Species[eligibleSpecies.size()]);
+		Species[] allSpecies = Species.values();
+		eligibility = new BitSet(allSpecies.length);
+		for (Species sp : this.eligibleSpecies) {
+			eligibility.set(sp.ordinal());
+		}
+		eligibleSurrogates = new Species[allSpecies.length];
+		for (Species sp : allSpecies) {
+			Species surrogate = REpiceaSpecies.getSurrogate(sp);
+			while (surrogate != null && !eligibility.get(surrogate.ordinal())) {
+				surrogate = REpiceaSpecies.getSurrogate(surrogate);
+			}
+			eligibleSurrogates[sp.ordinal()] = surrogate;
+		}
+	}
+
+	/*
+	 * Check if this instance was built from this list and if the list still holds the same species. The
+	 * check does not allocate anything for the lists that implement the RandomAccess interface.
+	 */
+	private boolean isBuiltFrom(List<Species> list) {
+		if (list != sourceList || list.size() != eligibleSpecies.length) {
+			return false;
+		}
+		if (list instanceof RandomAccess) {
+			for (int i = 0; i < eligibleSpecies.length; i++) {
+				if (list.get(i) != eligibleSpecies[i]) {
+					return false;
+				}
+			}
+		} else {
+			int i = 0;
+			for (Species sp : list) {
+				if (sp != eligibleSpecies[i++]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Provide the instance that corresponds to a list of eligible species.<p>
+	 * This method is a fallback for the compliant objects that do not hold their own instance. The instance 
+	 * is retrieved from a small cache if it was built from the same list and if the list still holds the same
+	 * species. Otherwise, it is built again. 
+	 * @param eligibleSpecies the list of eligible species
+	 * @return a REpiceaSpeciesEligibility instance
+	 */
+	public static REpiceaSpeciesEligibility getInstance(List<Species> eligibleSpecies) {
+		if (eligibleSpecies == null) {
+			throw new InvalidParameterException("The eligibleSpecies argument cannot be null!");
+		}
+		int slot = System.identityHashCode(eligibleSpecies) & (CacheSize - 1);
+		REpiceaSpeciesEligibility instance = Cache[slot];
+		if (instance == null || !instance.isBuiltFrom(eligibleSpecies)) {
+			instance = new REpiceaSpeciesEligibility(eligibleSpecies);
+			Cache[slot] = instance;
+		}
+		return instance;
+	}
+
+	/**
+	 * Check if a species is eligible.
+	 * @param sp a Species enum
+	 * @return a boolean
+	 */
+	public boolean isEligible(Species sp) {
+		return eligibility.get(sp.ordinal());
+	}
+
+	/**
+	 * Provide the first eligible species in the chain of surrogates of a particular species.
+	 * @param sp a Species enum
+	 * @return a Species enum or null if none of the surrogates is eligible
+	 */
+	public Species getEligibleSurrogate(Species sp) {
+		return eligibleSurrogates[sp.ordinal()];
+	}
+
+}
@@ -24,11 +24,14 @@ import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import repicea.app.GenericTask;
 import repicea.gui.genericwindows.REpiceaProgressBarDialog;
+import repicea.simulation.MonteCarloSimulationCompliantObject;
 
 /**
  * The TreeLogger abstract class is the class from which a the tree loggers must inherit. <p>
@@ -77,11 +80,30 @@ public abstract class TreeLogger<Parameter extends TreeLoggerParameters<? extend
 	protected Window owner = null;
 	protected boolean progressBarEnabled;
 	
+	private final Map<Object, Object> loggingPlans;
+	private final Map<Tree, TreeRecord> treeRecords;
+	
+	/**
+	 * The source, the identity and the realization of an eligible tree. The eligible tree can
+	 * be a wrapper around the source LoggableTree instance.
+	 */
+	private static class TreeRecord {
+		private final Object identity;
+		private final int realizationId;
+		
+		private TreeRecord(Object identity, int realizationId) {
+			this.identity = identity;
+			this.realizationId = realizationId;
+		}
+	}
+	
 	/**
 	 * General construtor for all AbstractTreeLogger-derived classes.
 	 */
 	protected TreeLogger() {
-		woodPieces = new HashMap<LoggableTree, Collection<WoodPiece>>();
+		loggingPlans = new HashMap<Object, Object>();
+		treeRecords = new IdentityHashMap<Tree, TreeRecord>();
+		woodPieces = new IdentityHashMap<LoggableTree, Collection<WoodPiece>>();
 		listeners = new ArrayList<PropertyChangeListener>();
 		setSaveMemoryEnabled(true);		// default value
 		trees = new ArrayList<Tree>();
@@ -119,9 +141,104 @@ public abstract class TreeLogger<Parameter extends TreeLoggerParameters<? extend
 	 */
 	public void init(Collection<?> newtrees) {
 		trees.clear();
+		loggingPlans.clear();
+		treeRecords.clear();
 		trees.addAll(getEligibleTreesFromACollection(newtrees));
 	}
 
+	/**
+	 * This method initializes the TreeLogger instance with trees that belong to different Monte Carlo 
+	 * realizations. <br>
+	 * <br>
+	 * The trees should implement the MonteCarloSimulationCompliantObject interface. The subject id then
+	 * defines the identity of the tree across the realizations while the realization id is used to split 
+	 * the results. The eligibility is checked for each occurrence of the tree, as if the init method was called 
+	 * once per realization. It is not cached by tree identity because the dimensions on which it depends, such as 
+	 * the dbh or the height, vary across the realizations and because the getEligible method may return a wrapper 
+	 * that is specific to the occurrence. Only the logging plans are shared across the realizations. The identity and the realization are taken from the LoggableTree instance, so 
+	 * that they are preserved if the getEligible method returns a wrapper. Once the run method has been called, the results
+	 * are available through the getWoodPiecesByRealization and getWeightedTotalVolumeM3ByRealization methods.
+	 * @param newtrees a Collection of LoggableTree objects from all the realizations
+	 */
+	public void initWithRealizations(Collection<?> newtrees) {
+		trees.clear();
+		loggingPlans.clear();
+		treeRecords.clear();
+		if (newtrees != null) {
+			for (Object t : newtrees) {
+				if (t instanceof LoggableTree) {
+					LoggableTree loggableTree = (LoggableTree) t;
+					Tree tree = getEligible(loggableTree);
+					if (tree != null) {
+						trees.add(tree);
+						treeRecords.put(tree, new TreeRecord(getTreeIdentity(loggableTree), getRealizationId(loggableTree)));
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Provide the identity of a tree across the Monte Carlo realizations.
+	 * @param tree a LoggableTree instance
+	 * @return the subject id if the tree implements the MonteCarloSimulationCompliantObject interface or the tree itself otherwise
+	 */
+	protected Object getTreeIdentity(LoggableTree tree) {
+		if (tree instanceof MonteCarloSimulationCompliantObject) {
+			return ((MonteCarloSimulationCompliantObject) tree).getSubjectId();
+		} else {
+			return tree;
+		}
+	}
+	
+	private static int getRealizationId(LoggableTree tree) {
+		if (tree instanceof MonteCarloSimulationCompliantObject) {
+			return ((MonteCarloSimulationCompliantObject) tree).getMonteCarloRealizationId();
+		} else {
+			return 0;
+		}
+	}
+	
+	/*
+	 * The realization of the source tree is used if the tree was registered in the initWithRealizations method.
+	 */
+	private int getRealizationIdOfEligibleTree(LoggableTree tree) {
+		TreeRecord record = treeRecords.get(tree);
+		return record != null ? record.realizationId : getRealizationId(tree);
+	}
+	
+	/**
+	 * Provide the logging plan of a tree. <br>
+	 * <br>
+	 * The plan is created through the createLoggingPlan method the first time a tree identity 
+	 * is encountered and it is then shared by all the occurrences of this tree in the different 
+	 * realizations. The plans are cleared on each initialization.
+	 * @param tree a Tree instance
+	 * @return an Object or null if the tree logger does not rely on logging plans
+	 */
+	protected final Object getLoggingPlan(Tree tree) {
+		TreeRecord record = treeRecords.get(tree);
+		Object identity = record != null ? record.identity : getTreeIdentity(tree);
+		Object plan = loggingPlans.get(identity);
+		if (plan == null) {
+			plan = createLoggingPlan(tree);
+			if (plan != null) {
+				loggingPlans.put(identity, plan);
+			}
+		}
+		return plan;
+	}
+	
+	/**
+	 * Create the logging plan of a tree, typically the log categories that apply to this tree. This
+	 * method can be overriden by the tree loggers that want to share this plan across the realizations.
+	 * The plan is then passed to the logThisTree(Tree, Object) method. By default, it returns null.
+	 * @param tree a Tree instance
+	 * @return an Object
+	 * @see #getLoggingPlan
+	 */
+	protected Object createLoggingPlan(Tree tree) {return null;}
+
 	
 	/**
 	 * This method returns the collection of LoggableTree instances that the logger has to work on. 
@@ -160,6 +277,18 @@ public abstract class TreeLogger<Parameter extends TreeLoggerParameters<? extend
 	 */
 	protected abstract void logThisTree(Tree tree);
 
+	/**
+	 * Process the tree into logs with its logging plan.<p>
+	 * This method is called by the logging task with the plan provided by the getLoggingPlan method, so
+	 * that the plan is created once per tree identity across the realizations. By default, the plan is 
+	 * ignored and the logThisTree(Tree) method is called. 
+	 * @param tree a Tree instance
+	 * @param loggingPlan the plan of this tree or null if the tree logger does not rely on logging plans
+	 */
+	protected void logThisTree(Tree tree, Object loggingPlan) {
+		logThisTree(tree);
+	}
+
 	@Override
 	public final void run() {
 		woodPieces.clear();
@@ -209,6 +338,50 @@ public abstract class TreeLogger<Parameter extends TreeLoggerParameters<? extend
 	 */
 	public Map<LoggableTree, Collection<WoodPiece>> getWoodPieces() {return woodPieces;}
 
+	/**
+	 * Provide the wood pieces split by Monte Carlo realization. 
+	 * @return a Map with the realization ids as keys and maps of trees and collections of WoodPiece instances as values
+	 * @see TreeLogger#initWithRealizations(Collection)
+	 */
+	public Map<Integer, Map<LoggableTree, Collection<WoodPiece>>> getWoodPiecesByRealization() {
+		Map<Integer, Map<LoggableTree, Collection<WoodPiece>>> outputMap = new TreeMap<Integer, Map<LoggableTree, Collection<WoodPiece>>>();
+		for (LoggableTree tree : woodPieces.keySet()) {
+			int realizationId = getRealizationIdOfEligibleTree(tree);
+			Map<LoggableTree, Collection<WoodPiece>> innerMap = outputMap.get(realizationId);
+			if (innerMap == null) {
+				innerMap = new IdentityHashMap<LoggableTree, Collection<WoodPiece>>();
+				outputMap.put(realizationId, innerMap);
+			}
+			innerMap.put(tree, woodPieces.get(tree));
+		}
+		return outputMap;
+	}
+	
+	/**
+	 * Provide the weighted total volume (m3) of the wood pieces by Monte Carlo realization and log 
+	 * category name. 
+	 * @return a Map with the realization ids as keys and maps of log category names and volumes as values
+	 * @see TreeLogger#initWithRealizations(Collection)
+	 */
+	public Map<Integer, Map<String, Double>> getWeightedTotalVolumeM3ByRealization() {
+		Map<Integer, Map<String, Double>> outputMap = new TreeMap<Integer, Map<String, Double>>();
+		for (LoggableTree tree : woodPieces.keySet()) {
+			int realizationId = getRealizationIdOfEligibleTree(tree);
+			Map<String, Double> innerMap = outputMap.get(realizationId);
+			if (innerMap == null) {
+				innerMap = new TreeMap<String, Double>();
+				outputMap.put(realizationId, innerMap);
+			}
+			for (WoodPiece piece : woodPieces.get(tree)) {
+				String logCategoryName = piece.getLogCategory().getName();
+				Double formerValue = innerMap.get(logCategoryName);
+				double volume = piece.getWeightedTotalVolumeM3();
+				innerMap.put(logCategoryName, formerValue == null ? volume : formerValue + volume);
+			}
+		}
+		return outputMap;
+	}
+
 	
 	/**
 	 * This method returns the parameters of the TreeLogger object.
@@ -248,6 +421,23 @@ public abstract class TreeLogger<Parameter extends TreeLoggerParameters<? extend
 		}
 	}
 	
+	/**
+	 * Bring this instance back to the state it had right after its instantiation with the default
+	 * parameters. This method is called when the instance is returned to the pool of the TreeLoggerManager.
+	 */
+	void reset() {
+		trees.clear();
+		woodPieces.clear();
+		loggingPlans.clear();
+		treeRecords.clear();
+		listeners.clear();
+		loggerTask = null;
+		owner = null;
+		progressBarEnabled = false;
+		setSaveMemoryEnabled(true);
+		setTreeLoggerParameters(null);
+	}
+	
 	/**
 	 * This method is called in GUI mode.
 	 */
@@ -27,6 +27,7 @@ import java.security.InvalidParameterException;
 public class TreeLoggerDescription {
 	
 	private final String treeLoggerClassName;
+	private transient Class<? extends TreeLogger<?,?>> treeLoggerClass;
 	
 	/**
 	 * Constructor.
@@ -58,9 +59,13 @@ public class TreeLoggerDescription {
 	 */
 	@SuppressWarnings("unchecked")
 	public Class<? extends TreeLogger<?,?>> getTreeLoggerClass() {
+		if (treeLoggerClass != null) {
+			return treeLoggerClass;
+		}
 		try {
 //			return (Class<? extends TreeLogger<?,?>>) ClassLoader.getSystemClassLoader().loadClass(treeLoggerClassName);
-			return (Class<? extends TreeLogger<?,?>>) Class.forName(treeLoggerClassName);
+			treeLoggerClass = (Class<? extends TreeLogger<?,?>>) Class.forName(treeLoggerClassName);
+			return treeLoggerClass;
 		} catch (ClassNotFoundException e) {
 			throw new InvalidParameterException("Class name " + treeLoggerClassName + " is not a valid TreeLogger class");
 		}
@@ -107,6 +112,10 @@ public class TreeLoggerDescription {
 		return false;
 	}
 	
+	@Override
+	public int hashCode() {
+		return treeLoggerClassName.hashCode();
+	}
 	
 }
 
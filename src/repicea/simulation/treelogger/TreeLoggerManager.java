@@ -18,8 +18,14 @@
  */
 package repicea.simulation.treelogger;
 
+import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class TreeLoggerManager {
 
@@ -29,9 +35,31 @@ public class TreeLoggerManager {
 	
 	private final List<TreeLoggerDescription> availableTreeLoggers;
 	
-	private TreeLoggerManager() {
+	/**
+	 * Unparameterized instances used only to check the compatibility. They are instantiated 
+	 * once and then reused to avoid reflective instantiation on each call.
+	 */
+	@SuppressWarnings("rawtypes")
+	private final Map<TreeLoggerDescription, TreeLogger> probeInstances;
+	
+	/**
+	 * The compatible tree loggers indexed by the class of the tree instance.
+	 */
+	private final Map<Class<?>, List<TreeLoggerDescription>> compatibilityIndex;
+
+	/**
+	 * The pools of ready-to-use tree loggers with their default parameters.
+	 */
+	@SuppressWarnings("rawtypes")
+	private final Map<TreeLoggerDescription, Queue<TreeLogger>> pools;
+	
+	@SuppressWarnings("rawtypes")
+	TreeLoggerManager(List<String> treeLoggerClassNames) {
+		probeInstances = new ConcurrentHashMap<TreeLoggerDescription, TreeLogger>();
+		compatibilityIndex = new ConcurrentHashMap<Class<?>, List<TreeLoggerDescription>>();
+		pools = new ConcurrentHashMap<TreeLoggerDescription, Queue<TreeLogger>>();
 		availableTreeLoggers = new ArrayList<TreeLoggerDescription>();
-		for (String treeLoggerName : TreeLoggerClassNames) {
+		for (String treeLoggerName : treeLoggerClassNames) {
 			try {
 //				Class<?> treeLoggerClass = ClassLoader.getSystemClassLoader().loadClass(treeLoggerName);
 				Class<?> treeLoggerClass = Class.forName(treeLoggerName);
@@ -54,25 +82,127 @@ public class TreeLoggerManager {
 	
 	/**
 	 * This method returns the TreeLoggerDescription instances that are compatible with
-	 * the reference object.
+	 * the reference object. <br>
+	 * <br>
+	 * The compatibility is assumed to depend only on the class of the tree instance. The result
+	 * is therefore computed once per class and then served from an index. If the check has no tree 
+	 * instance, the compatibility is evaluated without caching. 
 	 * @param check a TreeLoggerCompatibilityCheck instance
 	 * @return a List of TreeLoggerDescription instances
 	 */
-	@SuppressWarnings("rawtypes")
 	public List<TreeLoggerDescription> getCompatibleTreeLoggers(TreeLoggerCompatibilityCheck check) {
+		Object treeInstance = check.getTreeInstance();
+		if (treeInstance == null) {
+			return evaluateCompatibleTreeLoggers(check);
+		}
+		List<TreeLoggerDescription> compatibleTreeLoggers = compatibilityIndex.get(treeInstance.getClass());
+		if (compatibleTreeLoggers == null) {
+			compatibleTreeLoggers = Collections.unmodifiableList(evaluateCompatibleTreeLoggers(check));
+			compatibilityIndex.put(treeInstance.getClass(), compatibleTreeLoggers);
+		}
+		return new ArrayList<TreeLoggerDescription>(compatibleTreeLoggers);
+	}
+
+	/**
+	 * Clear the compatibility index. This method should be called if the compatibility of 
+	 * some tree loggers has changed in the meantime.
+	 */
+	public void clearCompatibilityIndex() {
+		compatibilityIndex.clear();
+	}
+	
+	@SuppressWarnings("rawtypes")
+	private List<TreeLoggerDescription> evaluateCompatibleTreeLoggers(TreeLoggerCompatibilityCheck check) {
 		List<TreeLoggerDescription> outputList = new ArrayList<TreeLoggerDescription>();		
 		for (TreeLoggerDescription treeLoggerDescription : availableTreeLoggers) {
-			TreeLogger treeLogger = treeLoggerDescription.instantiateTreeLogger(false);
-			if (treeLogger.isCompatibleWith(check)) {
+			TreeLogger treeLogger = getProbeInstance(treeLoggerDescription);
+			if (treeLogger != null && treeLogger.isCompatibleWith(check)) {
 				outputList.add(treeLoggerDescription);
 			}
 		}
 		return outputList;
 	}
 	
-	public static TreeLoggerManager getInstance() {
+	@SuppressWarnings("rawtypes")
+	private TreeLogger getProbeInstance(TreeLoggerDescription treeLoggerDescription) {
+		TreeLogger treeLogger = probeInstances.get(treeLoggerDescription);
+		if (treeLogger == null) {
+			treeLogger = treeLoggerDescription.instantiateTreeLogger(false);
+			if (treeLogger != null) {
+				probeInstances.put(treeLoggerDescription, treeLogger);
+			}
+		}
+		return treeLogger;
+	}
+	
+	/**
+	 * Provide a tree logger with its default parameters from the pool. <br>
+	 * <br>
+	 * If the pool is empty, a new instance is created. The instance should be returned to the pool 
+	 * through the releaseTreeLogger method once the logging is completed. 
+	 * @param treeLoggerDescription a TreeLoggerDescription instance
+	 * @return a TreeLogger instance
+	 * @see TreeLoggerManager#fillPool(TreeLoggerDescription, int)
+	 */
+	@SuppressWarnings("rawtypes")
+	public TreeLogger borrowTreeLogger(TreeLoggerDescription treeLoggerDescription) {
+		TreeLogger treeLogger = getPool(treeLoggerDescription).poll();
+		if (treeLogger == null) {
+			treeLogger = treeLoggerDescription.instantiateTreeLogger(true);
+		}
+		return treeLogger;
+	}
+	
+	/**
+	 * Return a tree logger to the pool. <br>
+	 * <br>
+	 * The trees, the wood pieces and the logging plans of the instance are cleared and its default parameters 
+	 * are restored so that the next borrower gets a fresh instance.
+	 * @param treeLoggerDescription the TreeLoggerDescription instance the tree logger was borrowed with
+	 * @param treeLogger the TreeLogger instance
+	 * @throws InvalidParameterException if the class of the tree logger does not match the description
+	 */
+	@SuppressWarnings("rawtypes")
+	public void releaseTreeLogger(TreeLoggerDescription treeLoggerDescription, TreeLogger treeLogger) {
+		if (treeLogger != null) {
+			if (!treeLogger.getClass().equals(treeLoggerDescription.getTreeLoggerClass())) {
+				throw new InvalidParameterException("The tree logger is not an instance of " + treeLoggerDescription.getTreeLoggerClass().getName() + "!");
+			}
+			treeLogger.reset();
+			getPool(treeLoggerDescription).offer(treeLogger);
+		}
+	}
+	
+	/**
+	 * Instantiate tree loggers with their default parameters ahead of time so that 
+	 * the borrowTreeLogger method does not require any instantiation.
+	 * @param treeLoggerDescription a TreeLoggerDescription instance
+	 * @param size the number of instances to be added to the pool
+	 */
+	@SuppressWarnings("rawtypes")
+	public void fillPool(TreeLoggerDescription treeLoggerDescription, int size) {
+		Queue<TreeLogger> pool = getPool(treeLoggerDescription);
+		for (int i = 0; i < size; i++) {
+			TreeLogger treeLogger = treeLoggerDescription.instantiateTreeLogger(true);
+			if (treeLogger != null) {
+				pool.offer(treeLogger);
+			}
+		}
+	}
+	
+	@SuppressWarnings("rawtypes")
+	private Queue<TreeLogger> getPool(TreeLoggerDescription treeLoggerDescription) {
+		Queue<TreeLogger> pool = pools.get(treeLoggerDescription);
+		if (pool == null) {
+			pools.putIfAbsent(treeLoggerDescription, new ConcurrentLinkedQueue<TreeLogger>());
+			pool = pools.get(treeLoggerDescription);
+		}
+		return pool;
+	}
+	
+	public static synchronized TreeLoggerManager getInstance() {
 		if (Instance == null) {
-			Instance = new TreeLoggerManager();
+			Instance = new TreeLoggerManager(TreeLoggerClassNames);
 		}
 		return Instance;
 	}
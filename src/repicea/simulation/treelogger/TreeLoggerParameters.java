@@ -20,7 +20,13 @@ package repicea.simulation.treelogger;
 
 import java.awt.Container;
 import java.awt.Window;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.lang.instrument.IllegalClassFormatException;
@@ -90,6 +96,16 @@ public abstract class TreeLoggerParameters<LC extends LogCategory>	implements Me
 
 	public static final String ANY_SPECIES = "ANY";
 
+	/**
+	 * The magic number that starts a binary .tlp file ("TLPB" in ASCII).
+	 */
+	static final int BINARY_MAGIC_NUMBER = 0x544C5042;
+	
+	/**
+	 * The current version of the binary format. Files with another version cannot be read.
+	 */
+	static final short BINARY_FORMAT_VERSION = 2;
+
 	protected transient TreeLogger<?,?> treeLogger;		// MF20140207 changed to transient to avoid serializing when users save the parameters
 	private String treeLoggerClass;
 	private final Map<Object, List<LC>> selectedLogCategories;
@@ -282,6 +298,42 @@ public abstract class TreeLoggerParameters<LC extends LogCategory>	implements Me
 	}
 
 
+	/**
+	 * This method saves the parameters in a compact binary format. <br>
+	 * <br>
+	 * The file starts with a magic number and a version number. They are followed by the class of the parameters, 
+	 * the class of the tree logger, the fields of the derived class and, for each species, the species key and the 
+	 * log categories with their class and their fields. The binary format is much faster to load than the XML format, 
+	 * but it only supports fields of primitive, String and Enum types. The XML format produced by the save method should 
+	 * be preferred for interchange.
+	 * @param filename the path of the file
+	 * @throws IOException if a field is of an unsupported type or if an I/O error has occurred
+	 */
+	public void saveAsBinary(String filename) throws IOException {
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+		try {
+			dos.writeInt(BINARY_MAGIC_NUMBER);
+			dos.writeShort(BINARY_FORMAT_VERSION);
+			dos.writeUTF(getClass().getName());
+			dos.writeUTF(treeLoggerClass);
+			TreeLoggerParametersBinaryFormat.writeFields(dos, this, TreeLoggerParameters.class);
+			dos.writeInt(selectedLogCategories.size());
+			for (Object species : selectedLogCategories.keySet()) {
+				TreeLoggerParametersBinaryFormat.writeValue(dos, species);
+				List<LC> logCategories = selectedLogCategories.get(species);
+				dos.writeInt(logCategories.size());
+				for (LC logCategory : logCategories) {
+					dos.writeUTF(logCategory.getClass().getName());
+					TreeLoggerParametersBinaryFormat.writeFields(dos, logCategory, Object.class);
+				}
+			}
+		} finally {
+			dos.close();
+		}
+		setFilename(filename);
+		fireEvent();
+	}
+	
 	public void load() throws IOException, IllegalClassFormatException {
 		load(getFilename());
 	}
@@ -386,18 +438,92 @@ public abstract class TreeLoggerParameters<LC extends LogCategory>	implements Me
 	
 	
 	/**
-	 * This method creates a TreeLoggerParameters instance from a previously saved .xml file
-	 * @param filename the path of the xml file
+	 * This method creates a TreeLoggerParameters instance from a previously saved file. <br>
+	 * <br>
+	 * The format of the file is detected automatically. Files written through the saveAsBinary method 
+	 * are read in binary mode, whereas other files are assumed to be xml files.
+	 * @param filename the path of the file
 	 * @return a TreeLoggerParameter instance
 	 * @throws UnmarshallingException if an error has occurred during the unmarshalling
 	 */
 	public static TreeLoggerParameters<?> loadFromFile(String filename) throws UnmarshallingException {
-		XmlDeserializer deserializer = new XmlDeserializer(filename);
-		TreeLoggerParameters<?> treeLoggerParameters = (TreeLoggerParameters<?>) deserializer.readObject();
+		TreeLoggerParameters<?> treeLoggerParameters;
+		if (isBinaryFile(filename)) {
+			treeLoggerParameters = loadFromBinaryFile(filename);
+		} else {
+			XmlDeserializer deserializer = new XmlDeserializer(filename);
+			treeLoggerParameters = (TreeLoggerParameters<?>) deserializer.readObject();
+		}
 		treeLoggerParameters.setFilename(filename);
 		return treeLoggerParameters;
 	}
 
+	/**
+	 * Check whether the file starts with the magic number of the binary format.
+	 * @param filename the path of the file
+	 * @return a boolean
+	 */
+	static boolean isBinaryFile(String filename) {
+		File f = new File(filename);
+		if (!f.isFile() || f.length() < 4) {
+			return false;
+		}
+		DataInputStream dis = null;
+		try {
+			dis = new DataInputStream(new FileInputStream(f));
+			return dis.readInt() == BINARY_MAGIC_NUMBER;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			if (dis != null) {
+				try {
+					dis.close();
+				} catch (IOException e) {}
+			}
+		}
+	}
+	
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static TreeLoggerParameters<?> loadFromBinaryFile(String filename) throws UnmarshallingException {
+		DataInputStream dis = null;
+		try {
+			dis = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)));
+			dis.readInt();	// magic number already checked
+			short version = dis.readShort();
+			if (version != BINARY_FORMAT_VERSION) {
+				throw new IOException("The binary format version " + version + " is not supported by this version of the library!");
+			}
+			Class<? extends TreeLoggerParameters> clazz = TreeLoggerParametersBinaryFormat.loadClass(dis.readUTF(), TreeLoggerParameters.class);
+			TreeLoggerParameters treeLoggerParameters = TreeLoggerParametersBinaryFormat.instantiate(clazz);
+			treeLoggerParameters.treeLoggerClass = dis.readUTF();
+			TreeLoggerParametersBinaryFormat.readFields(dis, treeLoggerParameters, TreeLoggerParameters.class);
+			treeLoggerParameters.selectedLogCategories.clear();
+			int nbSpecies = TreeLoggerParametersBinaryFormat.readCount(dis);
+			for (int i = 0; i < nbSpecies; i++) {
+				Object species = TreeLoggerParametersBinaryFormat.readValue(dis);
+				int nbLogCategories = TreeLoggerParametersBinaryFormat.readCount(dis);
+				List<LogCategory> logCategories = new ArrayList<LogCategory>();
+				for (int j = 0; j < nbLogCategories; j++) {
+					Class<? extends LogCategory> logCategoryClass = TreeLoggerParametersBinaryFormat.loadClass(dis.readUTF(), LogCategory.class);
+					LogCategory logCategory = TreeLoggerParametersBinaryFormat.instantiate(logCategoryClass);
+					TreeLoggerParametersBinaryFormat.readFields(dis, logCategory, Object.class);
+					logCategories.add(logCategory);
+				}
+				treeLoggerParameters.selectedLogCategories.put(species, logCategories);
+			}
+			treeLoggerParameters.postUnmarshallingAction();
+			return treeLoggerParameters;
+		} catch (IOException e) {
+			throw new UnmarshallingException(e);
+		} finally {
+			if (dis != null) {
+				try {
+					dis.close();
+				} catch (IOException e) {}
+			}
+		}
+	}
+	
 	
 	@Override
 	public void postUnmarshallingAction() {
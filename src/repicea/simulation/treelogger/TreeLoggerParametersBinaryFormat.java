@@ -0,0 +1,275 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.treelogger;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import repicea.serial.MarshallingUtilities;
+
+/**
+ * The TreeLoggerParametersBinaryFormat class writes and reads the fields of the TreeLoggerParameters
+ * and LogCategory instances in an explicit binary schema. <br>
+ * <br>
+ * The fields are written as a count followed by pairs of field name and tagged value. Only primitive values,
+ * their wrappers, strings and enums are supported and the final fields are not written. On reading, the unknown 
+ * fields are skipped and the missing fields keep the values set by the no-argument constructor. The classes are loaded without being initialized and
+ * they must derive from the expected class, so that a file cannot trigger the instantiation of an arbitrary class.
+ * @author Mathieu Fortin - October 2026
+ */
+final class TreeLoggerParametersBinaryFormat {
+
+	private static final byte NullTag = 0;
+	private static final byte BooleanTag = 1;
+	private static final byte ByteTag = 2;
+	private static final byte ShortTag = 3;
+	private static final byte CharTag = 4;
+	private static final byte IntegerTag = 5;
+	private static final byte LongTag = 6;
+	private static final byte FloatTag = 7;
+	private static final byte DoubleTag = 8;
+	private static final byte StringTag = 9;
+	private static final byte EnumTag = 10;
+
+	private TreeLoggerParametersBinaryFormat() {}
+
+	/*
+	 * The fields are visited from the class of the instance up to the stop class, which is excluded. The static, 
+	 * transient and final fields are left out. A field that is hidden by a field with the same name in a subclass is ignored.
+	 */
+	private static List<Field> getFields(Class<?> clazz, Class<?> stopClass) {
+		List<Field> fields = new ArrayList<Field>();
+		Set<String> fieldNames = new HashSet<String>();
+		for (Class<?> c = clazz; c != null && c != stopClass; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !Modifier.isFinal(modifiers) && !field.isSynthetic() && fieldNames.add(field.getName())) {
+					field.setAccessible(true);
+					fields.add(field);
+				}
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * Write the fields of an instance.
+	 * @param dos a DataOutputStream instance
+	 * @param obj the instance
+	 * @param stopClass the first super class whose fields are not written
+	 * @throws IOException if a field cannot be written in this format or if an I/O error has occurred
+	 */
+	static void writeFields(DataOutputStream dos, Object obj, Class<?> stopClass) throws IOException {
+		List<Field> fields = getFields(obj.getClass(), stopClass);
+		dos.writeInt(fields.size());
+		for (Field field : fields) {
+			dos.writeUTF(field.getName());
+			try {
+				writeValue(dos, field.get(obj));
+			} catch (IllegalAccessException e) {
+				throw new IOException("The field " + field.getName() + " of class " + obj.getClass().getName() + " cannot be accessed!", e);
+			} catch (IOException e) {
+				throw new IOException("The field " + field.getName() + " of class " + obj.getClass().getName() + " cannot be written in the binary format!", e);
+			}
+		}
+	}
+
+	/**
+	 * Read the fields of an instance.
+	 * @param dis a DataInputStream instance
+	 * @param obj the instance
+	 * @param stopClass the first super class whose fields were not written
+	 * @throws IOException if a value does not fit its field or if an I/O error has occurred
+	 */
+	static void readFields(DataInputStream dis, Object obj, Class<?> stopClass) throws IOException {
+		List<Field> fields = getFields(obj.getClass(), stopClass);
+		int nbFields = readCount(dis);
+		for (int i = 0; i < nbFields; i++) {
+			String fieldName = dis.readUTF();
+			Object value = readValue(dis);
+			for (Field field : fields) {
+				if (field.getName().equals(fieldName)) {
+					setField(field, obj, value);
+					break;
+				}
+			}
+		}
+	}
+
+	private static void setField(Field field, Object obj, Object value) throws IOException {
+		if (value == null && field.getType().isPrimitive()) {
+			throw new IOException("The primitive field " + field.getName() + " of class " + obj.getClass().getName() + " cannot be null!");
+		}
+		try {
+			field.set(obj, value);
+		} catch (IllegalAccessException | IllegalArgumentException e) {
+			throw new IOException("The value of field " + field.getName() + " of class " + obj.getClass().getName() + " is invalid!", e);
+		}
+	}
+
+	/**
+	 * Write a tagged value.
+	 * @param dos a DataOutputStream instance
+	 * @param value a primitive wrapper, a String, an Enum or null
+	 * @throws IOException if the value is of another type or if an I/O error has occurred
+	 */
+	static void writeValue(DataOutputStream dos, Object value) throws IOException {
+		if (value == null) {
+			dos.writeByte(NullTag);
+		} else if (value instanceof Boolean) {
+			dos.writeByte(BooleanTag);
+			dos.writeBoolean((Boolean) value);
+		} else if (value instanceof Byte) {
+			dos.writeByte(ByteTag);
+			dos.writeByte((Byte) value);
+		} else if (value instanceof Short) {
+			dos.writeByte(ShortTag);
+			dos.writeShort((Short) value);
+		} else if (value instanceof Character) {
+			dos.writeByte(CharTag);
+			dos.writeChar((Character) value);
+		} else if (value instanceof Integer) {
+			dos.writeByte(IntegerTag);
+			dos.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			dos.writeByte(LongTag);
+			dos.writeLong((Long) value);
+		} else if (value instanceof Float) {
+			dos.writeByte(FloatTag);
+			dos.writeFloat((Float) value);
+		} else if (value instanceof Double) {
+			dos.writeByte(DoubleTag);
+			dos.writeDouble((Double) value);
+		} else if (value instanceof String) {
+			dos.writeByte(StringTag);
+			dos.writeUTF((String) value);
+		} else if (value instanceof Enum) {
+			dos.writeByte(EnumTag);
+			dos.writeUTF(((Enum<?>) value).getDeclaringClass().getName());
+			dos.writeUTF(((Enum<?>) value).name());
+		} else {
+			throw new IOException("The type " + value.getClass().getName() + " is not supported by the binary format!");
+		}
+	}
+
+	/**
+	 * Read a tagged value.
+	 * @param dis a DataInputStream instance
+	 * @return an Object
+	 * @throws IOException if the tag is unknown or if an I/O error has occurred
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static Object readValue(DataInputStream dis) throws IOException {
+		byte tag = dis.readByte();
+		switch (tag) {
+		case NullTag:
+			return null;
+		case BooleanTag:
+			return dis.readBoolean();
+		case ByteTag:
+			return dis.readByte();
+		case ShortTag:
+			return dis.readShort();
+		case CharTag:
+			return dis.readChar();
+		case IntegerTag:
+			return dis.readInt();
+		case LongTag:
+			return dis.readLong();
+		case FloatTag:
+			return dis.readFloat();
+		case DoubleTag:
+			return dis.readDouble();
+		case StringTag:
+			return dis.readUTF();
+		case EnumTag:
+			Class<? extends Enum> enumClass = loadClass(dis.readUTF(), Enum.class);
+			String constantName = dis.readUTF();
+			try {
+				return Enum.valueOf(enumClass, constantName);
+			} catch (IllegalArgumentException e) {
+				throw new IOException("The constant " + constantName + " does not exist in enum " + enumClass.getName() + "!", e);
+			}
+		default:
+			throw new IOException("Unknown type tag " + tag + " in the binary format!");
+		}
+	}
+
+	/**
+	 * Read a count and check that it is not negative.
+	 * @param dis a DataInputStream instance
+	 * @return an integer
+	 * @throws IOException if the count is negative or if an I/O error has occurred
+	 */
+	static int readCount(DataInputStream dis) throws IOException {
+		int count = dis.readInt();
+		if (count < 0) {
+			throw new IOException("The binary file is corrupted!");
+		}
+		return count;
+	}
+
+	/**
+	 * Load a class without initializing it and check that it derives from the expected class. The
+	 * name is first checked against the classes that have been renamed.
+	 * @param className the name of the class
+	 * @param expectedClass the expected super class
+	 * @return a Class instance
+	 * @throws IOException if the class cannot be found or if it does not derive from the expected class
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Class<? extends T> loadClass(String className, Class<T> expectedClass) throws IOException {
+		String actualClassName = MarshallingUtilities.getClassName(className);
+		Class<?> clazz;
+		try {
+			clazz = Class.forName(actualClassName, false, TreeLoggerParametersBinaryFormat.class.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			throw new IOException("The class " + actualClassName + " cannot be found!", e);
+		}
+		if (!expectedClass.isAssignableFrom(clazz)) {
+			throw new IOException("The class " + actualClassName + " does not derive from " + expectedClass.getName() + "!");
+		}
+		return (Class<? extends T>) clazz;
+	}
+
+	/**
+	 * Instantiate a class through its no-argument constructor.
+	 * @param clazz the class
+	 * @return an instance of this class
+	 * @throws IOException if the class has no such constructor or if the instantiation failed
+	 */
+	static <T> T instantiate(Class<T> clazz) throws IOException {
+		try {
+			Constructor<T> constructor = clazz.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return constructor.newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IOException("The class " + clazz.getName() + " cannot be instantiated through a no-argument constructor!", e);
+		}
+	}
+}
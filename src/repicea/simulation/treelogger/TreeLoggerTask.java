@@ -46,7 +46,7 @@ class TreeLoggerTask<Tree extends LoggableTree> extends AbstractGenericTask {
 				if (isCancelled()) {
 					break;
 				}
-				treeLogger.logThisTree(tree);
+				treeLogger.logThisTree(tree, treeLogger.getLoggingPlan(tree));
 				setProgress((int) (++i * progressFactor));
 			}
 		}
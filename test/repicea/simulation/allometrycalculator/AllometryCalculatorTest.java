@@ -0,0 +1,302 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.allometrycalculator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import repicea.simulation.covariateproviders.treelevel.SpeciesTypeProvider;
+import repicea.simulation.covariateproviders.treelevel.SpeciesTypeProvider.SpeciesType;
+import repicea.simulation.covariateproviders.treelevel.TreeStatusProvider.StatusClass;
+
+public class AllometryCalculatorTest {
+
+	static class FakeTree implements AllometryCalculableTree, SpeciesTypeProvider {
+
+		double dbhCm;
+		final double number;
+		final SpeciesType speciesType;
+
+		FakeTree(double dbhCm, double number, SpeciesType speciesType) {
+			this.dbhCm = dbhCm;
+			this.number = number;
+			this.speciesType = speciesType;
+		}
+
+		@Override
+		public double getDbhCm() {return dbhCm;}
+
+		@Override
+		public double getNumber() {return number;}
+
+		@Override
+		public double getStemBasalAreaM2() {return Math.PI * dbhCm * dbhCm * 0.000025;}
+
+		@Override
+		public double getHeightM() {return 1.3 + 20 * (1 - Math.exp(-0.05 * dbhCm));}
+
+		@Override
+		public double getCommercialVolumeM3() {return dbhCm > 9 ? getStemBasalAreaM2() * getHeightM() * 0.4 : 0d;}
+
+		@Override
+		public boolean isCommercialVolumeOverbark() {return false;}
+
+		@Override
+		public double getTotalVolumeM3() {return getStemBasalAreaM2() * getHeightM() * 0.5;}
+
+		@Override
+		public boolean isTotalVolumeOverbark() {return false;}
+
+		@Override
+		public SpeciesType getSpeciesType() {return speciesType;}
+	}
+
+	static List<FakeTree> createTrees(int nbTrees, long seed) {
+		Random random = new Random(seed);
+		List<FakeTree> trees = new ArrayList<FakeTree>();
+		for (int i = 0; i < nbTrees; i++) {
+			double dbhCm = 5 + Math.round(random.nextDouble() * 400) * .1;
+			double number = 1 + random.nextInt(3);
+			SpeciesType speciesType = random.nextBoolean() ? SpeciesType.ConiferousSpecies : SpeciesType.BroadleavedSpecies;
+			trees.add(new FakeTree(dbhCm, number, speciesType));
+		}
+		return trees;
+	}
+
+	@Test
+	public void test01StandSummaryAgainstSeparateMethods() {
+		List<FakeTree> trees = createTrees(500, 1L);
+		AllometryCalculator calculator = new AllometryCalculator();
+		StandSummary summary = calculator.getStandSummary(trees);
+		Assert.assertEquals("Testing number of trees", calculator.getNumberOfTrees(trees), summary.getNumberOfTrees(), 1E-8);
+		Assert.assertEquals("Testing basal area", calculator.getBasalAreaM2(trees), summary.getBasalAreaM2(), 1E-8);
+		Assert.assertEquals("Testing Dg", calculator.getMeanQuadraticDiameterCm(trees), summary.getMeanQuadraticDiameterCm(), 1E-8);
+		Assert.assertEquals("Testing commercial volume", calculator.getCommercialVolumeM3(trees), summary.getCommercialVolumeM3(), 1E-8);
+		Assert.assertEquals("Testing total volume", calculator.getTotalVolumeM3(trees), summary.getTotalVolumeM3(), 1E-8);
+		double basalAreaBySpeciesType = summary.getSummary(SpeciesType.ConiferousSpecies).getBasalAreaM2() +
+				summary.getSummary(SpeciesType.BroadleavedSpecies).getBasalAreaM2();
+		Assert.assertEquals("Testing basal area by species type", summary.getBasalAreaM2(), basalAreaBySpeciesType, 1E-8);
+	}
+
+	@Test
+	public void test02StandSummaryParallelReduction() {
+		List<FakeTree> trees = createTrees(AllometryCalculator.MinimumNumberOfTreesForParallelReduction * 2, 2L);
+		AllometryCalculator calculator = new AllometryCalculator();
+		StandSummary sequentialSummary = calculator.getStandSummary(trees, false);
+		StandSummary parallelSummary = calculator.getStandSummary(trees, true);
+		Assert.assertEquals("Testing number of trees", sequentialSummary.getNumberOfTrees(), parallelSummary.getNumberOfTrees(), 1E-6);
+		Assert.assertEquals("Testing basal area", sequentialSummary.getBasalAreaM2(), parallelSummary.getBasalAreaM2(), 1E-6);
+		Assert.assertEquals("Testing Dg", sequentialSummary.getMeanQuadraticDiameterCm(), parallelSummary.getMeanQuadraticDiameterCm(), 1E-8);
+		Assert.assertEquals("Testing coniferous total volume",
+				sequentialSummary.getSummary(SpeciesType.ConiferousSpecies).getTotalVolumeM3(),
+				parallelSummary.getSummary(SpeciesType.ConiferousSpecies).getTotalVolumeM3(),
+				1E-6);
+	}
+
+	/*
+	 * Former implementation based on a full sort of the collection.
+	 */
+	private static double getDominantFeatureWithFullSort(List<FakeTree> trees, double plotAreaHa, boolean height) {
+		List<AllometryCalculableTree> copyList = new ArrayList<AllometryCalculableTree>();
+		copyList.addAll(trees);
+		Collections.sort(copyList, new DbhComparator());
+		double domFeature = 0;
+		double numberTreesSoFar = 0;
+		double numberOfTreesPerHectareForDominance = AllometryCalculator.NumberOfTreesHaForDominantFeatures;
+		if (plotAreaHa < 0.5) {
+			numberOfTreesPerHectareForDominance = (AllometryCalculator.NumberOfTreesHaForDominantFeatures * plotAreaHa - 1) / plotAreaHa;
+		} 		
+		while (!copyList.isEmpty() && numberTreesSoFar < numberOfTreesPerHectareForDominance) {
+			AllometryCalculableTree tree = copyList.remove(copyList.size() - 1);
+			if (tree.getNumber() > 0) {
+				double numberRepresentedByThisTree = tree.getNumber() / plotAreaHa;
+				double numberAdd = numberTreesSoFar + numberRepresentedByThisTree <= numberOfTreesPerHectareForDominance ?
+						numberRepresentedByThisTree :
+							numberOfTreesPerHectareForDominance - numberTreesSoFar;
+				domFeature += height ? tree.getHeightM() * numberAdd : tree.getSquaredDbhCm() * numberAdd;
+				numberTreesSoFar += numberAdd;
+			}
+		}
+		if (numberTreesSoFar > 0) {
+			domFeature /= numberTreesSoFar;
+			return height ? domFeature : Math.sqrt(domFeature);
+		} else {
+			return 0d;
+		}
+	}
+	
+	@Test
+	public void test03DominantFeaturesAgainstFullSort() {
+		AllometryCalculator calculator = new AllometryCalculator();
+		double[] plotAreas = new double[] {0.04, 0.1, 0.25, 1d};
+		for (long seed = 1; seed <= 20; seed++) {
+			List<FakeTree> trees = createTrees(200, seed);
+			for (double plotAreaHa : plotAreas) {
+				DominantFeatures features = calculator.getDominantFeatures(trees, plotAreaHa, false);
+				Assert.assertEquals("Testing dominant height", 
+						getDominantFeatureWithFullSort(trees, plotAreaHa, true), 
+						features.getDominantHeightM(), 
+						1E-8);
+				Assert.assertEquals("Testing dominant diameter", 
+						getDominantFeatureWithFullSort(trees, plotAreaHa, false), 
+						features.getDominantDiameterCm(), 
+						1E-8);
+			}
+		}
+	}
+
+	@Test
+	public void test04DominantFeaturesWithTiesAndSmallPlots() {
+		AllometryCalculator calculator = new AllometryCalculator();
+		List<FakeTree> trees = new ArrayList<FakeTree>();
+		for (int i = 0; i < 30; i++) {
+			trees.add(new FakeTree(20d, 1d, SpeciesType.ConiferousSpecies));
+		}
+		Assert.assertEquals("Testing dominant diameter with ties", 20d, calculator.getDominantDiameterCM(trees, 0.04, false), 1E-8);
+		Assert.assertEquals("Testing tiny plot", 0d, calculator.getDominantHeightM(trees, 0.005, false), 1E-8);
+		Assert.assertEquals("Testing empty collection", 0d, calculator.getDominantHeightM(new ArrayList<FakeTree>(), 0.04, false), 1E-8);
+	}
+
+	@Test
+	public void test05IncrementalStandStatistics() {
+		AllometryCalculator calculator = new AllometryCalculator();
+		List<FakeTree> trees = createTrees(300, 3L);
+		IncrementalStandStatistics stats = new IncrementalStandStatistics(trees);
+		List<FakeTree> remainingTrees = new ArrayList<FakeTree>();
+		for (int i = 0; i < trees.size(); i++) {
+			FakeTree t = trees.get(i);
+			if (i % 7 == 0) {
+				stats.statusChanged(t, StatusClass.alive, StatusClass.dead);
+			} else {
+				if (i % 3 == 0) {
+					t.dbhCm += 0.8;
+					stats.updateTree(t);
+				}
+				remainingTrees.add(t);
+			}
+		}
+		Assert.assertEquals("Testing size", remainingTrees.size(), stats.size());
+		Assert.assertEquals("Testing number of trees", calculator.getNumberOfTrees(remainingTrees), stats.getNumberOfTrees(), 1E-8);
+		Assert.assertEquals("Testing basal area", calculator.getBasalAreaM2(remainingTrees), stats.getBasalAreaM2(), 1E-8);
+		Assert.assertEquals("Testing Dg", calculator.getMeanQuadraticDiameterCm(remainingTrees), stats.getMeanQuadraticDiameterCm(), 1E-8);
+		DominantFeatures expected = calculator.getDominantFeatures(remainingTrees, 0.04, false);
+		DominantFeatures observed = stats.getDominantFeatures(0.04, false);
+		Assert.assertEquals("Testing dominant height", expected.getDominantHeightM(), observed.getDominantHeightM(), 1E-8);
+		Assert.assertEquals("Testing dominant diameter", expected.getDominantDiameterCm(), observed.getDominantDiameterCm(), 1E-8);
+	}
+
+	@Test
+	public void test06BasalAreaLargerAndSmallerThanSubject() {
+		AllometryCalculator calculator = new AllometryCalculator();
+		List<FakeTree> trees = createTrees(400, 4L);	// dbh are rounded to 1 mm so that there are ties
+		trees.add(new FakeTree(0d, 1d, SpeciesType.ConiferousSpecies));
+		double plotAreaHa = 0.04;
+		double[] bal = new double[trees.size()];
+		double[] bas = new double[trees.size()];
+		calculator.computeBasalAreaLargerAndSmallerThanSubjectM2Ha(trees, plotAreaHa, bal, bas);
+		for (int i = 0; i < trees.size(); i++) {
+			FakeTree subject = trees.get(i);
+			double expectedBal = 0d;
+			double expectedBas = 0d;
+			double plotBasalAreaM2Ha = 0d;
+			for (FakeTree t : trees) {
+				if (t.getDbhCm() > 0) {
+					double basalAreaM2Ha = t.getStemBasalAreaM2() * t.getNumber() / plotAreaHa;
+					plotBasalAreaM2Ha += basalAreaM2Ha;
+					if (t.getDbhCm() > subject.getDbhCm()) {
+						expectedBal += basalAreaM2Ha;
+					} else if (t != subject) {	// the other trees with the same dbh are in BAS
+						expectedBas += basalAreaM2Ha;
+					}
+				}
+			}
+			Assert.assertEquals("Testing BAL", expectedBal, bal[i], 1E-8);
+			Assert.assertEquals("Testing BAS", expectedBas, bas[i], 1E-8);
+			double subjectBasalAreaM2Ha = subject.getDbhCm() > 0 ? subject.getStemBasalAreaM2() * subject.getNumber() / plotAreaHa : 0d;
+			Assert.assertEquals("Testing BAS against its definition", plotBasalAreaM2Ha - bal[i] - subjectBasalAreaM2Ha, bas[i], 1E-8);
+		}
+		double[] balOnly = calculator.getBasalAreaLargerThanSubjectM2Ha(trees, plotAreaHa);
+		for (int i = 0; i < trees.size(); i++) {
+			Assert.assertEquals("Testing BAL only", bal[i], balOnly[i], 1E-12);
+		}
+	}
+
+	/*
+	 * A tree that can provide either its height or its squared dbh but not both.
+	 */
+	static class SingleFeatureTree extends FakeTree {
+
+		final boolean heightAvailable;
+
+		SingleFeatureTree(double dbhCm, boolean heightAvailable) {
+			super(dbhCm, 1d, SpeciesType.ConiferousSpecies);
+			this.heightAvailable = heightAvailable;
+		}
+
+		@Override
+		public double getHeightM() {
+			if (!heightAvailable) {
+				throw new UnsupportedOperationException("The height should not be requested!");
+			}
+			return super.getHeightM();
+		}
+
+		@Override
+		public double getSquaredDbhCm() {
+			if (heightAvailable) {
+				throw new UnsupportedOperationException("The squared dbh should not be requested!");
+			}
+			return dbhCm * dbhCm;
+		}
+	}
+
+	@Test
+	public void test07DominantFeatureComputedOnlyIfRequested() {
+		AllometryCalculator calculator = new AllometryCalculator();
+		List<FakeTree> heightTrees = new ArrayList<FakeTree>();
+		List<FakeTree> diameterTrees = new ArrayList<FakeTree>();
+		for (int i = 0; i < 10; i++) {
+			heightTrees.add(new SingleFeatureTree(10d + i, true));
+			diameterTrees.add(new SingleFeatureTree(10d + i, false));
+		}
+		Assert.assertEquals("Testing dominant height", 
+				getDominantFeatureWithFullSort(createPlainTrees(heightTrees), 0.04, true), 
+				calculator.getDominantHeightM(heightTrees, 0.04, false), 
+				1E-8);
+		Assert.assertEquals("Testing dominant diameter", 
+				getDominantFeatureWithFullSort(createPlainTrees(diameterTrees), 0.04, false), 
+				calculator.getDominantDiameterCM(diameterTrees, 0.04, false), 
+				1E-8);
+	}
+
+	private static List<FakeTree> createPlainTrees(List<FakeTree> trees) {
+		List<FakeTree> plainTrees = new ArrayList<FakeTree>();
+		for (FakeTree t : trees) {
+			plainTrees.add(new FakeTree(t.dbhCm, t.number, t.speciesType));
+		}
+		return plainTrees;
+	}
+
+}
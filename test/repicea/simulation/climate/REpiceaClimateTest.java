@@ -19,10 +19,20 @@
  */
 package repicea.simulation.climate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import repicea.simulation.climate.REpiceaClimateVariableMap.ClimateVariable;
+import repicea.simulation.covariateproviders.plotlevel.GeographicalCoordinatesProvider;
 
 public class REpiceaClimateTest {
 
@@ -64,4 +74,230 @@ public class REpiceaClimateTest {
 	}
 	
 	
+	/*
+	 * Former implementation that loops over the segments.
+	 */
+	private static double getReferenceChangeFromTo(REpiceaClimateChangeTrend trend, int startDateYr, int endDateYr, ClimateVariable variable) {
+		double increase = 0d;
+		for (REpiceaClimateChangeTrendSegment segment : trend) {
+			int nbYears = 0;
+			if (startDateYr <= segment.startDateYr && endDateYr > segment.startDateYr) {
+				nbYears = endDateYr > segment.endDateYr ? segment.endDateYr - segment.startDateYr : endDateYr - segment.startDateYr;
+			} else if (startDateYr <= segment.endDateYr && endDateYr > segment.startDateYr) {
+				nbYears = endDateYr > segment.endDateYr ? segment.endDateYr - startDateYr : endDateYr - startDateYr;
+			}
+			if (segment.changeMap.containsKey(variable)) {
+				increase += nbYears * segment.changeMap.get(variable);
+			}
+		}
+		return increase;
+	}
+
+	private static double getReferenceAverageChange(REpiceaClimateChangeTrend trend, int referenceDateYr, int startDateYr, int endDateYr, ClimateVariable variable) {
+		double area = 0d;
+		for (REpiceaClimateChangeTrendSegment segment : trend) {
+			if (startDateYr <= segment.startDateYr && endDateYr > segment.startDateYr) {
+				int endYear = endDateYr > segment.endDateYr ? segment.endDateYr : endDateYr;
+				double h1 = getReferenceChangeFromTo(trend, referenceDateYr, segment.startDateYr, variable);
+				double h2 = h1 + getReferenceChangeFromTo(trend, segment.startDateYr, endYear, variable);
+				area += (h1 + h2) * .5 * (endYear - segment.startDateYr);
+			} else if (startDateYr <= segment.endDateYr && endDateYr > segment.startDateYr) {
+				int endYear = endDateYr > segment.endDateYr ? segment.endDateYr : endDateYr;
+				double h1 = getReferenceChangeFromTo(trend, referenceDateYr, startDateYr, variable);
+				double h2 = h1 + getReferenceChangeFromTo(trend, startDateYr, endYear, variable);
+				area += (h1 + h2) * .5 * (endYear - startDateYr);
+			} 
+		}
+		return area / (endDateYr - startDateYr);
+	}
+
+	@Test
+	public void test02CompiledTrendAgainstSegmentLoop() {
+		Random random = new Random(12L);
+		REpiceaClimateChangeTrend trend = new REpiceaClimateChangeTrend();
+		Assert.assertEquals("Testing empty trend", 0d, trend.getAverageChangeOverThisPeriod(1990, 2000, 2010, ClimateVariable.MeanAnnualTempC), 0d);
+		int dateYr = 1950;
+		for (int s = 0; s < 6; s++) {
+			REpiceaClimateVariableChangeMap map = new REpiceaClimateVariableChangeMap();
+			for (ClimateVariable v : ClimateVariable.values()) {
+				if (random.nextBoolean()) {
+					map.put(v, random.nextGaussian() * .05);
+				}
+			}
+			int endDateYr = dateYr + 1 + random.nextInt(30);
+			trend.addSegment(dateYr, endDateYr, map);
+			dateYr = endDateYr;
+			for (int i = 0; i < 2000; i++) {
+				ClimateVariable v = ClimateVariable.values()[random.nextInt(ClimateVariable.values().length)];
+				int referenceDateYr = 1930 + random.nextInt(dateYr - 1900);
+				int startDateYr = 1930 + random.nextInt(dateYr - 1900);
+				int endDate = 1930 + random.nextInt(dateYr - 1900);
+				Assert.assertEquals("Comparing changes", 
+						getReferenceChangeFromTo(trend, startDateYr, endDate, v), 
+						trend.getChangeFromTo(startDateYr, endDate, v), 
+						1E-10);
+				if (startDateYr < endDate) {
+					Assert.assertEquals("Comparing average changes", 
+							getReferenceAverageChange(trend, referenceDateYr, startDateYr, endDate, v), 
+							trend.getAverageChangeOverThisPeriod(referenceDateYr, startDateYr, endDate, v), 
+							1E-10);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void test03ClimateVariableMapAgainstHashMap() {
+		REpiceaClimateVariableMap map = new REpiceaClimateVariableMap();
+		Map<ClimateVariable, Double> reference = new HashMap<ClimateVariable, Double>();
+		Random random = new Random(13L);
+		for (int i = 0; i < 1000; i++) {
+			ClimateVariable v = ClimateVariable.values()[random.nextInt(ClimateVariable.values().length)];
+			if (random.nextInt(4) == 0) {
+				Assert.assertEquals("Comparing removed values", reference.remove(v), map.remove(v));
+			} else {
+				double value = random.nextDouble();
+				Assert.assertEquals("Comparing former values", reference.put(v, value), map.put(v, value));
+			}
+			Assert.assertEquals("Comparing maps", reference, map);
+			Assert.assertEquals("Comparing hash codes", reference.hashCode(), map.hashCode());
+			Assert.assertEquals("Comparing primitive values", reference.containsKey(v) ? reference.get(v) : Double.NaN, map.getValue(v), 0d);
+		}
+		REpiceaClimateVariableMap view = map.getReadOnlyView();
+		Assert.assertSame("Testing shared view", view, map.getReadOnlyView());
+		Assert.assertEquals("Comparing view", map, view);
+		try {
+			view.put(ClimateVariable.MeanAnnualTempC, 2d);
+			Assert.fail("The view should be read-only!");
+		} catch (UnsupportedOperationException e) {}
+		map.setValue(ClimateVariable.MeanAnnualTempC, 2d);
+		Assert.assertNotSame("Testing new view after modification", view, map.getReadOnlyView());
+		REpiceaClimateVariableMap copy = view.clone();
+		copy.setValue(ClimateVariable.MeanAnnualTempC, 3d);
+		Assert.assertEquals("Testing modifiable copy", 3d, copy.getValue(ClimateVariable.MeanAnnualTempC), 0d);
+	}
+	
+	private static class FakePlot implements GeographicalCoordinatesProvider {
+		final double latitudeDeg;
+		final double longitudeDeg;
+
+		FakePlot(double latitudeDeg, double longitudeDeg) {
+			this.latitudeDeg = latitudeDeg;
+			this.longitudeDeg = longitudeDeg;
+		}
+
+		@Override
+		public double getElevationM() {return 0;}
+
+		@Override
+		public double getLatitudeDeg() {return latitudeDeg;}
+
+		@Override
+		public double getLongitudeDeg() {return longitudeDeg;}
+	}
+	
+	private static class FakeGriddedGenerator extends AbstractGriddedClimateGenerator<FakePlot, double[]> {
+
+		final List<String> loadedTiles = new ArrayList<String>();
+		
+		FakeGriddedGenerator(int maximumNumberOfTiles) {
+			super(.5, maximumNumberOfTiles);
+		}
+
+		@Override
+		protected double[] loadTile(int latitudeIndex, int longitudeIndex) {
+			loadedTiles.add(latitudeIndex + "_" + longitudeIndex);
+			return new double[] {latitudeIndex * getTileSizeDeg(), longitudeIndex * getTileSizeDeg()};
+		}
+
+		@Override
+		protected REpiceaClimateVariableMap interpolate(double[] tile, FakePlot plot) {
+			REpiceaClimateVariableMap map = new REpiceaClimateVariableMap();
+			map.setValue(ClimateVariable.MeanAnnualTempC, 10 - (plot.latitudeDeg - tile[0]));
+			map.setValue(ClimateVariable.MeanAnnualPrecMm, 1000 + plot.longitudeDeg - tile[1]);
+			return map;
+		}
+	}
+	
+	@Test
+	public void test04GriddedClimateGeneratorBatch() {
+		Random random = new Random(14L);
+		List<FakePlot> plots = new ArrayList<FakePlot>();
+		for (int i = 0; i < 500; i++) {
+			plots.add(new FakePlot(45 + random.nextDouble() * 2, -75 + random.nextDouble() * 2));
+		}
+		FakeGriddedGenerator batchGenerator = new FakeGriddedGenerator(1);
+		List<REpiceaClimateVariableMap> maps = batchGenerator.getClimateVariables(plots);
+		Assert.assertEquals("Testing each tile is loaded once", 16, batchGenerator.loadedTiles.size());
+		FakeGriddedGenerator plotByPlotGenerator = new FakeGriddedGenerator(1);
+		for (int i = 0; i < plots.size(); i++) {
+			Assert.assertEquals("Comparing maps", plotByPlotGenerator.getClimateVariables(plots.get(i)), maps.get(i));
+		}
+		Assert.assertTrue("Testing tiles are loaded many times plot by plot", plotByPlotGenerator.loadedTiles.size() > 16);
+	}
+	
+	private static class SlowGriddedGenerator extends FakeGriddedGenerator {
+
+		final CountDownLatch loadingStarted = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger nbLoadsOfSlowTile = new AtomicInteger();
+		
+		SlowGriddedGenerator() {
+			super(4);
+		}
+
+		@Override
+		protected double[] loadTile(int latitudeIndex, int longitudeIndex) {
+			if (latitudeIndex == 0 && longitudeIndex == 0) {
+				nbLoadsOfSlowTile.incrementAndGet();
+				loadingStarted.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			return new double[] {latitudeIndex * getTileSizeDeg(), longitudeIndex * getTileSizeDeg()};
+		}
+	}
+
+	@Test
+	public void test06GriddedTilesAreLoadedOutsideOfTheLock() throws Exception {
+		SlowGriddedGenerator generator = new SlowGriddedGenerator();
+		Thread firstThread = new Thread(() -> generator.getTile(0, 0));
+		Thread secondThread = new Thread(() -> generator.getTile(0, 0));
+		Thread otherTileThread = new Thread(() -> generator.getTile(3, 3));
+		firstThread.start();
+		Assert.assertTrue("Testing the slow tile is being loaded", generator.loadingStarted.await(10, TimeUnit.SECONDS));
+		secondThread.start();
+		otherTileThread.start();
+		otherTileThread.join(10000);
+		boolean isOtherTileBlocked = otherTileThread.isAlive();
+		generator.release.countDown();
+		firstThread.join(10000);
+		secondThread.join(10000);
+		otherTileThread.join(10000);
+		Assert.assertFalse("Testing the other tile is not blocked by the slow tile", isOtherTileBlocked);
+		Assert.assertEquals("Testing the slow tile is loaded once", 1, generator.nbLoadsOfSlowTile.get());
+		Assert.assertArrayEquals("Testing the cached tile", new double[] {0d, 0d}, generator.getTile(0, 0), 0d);
+		Assert.assertEquals("Testing the slow tile is not reloaded", 1, generator.nbLoadsOfSlowTile.get());
+	}
+	
+	@Test
+	public void test05CompiledTrendAfterSegmentReplacement() {
+		REpiceaClimateChangeTrend trend = new REpiceaClimateChangeTrend();
+		REpiceaClimateVariableChangeMap map = new REpiceaClimateVariableChangeMap();
+		map.put(ClimateVariable.MeanAnnualTempC, 0.02);
+		trend.addSegment(2000, 2050, map);
+		Assert.assertEquals("Testing change before replacement", 10 * 0.02, trend.getChangeFromTo(2010, 2020, ClimateVariable.MeanAnnualTempC), 1E-8);
+		map.put(ClimateVariable.MeanAnnualTempC, 0.04);
+		Assert.assertEquals("Testing change after editing the original map", 10 * 0.02, trend.getChangeFromTo(2010, 2020, ClimateVariable.MeanAnnualTempC), 1E-8);
+		try {
+			trend.get(0).changeMap.put(ClimateVariable.MeanAnnualTempC, 0.04);
+			Assert.fail("The change map of the segment should be read-only!");
+		} catch (UnsupportedOperationException e) {}
+		trend.set(0, new REpiceaClimateChangeTrendSegment(2000, 2050, map));
+		Assert.assertEquals("Testing change after replacement", 10 * 0.04, trend.getChangeFromTo(2010, 2020, ClimateVariable.MeanAnnualTempC), 1E-8);
+	}
+	
 }
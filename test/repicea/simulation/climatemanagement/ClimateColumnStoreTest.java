@@ -0,0 +1,121 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import biosimclient.BioSimDataSet;
+
+public class ClimateColumnStoreTest {
+
+	private static double getAnnualValue(int plot, int realization, int yr) {
+		return plot * 100 + realization * 10 + (yr - 2000) * .5;
+	}
+
+	private static double getMonthlyValue(int plot, int yr, int month) {
+		return plot + (yr - 2000) + month * .1;
+	}
+
+	private static BioSimDataSet createAnnualDataSet(int plot, int realization, int fromYr, int toYr) {
+		BioSimDataSet dataSet = new BioSimDataSet(Arrays.asList(new String[] {"Year", "Rep", "MeanTair"}));
+		for (int yr = fromYr; yr <= toYr; yr++) {
+			dataSet.addObservation(new Object[] {yr, realization, getAnnualValue(plot, realization, yr)});
+		}
+		return dataSet;
+	}
+
+	@Test
+	public void testIntervalMeanWithAnnualValues() {
+		ClimateColumnStore store = new ClimateColumnStore(3, 2, false);
+		for (int p = 0; p < 3; p++) {
+			for (int r = 0; r < 2; r++) {
+				store.add(createAnnualDataSet(p, r, 2001, 2010), p, r);
+			}
+		}
+		Assert.assertTrue("Testing unpublished values", !store.containsYear(2001));
+		store.publish();
+		Assert.assertEquals("Testing mean", getAnnualValue(1, 1, 2006) * .5 + getAnnualValue(1, 1, 2007) * .5,
+				store.getIntervalMean("MeanTair", null, 1, 1, 2005, 2007), 1E-10);
+		for (int p = 0; p < 3; p++) {		// the years are appended
+			for (int r = 0; r < 2; r++) {
+				store.add(createAnnualDataSet(p, r, 2011, 2020), p, r);
+			}
+		}
+		Assert.assertTrue("Testing unpublished years", !store.containsYear(2011));
+		Assert.assertEquals("Testing the former snapshot", getAnnualValue(1, 0, 2010), store.getIntervalMean("MeanTair", null, 1, 0, 2009, 2010), 1E-10);
+		store.publish();
+		double expected = 0d;
+		for (int yr = 2009; yr <= 2018; yr++) {
+			expected += getAnnualValue(2, 0, yr);
+		}
+		Assert.assertEquals("Testing mean after appending years", expected / 10, store.getIntervalMean("MeanTair", null, 2, 0, 2008, 2018), 1E-10);
+		Assert.assertEquals("Testing single value", getAnnualValue(0, 1, 2015), store.getValue("MeanTair", 0, 1, 2015, 1), 1E-10);
+		BioSimDataSet replacement = new BioSimDataSet(Arrays.asList(new String[] {"Year", "Rep", "MeanTair"}));
+		replacement.addObservation(new Object[] {2015, 1, -1d});
+		store.add(replacement, 0, 1);
+		Assert.assertEquals("Testing the published value is unchanged", getAnnualValue(0, 1, 2015), store.getValue("MeanTair", 0, 1, 2015, 1), 1E-10);
+		store.publish();
+		Assert.assertEquals("Testing the replaced value", -1d, store.getValue("MeanTair", 0, 1, 2015, 1), 1E-10);
+		Assert.assertEquals("Testing the prefix sums after the replacement", (getAnnualValue(0, 1, 2014) - 1d) * .5, store.getIntervalMean("MeanTair", null, 0, 1, 2013, 2015), 1E-10);
+		try {
+			store.getIntervalMean("MeanTair", null, 2, 0, 2015, 2021);
+			Assert.fail("The date 2021 should not be found!");
+		} catch (UnsupportedOperationException e) {}
+	}
+
+	@Test
+	public void testIntervalMeanWithMonthlyValues() {
+		ClimateColumnStore store = new ClimateColumnStore(2, 1, true);
+		for (int p = 0; p < 2; p++) {
+			BioSimDataSet dataSet = new BioSimDataSet(Arrays.asList(new String[] {"Year", "Month", "TotalPrcp"}));
+			for (int yr = 2001; yr <= 2005; yr++) {
+				for (int month = 1; month <= 12; month++) {
+					if (p == 1 && yr == 2003 && month == 7) {	// a missing month
+						continue;
+					}
+					dataSet.addObservation(new Object[] {yr, month, getMonthlyValue(p, yr, month)});
+				}
+			}
+			Assert.assertTrue("Testing monthly data set", ClimateColumnStore.isMonthlyDataSet(dataSet));
+			store.add(dataSet, p, 0);
+		}
+		store.publish();
+		REpiceaMonthlyClimateCompilationInformation summerSum = new REpiceaMonthlyClimateCompilationInformation(new Integer[] {6,7,8}, false);
+		REpiceaMonthlyClimateCompilationInformation summerMean = new REpiceaMonthlyClimateCompilationInformation(new Integer[] {6,7,8}, true);
+		double expectedSum = 0d;
+		for (int yr = 2002; yr <= 2005; yr++) {
+			for (int month = 6; month <= 8; month++) {
+				expectedSum += getMonthlyValue(0, yr, month);
+			}
+		}
+		Assert.assertEquals("Testing sum", expectedSum / 4, store.getIntervalMean("TotalPrcp", summerSum, 0, 0, 2001, 2005), 1E-10);
+		Assert.assertEquals("Testing mean", expectedSum / 12, store.getIntervalMean("TotalPrcp", summerMean, 0, 0, 2001, 2005), 1E-10);
+		Assert.assertEquals("Testing interval before the missing month", (getMonthlyValue(1, 2002, 6) + getMonthlyValue(1, 2002, 7) + getMonthlyValue(1, 2002, 8)) / 3,
+				store.getIntervalMean("TotalPrcp", summerMean, 1, 0, 2001, 2002), 1E-10);
+		try {
+			store.getIntervalMean("TotalPrcp", summerMean, 1, 0, 2001, 2005);
+			Assert.fail("The missing month should have been detected!");
+		} catch (UnsupportedOperationException e) {}
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import biosimclient.BioSimDataSet;
+
+public class ClimateDiskCacheTest {
+
+	private static File createDirectory() throws IOException {
+		File directory = File.createTempFile("climateDiskCache", "");
+		directory.delete();
+		return directory;
+	}
+
+	private static void delete(File directory) {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	private static BioSimDataSet createDataSet(int fromYr, int toYr) {
+		return createDataSet(fromYr, toYr, "first");
+	}
+
+	private static BioSimDataSet createDataSet(int fromYr, int toYr, String comment) {
+		BioSimDataSet dataSet = new BioSimDataSet(Arrays.asList(new String[] {"Year", "Rep", "MeanTair", "Comment"}));
+		for (int rep = 0; rep < 2; rep++) {
+			for (int yr = fromYr; yr <= toYr; yr++) {
+				dataSet.addObservation(new Object[] {yr, rep, yr * .01 + rep, rep == 0 ? comment : null});
+			}
+		}
+		return dataSet;
+	}
+
+	@Test
+	public void testRoundTripAndYearFiltering() throws IOException {
+		File directory = createDirectory();
+		try {
+			ClimateDiskCache cache = new ClimateDiskCache(directory);
+			Assert.assertNull("Testing missing key", cache.get("a", 2001, 2010));
+			cache.put("a", 2001, 2010, createDataSet(2001, 2010));
+			cache.put("a", 2011, 2020, createDataSet(2011, 2020));
+			cache.put("b", 2001, 2030, createDataSet(2001, 2030));
+
+			ClimateDiskCache newCache = new ClimateDiskCache(directory);	// as in a later run
+			BioSimDataSet dataSet = newCache.get("a", 2011, 2020);
+			Assert.assertEquals("Testing field names", Arrays.asList("Year", "Rep", "MeanTair", "Comment"), dataSet.getFieldNames());
+			Assert.assertEquals("Testing number of observations", 20, dataSet.getObservations().size());
+			Object[] firstObservation = dataSet.getObservations().get(0).toArray();
+			Assert.assertEquals("Testing integer", 2011, firstObservation[0]);
+			Assert.assertEquals("Testing double", 20.11, (Double) firstObservation[2], 1E-12);
+			Assert.assertEquals("Testing string", "first", firstObservation[3]);
+			Assert.assertNull("Testing null", dataSet.getObservations().get(10).toArray()[3]);
+			BioSimDataSet dataSetAcrossBlocks = newCache.get("a", 2005, 2015);
+			Assert.assertEquals("Testing years across blocks", 22, dataSetAcrossBlocks.getObservations().size());
+			Assert.assertEquals("Testing year order across blocks", 2011, dataSetAcrossBlocks.getObservations().get(6).toArray()[0]);
+			Assert.assertEquals("Testing realization order across blocks", 1, dataSetAcrossBlocks.getObservations().get(11).toArray()[1]);
+			BioSimDataSet filteredDataSet = newCache.get("b", 2011, 2015);
+			Assert.assertEquals("Testing filtered observations", 10, filteredDataSet.getObservations().size());
+			Assert.assertEquals("Testing realization order", 1, filteredDataSet.getObservations().get(5).toArray()[1]);
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void testTruncatedBlockIsIgnored() throws IOException {
+		File directory = createDirectory();
+		try {
+			ClimateDiskCache cache = new ClimateDiskCache(directory);
+			cache.put("a", 2001, 2010, createDataSet(2001, 2010));
+			cache.put("a", 2011, 2020, createDataSet(2011, 2020));
+			File file = directory.listFiles()[0];
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			raf.setLength(raf.length() - 7);
+			raf.close();
+			Assert.assertNotNull("Testing the complete block", cache.get("a", 2001, 2010));
+			Assert.assertNull("Testing the truncated block", cache.get("a", 2011, 2020));
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void testTornBlockIsOverwrittenByNextBlock() throws IOException {
+		File directory = createDirectory();
+		try {
+			ClimateDiskCache cache = new ClimateDiskCache(directory);
+			cache.put("a", 2001, 2010, createDataSet(2001, 2010));
+			cache.put("a", 2011, 2020, createDataSet(2011, 2020));
+			File file = directory.listFiles()[0];
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			raf.setLength(raf.length() - 7);
+			raf.close();
+			cache.put("a", 2021, 2030, createDataSet(2021, 2030));
+			cache.put("a", 2031, 2040, createDataSet(2031, 2040));
+
+			ClimateDiskCache newCache = new ClimateDiskCache(directory);
+			Assert.assertEquals("Testing the block before the torn one", 20, newCache.get("a", 2001, 2010).getObservations().size());
+			Assert.assertNull("Testing the torn block", newCache.get("a", 2011, 2020));
+			BioSimDataSet dataSet = newCache.get("a", 2021, 2030);
+			Assert.assertEquals("Testing the block appended after the torn one", 20, dataSet.getObservations().size());
+			Assert.assertEquals("Testing the first year", 2021, dataSet.getObservations().get(0).toArray()[0]);
+			Assert.assertEquals("Testing the last block", 20, newCache.get("a", 2031, 2040).getObservations().size());
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void testCorruptedBlockIsIgnored() throws IOException {
+		File directory = createDirectory();
+		try {
+			ClimateDiskCache cache = new ClimateDiskCache(directory);
+			cache.put("a", 2001, 2010, createDataSet(2001, 2010));
+			cache.put("a", 2011, 2020, createDataSet(2011, 2020));
+			File file = directory.listFiles()[0];
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			raf.seek(raf.length() - 20);
+			int b = raf.read();
+			raf.seek(raf.length() - 20);
+			raf.write(b ^ 0xFF);
+			raf.close();
+			Assert.assertNull("Testing the corrupted block", cache.get("a", 2001, 2020));
+			ClimateDiskCache.CachedRange cachedRange = cache.getCachedRange("a", 2001, 2020);
+			Assert.assertEquals("Testing the first missing year", 2011, cachedRange.getMissingFirstYr());
+			Assert.assertEquals("Testing the last missing year", 2020, cachedRange.getMissingLastYr());
+			Assert.assertEquals("Testing the number of observations", 20, cachedRange.getDataSet().getObservations().size());
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void testMissingRangeWithinRequest() throws IOException {
+		File directory = createDirectory();
+		try {
+			ClimateDiskCache cache = new ClimateDiskCache(directory);
+			ClimateDiskCache.CachedRange cachedRange = cache.getCachedRange("a", 2001, 2010);
+			Assert.assertNull("Testing no data set", cachedRange.getDataSet());
+			Assert.assertEquals("Testing all years missing", 2001, cachedRange.getMissingFirstYr());
+			cache.put("a", 2001, 2010, createDataSet(2001, 2010));
+			cache.put("a", 2021, 2030, createDataSet(2021, 2030));
+			cachedRange = cache.getCachedRange("a", 2006, 2035);
+			Assert.assertFalse("Testing incomplete range", cachedRange.isComplete());
+			Assert.assertEquals("Testing the first missing year", 2011, cachedRange.getMissingFirstYr());
+			Assert.assertEquals("Testing the last missing year", 2035, cachedRange.getMissingLastYr());
+			Assert.assertEquals("Testing the cached observations", 30, cachedRange.getDataSet().getObservations().size());
+			Assert.assertEquals("Testing the cached observations outside the missing range", 10, 
+					cachedRange.getDataSetOutside(2011, 2035).getObservations().size());
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void testOverlappingBlocksAreReplacedAndCompacted() throws IOException {
+		File directory = createDirectory();
+		try {
+			ClimateDiskCache cache = new ClimateDiskCache(directory);
+			cache.put("a", 2001, 2020, createDataSet(2001, 2020));
+			File file = directory.listFiles()[0];
+			long length = file.length();
+			for (int i = 0; i < 5; i++) {
+				cache.put("a", 2001, 2020, createDataSet(2001, 2020));
+			}
+			Assert.assertEquals("Testing the file does not grow with the same years", length, file.length());
+
+			cache.put("a", 2011, 2030, createDataSet(2011, 2030, "new"));
+			BioSimDataSet dataSet = cache.get("a", 2001, 2030);
+			Assert.assertEquals("Testing each year once", 60, dataSet.getObservations().size());
+			Assert.assertEquals("Testing a former year", "first", dataSet.getObservations().get(0).toArray()[3]);
+			Assert.assertEquals("Testing a replaced year", "new", dataSet.getObservations().get(10).toArray()[3]);
+
+			for (int yr = 2031; yr < 2100; yr += 2) {
+				cache.put("a", yr, yr + 1, createDataSet(yr, yr + 1));
+			}
+			Assert.assertEquals("Testing the contiguous blocks", 2 * 99, cache.get("a", 2001, 2099).getObservations().size());
+		} finally {
+			delete(directory);
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import biosimclient.BioSimDataSet;
+import biosimclient.BioSimPlot;
+import repicea.simulation.climatemanagement.REpiceaClimateVariableInformation.BioSimModel;
+import repicea.simulation.climatemanagement.REpiceaClimateVariableInformation.EvaluationDate;
+import repicea.simulation.climatemanagement.REpiceaClimateVariableInformation.Resolution;
+
+public class ClimateNormalsTableTest {
+
+	@SuppressWarnings("serial")
+	private static class FakePlot implements BioSimPlot {
+
+		final double latitudeDeg;
+
+		FakePlot(double latitudeDeg) {
+			this.latitudeDeg = latitudeDeg;
+		}
+
+		@Override
+		public double getElevationM() {return 200;}
+
+		@Override
+		public double getLatitudeDeg() {return latitudeDeg;}
+
+		@Override
+		public double getLongitudeDeg() {return -72;}
+	}
+
+	private static double getMonthlyValue(int plot, int month, boolean isMax) {
+		return plot * 2 + month + (isMax ? 5 : -5);
+	}
+
+	@Test
+	public void testMonthlyCompilationAndDerivedMeanTemperature() {
+		Map<BioSimPlot, BioSimDataSet> dataSets = new LinkedHashMap<BioSimPlot, BioSimDataSet>();
+		Map<BioSimPlot, Integer> plotIndices = new HashMap<BioSimPlot, Integer>();
+		for (int p = 0; p < 3; p++) {
+			BioSimPlot plot = new FakePlot(46 + p);
+			plotIndices.put(plot, p);
+			BioSimDataSet dataSet = new BioSimDataSet(Arrays.asList(new String[] {"Month", "TMAX_MN", "TMIN_MN", "PRCP_TT"}));
+			for (int month = 1; month <= 12; month++) {
+				dataSet.addObservation(new Object[] {month, getMonthlyValue(p, month, true), getMonthlyValue(p, month, false), month * 10d});
+			}
+			dataSets.put(plot, dataSet);
+		}
+		ClimateNormalsTable table = new ClimateNormalsTable(dataSets, plotIndices, 3, true);
+		Assert.assertEquals("Testing number of fields", 5, table.getNumberOfFields());
+		REpiceaClimateVariableInformation summerMeanTemperature = new REpiceaClimateVariableInformation(Resolution.Normals30Year, 
+				BioSimModel.Normals1981_2010, "T", EvaluationDate.Now, new REpiceaMonthlyClimateCompilationInformation(new Integer[] {6,7,8}, true));
+		REpiceaClimateVariableInformation springPrecipitation = new REpiceaClimateVariableInformation(Resolution.Normals30Year, 
+				BioSimModel.Normals1981_2010, "PRCP_TT", EvaluationDate.Now, new REpiceaMonthlyClimateCompilationInformation(new Integer[] {3,4,5}, false));
+		Assert.assertEquals("Testing derived mean temperature", 2 * 2 + 7, table.getValue(0, summerMeanTemperature, 2), 1E-10);
+		Assert.assertEquals("Testing compiled value of another plot", 7, table.getValue(0, summerMeanTemperature, 0), 1E-10);
+		Assert.assertEquals("Testing sum", 120, table.getValue(1, springPrecipitation, 1), 1E-10);
+		REpiceaClimateVariableInformation missingField = new REpiceaClimateVariableInformation(Resolution.Normals30Year, 
+				BioSimModel.Normals1981_2010, "Unknown", EvaluationDate.Now, new REpiceaMonthlyClimateCompilationInformation(new Integer[] {1}, true));
+		try {
+			table.getValue(2, missingField, 0);
+			Assert.fail("The missing field should have been detected!");
+		} catch (UnsupportedOperationException e) {}
+	}
+
+}
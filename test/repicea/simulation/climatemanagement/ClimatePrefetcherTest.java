@@ -0,0 +1,91 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import repicea.simulation.climatemanagement.ClimatePrefetcher.ClimateProducer;
+
+public class ClimatePrefetcherTest {
+
+	private static class FakeProducer implements ClimateProducer {
+
+		final List<Integer> producedYears = Collections.synchronizedList(new ArrayList<Integer>());
+		final int failingYr;
+
+		FakeProducer(int failingYr) {
+			this.failingYr = failingYr;
+		}
+
+		@Override
+		public void produceClimateVariables(int toYr) throws Exception {
+			Thread.sleep(20);
+			if (toYr == failingYr) {
+				throw new UnsupportedOperationException("Failure for " + toYr);
+			}
+			producedYears.add(toYr);
+		}
+	}
+
+	@Test
+	public void testHorizonsAreProducedInOrderUpToFinalDate() throws Exception {
+		FakeProducer producer = new FakeProducer(-1);
+		ClimatePrefetcher prefetcher = new ClimatePrefetcher(producer, 10, 2050, 2);
+		prefetcher.scheduleHorizonsAfter(2000);
+		Assert.assertEquals("Testing last scheduled year", 2020, prefetcher.getLastScheduledYr());
+		prefetcher.scheduleHorizonsAfter(2000);		// already scheduled
+		prefetcher.awaitHorizonsUpTo(2010);
+		Assert.assertTrue("Testing the first horizon", producer.producedYears.contains(2010));
+		for (int yr = 2010; yr <= 2050; yr += 10) {
+			prefetcher.scheduleHorizonsAfter(yr);
+		}
+		prefetcher.awaitHorizonsUpTo(2060);
+		Assert.assertEquals("Testing produced years", Arrays.asList(2010, 2020, 2030, 2040, 2050), producer.producedYears);
+		prefetcher.shutdown();
+	}
+
+	@Test
+	public void testFailureIsThrownToConsumer() throws Exception {
+		FakeProducer producer = new FakeProducer(2020);
+		ClimatePrefetcher prefetcher = new ClimatePrefetcher(producer, 10, 2100, 3);
+		prefetcher.scheduleHorizonsAfter(2000);
+		prefetcher.awaitHorizonsUpTo(2010);
+		try {
+			prefetcher.awaitHorizonsUpTo(2030);
+			Assert.fail("The failure should have been thrown!");
+		} catch (UnsupportedOperationException e) {
+			Assert.assertEquals("Testing the message", "Failure for 2020", e.getMessage());
+		}
+		Assert.assertEquals("Testing the horizons after the failure were discarded", Arrays.asList(2010), producer.producedYears);
+		Assert.assertEquals("Testing the scheduling starts over", Integer.MIN_VALUE, prefetcher.getLastScheduledYr());
+		prefetcher.awaitHorizonsUpTo(2030);		// nothing scheduled
+		prefetcher.scheduleHorizonsAfter(2030);
+		prefetcher.awaitHorizonsUpTo(2060);
+		Assert.assertEquals("Testing produced years", Arrays.asList(2010, 2040, 2050, 2060), producer.producedYears);
+		prefetcher.shutdown();
+	}
+
+}
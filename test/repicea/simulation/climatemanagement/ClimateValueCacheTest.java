@@ -0,0 +1,120 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.climatemanagement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClimateValueCacheTest {
+
+	private static String getKey(int variableId, int plotIndex, int fromYr, int toYr, int realization) {
+		return variableId + "_" + plotIndex + "_" + fromYr + "_" + toYr + "_" + realization;
+	}
+
+	@Test
+	public void testAgainstHashMapWithoutEviction() {
+		ClimateValueCache cache = new ClimateValueCache(100000);
+		Map<String, Double> reference = new HashMap<String, Double>();
+		Random random = new Random(7L);
+		for (int i = 0; i < 20000; i++) {
+			int variableId = random.nextInt(5);
+			int plotIndex = random.nextInt(200);
+			int fromYr = 1990 + random.nextInt(40);
+			int toYr = fromYr + random.nextInt(20);
+			int realization = random.nextInt(10);
+			String key = getKey(variableId, plotIndex, fromYr, toYr, realization);
+			double expected = reference.containsKey(key) ? reference.get(key) : Double.NaN;
+			Assert.assertEquals("Comparing values", expected, cache.get(variableId, plotIndex, fromYr, toYr, realization), 0d);
+			double value = random.nextDouble();
+			cache.put(variableId, plotIndex, fromYr, toYr, realization, value);
+			reference.put(key, value);
+		}
+		Assert.assertEquals("Comparing sizes", reference.size(), cache.size());
+		Assert.assertEquals("Testing evictions", 0, cache.getNumberOfEvictions());
+		Assert.assertEquals("Testing counters", 20000, cache.getNumberOfHits() + cache.getNumberOfMisses());
+	}
+
+	@Test
+	public void testEvictionKeepsConsistentValues() {
+		int maximumSize = 500;
+		ClimateValueCache cache = new ClimateValueCache(maximumSize);
+		Map<String, Double> reference = new HashMap<String, Double>();
+		Random random = new Random(8L);
+		for (int i = 0; i < 50000; i++) {
+			int plotIndex = random.nextInt(2000);
+			int realization = random.nextInt(3);
+			String key = getKey(0, plotIndex, 2000, 2010, realization);
+			double observed = cache.get(0, plotIndex, 2000, 2010, realization);
+			if (!Double.isNaN(observed)) {		// evicted values are missing but the others must be right
+				Assert.assertEquals("Comparing values", reference.get(key), observed, 0d);
+			}
+			double value = random.nextDouble();
+			cache.put(0, plotIndex, 2000, 2010, realization, value);
+			reference.put(key, value);
+			Assert.assertTrue("Testing bound", cache.size() <= maximumSize);
+		}
+		Assert.assertTrue("Testing full cache", cache.size() > maximumSize * .9);
+		Assert.assertTrue("Testing evictions", cache.getNumberOfEvictions() > 0);
+		cache.put(0, 5, 2000, 2010, 1, 3d);
+		Assert.assertEquals("Testing the last value", 3d, cache.get(0, 5, 2000, 2010, 1), 0d);
+	}
+
+	@Test
+	public void testConcurrentReadsAndWrites() throws InterruptedException {
+		final ClimateValueCache cache = new ClimateValueCache(1000);
+		final AtomicInteger nbErrors = new AtomicInteger();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++) {
+			final Random random = new Random(t);
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 100000; i++) {
+						int plotIndex = random.nextInt(3000);
+						int realization = random.nextInt(4);
+						double expected = plotIndex * 10 + realization;
+						double observed = cache.get(1, plotIndex, 2000, 2010, realization);
+						if (Double.isNaN(observed)) {
+							cache.put(1, plotIndex, 2000, 2010, realization, expected);
+						} else if (observed != expected) {
+							nbErrors.incrementAndGet();
+						}
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals("Testing the number of wrong values", 0, nbErrors.get());
+		Assert.assertEquals("Testing counters", 800000, cache.getNumberOfHits() + cache.getNumberOfMisses());
+		Assert.assertTrue("Testing bound", cache.size() <= 1000);
+	}
+
+}
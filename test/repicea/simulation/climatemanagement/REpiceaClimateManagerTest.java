@@ -19,16 +19,24 @@
  */
 package repicea.simulation.climatemanagement;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import biosimclient.BioSimClientException;
+import biosimclient.BioSimDataSet;
+import biosimclient.BioSimEnums.ClimateModel;
+import biosimclient.BioSimEnums.RCP;
 import biosimclient.BioSimPlot;
 import biosimclient.BioSimPlotImpl;
+import biosimclient.BioSimServerException;
 import repicea.simulation.ClimateSensitivePredictor;
 import repicea.simulation.climate.REpiceaClimateGenerator.RepresentativeConcentrationPathway;
 import repicea.simulation.climatemanagement.REpiceaClimateManager.UniqueBioSimPlot;
@@ -210,6 +218,39 @@ public class REpiceaClimateManagerTest {
 	}
 
 	
+	/*
+	 * Check that the column store of a model holds a value for each plot and each realization in the last year.
+	 */
+	private static void checkColumnStore(REpiceaClimateManager manager, List<REpiceaClimateVariableInformation> infos, BioSimModel model, int nbPlots, int nbRealizations, int lastYr) {
+		ClimateColumnStore store = manager.columnStores.get(model);
+		Assert.assertNotNull("Testing column store of model " + model.name(), store);
+		Assert.assertEquals("Testing nb plots", nbPlots, manager.uniquePlotList.size());
+		Assert.assertTrue("Testing last year in column store", store.containsYear(lastYr));
+		Assert.assertFalse("Testing year after the last one", store.containsYear(lastYr + 1));
+		String fieldName = null;
+		for (REpiceaClimateVariableInformation info : infos) {
+			if (info.model == model) {
+				fieldName = info.fieldName;
+				break;
+			}
+		}
+		Assert.assertNotNull("Testing field name of model " + model.name(), fieldName);
+		for (int plotIndex = 0; plotIndex < nbPlots; plotIndex++) {
+			for (int realization = 0; realization < nbRealizations; realization++) {
+				Assert.assertFalse("Testing value of plot " + plotIndex + " in realization " + realization, 
+						Double.isNaN(store.getValue(fieldName, plotIndex, realization, lastYr, 1)));
+			}
+		}
+	}
+
+	private static int getNbYears(ClimateColumnStore store, int lastYr) {
+		int nbYears = 0;
+		while (store.containsYear(lastYr - nbYears)) {
+			nbYears++;
+		}
+		return nbYears;
+	}
+
 	@Test
 	public void test01ClimateGenerationHappyPathOneRealizationOverOneInterval() throws Exception {
 		List<BioSimPlot> plots = new ArrayList<BioSimPlot>();
@@ -232,12 +273,8 @@ public class REpiceaClimateManagerTest {
 //		System.out.println("Relax this error was expected!");
 		manager.lastDateYrInDataset = 2000;
 		manager.produceClimateVariables(2010);
-		Assert.assertEquals("Testing annualValueMap size", 1, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", plots.size(), manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", 1, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).size());
+		Assert.assertEquals("Testing nb column stores", 1, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Annual, plots.size(), 1, 2010);
 		double value = manager.getValue(2000, 2010, 0, ((PlotIdProvider) plots.get(0)).getId(), infos.get(0));
 		Assert.assertEquals("Testing interval averaged value", 5.38, value, 1E-8);
 	}
@@ -256,12 +293,8 @@ public class REpiceaClimateManagerTest {
 		REpiceaClimateManager manager = new REpiceaClimateManager(RepresentativeConcentrationPathway.RCP4_5, infos, plots, 5);
 		manager.lastDateYrInDataset = 2000;
 		manager.produceClimateVariables(2010);
-		Assert.assertEquals("Testing annualValueMap size", 1, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", plots.size(), manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", 5, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).size());
+		Assert.assertEquals("Testing nb column stores", 1, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Annual, plots.size(), 5, 2010);
 	}
 
 	@Test
@@ -278,12 +311,8 @@ public class REpiceaClimateManagerTest {
 		REpiceaClimateManager manager = new REpiceaClimateManager(RepresentativeConcentrationPathway.RCP4_5, infos, plots, 5);
 		manager.lastDateYrInDataset = 2030;
 		manager.produceClimateVariables(2040);
-		Assert.assertEquals("Testing annualValueMap size", 1, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", plots.size(), manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", 5, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).size());
+		Assert.assertEquals("Testing nb column stores", 1, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Annual, plots.size(), 5, 2040);
 	}
 
 	
@@ -301,15 +330,9 @@ public class REpiceaClimateManagerTest {
 		REpiceaClimateManager manager = new REpiceaClimateManager(RepresentativeConcentrationPathway.RCP4_5, infos, plots, 5);
 		manager.lastDateYrInDataset = 2020;
 		manager.produceClimateVariables(2030);
-		Assert.assertEquals("Testing annualValueMap size", 1, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", plots.size(), manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", 5, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).size());
-		Assert.assertEquals("Testing nb observations in each dataset", 10, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).get(0).getNumberOfObservations());
+		Assert.assertEquals("Testing nb column stores", 1, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Annual, plots.size(), 5, 2030);
+		Assert.assertEquals("Testing nb years in column store", 10, getNbYears(manager.columnStores.get(BioSimModel.Climatic_Annual), 2030));
 	}
 
 	
@@ -327,20 +350,12 @@ public class REpiceaClimateManagerTest {
 		}
 		REpiceaClimateManager manager = new REpiceaClimateManager(RepresentativeConcentrationPathway.RCP4_5, infos, plots, 1);
 		manager.produceClimateVariables(2010); // should work because the resolution is not annual nor interval averaged
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", plots.size(), manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", 1, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).size());
-		Assert.assertEquals("Testing nb observations in each dataset", 20, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).get(0).getNumberOfObservations());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Annual, plots.size(), 1, 2010);
+		Assert.assertEquals("Testing nb years in column store", 20, getNbYears(manager.columnStores.get(BioSimModel.Climatic_Annual), 2010));
 		Assert.assertEquals("Testing last date year in dataset", 2010, manager.lastDateYrInDataset);
 		manager.produceClimateVariables(2020); // should work because the resolution is not annual nor interval averaged
-		Assert.assertEquals("Testing nb observations in each dataset", 30, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).get(0).getNumberOfObservations());
+		Assert.assertEquals("Testing nb years in column store", 30, getNbYears(manager.columnStores.get(BioSimModel.Climatic_Annual), 2020));
 		Assert.assertEquals("Testing last date year in dataset", 2020, manager.lastDateYrInDataset);
 	}
 	
@@ -358,12 +373,8 @@ public class REpiceaClimateManagerTest {
 		}
 		REpiceaClimateManager manager = new REpiceaClimateManager(RepresentativeConcentrationPathway.RCP4_5, infos, plots, 5);
 		manager.produceClimateVariables(2010);
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", plots.size(), manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", 5, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).size());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Annual, plots.size(), 5, 2010);
 	}
 
 
@@ -380,12 +391,8 @@ public class REpiceaClimateManagerTest {
 		}
 		REpiceaClimateManager manager = new REpiceaClimateManager(RepresentativeConcentrationPathway.RCP4_5, infos, plots, 5);
 		manager.produceClimateVariables(2040);
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", plots.size(), manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", 5, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).size());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Annual, plots.size(), 5, 2040);
 	}
 
 	@Test
@@ -401,15 +408,9 @@ public class REpiceaClimateManagerTest {
 		}
 		REpiceaClimateManager manager = new REpiceaClimateManager(RepresentativeConcentrationPathway.RCP4_5, infos, plots, 5);
 		manager.produceClimateVariables(2030);
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", plots.size(), manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", 5, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).size());
-		Assert.assertEquals("Testing nb observations in each dataset", 20, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).get(0).getNumberOfObservations());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Annual, plots.size(), 5, 2030);
+		Assert.assertEquals("Testing nb years in column store", 20, getNbYears(manager.columnStores.get(BioSimModel.Climatic_Annual), 2030));
 	}
 
 	
@@ -424,12 +425,8 @@ public class REpiceaClimateManagerTest {
 		}
 		REpiceaClimateManager manager = new REpiceaClimateManager(RepresentativeConcentrationPathway.RCP4_5, infos, plots, 1);
 		manager.produceClimateVariables(2040);
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", plots.size(), manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", 1, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).size());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Annual, plots.size(), 1, 2040);
 
 		REpiceaClimateVariableInformation normals1971_2000Info = null;
 		for (REpiceaClimateVariableInformation info : infos) {
@@ -463,15 +460,9 @@ public class REpiceaClimateManagerTest {
 				plots, 
 				nbRealizations);
 		manager.produceClimateVariables(2030);
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", plots.size(), manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", nbRealizations, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).size());
-		Assert.assertEquals("Testing nb observations in each dataset", 20, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).get(0).getNumberOfObservations());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Annual, plots.size(), nbRealizations, 2030);
+		Assert.assertEquals("Testing nb years in column store", 20, getNbYears(manager.columnStores.get(BioSimModel.Climatic_Annual), 2030));
 	}
 
 	@Test
@@ -494,15 +485,9 @@ public class REpiceaClimateManagerTest {
 				20,
 				nbRealizations);
 		manager.produceClimateVariables(2030);
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", 2, manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", nbRealizations, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).size());
-		Assert.assertEquals("Testing nb observations in each dataset", 20, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Annual).
-				get(p).get(0).getNumberOfObservations());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Annual, 2, nbRealizations, 2030);
+		Assert.assertEquals("Testing nb years in column store", 20, getNbYears(manager.columnStores.get(BioSimModel.Climatic_Annual), 2030));
 		
 		REpiceaClimateVariableInformation climateAnnualInfo = null;
 		for (REpiceaClimateVariableInformation info : infos) {
@@ -544,15 +529,9 @@ public class REpiceaClimateManagerTest {
 				20,
 				nbRealizations);
 		manager.produceClimateVariables(2025);
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", 2, manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Monthly).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", nbRealizations, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Monthly).
-				get(p).size());
-		Assert.assertEquals("Testing nb observations in each dataset", 20 * 12, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Monthly).
-				get(p).get(0).getNumberOfObservations());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Monthly, 2, nbRealizations, 2025);
+		Assert.assertEquals("Testing nb years in column store", 20, getNbYears(manager.columnStores.get(BioSimModel.Climatic_Monthly), 2025));
 		
 		REpiceaClimateVariableInformation climateAnnualInfo = null;
 		for (REpiceaClimateVariableInformation info : infos) {
@@ -598,15 +577,9 @@ public class REpiceaClimateManagerTest {
 				20,
 				nbRealizations);
 		manager.produceClimateVariables(2025);
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", 2, manager.annualOrMonthlyValueMap.get(BioSimModel.Climatic_Monthly).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", nbRealizations, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Monthly).
-				get(p).size());
-		Assert.assertEquals("Testing nb observations in each dataset", 20 * 12, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climatic_Monthly).
-				get(p).get(0).getNumberOfObservations());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climatic_Monthly, 2, nbRealizations, 2025);
+		Assert.assertEquals("Testing nb years in column store", 20, getNbYears(manager.columnStores.get(BioSimModel.Climatic_Monthly), 2025));
 		
 		REpiceaClimateVariableInformation climateAnnualInfo = null;
 		for (REpiceaClimateVariableInformation info : infos) {
@@ -679,15 +652,9 @@ public class REpiceaClimateManagerTest {
 				20,
 				nbRealizations);
 		manager.produceClimateVariables(2030);
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", 2, manager.annualOrMonthlyValueMap.get(BioSimModel.Soil_Moisture_Index_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", nbRealizations, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Soil_Moisture_Index_Annual).
-				get(p).size());
-		Assert.assertEquals("Testing nb observations in each dataset", 20, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Soil_Moisture_Index_Annual).
-				get(p).get(0).getNumberOfObservations());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Soil_Moisture_Index_Annual, 2, nbRealizations, 2030);
+		Assert.assertEquals("Testing nb years in column store", 20, getNbYears(manager.columnStores.get(BioSimModel.Soil_Moisture_Index_Annual), 2030));
 		
 		REpiceaClimateVariableInformation climateAnnualInfo = null;
 		for (REpiceaClimateVariableInformation info : infos) {
@@ -762,15 +729,9 @@ public class REpiceaClimateManagerTest {
 				20,
 				nbRealizations);
 		manager.produceClimateVariables(2030);
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", 2, manager.annualOrMonthlyValueMap.get(BioSimModel.Climate_Mosture_Index_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", nbRealizations, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climate_Mosture_Index_Annual).
-				get(p).size());
-		Assert.assertEquals("Testing nb observations in each dataset", 20, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climate_Mosture_Index_Annual).
-				get(p).get(0).getNumberOfObservations());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climate_Mosture_Index_Annual, 2, nbRealizations, 2030);
+		Assert.assertEquals("Testing nb years in column store", 20, getNbYears(manager.columnStores.get(BioSimModel.Climate_Mosture_Index_Annual), 2030));
 		
 		REpiceaClimateVariableInformation climateAnnualInfo = null;
 		for (REpiceaClimateVariableInformation info : infos) {
@@ -811,15 +772,9 @@ public class REpiceaClimateManagerTest {
 				20,
 				nbRealizations);
 		manager.produceClimateVariables(2030);
-		Assert.assertEquals("Testing annualValueMap size", 2, manager.annualOrMonthlyValueMap.size());
-		Assert.assertEquals("Testing nb plots in annualValueMap", 2, manager.annualOrMonthlyValueMap.get(BioSimModel.Climate_Mosture_Index_Annual).size());
-		BioSimPlot p = manager.uniquePlotList.get(0);
-		Assert.assertEquals("Testing nb realization in annualValueMap", nbRealizations, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climate_Mosture_Index_Annual).
-				get(p).size());
-		Assert.assertEquals("Testing nb observations in each dataset", 20, manager.annualOrMonthlyValueMap.
-				get(BioSimModel.Climate_Mosture_Index_Annual).
-				get(p).get(0).getNumberOfObservations());
+		Assert.assertEquals("Testing nb column stores", 2, manager.columnStores.size());
+		checkColumnStore(manager, infos, BioSimModel.Climate_Mosture_Index_Annual, 2, nbRealizations, 2030);
+		Assert.assertEquals("Testing nb years in column store", 20, getNbYears(manager.columnStores.get(BioSimModel.Climate_Mosture_Index_Annual), 2030));
 		
 		List<Double>[] annualOutput = manager.getAnnualValues(BioSimClimateVariable.MeanAnnualCMI, 
 				"01",
@@ -932,4 +887,205 @@ public class REpiceaClimateManagerTest {
 		Assert.assertEquals("Testing 1961-1990 July mean temperature normal", 18.55, value, 1E-8);
 	}
 
+
+	@Test
+	public void test21OfflineClimateGenerationWithSyntheticAndRecordedWeather() throws Exception {
+		List<BioSimPlot> plots = new ArrayList<BioSimPlot>();
+		plots.add(new Plot("01", 46, -75, 120));
+		plots.add(new Plot("02", 47, -76, 220));
+		List<REpiceaClimateVariableInformation> infos = new ArrayList<REpiceaClimateVariableInformation>();
+		for (Map<Resolution, REpiceaClimateVariableInformation> innerMap : Plot.CLIMATE_INFO.values()) {
+			infos.addAll(innerMap.values());
+		}
+		File directory = File.createTempFile("recordedWeather", "");
+		directory.delete();
+		try {
+			SyntheticWeatherSource syntheticSource = new SyntheticWeatherSource(infos, 2024, 1L);
+			REpiceaClimateManager manager = new REpiceaClimateManager(syntheticSource, RepresentativeConcentrationPathway.RCP4_5, infos, plots, 0, 0, 0, 3);
+			manager.setDiskCacheDirectory(directory.getAbsolutePath());
+			manager.lastDateYrInDataset = 2030;
+			manager.produceClimateVariables(2040);
+			double value = manager.getValue(2030, 2040, 2, ((PlotIdProvider) plots.get(0)).getId(), infos.get(0));
+			
+			BioSimDataSet dataSet = (BioSimDataSet) ((Map<?,?>) syntheticSource.generateWeather(2031, 2040, plots.subList(0, 1), 
+					null, null, Arrays.asList(BioSimModel.Climatic_Annual), 3).get(BioSimModel.Climatic_Annual.modelName)).values().iterator().next();
+			int fieldIndex = dataSet.getFieldNames().indexOf(infos.get(0).fieldName);
+			double expected = 0d;
+			for (int i = 20; i < 30; i++) {	// the third realization
+				expected += ((Number) dataSet.getObservations().get(i).toArray()[fieldIndex]).doubleValue();
+			}
+			Assert.assertEquals("Testing synthetic value", expected / 10, value, 1E-8);
+			
+			REpiceaClimateManager offlineManager = new REpiceaClimateManager(new RecordedWeatherSource(directory.getAbsolutePath(), 2024), 
+					RepresentativeConcentrationPathway.RCP4_5, infos, plots, 0, 0, 0, 3);
+			offlineManager.lastDateYrInDataset = 2030;
+			offlineManager.produceClimateVariables(2040);
+			Assert.assertEquals("Testing recorded value", value, 
+					offlineManager.getValue(2030, 2040, 2, ((PlotIdProvider) plots.get(0)).getId(), infos.get(0)), 1E-8);
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void test22BulkValuesWithSyntheticWeather() throws Exception {
+		List<BioSimPlot> plots = new ArrayList<BioSimPlot>();
+		plots.add(new Plot("01", 46, -75, 120));
+		plots.add(new Plot("02", 47, -76, 220));
+		plots.add(new Plot("03", 52, -80, 300));
+		List<REpiceaClimateVariableInformation> infos = new ArrayList<REpiceaClimateVariableInformation>();
+		for (Map<Resolution, REpiceaClimateVariableInformation> innerMap : Plot.CLIMATE_INFO.values()) {
+			infos.addAll(innerMap.values());
+		}
+		REpiceaClimateManager manager = new REpiceaClimateManager(new SyntheticWeatherSource(infos, 2024, 2L), 
+				RepresentativeConcentrationPathway.RCP4_5, infos, plots, 0, 0, 0, 4);
+		manager.lastDateYrInDataset = 2030;
+		double[][] values = manager.getValues(2030, 2040, infos.get(0));
+		Assert.assertEquals("Testing number of plots", 3, values.length);
+		Assert.assertEquals("Testing number of realizations", 4, values[0].length);
+		for (BioSimPlot p : plots) {
+			String plotId = ((PlotIdProvider) p).getId();
+			for (int r = 0; r < 4; r++) {
+				Assert.assertEquals("Comparing bulk and single values", 
+						manager.getValue(2030, 2040, r, plotId, infos.get(0)), 
+						values[manager.getPlotIndex(plotId)][r], 
+						1E-12);
+			}
+		}
+	}
+
+	/*
+	 * A weather source that records the years of each weather request.
+	 */
+	private static class RecordingWeatherSource implements WeatherSource {
+
+		final WeatherSource source;
+		final List<int[]> requestedYears = new ArrayList<int[]>();
+
+		RecordingWeatherSource(WeatherSource source) {
+			this.source = source;
+		}
+
+		@Override
+		public int getLastDailyDateYr() throws BioSimClientException, BioSimServerException {return source.getLastDailyDateYr();}
+
+		@Override
+		public synchronized LinkedHashMap<String, Object> generateWeather(int fromYr, int toYr, List<BioSimPlot> plots, RCP rcp,
+				ClimateModel climModel, List<BioSimModel> models, int nbRealizations) throws Exception {
+			requestedYears.add(new int[] {fromYr, toYr});
+			return source.generateWeather(fromYr, toYr, plots, rcp, climModel, models, nbRealizations);
+		}
+
+		@Override
+		public LinkedHashMap<BioSimPlot, BioSimDataSet> getNormals(BioSimModel normalsModel, boolean isMonthly,
+				List<BioSimPlot> plots, RCP rcp, ClimateModel climModel) throws Exception {
+			return source.getNormals(normalsModel, isMonthly, plots, rcp, climModel);
+		}
+	}
+
+	@Test
+	public void test23OnlyMissingYearsAreRequestedThroughDiskCache() throws Exception {
+		List<BioSimPlot> plots = new ArrayList<BioSimPlot>();
+		plots.add(new Plot("01", 46, -75, 120));
+		plots.add(new Plot("02", 47, -76, 220));
+		List<REpiceaClimateVariableInformation> infos = new ArrayList<REpiceaClimateVariableInformation>();
+		for (Map<Resolution, REpiceaClimateVariableInformation> innerMap : Plot.CLIMATE_INFO.values()) {
+			infos.addAll(innerMap.values());
+		}
+		File directory = File.createTempFile("diskCache", "");
+		directory.delete();
+		try {
+			REpiceaClimateManager firstManager = new REpiceaClimateManager(new SyntheticWeatherSource(infos, 2024, 3L), 
+					RepresentativeConcentrationPathway.RCP4_5, infos, plots, 0, 0, 0, 3);
+			firstManager.setDiskCacheDirectory(directory.getAbsolutePath());
+			firstManager.lastDateYrInDataset = 2030;
+			firstManager.produceClimateVariables(2040);
+
+			RecordingWeatherSource recordingSource = new RecordingWeatherSource(new SyntheticWeatherSource(infos, 2024, 3L));
+			REpiceaClimateManager secondManager = new REpiceaClimateManager(recordingSource, 
+					RepresentativeConcentrationPathway.RCP4_5, infos, plots, 0, 0, 0, 3);
+			secondManager.setDiskCacheDirectory(directory.getAbsolutePath());
+			secondManager.lastDateYrInDataset = 2030;
+			secondManager.produceClimateVariables(2050);
+			Assert.assertEquals("Testing a single request", 1, recordingSource.requestedYears.size());
+			Assert.assertEquals("Testing the first requested year", 2041, recordingSource.requestedYears.get(0)[0]);
+			Assert.assertEquals("Testing the last requested year", 2050, recordingSource.requestedYears.get(0)[1]);
+
+			REpiceaClimateManager managerWithoutCache = new REpiceaClimateManager(new SyntheticWeatherSource(infos, 2024, 3L), 
+					RepresentativeConcentrationPathway.RCP4_5, infos, plots, 0, 0, 0, 3);
+			managerWithoutCache.lastDateYrInDataset = 2030;
+			managerWithoutCache.produceClimateVariables(2050);
+			for (BioSimPlot p : plots) {
+				String plotId = ((PlotIdProvider) p).getId();
+				for (int r = 0; r < 3; r++) {
+					Assert.assertEquals("Comparing values with and without the cache", 
+							managerWithoutCache.getValue(2030, 2050, r, plotId, infos.get(0)), 
+							secondManager.getValue(2030, 2050, r, plotId, infos.get(0)), 
+							1E-12);
+				}
+			}
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void test24ConcurrentChunksAgainstSingleChunk() throws Exception {
+		List<BioSimPlot> plots = new ArrayList<BioSimPlot>();
+		plots.add(new Plot("01", 46, -75, 120));
+		plots.add(new Plot("02", 47, -76, 220));
+		plots.add(new Plot("03", 52, -80, 300));
+		plots.add(new Plot("04", 48, -72, 150));
+		plots.add(new Plot("05", 49, -70, 400));
+		List<REpiceaClimateVariableInformation> infos = new ArrayList<REpiceaClimateVariableInformation>();
+		for (Map<Resolution, REpiceaClimateVariableInformation> innerMap : Plot.CLIMATE_INFO.values()) {
+			infos.addAll(innerMap.values());
+		}
+		REpiceaClimateManager singleChunkManager = new REpiceaClimateManager(new SyntheticWeatherSource(infos, 2024, 4L), 
+				RepresentativeConcentrationPathway.RCP4_5, infos, plots, 0, 0, 0, 3);
+		singleChunkManager.lastDateYrInDataset = 2030;
+		REpiceaClimateManager chunkedManager = new REpiceaClimateManager(new SyntheticWeatherSource(infos, 2024, 4L), 
+				RepresentativeConcentrationPathway.RCP4_5, infos, plots, 0, 0, 0, 3);
+		chunkedManager.setBioSimRequestPolicy(1, 2);
+		chunkedManager.lastDateYrInDataset = 2030;
+
+		LinkedHashMap<String, Object> expected = singleChunkManager.generateWeather(2030, 2040, singleChunkManager.uniquePlotList, 3);
+		LinkedHashMap<String, Object> observed = chunkedManager.generateWeather(2030, 2040, chunkedManager.uniquePlotList, 3);
+		Assert.assertEquals("Testing the models", expected.keySet(), observed.keySet());
+		for (String modelName : expected.keySet()) {
+			LinkedHashMap<BioSimPlot, BioSimDataSet> expectedForThisModel = (LinkedHashMap<BioSimPlot, BioSimDataSet>) expected.get(modelName);
+			LinkedHashMap<BioSimPlot, BioSimDataSet> observedForThisModel = (LinkedHashMap<BioSimPlot, BioSimDataSet>) observed.get(modelName);
+			Assert.assertEquals("Testing the plot order", 
+					chunkedManager.uniquePlotList, 
+					new ArrayList<BioSimPlot>(observedForThisModel.keySet()));
+			for (int i = 0; i < plots.size(); i++) {
+				Assert.assertEquals("Testing the number of observations", 
+						expectedForThisModel.get(singleChunkManager.uniquePlotList.get(i)).getNumberOfObservations(), 
+						observedForThisModel.get(chunkedManager.uniquePlotList.get(i)).getNumberOfObservations());
+			}
+		}
+
+		singleChunkManager.produceClimateVariables(2040);
+		chunkedManager.produceClimateVariables(2040);
+		for (REpiceaClimateVariableInformation info : infos) {
+			double[][] expectedValues = singleChunkManager.getValues(2030, 2040, info);
+			double[][] observedValues = chunkedManager.getValues(2030, 2040, info);
+			for (int i = 0; i < expectedValues.length; i++) {
+				for (int r = 0; r < 3; r++) {
+					Assert.assertEquals("Comparing realization " + r + " of plot index " + i, 
+							expectedValues[i][r], 
+							observedValues[i][r], 
+							1E-12);
+				}
+			}
+		}
+	}
+
 }
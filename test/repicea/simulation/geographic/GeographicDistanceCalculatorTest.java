@@ -18,10 +18,13 @@
  */
 package repicea.simulation.geographic;
 
+import java.util.Random;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import repicea.math.Matrix;
+import repicea.simulation.geographic.GeographicDistanceCalculator.DistanceMethod;
 
 public class GeographicDistanceCalculatorTest {
 	
@@ -48,7 +51,145 @@ public class GeographicDistanceCalculatorTest {
 		Assert.assertTrue("Comparing diagonal", !distances.diagonalVector().anyElementDifferentFrom(0d));
 		Assert.assertEquals("Comparing value at 0, 1", 182.3664179743962, distances.getValueAt(0, 1), 1E-8);
 	}
-	
 
+	@Test
+	public void testNeighboursWithinRadiusAgainstAllPairs() {
+		Random random = new Random(1L);
+		int n = 1500;
+		double[] latitudeDeg = new double[n];
+		double[] longitudeDeg = new double[n];
+		for (int i = 0; i < n; i++) {
+			latitudeDeg[i] = 45 + random.nextDouble() * 8;
+			longitudeDeg[i] = -80 + random.nextDouble() * 12;
+		}
+		double radiusKm = 50;
+		GeographicNeighbours neighbours = GeographicDistanceCalculator.getNeighboursWithinRadiusKm(latitudeDeg, longitudeDeg, radiusKm);
+		int nbPairs = 0;
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				if (i != j) {
+					double expected = GeographicDistanceCalculator.getGeographicalDistanceWithinRadiusKm(latitudeDeg[i], longitudeDeg[i], latitudeDeg[j], longitudeDeg[j], radiusKm);
+					if (!Double.isNaN(expected)) {
+						nbPairs++;
+					}
+					Assert.assertEquals("Comparing distance", expected, neighbours.getDistanceKm(i, j), 1E-10);
+				}
+			}
+		}
+		Assert.assertEquals("Comparing number of pairs", nbPairs, neighbours.getNumberOfStoredPairs());
+	}
+
+	@Test
+	public void testPackedDistanceMatrixAgainstPairwiseDistances() {
+		Random random = new Random(2L);
+		int n = 700;		// more than two blocks
+		double[] latitudeDeg = new double[n];
+		double[] longitudeDeg = new double[n];
+		for (int i = 0; i < n; i++) {
+			latitudeDeg[i] = 45 + random.nextDouble() * 8;
+			longitudeDeg[i] = -80 + random.nextDouble() * 12;
+		}
+		PackedDistanceMatrix doubleMatrix = GeographicDistanceCalculator.getPackedDistanceMatrix(latitudeDeg, longitudeDeg, false);
+		PackedDistanceMatrix floatMatrix = GeographicDistanceCalculator.getPackedDistanceMatrix(latitudeDeg, longitudeDeg, true);
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				double expected = i == j ? 0d : GeographicDistanceCalculator.getGeographicalDistance(latitudeDeg[i], longitudeDeg[i], latitudeDeg[j], longitudeDeg[j]);
+				Assert.assertEquals("Comparing double precision", expected, doubleMatrix.getDistanceKm(i, j), 1E-8);
+				Assert.assertEquals("Comparing float precision", expected, floatMatrix.getDistanceKm(i, j), expected * 1E-6);
+			}
+		}
+	}
+
+	@Test
+	public void testSymmetricMatrixAgainstPackedDistanceMatrix() {
+		Random random = new Random(3L);
+		int n = 600;		// more than two blocks
+		double[] latitudes = new double[n];
+		double[] longitudes = new double[n];
+		Matrix latitudeDeg = new Matrix(n, 1);
+		Matrix longitudeDeg = new Matrix(n, 1);
+		for (int i = 0; i < n; i++) {
+			latitudes[i] = 45 + random.nextDouble() * 8;
+			longitudes[i] = -80 + random.nextDouble() * 12;
+			latitudeDeg.setValueAt(i, 0, latitudes[i]);
+			longitudeDeg.setValueAt(i, 0, longitudes[i]);
+		}
+		for (DistanceMethod method : DistanceMethod.values()) {
+			Matrix distances = GeographicDistanceCalculator.getDistanceBetweenTheseCoordinates(latitudeDeg, longitudeDeg, method);
+			PackedDistanceMatrix packedMatrix = GeographicDistanceCalculator.getPackedDistanceMatrix(latitudes, longitudes, false, method);
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < n; j++) {
+					Assert.assertEquals("Comparing distances with method " + method.name(), packedMatrix.getDistanceKm(i, j), distances.getValueAt(i, j), 0d);
+				}
+			}
+		}
+	}
+
+	private static double getHaversineDistanceKm(double lat1, double lon1, double lat2, double lon2) {
+		double phi1 = Math.toRadians(lat1);
+		double phi2 = Math.toRadians(lat2);
+		double sinDPhi = Math.sin((phi2 - phi1) * .5);
+		double sinDLambda = Math.sin(Math.toRadians(lon2 - lon1) * .5);
+		double a = sinDPhi * sinDPhi + Math.cos(phi1) * Math.cos(phi2) * sinDLambda * sinDLambda;
+		return 2 * GeographicDistanceCalculator.EarthMeanRadiusKm * Math.asin(Math.sqrt(a));
+	}
 	
+	@Test
+	public void testGreatCircleDistanceAgainstHaversine() {
+		// Quebec City to Vancouver
+		double observed = GeographicDistanceCalculator.getGreatCircleDistance(46.8139, -71.2080, 49.2827, -123.1207);
+		Assert.assertEquals("Comparing Quebec-Vancouver", getHaversineDistanceKm(46.8139, -71.2080, 49.2827, -123.1207), observed, 1E-8);
+		Assert.assertEquals("Comparing with published value", 3800, observed, 50);
+		
+		Random random = new Random(3L);
+		int n = 300;
+		double[] latitudeDeg = new double[n];
+		double[] longitudeDeg = new double[n];
+		for (int i = 0; i < n; i++) {
+			latitudeDeg[i] = 42 + random.nextDouble() * 20;
+			longitudeDeg[i] = -140 + random.nextDouble() * 85;
+		}
+		PackedDistanceMatrix greatCircle = GeographicDistanceCalculator.getPackedDistanceMatrix(latitudeDeg, longitudeDeg, false, 
+				GeographicDistanceCalculator.DistanceMethod.GreatCircle);
+		PackedDistanceMatrix flat = GeographicDistanceCalculator.getPackedDistanceMatrix(latitudeDeg, longitudeDeg, false);
+		double maxFlatRelativeError = 0d;
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				double expected = getHaversineDistanceKm(latitudeDeg[i], longitudeDeg[i], latitudeDeg[j], longitudeDeg[j]);
+				Assert.assertEquals("Comparing great-circle distance", expected, greatCircle.getDistanceKm(i, j), 1E-6);
+				maxFlatRelativeError = Math.max(maxFlatRelativeError, Math.abs(flat.getDistanceKm(i, j) - expected) / expected);
+			}
+		}
+		Assert.assertTrue("The flat-earth approximation should be off at the continental scale", maxFlatRelativeError > .01);
+	}
+
+	@Test
+	public void testGreatCircleNeighboursAgainstAllPairs() {
+		Random random = new Random(4L);
+		int n = 1500;
+		double[] latitudeDeg = new double[n];
+		double[] longitudeDeg = new double[n];
+		for (int i = 0; i < n; i++) {
+			latitudeDeg[i] = 60 + random.nextDouble() * 29.5;	// includes high latitudes
+			longitudeDeg[i] = -180 + random.nextDouble() * 360;
+		}
+		double radiusKm = 400;
+		GeographicNeighbours neighbours = GeographicDistanceCalculator.getNeighboursWithinRadiusKm(latitudeDeg, longitudeDeg, radiusKm, 
+				GeographicDistanceCalculator.DistanceMethod.GreatCircle);
+		int nbPairs = 0;
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				if (i != j) {
+					double distance = GeographicDistanceCalculator.getGreatCircleDistance(latitudeDeg[i], longitudeDeg[i], latitudeDeg[j], longitudeDeg[j]);
+					double expected = distance <= radiusKm ? distance : Double.NaN;
+					if (!Double.isNaN(expected)) {
+						nbPairs++;
+					}
+					Assert.assertEquals("Comparing distance", expected, neighbours.getDistanceKm(i, j), 1E-10);
+				}
+			}
+		}
+		Assert.assertEquals("Comparing number of pairs", nbPairs, neighbours.getNumberOfStoredPairs());
+	}
+
 }
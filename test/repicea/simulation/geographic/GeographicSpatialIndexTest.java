@@ -0,0 +1,123 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.geographic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import repicea.simulation.covariateproviders.plotlevel.GeographicalCoordinatesProvider;
+import repicea.simulation.geographic.GeographicSpatialIndex.Neighbour;
+
+public class GeographicSpatialIndexTest {
+
+	private static class FakePlot implements GeographicalCoordinatesProvider {
+
+		final double latitudeDeg;
+		final double longitudeDeg;
+
+		FakePlot(double latitudeDeg, double longitudeDeg) {
+			this.latitudeDeg = latitudeDeg;
+			this.longitudeDeg = longitudeDeg;
+		}
+
+		@Override
+		public double getElevationM() {return 0;}
+
+		@Override
+		public double getLatitudeDeg() {return latitudeDeg;}
+
+		@Override
+		public double getLongitudeDeg() {return longitudeDeg;}
+	}
+
+	private static List<FakePlot> createPlots(Random random, int n) {
+		List<FakePlot> plots = new ArrayList<FakePlot>();
+		for (int i = 0; i < n; i++) {
+			plots.add(new FakePlot(40 + random.nextDouble() * 30, -180 + random.nextDouble() * 360));
+		}
+		return plots;
+	}
+
+	private static double[] getSortedDistances(List<FakePlot> plots, FakePlot query) {
+		double[] distances = new double[plots.size()];
+		for (int i = 0; i < plots.size(); i++) {
+			distances[i] = GeographicDistanceCalculator.getGreatCircleDistance(query.latitudeDeg, query.longitudeDeg,
+					plots.get(i).latitudeDeg, plots.get(i).longitudeDeg);
+		}
+		Arrays.sort(distances);
+		return distances;
+	}
+
+	@Test
+	public void testNearestNeighboursAgainstBruteForce() {
+		Random random = new Random(5L);
+		List<FakePlot> plots = createPlots(random, 3000);
+		GeographicSpatialIndex<FakePlot> index = new GeographicSpatialIndex<FakePlot>(plots);
+		Assert.assertEquals("Comparing size", 3000, index.size());
+		List<FakePlot> queries = createPlots(random, 200);
+		int k = 7;
+		List<List<Neighbour<FakePlot>>> results = index.getNearestNeighbours(queries, k);
+		for (int q = 0; q < queries.size(); q++) {
+			double[] expected = getSortedDistances(plots, queries.get(q));
+			List<Neighbour<FakePlot>> neighbours = results.get(q);
+			Assert.assertEquals("Comparing number of neighbours", k, neighbours.size());
+			for (int i = 0; i < k; i++) {
+				Assert.assertEquals("Comparing distances", expected[i], neighbours.get(i).getDistanceKm(), 1E-8);
+			}
+		}
+	}
+
+	@Test
+	public void testNeighboursWithinRadiusAgainstBruteForce() {
+		Random random = new Random(6L);
+		List<FakePlot> plots = createPlots(random, 3000);
+		GeographicSpatialIndex<FakePlot> index = new GeographicSpatialIndex<FakePlot>(plots);
+		double radiusKm = 500;
+		for (FakePlot query : createPlots(random, 200)) {
+			double[] expected = getSortedDistances(plots, query);
+			List<Neighbour<FakePlot>> neighbours = index.getNeighboursWithinRadiusKm(query, radiusKm);
+			int nbExpected = 0;
+			while (nbExpected < expected.length && expected[nbExpected] <= radiusKm) {
+				nbExpected++;
+			}
+			Assert.assertEquals("Comparing number of neighbours", nbExpected, neighbours.size());
+			for (int i = 0; i < nbExpected; i++) {
+				Assert.assertEquals("Comparing distances", expected[i], neighbours.get(i).getDistanceKm(), 1E-8);
+			}
+		}
+	}
+
+	@Test
+	public void testSmallAndEmptyIndices() {
+		GeographicSpatialIndex<FakePlot> emptyIndex = new GeographicSpatialIndex<FakePlot>(new ArrayList<FakePlot>());
+		Assert.assertNull("Testing empty index", emptyIndex.getNearestNeighbour(46, -71));
+		FakePlot plot = new FakePlot(46.8, -71.2);
+		GeographicSpatialIndex<FakePlot> index = new GeographicSpatialIndex<FakePlot>(Arrays.asList(plot));
+		Assert.assertEquals("Testing single point", 1, index.getNearestNeighbours(0, 0, 5).size());
+		Assert.assertTrue("Testing same instance", plot == index.getNearestNeighbour(46.8, -71.2).getPoint());
+		Assert.assertEquals("Testing null distance", 0d, index.getNearestNeighbour(46.8, -71.2).getDistanceKm(), 1E-8);
+	}
+
+}
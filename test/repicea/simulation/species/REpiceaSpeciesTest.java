@@ -20,7 +20,11 @@
  * Please see the license at http://www.gnu.org/copyleft/lesser.html.
  */package repicea.simulation.species;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -138,6 +142,179 @@ public class REpiceaSpeciesTest {
 	}
 	
 	
+	/*
+	 * Former implementation of the surrogates.
+	 */
+	private static Species getReferenceSurrogate(Species species) {
+		if (species == Species.Other || species == Species.Broadleaved_shrubs) {
+			return null;
+		}
+		if (species == Species.Other_coniferous || species == Species.Other_broadleaved) {
+			return Species.Other;
+		}
+		if (!species.name().endsWith("spp")) {
+			int indexSpace = species.name().indexOf("_");
+			if (indexSpace != -1) {
+				try {
+					return Species.valueOf(species.name().substring(0, indexSpace) + "_spp");
+				} catch(IllegalArgumentException e) {}
+			} 
+		}
+		return species.getSpeciesType() == SpeciesType.BroadleavedSpecies ?
+				Species.Other_broadleaved :
+					Species.Other_coniferous;
+	}
+
+	private static class FakeCompliantObject implements REpiceaSpeciesCompliantObject {
+
+		final List<Species> eligibleSpecies = new ArrayList<Species>();
+		final ConcurrentHashMap<Species, Species> surrogateMap = new ConcurrentHashMap<Species, Species>();
+
+		@Override
+		public List<Species> getEligibleSpecies() {return eligibleSpecies;}
+
+		@Override
+		public SpeciesLocale getScope() {return SpeciesLocale.NorthAmerica;}
+
+		@Override
+		public ConcurrentHashMap<Species, Species> getSurrogateMap() {return surrogateMap;}
+
+		@Override
+		public void setSurrogateMapToDefaultValue() {surrogateMap.clear();}
+		
+		/*
+		 * Former implementation of the conversion without the caching in the surrogate map.
+		 */
+		Species getReferenceEligibleSpecies(Species sp) {
+			if (eligibleSpecies.contains(sp)) {
+				return sp;
+			} else if (surrogateMap.containsKey(sp)) {
+				return surrogateMap.get(sp);
+			} else {
+				Species tmpSp = getReferenceSurrogate(sp);
+				while (tmpSp != null) {
+					if (eligibleSpecies.contains(tmpSp)) {
+						return tmpSp;
+					} else if (surrogateMap.containsKey(tmpSp)) {
+						return surrogateMap.get(tmpSp);
+					}
+					tmpSp = getReferenceSurrogate(tmpSp);
+				}
+				return null;
+			}
+		}
+	}
+	
+	@Test
+	public void test10SurrogateTablesAgainstFormerImplementation() {
+		for (Species sp : Species.values()) {
+			Assert.assertEquals("Comparing surrogates", getReferenceSurrogate(sp), REpiceaSpecies.getSurrogate(sp));
+		}
+		Random random = new Random(15L);
+		Species[] allSpecies = Species.values();
+		for (int i = 0; i < 200; i++) {
+			FakeCompliantObject obj = new FakeCompliantObject();
+			for (Species sp : allSpecies) {
+				if (random.nextInt(4) == 0) {
+					obj.eligibleSpecies.add(sp);
+				}
+			}
+			if (i % 2 == 1) {
+				for (int j = 0; j < 5; j++) {
+					obj.surrogateMap.put(allSpecies[random.nextInt(allSpecies.length)], allSpecies[random.nextInt(allSpecies.length)]);
+				}
+			}
+			for (Species sp : allSpecies) {
+				Species expected = obj.getReferenceEligibleSpecies(sp);
+				try {
+					Assert.assertEquals("Comparing eligible species", expected, obj.convertToEligibleSpecies(sp));
+				} catch (UnsupportedOperationException e) {
+					Assert.assertNull("Testing no eligible surrogate", expected);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void test11FlattenedLocaleTables() {
+		Assert.assertEquals("Testing density in locale", 0.335, Species.Abies_balsamea.getBasicWoodDensity(SpeciesLocale.Quebec), 1E-12);
+		Assert.assertEquals("Testing density through next levels", 0.33, Species.Abies_balsamea.getBasicWoodDensity(SpeciesLocale.Ontario), 1E-12);
+		Assert.assertEquals("Testing bark proportion through next levels", 0.12, Species.Abies_balsamea.getBarkProportionOfWoodVolume(SpeciesLocale.Quebec), 1E-12);
+		Assert.assertEquals("Testing density with default locale", 0.421, Species.Abies_alba.getBasicWoodDensity(SpeciesLocale.Quebec), 1E-12);
+		Assert.assertEquals("Testing bark proportion with default locale", 0.11, Species.Abies_alba.getBarkProportionOfWoodVolume(SpeciesLocale.Alberta), 1E-12);
+	}
+	
+	@Test
+	public void test12EligibilityAfterInPlaceEdit() {
+		FakeCompliantObject obj = new FakeCompliantObject();
+		obj.eligibleSpecies.add(Species.Abies_balsamea);
+		obj.eligibleSpecies.add(Species.Acer_rubrum);
+		Assert.assertTrue("Testing eligible species", obj.getSpeciesEligibility().isEligible(Species.Abies_balsamea));
+		obj.eligibleSpecies.set(0, Species.Picea_glauca);	// same size
+		REpiceaSpeciesEligibility eligibility = obj.getSpeciesEligibility();
+		Assert.assertFalse("Testing removed species", eligibility.isEligible(Species.Abies_balsamea));
+		Assert.assertTrue("Testing added species", eligibility.isEligible(Species.Picea_glauca));
+		Assert.assertSame("Testing the cache with the same list", eligibility, obj.getSpeciesEligibility());
+	}
+	
+	@Test
+	public void test13NullLocaleFallsBackOnDefaultLocale() {
+		Assert.assertEquals("Testing density with null locale", 0.421, Species.Abies_alba.getBasicWoodDensity(null), 1E-12);
+		Assert.assertEquals("Testing bark proportion with null locale", 0.11, Species.Abies_alba.getBarkProportionOfWoodVolume(null), 1E-12);
+	}
+	
+	/*
+	 * A compliant object that builds its eligibility when its list of eligible species is set.
+	 */
+	private static class EligibilityHolderObject extends FakeCompliantObject {
+
+		REpiceaSpeciesEligibility eligibility;
+
+		void setEligibleSpecies(List<Species> species) {
+			eligibleSpecies.clear();
+			eligibleSpecies.addAll(species);
+			eligibility = new REpiceaSpeciesEligibility(eligibleSpecies);
+		}
+
+		@Override
+		public REpiceaSpeciesEligibility getSpeciesEligibility() {return eligibility;}
+	}
+
+	private static long getAllocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		} else {
+			return -1;
+		}
+	}
+	
+	@Test
+	public void test14SecondConversionAllocatesNothing() {
+		List<Species> species = new ArrayList<Species>();
+		species.add(Species.Abies_balsamea);
+		species.add(Species.Picea_glauca);
+		EligibilityHolderObject holder = new EligibilityHolderObject();
+		holder.setEligibleSpecies(species);
+		FakeCompliantObject obj = new FakeCompliantObject();
+		obj.eligibleSpecies.addAll(species);
+		for (FakeCompliantObject o : new FakeCompliantObject[] {holder, obj}) {
+			REpiceaSpeciesEligibility eligibility = o.getSpeciesEligibility();
+			Assert.assertSame("Testing the same instance on the second call", eligibility, o.getSpeciesEligibility());
+			for (int i = 0; i < 20000; i++) {	// warm up
+				o.convertToEligibleSpecies(Species.Picea_glauca);
+			}
+			long before = getAllocatedBytes();
+			if (before >= 0) {
+				for (int i = 0; i < 10000; i++) {
+					o.convertToEligibleSpecies(Species.Picea_glauca);
+				}
+				long allocatedBytes = getAllocatedBytes() - before;
+				Assert.assertTrue("Testing no allocation per conversion: " + allocatedBytes + " bytes", allocatedBytes < 10000);
+			}
+		}
+	}
+	
 	public static void main(String[] args) {
 		int nbBroadleaved = 0;
 		int nbConiferous = 0;
@@ -0,0 +1,100 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.treelogger;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import repicea.simulation.treelogger.TreeLoggerTest.FakeTree;
+import repicea.simulation.treelogger.TreeLoggerTest.FakeTreeLogger;
+import repicea.simulation.treelogger.TreeLoggerTest.FakeTreeLoggerParameters;
+
+public class TreeLoggerManagerTest {
+
+	static class OtherFakeTreeLogger extends FakeTreeLogger {}
+	
+	private static TreeLoggerManager createManager() {
+		return new TreeLoggerManager(Arrays.asList(new String[] {FakeTreeLogger.class.getName(), OtherFakeTreeLogger.class.getName()}));
+	}
+	
+	@Test
+	public void testCompatibilityIndex() {
+		TreeLoggerManager manager = createManager();
+		TreeLoggerDescription description = new TreeLoggerDescription(FakeTreeLogger.class);
+		FakeTreeLogger.NbCompatibilityChecks = 0;
+		List<TreeLoggerDescription> compatibleTreeLoggers = manager.getCompatibleTreeLoggers(new TreeLoggerCompatibilityCheck(new FakeTree("t1", 0, 1d)));
+		Assert.assertEquals("Testing the number of compatible tree loggers", 2, compatibleTreeLoggers.size());
+		Assert.assertTrue("Testing the compatible tree logger", compatibleTreeLoggers.contains(description));
+		Assert.assertEquals("Testing the number of checks", 2, FakeTreeLogger.NbCompatibilityChecks);
+		
+		compatibleTreeLoggers.clear();		// the returned list must be a copy
+		compatibleTreeLoggers = manager.getCompatibleTreeLoggers(new TreeLoggerCompatibilityCheck(new FakeTree("t2", 0, 1d)));
+		Assert.assertEquals("Testing the list served from the index", 2, compatibleTreeLoggers.size());
+		Assert.assertEquals("Testing that the index is used for the same class", 2, FakeTreeLogger.NbCompatibilityChecks);
+
+		Assert.assertTrue("Testing an incompatible class", manager.getCompatibleTreeLoggers(new TreeLoggerCompatibilityCheck(new Object())).isEmpty());
+		Assert.assertEquals("Testing that another class is evaluated", 4, FakeTreeLogger.NbCompatibilityChecks);
+
+		manager.clearCompatibilityIndex();
+		manager.getCompatibleTreeLoggers(new TreeLoggerCompatibilityCheck(new FakeTree("t1", 0, 1d)));
+		Assert.assertEquals("Testing the evaluation after clearing the index", 6, FakeTreeLogger.NbCompatibilityChecks);
+	}
+	
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	public void testPoolReturnsResetTreeLoggers() {
+		TreeLoggerManager manager = createManager();
+		TreeLoggerDescription description = new TreeLoggerDescription(FakeTreeLogger.class);
+		manager.fillPool(description, 1);
+		FakeTreeLogger treeLogger = (FakeTreeLogger) manager.borrowTreeLogger(description);
+		Assert.assertNotNull("Testing the default parameters", treeLogger.getTreeLoggerParameters());
+		
+		FakeTreeLoggerParameters modifiedParameters = new FakeTreeLoggerParameters();
+		modifiedParameters.getLogCategoryList().get(0).minimumVolumeM3 = 2d;
+		treeLogger.setTreeLoggerParameters(modifiedParameters);
+		List<FakeTree> trees = new ArrayList<FakeTree>();
+		trees.add(new FakeTree("t1", 0, 1d));
+		treeLogger.init(trees);
+		treeLogger.run();
+		Assert.assertEquals("Testing the wood pieces before releasing", 1, treeLogger.getWoodPieces().size());
+		manager.releaseTreeLogger(description, treeLogger);
+		
+		TreeLogger borrowedTreeLogger = manager.borrowTreeLogger(description);
+		Assert.assertSame("Testing the instance comes from the pool", treeLogger, borrowedTreeLogger);
+		Assert.assertTrue("Testing the trees are cleared", borrowedTreeLogger.getLoggableTrees().isEmpty());
+		Assert.assertTrue("Testing the wood pieces are cleared", borrowedTreeLogger.getWoodPieces().isEmpty());
+		Assert.assertNotSame("Testing the parameters are restored", modifiedParameters, borrowedTreeLogger.getTreeLoggerParameters());
+		Assert.assertEquals("Testing the default value", 0.5, 
+				((FakeTreeLoggerParameters) borrowedTreeLogger.getTreeLoggerParameters()).getLogCategoryList().get(0).minimumVolumeM3, 
+				1E-8);
+		Assert.assertNotSame("Testing the pool is empty", treeLogger, manager.borrowTreeLogger(description));
+		
+		try {
+			manager.releaseTreeLogger(new TreeLoggerDescription(OtherFakeTreeLogger.class), borrowedTreeLogger);
+			Assert.fail("The release should have failed!");
+		} catch (InvalidParameterException e) {}
+	}
+	
+}
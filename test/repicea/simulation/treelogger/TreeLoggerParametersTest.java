@@ -0,0 +1,113 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.treelogger;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import repicea.serial.UnmarshallingException;
+import repicea.simulation.species.REpiceaSpecies.Species;
+import repicea.simulation.species.REpiceaSpecies.SpeciesLocale;
+import repicea.simulation.treelogger.TreeLoggerTest.FakeLogCategory;
+import repicea.simulation.treelogger.TreeLoggerTest.FakeTreeLoggerParameters;
+
+public class TreeLoggerParametersTest {
+
+	private static FakeTreeLoggerParameters createParameters() {
+		FakeTreeLoggerParameters params = new FakeTreeLoggerParameters();
+		params.region = "Quebec";
+		params.locale = SpeciesLocale.Canada;
+		params.getLogCategoryList().get(0).minimumVolumeM3 = 1.2;
+		List<FakeLogCategory> firCategories = new ArrayList<FakeLogCategory>();
+		firCategories.add(new FakeLogCategory("studwood", .3));
+		params.getLogCategories().put(Species.Abies_spp, firCategories);
+		params.postUnmarshallingAction();
+		return params;
+	}
+	
+	private static void checkParameters(FakeTreeLoggerParameters expected, TreeLoggerParameters<?> actual) {
+		Assert.assertEquals("Testing the class", FakeTreeLoggerParameters.class, actual.getClass());
+		FakeTreeLoggerParameters params = (FakeTreeLoggerParameters) actual;
+		Assert.assertEquals("Testing the string field", "Quebec", params.region);
+		Assert.assertEquals("Testing the enum field", SpeciesLocale.Canada, params.locale);
+		Assert.assertEquals("Testing the tree logger class", expected.toString(), params.toString());
+		Assert.assertEquals("Testing the species", expected.getLogCategories().keySet(), params.getLogCategories().keySet());
+		Assert.assertEquals("Testing the log categories", expected.getLogCategoryNames(), params.getLogCategoryNames());
+		Assert.assertEquals("Testing a double field", 1.2, params.getLogCategory(TreeLoggerParameters.ANY_SPECIES, "sawlog").minimumVolumeM3, 1E-8);
+		FakeLogCategory studwood = params.getSpeciesLogCategories(Species.Abies_spp).get(0);
+		Assert.assertEquals("Testing the enum species key", "studwood", studwood.getName());
+		Assert.assertEquals("Testing the species of the log category", Species.Abies_spp, studwood.getSpecies());
+		Assert.assertEquals("Testing the double field of the second species", .3, studwood.minimumVolumeM3, 1E-8);
+	}
+	
+	@Test
+	public void testBinaryRoundTrip() throws IOException {
+		File file = File.createTempFile("treeLoggerParameters", ".tlp");
+		try {
+			FakeTreeLoggerParameters params = createParameters();
+			params.saveAsBinary(file.getAbsolutePath());
+			Assert.assertTrue("Testing the format detection", TreeLoggerParameters.isBinaryFile(file.getAbsolutePath()));
+			TreeLoggerParameters<?> loadedParams = TreeLoggerParameters.loadFromFile(file.getAbsolutePath());
+			checkParameters(params, loadedParams);
+			Assert.assertEquals("Testing the filename", file.getAbsolutePath(), loadedParams.getFilename());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testXmlFileStillLoads() throws IOException {
+		File file = File.createTempFile("treeLoggerParameters", ".tlp");
+		try {
+			FakeTreeLoggerParameters params = createParameters();
+			params.save(file.getAbsolutePath());
+			Assert.assertFalse("Testing the format detection", TreeLoggerParameters.isBinaryFile(file.getAbsolutePath()));
+			checkParameters(params, TreeLoggerParameters.loadFromFile(file.getAbsolutePath()));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testUnexpectedClassIsRejected() throws IOException {
+		File file = File.createTempFile("treeLoggerParameters", ".tlp");
+		try {
+			DataOutputStream dos = new DataOutputStream(new FileOutputStream(file));
+			dos.writeInt(TreeLoggerParameters.BINARY_MAGIC_NUMBER);
+			dos.writeShort(TreeLoggerParameters.BINARY_FORMAT_VERSION);
+			dos.writeUTF(ArrayList.class.getName());
+			dos.close();
+			try {
+				TreeLoggerParameters.loadFromFile(file.getAbsolutePath());
+				Assert.fail("The class should have been rejected!");
+			} catch (UnmarshallingException e) {}
+		} finally {
+			file.delete();
+		}
+	}
+	
+}
@@ -0,0 +1,228 @@
+/*
+ * This file is part of the repicea-simulation library.
+ *
+ * Copyright (C) 2026 His Majesty the King in right of Canada
+ * Author: Mathieu Fortin, Canadian Forest Service
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed with the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * Please see the license at http://www.gnu.org/copyleft/lesser.html.
+ */
+package repicea.simulation.treelogger;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import repicea.simulation.HierarchicalLevel;
+import repicea.simulation.MonteCarloSimulationCompliantObject;
+import repicea.simulation.species.REpiceaSpecies.SpeciesLocale;
+
+public class TreeLoggerTest {
+
+	static class FakeTree implements LoggableTree, MonteCarloSimulationCompliantObject {
+		final String subjectId;
+		final int realizationId;
+		final double volumeM3;
+
+		FakeTree(String subjectId, int realizationId, double volumeM3) {
+			this.subjectId = subjectId;
+			this.realizationId = realizationId;
+			this.volumeM3 = volumeM3;
+		}
+
+		@Override
+		public double getCommercialVolumeM3() {return volumeM3;}
+
+		@Override
+		public boolean isCommercialVolumeOverbark() {return false;}
+
+		@Override
+		public String getSpeciesName() {return "sp";}
+
+		@Override
+		public double getBarkProportionOfWoodVolume(SpeciesLocale locale) {return 0d;}
+
+		@Override
+		public SpeciesLocale getSpeciesLocale() {return SpeciesLocale.NorthAmerica;}
+
+		@Override
+		public String getSubjectId() {return subjectId;}
+
+		@Override
+		public HierarchicalLevel getHierarchicalLevel() {return HierarchicalLevel.TREE;}
+
+		@Override
+		public int getMonteCarloRealizationId() {return realizationId;}
+	}
+
+	/*
+	 * A wrapper that does not implement the MonteCarloSimulationCompliantObject interface.
+	 */
+	static class WrappedTree implements LoggableTree {
+		final FakeTree tree;
+
+		WrappedTree(FakeTree tree) {
+			this.tree = tree;
+		}
+
+		@Override
+		public double getCommercialVolumeM3() {return tree.getCommercialVolumeM3();}
+
+		@Override
+		public boolean isCommercialVolumeOverbark() {return false;}
+
+		@Override
+		public String getSpeciesName() {return tree.getSpeciesName();}
+
+		@Override
+		public double getBarkProportionOfWoodVolume(SpeciesLocale locale) {return 0d;}
+
+		@Override
+		public SpeciesLocale getSpeciesLocale() {return tree.getSpeciesLocale();}
+	}
+
+	@SuppressWarnings("serial")
+	static class FakeLogCategory extends LogCategory {
+
+		double minimumVolumeM3;
+
+		public FakeLogCategory() {
+			super();
+		}
+
+		FakeLogCategory(String name, double minimumVolumeM3) {
+			super(name, false);
+			this.minimumVolumeM3 = minimumVolumeM3;
+		}
+
+		@Override
+		public Component getUI() {return null;}
+
+		@Override
+		public boolean isVisible() {return false;}
+
+		@Override
+		public double getYieldFromThisPiece(WoodPiece piece) throws Exception {return 1d;}
+
+		@Override
+		protected List<? extends WoodPiece> extractFromTree(LoggableTree tree, Object... parms) {return null;}
+	}
+
+	@SuppressWarnings("serial")
+	static class FakeWoodPiece extends WoodPiece {
+		FakeWoodPiece(LogCategory logCategory, LoggableTree tree, double volumeM3) {
+			super(logCategory, tree, false, volumeM3);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	static class FakeTreeLoggerParameters extends TreeLoggerParameters<FakeLogCategory> {
+
+		String region = "default";
+		SpeciesLocale locale = SpeciesLocale.NorthAmerica;
+
+		public FakeTreeLoggerParameters() {
+			super(FakeTreeLogger.class);
+			initializeDefaultLogCategories();
+		}
+
+		@Override
+		protected void initializeDefaultLogCategories() {
+			List<FakeLogCategory> categories = new ArrayList<FakeLogCategory>();
+			categories.add(new FakeLogCategory("sawlog", 0.5));
+			categories.add(new FakeLogCategory("pulpwood", 0d));
+			getLogCategories().put(ANY_SPECIES, categories);
+		}
+
+		@Override
+		public boolean isCorrect() {return true;}
+
+		@Override
+		public TreeLoggerParametersDialog<?> getUI(Container parent) {return null;}
+
+		@Override
+		public boolean isVisible() {return false;}
+	}
+
+	static class FakeTreeLogger extends TreeLogger<FakeTreeLoggerParameters, WrappedTree> {
+
+		static int NbCompatibilityChecks;
+		
+		int nbPlansCreated;
+
+		@Override
+		public WrappedTree getEligible(LoggableTree t) {
+			return t instanceof FakeTree && t.getCommercialVolumeM3() >= .5 ? new WrappedTree((FakeTree) t) : null;
+		}
+
+		@Override
+		protected Object createLoggingPlan(WrappedTree tree) {
+			nbPlansCreated++;
+			return params.getLogCategoryList().get(0);
+		}
+
+		@Override
+		protected void logThisTree(WrappedTree tree) {
+			throw new UnsupportedOperationException("The logging plan should be provided!");
+		}
+
+		@Override
+		protected void logThisTree(WrappedTree tree, Object loggingPlan) {
+			addWoodPiece(tree, new FakeWoodPiece((LogCategory) loggingPlan, tree, tree.getCommercialVolumeM3()));
+		}
+
+		@Override
+		public void setTreeLoggerParameters() {}
+
+		@Override
+		public FakeTreeLoggerParameters createDefaultTreeLoggerParameters() {return new FakeTreeLoggerParameters();}
+
+		@Override
+		public boolean isCompatibleWith(TreeLoggerCompatibilityCheck check) {
+			NbCompatibilityChecks++;
+			return check.getTreeInstance() instanceof FakeTree;
+		}
+	}
+
+	@Test
+	public void testResultsAreSplitByRealizationWithWrappedTrees() {
+		List<FakeTree> trees = new ArrayList<FakeTree>();
+		trees.add(new FakeTree("t1", 0, 1d));
+		trees.add(new FakeTree("t2", 0, .3));		// not eligible in this realization
+		trees.add(new FakeTree("t1", 1, 2d));
+		trees.add(new FakeTree("t2", 1, .8));		// eligible in this realization
+		FakeTreeLogger logger = new FakeTreeLogger();
+		logger.setTreeLoggerParameters(null);
+		logger.initWithRealizations(trees);
+		Assert.assertEquals("Testing the number of eligible trees", 3, logger.getLoggableTrees().size());
+		logger.run();
+		Assert.assertTrue("Testing the logging task", logger.isCorrectlyTerminated());
+		Assert.assertEquals("Testing one plan per tree identity", 2, logger.nbPlansCreated);
+
+		Map<Integer, Map<LoggableTree, Collection<WoodPiece>>> woodPieces = logger.getWoodPiecesByRealization();
+		Assert.assertEquals("Testing the number of realizations", 2, woodPieces.size());
+		Assert.assertEquals("Testing the trees of realization 0", 1, woodPieces.get(0).size());
+		Assert.assertEquals("Testing the trees of realization 1", 2, woodPieces.get(1).size());
+
+		Map<Integer, Map<String, Double>> volumes = logger.getWeightedTotalVolumeM3ByRealization();
+		Assert.assertEquals("Testing the volume of realization 0", 1d, volumes.get(0).get("sawlog"), 1E-8);
+		Assert.assertEquals("Testing the volume of realization 1", 2.8, volumes.get(1).get("sawlog"), 1E-8);
+	}
+
+}